@@ -0,0 +1,53 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.interpro.scan.io.sequence.FastaSequenceReader;
+import uk.ac.ebi.interpro.scan.io.sequence.SequenceReader;
+import uk.ac.ebi.interpro.scan.io.sequence.SequenceRecord;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading 1000 proteins (about 550 residues each): reading the FASTA with the {@link FastaSequenceReader},
+ * and creating the {@link Protein}s, which calculates the MD5 of each sequence.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class FastaReaderBenchmark {
+
+    private static final int PROTEINS = 1000;
+
+    private List<String> sequences;
+
+    private byte[] fasta;
+
+    @Setup
+    public void setup() {
+        sequences = SyntheticData.sequences(PROTEINS);
+        fasta = SyntheticData.fasta(sequences).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void read(final Blackhole blackhole) throws IOException {
+        new FastaSequenceReader(new SequenceReader.Listener() {
+            @Override
+            public void mapRecord(SequenceRecord record) {
+                blackhole.consume(record);
+            }
+        }).read(new ByteArrayInputStream(fasta));
+    }
+
+    @Benchmark
+    public void md5(Blackhole blackhole) {
+        for (String sequence : sequences) {
+            blackhole.consume(new Protein(sequence).getMd5());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.io.match.hmmer.hmmer3.Hmmer3DomTblParser;
+import uk.ac.ebi.interpro.scan.io.match.hmmer.hmmer3.Hmmer3SearchMatchParser;
+import uk.ac.ebi.interpro.scan.io.match.hmmer.hmmer3.Pfam_A_Hmmer3Hmmer3ParserSupport;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse one hmmsearch output file (Pfam parser support) and one hmmsearch --domtblout file,
+ * both generated at setup in the layout HMMER 3.1 writes: 200 models, each matching 25 of the
+ * proteins with one to three domains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class Hmmer3ParserBenchmark {
+
+    private static final int MODELS = 200;
+
+    private static final int HITS_PER_MODEL = 25;
+
+    private static final int PROTEINS = 2000;
+
+    private Hmmer3SearchMatchParser<PfamHmmer3RawMatch> searchParser;
+
+    private Hmmer3DomTblParser domTblParser;
+
+    private byte[] hmmsearchOutput;
+
+    private byte[] domTblOutput;
+
+    @Setup
+    public void setup() {
+        final Pfam_A_Hmmer3Hmmer3ParserSupport support = new Pfam_A_Hmmer3Hmmer3ParserSupport();
+        support.setSignatureLibrary(SignatureLibrary.PFAM);
+        support.setSignatureLibraryRelease("33.1");
+        searchParser = new Hmmer3SearchMatchParser<>(SignatureLibrary.PFAM, "33.1");
+        searchParser.setParserSupport(support);
+        domTblParser = new Hmmer3DomTblParser();
+
+        final StringBuilder hmmsearch = new StringBuilder();
+        final StringBuilder domTbl = new StringBuilder();
+        domTbl.append("# target name  accession  tlen  query name  accession  qlen  E-value  score  bias  #  of  c-Evalue  i-Evalue  score  bias  from  to  from  to  from  to  acc  description of target\n");
+        final Random random = new Random(SyntheticData.SEED);
+        for (int m = 0; m < MODELS; m++) {
+            appendModel(random, m, hmmsearch, domTbl);
+        }
+        hmmsearchOutput = hmmsearch.toString().getBytes(StandardCharsets.UTF_8);
+        domTblOutput = domTbl.toString().getBytes(StandardCharsets.UTF_8);
+        System.out.println(String.format("%nhmmsearch output %d KB, domtblout %d KB",
+                hmmsearchOutput.length / 1024, domTblOutput.length / 1024));
+    }
+
+    private static void appendModel(Random random, int m, StringBuilder hmmsearch, StringBuilder domTbl) {
+        final String name = "Fam" + m;
+        final String accession = String.format("PF%05d.%d", m + 1, 10 + m % 10);
+        final int modelLength = 60 + random.nextInt(300);
+        hmmsearch.append("Query:       ").append(name).append("  [M=").append(modelLength).append("]\n")
+                .append("Accession:   ").append(accession).append('\n')
+                .append("Description: Synthetic family ").append(m).append('\n')
+                .append("Scores for complete sequences (score includes all domains):\n")
+                .append("   --- full sequence ---   --- best 1 domain ---    -#dom-\n")
+                .append("    E-value  score  bias    E-value  score  bias    exp  N  Sequence  Description\n")
+                .append("    ------- ------ -----    ------- ------ -----   ---- --  --------  -----------\n");
+
+        final String[] targets = new String[HITS_PER_MODEL];
+        final int[] domainCounts = new int[HITS_PER_MODEL];
+        final double[] scores = new double[HITS_PER_MODEL];
+        for (int h = 0; h < HITS_PER_MODEL; h++) {
+            targets[h] = SyntheticData.proteinId(random.nextInt(PROTEINS));
+            domainCounts[h] = 1 + random.nextInt(3);
+            scores[h] = 300 - h * 10 + random.nextDouble();
+            hmmsearch.append(String.format(Locale.ENGLISH, "    %7.1e %6.1f %5.1f    %7.1e %6.1f %5.1f   %4.1f %2d  %s  Synthetic protein%n",
+                    evalue(scores[h]), scores[h], 0.1, evalue(scores[h]), scores[h], 0.1, 1.0, domainCounts[h], targets[h]));
+        }
+        hmmsearch.append("\nDomain and alignment annotation for each sequence:\n");
+        for (int h = 0; h < HITS_PER_MODEL; h++) {
+            hmmsearch.append(">> ").append(targets[h]).append("  Synthetic protein\n")
+                    .append("   #    score  bias  c-Evalue  i-Evalue hmmfrom  hmm to    alifrom  ali to    envfrom  env to     acc\n")
+                    .append(" ---   ------ ----- --------- --------- ------- -------    ------- -------    ------- -------    ----\n");
+            final StringBuilder alignments = new StringBuilder("\n  Alignments for each domain:\n");
+            for (int d = 1; d <= domainCounts[h]; d++) {
+                final double score = scores[h] / d;
+                final int aliFrom = 1 + (d - 1) * (modelLength + 20) + random.nextInt(10);
+                final int aliTo = aliFrom + modelLength - 5;
+                hmmsearch.append(String.format(Locale.ENGLISH, " %3d ! %6.1f %5.1f %9.2g %9.2g %7d %7d .. %7d %7d .. %7d %7d .. %4.2f%n",
+                        d, score, 0.1, evalue(score), evalue(score) * 100, 3, modelLength - 2, aliFrom, aliTo, aliFrom - 1, aliTo + 1, 0.97));
+                alignments.append(String.format(Locale.ENGLISH, "  == domain %d  score: %.1f bits;  conditional E-value: %.2g%n", d, score, evalue(score)));
+                final String hmmLine = SyntheticData.sequence(random, 60);
+                alignments.append(String.format("  %20s %4d %s %4d%n", name, 3, hmmLine.toLowerCase(Locale.ENGLISH), 62))
+                        .append(String.format("  %20s      %s%n", "", hmmLine.replace('W', '+')))
+                        .append(String.format("  %20s %4d %s %4d%n", targets[h], aliFrom, hmmLine, aliFrom + 59))
+                        .append(String.format("  %20s      %s PP%n%n", "", hmmLine.replaceAll("[A-Z]", "*")));
+                domTbl.append(String.format(Locale.ENGLISH,
+                        "%-12s  -  %5d  %-10s  %s  %5d  %9.2g  %6.1f  %5.1f  %3d  %3d  %9.2g  %9.2g  %6.1f  %5.1f  %5d  %5d  %5d  %5d  %5d  %5d  %4.2f  Synthetic protein%n",
+                        targets[h], 1200, name, accession, modelLength, evalue(scores[h]), scores[h], 0.1, d, domainCounts[h],
+                        evalue(score), evalue(score) * 100, score, 0.1, 3, modelLength - 2, aliFrom, aliTo, aliFrom - 1, aliTo + 1, 0.97));
+            }
+            hmmsearch.append(alignments);
+        }
+        hmmsearch.append("\n\nInternal pipeline statistics summary:\n-------------------------------------\n")
+                .append("Query model(s):                            1  (").append(modelLength).append(" nodes)\n")
+                .append("//\n");
+    }
+
+    private static double evalue(double score) {
+        return Math.pow(10, -score / 10);
+    }
+
+    @Benchmark
+    public Set<RawProtein<PfamHmmer3RawMatch>> hmmsearch() throws IOException {
+        return searchParser.parse(new ByteArrayInputStream(hmmsearchOutput));
+    }
+
+    @Benchmark
+    public Object domTbl() throws IOException {
+        return domTblParser.parse(new ByteArrayInputStream(domTblOutput), "hmmsearch");
+    }
+}
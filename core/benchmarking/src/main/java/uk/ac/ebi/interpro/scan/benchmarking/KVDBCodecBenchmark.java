@@ -0,0 +1,63 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.model.*;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.CompactKVDBCodec;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDBCodec;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.SerializationKVDBCodec;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.SignatureRegistry;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the KV store codecs on a fixed, synthetic per-protein match set:
+ * encoded bytes per record (printed at setup) and encode / decode time per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class KVDBCodecBenchmark {
+
+    @Param({CompactKVDBCodec.FORMAT, SerializationKVDBCodec.FORMAT})
+    public String format;
+
+    private KVDBCodec codec;
+
+    private SignatureRegistry registry;
+
+    private HashSet<Match> matches;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        codec = CompactKVDBCodec.FORMAT.equals(format) ? new CompactKVDBCodec() : new SerializationKVDBCodec();
+        final Map<String, Signature> signatures = new HashMap<>();
+        registry = new SignatureRegistry() {
+            @Override
+            public String register(Signature signature) {
+                signatures.put(signature.getAccession(), signature);
+                return signature.getAccession();
+            }
+
+            @Override
+            public Signature resolve(String reference) {
+                return signatures.get(reference);
+            }
+        };
+        matches = SyntheticData.matches(new Random(SyntheticData.SEED), 8);
+        encoded = codec.encode(matches, registry);
+        System.out.println(format + ": " + encoded.length + " bytes/record");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(matches, registry);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return codec.decode(encoded, registry);
+    }
+}
@@ -0,0 +1,81 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.model.Match;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per protein match set put (encode and write) and get (read and decode) through a {@link LevelDBStore}
+ * holding 10000 proteins, with the store's default codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+// The pure Java LevelDB unmaps its files through jdk.internal.ref.Cleaner, which Java 11 no longer exports.
+@Fork(jvmArgsAppend = {"--add-exports=java.base/jdk.internal.ref=ALL-UNNAMED", "--add-opens=java.base/java.nio=ALL-UNNAMED"})
+public class LevelDBStoreBenchmark {
+
+    private static final int RECORDS = 10000;
+
+    private File directory;
+
+    private LevelDBStore store;
+
+    private List<String> keys;
+
+    private List<HashSet<Match>> matchSets;
+
+    private int next = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("leveldb-benchmark").toFile();
+        store = new LevelDBStore(directory.getPath());
+        final Random random = new Random(SyntheticData.SEED);
+        keys = new ArrayList<>(RECORDS);
+        matchSets = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            keys.add(String.format("%032x", random.nextLong() & Long.MAX_VALUE));
+            matchSets.add(SyntheticData.matches(random, 1 + random.nextInt(12)));
+            store.put(keys.get(i), store.serialize(matchSets.get(i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.close();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % RECORDS;
+        return next;
+    }
+
+    @Benchmark
+    public void put() {
+        final int index = nextIndex();
+        store.put(keys.get(index), store.serialize(matchSets.get(index)));
+    }
+
+    @Benchmark
+    public Set<Match> get() {
+        return store.asMatchSet(store.get(keys.get(nextIndex())));
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.BinaryLookupMatchFormat;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntryXML;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.SimpleLookupMatch;
+import uk.ac.ebi.interpro.scan.precalc.client.MatchHttpClient;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Requests per second for a 100 protein lookup batch as XML (/matches) and in the BinaryLookupMatchFormat
+ * (/matches/binary), each including the conversion of every hit to a SimpleLookupMatch as the lookup
+ * does.  The response bytes per protein of each format are printed at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LookupFormatBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int HITS_PER_PROTEIN = 12;
+
+    private static final String[] LIBRARIES = {"PFAM,33.1", "GENE3D,4.3.0", "SUPERFAMILY,1.75", "PANTHER,15.0"};
+
+    private HttpServer server;
+
+    private MatchHttpClient xmlClient;
+
+    private MatchHttpClient binaryClient;
+
+    private String[] md5s;
+
+    @Setup
+    public void setup() throws Exception {
+        final Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+        marshaller.setClassesToBeBound(KVSequenceEntryXML.class, KVSequenceEntry.class);
+        marshaller.afterPropertiesSet();
+
+        md5s = new String[BATCH_SIZE];
+        final List<KVSequenceEntry> entries = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            md5s[i] = String.format("%032X", i * 7919L);
+            final KVSequenceEntry entry = new KVSequenceEntry();
+            entry.setMatchId(i);
+            entry.setProteinMD5(md5s[i]);
+            for (int h = 0; h < HITS_PER_PROTEIN; h++) {
+                final int start = h * 20 + 1 + i % 7;
+                entry.addMatch(LIBRARIES[h % LIBRARIES.length] + ",SIG" + (10000 + i * 13 + h) + ",SIG" + (10000 + i * 13 + h)
+                        + "," + start + "," + (start + 59) + "," + start + "-" + (start + 59) + "-S,"
+                        + (120.5 + i) + "," + (1.2E-30 * (h + 1)) + ",[]," + 1 + "," + 59 + "," + 60 + ","
+                        + (start - 2) + "," + (start + 61) + "," + (3.4E-29 * (h + 1)) + "," + (118.2 + h) + ",");
+            }
+            entries.add(entry);
+        }
+
+        final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        marshaller.marshal(new KVSequenceEntryXML(entries), new StreamResult(xml));
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        final BinaryLookupMatchFormat.Writer writer = new BinaryLookupMatchFormat.Writer(binary);
+        for (KVSequenceEntry entry : entries) {
+            writer.writeEntry(entry);
+        }
+        writer.finish();
+
+        final byte[] xmlBytes = xml.toByteArray();
+        final byte[] xmlGzip = gzip(xmlBytes);
+        final byte[] binaryBytes = binary.toByteArray();
+        final byte[] binaryGzip = gzip(binaryBytes);
+        System.out.println(String.format("%nBytes per protein (%d hits): xml %d (gzip %d), binary %d (gzip %d)",
+                HITS_PER_PROTEIN, xmlBytes.length / BATCH_SIZE, xmlGzip.length / BATCH_SIZE,
+                binaryBytes.length / BATCH_SIZE, binaryGzip.length / BATCH_SIZE));
+
+        // As a production servlet container would; otherwise delayed ACKs dominate kept-alive connections.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext(MatchHttpClient.MATCH_SERVICE_PATH, new StubHandler(xmlBytes, xmlGzip));
+        server.createContext(MatchHttpClient.BINARY_MATCH_SERVICE_PATH, new StubHandler(binaryBytes, binaryGzip));
+        server.start();
+
+        final String url = "http://localhost:" + server.getAddress().getPort();
+        xmlClient = new MatchHttpClient(marshaller);
+        xmlClient.setUrl(url);
+        binaryClient = new MatchHttpClient(marshaller);
+        binaryClient.setUrl(url);
+        binaryClient.setBinaryLookup(true);
+    }
+
+    private static byte[] gzip(byte[] plain) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(plain);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static final class StubHandler implements HttpHandler {
+
+        private final byte[] plain;
+
+        private final byte[] gzipped;
+
+        StubHandler(byte[] plain, byte[] gzipped) {
+            this.plain = plain;
+            this.gzipped = gzipped;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (InputStream is = exchange.getRequestBody()) {
+                while (is.read() != -1) {
+                    // drain the md5 parameters
+                }
+            }
+            final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = plain;
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = gzipped;
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        xmlClient.close();
+        binaryClient.close();
+        server.stop(0);
+    }
+
+    private static int consume(MatchHttpClient client, String[] md5s, final Blackhole blackhole) throws IOException {
+        return client.streamMatches(new MatchHttpClient.KVSequenceEntryHandler() {
+            @Override
+            public void handle(KVSequenceEntry kvSequenceEntry) {
+                for (SimpleLookupMatch match : kvSequenceEntry.getLookupMatches()) {
+                    blackhole.consume(match);
+                }
+            }
+        }, md5s);
+    }
+
+    @Benchmark
+    public int xml(Blackhole blackhole) throws IOException {
+        return consume(xmlClient, md5s, blackhole);
+    }
+
+    @Benchmark
+    public int binary(Blackhole blackhole) throws IOException {
+        return consume(binaryClient, md5s, blackhole);
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntryXML;
+import uk.ac.ebi.interpro.scan.precalc.client.MatchHttpClient;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Latency of one 100 protein /matches batch against a stub lookup service in this JVM:
+ * a new client and a whole-document unmarshal per batch (as before) against the pooled,
+ * streaming MatchHttpClient.  Run with several threads (-t) to measure concurrent batches.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MatchHttpClientBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int HITS_PER_PROTEIN = 12;
+
+    private HttpServer server;
+
+    private Jaxb2Marshaller marshaller;
+
+    private MatchHttpClient client;
+
+    private String[] md5s;
+
+    @Setup
+    public void setup() throws Exception {
+        marshaller = new Jaxb2Marshaller();
+        marshaller.setClassesToBeBound(KVSequenceEntryXML.class, KVSequenceEntry.class);
+        marshaller.afterPropertiesSet();
+
+        md5s = new String[BATCH_SIZE];
+        final List<KVSequenceEntry> entries = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            md5s[i] = String.format("%032X", i);
+            final KVSequenceEntry entry = new KVSequenceEntry();
+            entry.setMatchId(i);
+            entry.setProteinMD5(md5s[i]);
+            for (int h = 0; h < HITS_PER_PROTEIN; h++) {
+                entry.addMatch("PFAM,33.1,PF" + (10000 + h) + ",PF" + (10000 + h) + "," + (h * 20 + 1) + "," + (h * 20 + 60)
+                        + ",1,59,60,[],120.5,1.2E-30,118.2,3.4E-29,4.1E-28,0,0,0,,");
+            }
+            entries.add(entry);
+        }
+        final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        marshaller.marshal(new KVSequenceEntryXML(entries), new StreamResult(xml));
+        final byte[] plain = xml.toByteArray();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(plain);
+        }
+        final byte[] gzipped = compressed.toByteArray();
+
+        // As a production servlet container would; otherwise delayed ACKs dominate kept-alive connections.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext(MatchHttpClient.MATCH_SERVICE_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream is = exchange.getRequestBody()) {
+                    while (is.read() != -1) {
+                        // drain the md5 parameters
+                    }
+                }
+                final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                byte[] body = plain;
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    body = gzipped;
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+        });
+        server.start();
+
+        client = new MatchHttpClient(marshaller);
+        client.setUrl("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public KVSequenceEntryXML newClientPerBatch() throws IOException {
+        final List<BasicNameValuePair> qparams = new ArrayList<>();
+        for (String md5 : md5s) {
+            qparams.add(new BasicNameValuePair("md5", md5));
+        }
+        final HttpPost post = new HttpPost(client.getUrl() + MatchHttpClient.MATCH_SERVICE_PATH);
+        post.setEntity(new UrlEncodedFormEntity(qparams, "UTF-8"));
+        try (CloseableHttpClient httpclient = HttpClients.createDefault();
+             CloseableHttpResponse response = httpclient.execute(post);
+             InputStream is = response.getEntity().getContent()) {
+            return (KVSequenceEntryXML) marshaller.unmarshal(new StreamSource(is));
+        }
+    }
+
+    @Benchmark
+    public KVSequenceEntryXML pooledStreaming() throws IOException {
+        return client.getMatches(md5s);
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.model.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the match set of a protein with 100 or more matches, as done by Protein.addMatch,
+ * the KV store decoding and the merges before output, against the same set built with the deep
+ * HashCodeBuilder hashes that Match, Location and Signature used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MatchSetBenchmark {
+
+    @Param({"100", "400"})
+    public int matchCount;
+
+    private List<Match> matches;
+
+    @Setup
+    public void setup() {
+        matches = new ArrayList<>(SyntheticData.matches(new Random(SyntheticData.SEED), matchCount));
+    }
+
+    @Benchmark
+    public Set<Match> buildMatchSet() {
+        final Set<Match> set = new HashSet<>();
+        for (Match match : matches) {
+            set.add(match);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public Protein addMatchesToProtein() {
+        final Protein protein = new Protein("MKV");
+        for (Match match : matches) {
+            protein.addMatch(match);
+        }
+        return protein;
+    }
+
+    /**
+     * The previous hashing, keyed by a wrapper so that the set is built with the same number of lookups.
+     */
+    @Benchmark
+    public Set<LegacyKey> buildMatchSetWithLegacyHash() {
+        final Set<LegacyKey> set = new HashSet<>();
+        for (Match match : matches) {
+            set.add(new LegacyKey(match));
+        }
+        return set;
+    }
+
+    static final class LegacyKey {
+
+        private final Match match;
+
+        private final int hash;
+
+        LegacyKey(Match match) {
+            this.match = match;
+            this.hash = legacyHashCode(match);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LegacyKey && match.equals(((LegacyKey) o).match);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static int legacyHashCode(Match<?> match) {
+        int locationsHash = 0;
+        for (Location location : match.getLocations()) {
+            locationsHash += new HashCodeBuilder(19, 55).append(location.getStart()).append(location.getEnd()).toHashCode();
+        }
+        final Signature signature = match.getSignature();
+        final SignatureLibraryRelease release = signature.getSignatureLibraryRelease();
+        final int signatureHash = new HashCodeBuilder(17, 37)
+                .append(signature.getAccession())
+                .append(signature.getName())
+                .append(signature.getType())
+                .append(signature.getCreated())
+                .append(signature.getUpdated())
+                .append(signature.getMd5() == null ? "" : signature.getMd5().toLowerCase())
+                .append(signature.getComment())
+                .append(new HashCodeBuilder(19, 39).append(release.getLibrary()).append(release.getVersion()).toHashCode())
+                .toHashCode();
+        return new HashCodeBuilder(19, 51).append(locationsHash).append(signatureHash).toHashCode();
+    }
+}
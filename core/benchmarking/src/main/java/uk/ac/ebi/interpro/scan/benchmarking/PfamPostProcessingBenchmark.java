@@ -0,0 +1,145 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.business.postprocessing.pfam_A.ClanFileParser;
+import uk.ac.ebi.interpro.scan.business.postprocessing.pfam_A.PfamHMMER3PostProcessing;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PfamHMMER3PostProcessing#process} of a 500 protein batch with 12 raw matches per protein, drawn from
+ * 200 models of which half are in clans of ten, so that the clan overlap and nesting checks are exercised.
+ * The seed, clan and Pfam-A.hmm.dat files are generated at setup; they are parsed on the first
+ * invocation only, so the score is the filtering itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class PfamPostProcessingBenchmark {
+
+    private static final int MODELS = 200;
+
+    private static final int CLAN_SIZE = 10;
+
+    private static final int PROTEINS = 500;
+
+    private static final int MATCHES_PER_PROTEIN = 12;
+
+    private File directory;
+
+    private PfamHMMER3PostProcessing postProcessing;
+
+    private Map<String, RawProtein<PfamHmmer3RawMatch>> rawProteins;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("pfam-benchmark").toFile();
+        final File seedFile = new File(directory, "Pfam-A.seed");
+        final File clanFile = new File(directory, "Pfam-C");
+        final File datFile = new File(directory, "Pfam-A.hmm.dat");
+        try (PrintWriter seed = new PrintWriter(seedFile, StandardCharsets.UTF_8.name());
+             PrintWriter clans = new PrintWriter(clanFile, StandardCharsets.UTF_8.name());
+             PrintWriter dat = new PrintWriter(datFile, StandardCharsets.UTF_8.name())) {
+            for (int m = 0; m < MODELS; m++) {
+                seed.println("# STOCKHOLM 1.0");
+                seed.println("#=GF ID   " + name(m));
+                seed.println("#=GF AC   " + accession(m) + ".12");
+                seed.println("//");
+
+                dat.println("# STOCKHOLM 1.0");
+                dat.println("#=GF ID   " + name(m));
+                dat.println("#=GF AC   " + accession(m) + ".12");
+                dat.println("#=GF DE   Synthetic family " + m);
+                dat.println("#=GF GA   25.00; 25.00;");
+                dat.println("#=GF TP   Domain");
+                dat.println("#=GF ML   120");
+                if (m % 25 == 0) {
+                    dat.println("#=GF NE   " + name(m + 1));
+                }
+                if (inClan(m)) {
+                    dat.println("#=GF CL   " + clan(m));
+                }
+                dat.println("//");
+            }
+            for (int m = 0; m < MODELS; m++) {
+                if (inClan(m) && m % CLAN_SIZE == 0) {
+                    clans.println("# STOCKHOLM 1.0");
+                    clans.println("#=GF AC   " + clan(m) + ".5");
+                    for (int member = m; member < m + CLAN_SIZE; member++) {
+                        clans.println("#=GF MB   " + accession(member) + ";");
+                    }
+                    clans.println("//");
+                }
+            }
+        }
+
+        final ClanFileParser clanFileParser = new ClanFileParser();
+        clanFileParser.setPfamASeedFile(seedFile.getPath());
+        clanFileParser.setPfamCFile(clanFile.getPath());
+        postProcessing = new PfamHMMER3PostProcessing();
+        postProcessing.setClanFileParser(clanFileParser);
+        postProcessing.setPfamHmmDataPath(datFile.getPath());
+
+        final Random random = new Random(SyntheticData.SEED);
+        rawProteins = new HashMap<>();
+        for (int p = 0; p < PROTEINS; p++) {
+            final String proteinId = Integer.toString(p + 1);
+            final RawProtein<PfamHmmer3RawMatch> rawProtein = new RawProtein<>(proteinId);
+            for (int i = 0; i < MATCHES_PER_PROTEIN; i++) {
+                final int start = 1 + random.nextInt(600);
+                final int end = start + 30 + random.nextInt(150);
+                final double score = 20 + random.nextDouble() * 200;
+                final double evalue = Math.pow(10, -score / 10);
+                // Half of the matches from the first three clans, so that most proteins have clan competitors.
+                final int model = random.nextBoolean() ? random.nextInt(3 * CLAN_SIZE) : random.nextInt(MODELS);
+                rawProtein.addMatch(new PfamHmmer3RawMatch(proteinId, accession(model),
+                        SignatureLibrary.PFAM, "33.1", start, end, evalue, score, 1, end - start, "[]", score,
+                        start - 1, end + 1, 0.95, 0.1, evalue, evalue, 0.1));
+            }
+            rawProteins.put(proteinId, rawProtein);
+        }
+    }
+
+    private static String name(int model) {
+        return "Fam" + model;
+    }
+
+    private static String accession(int model) {
+        return String.format("PF%05d", model + 1);
+    }
+
+    private static boolean inClan(int model) {
+        return model < MODELS / 2;
+    }
+
+    private static String clan(int model) {
+        return String.format("CL%04d", model / CLAN_SIZE + 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Map<String, RawProtein<PfamHmmer3RawMatch>> process() throws IOException {
+        return postProcessing.process(rawProteins);
+    }
+}
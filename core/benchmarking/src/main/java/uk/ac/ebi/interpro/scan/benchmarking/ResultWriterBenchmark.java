@@ -0,0 +1,85 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.io.match.writer.ProteinMatchesJSONResultWriter;
+import uk.ac.ebi.interpro.scan.io.match.writer.ProteinMatchesTSVResultWriter;
+import uk.ac.ebi.interpro.scan.io.match.writer.ProteinMatchesXMLJAXBFragmentsResultWriter;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the output file for 200 proteins with eight matches each, as WriteOutputStep does for each
+ * format: the TSV writer, the JSON writer and the XML fragment writer (including its re-indenting close()),
+ * marshalling on the calling thread and on four marshaller threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ResultWriterBenchmark {
+
+    private static final String VERSION = "5.47-82.0";
+
+    @Param({"tsv", "json", "xml", "xml-parallel"})
+    public String format;
+
+    private List<Protein> proteins;
+
+    private Path directory;
+
+    private Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        proteins = SyntheticData.proteins(200);
+        directory = Files.createTempDirectory("writer-benchmark");
+        output = directory.resolve("output." + format);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long write() throws IOException, XMLStreamException, JAXBException {
+        switch (format) {
+            case "tsv":
+                try (ProteinMatchesTSVResultWriter writer = new ProteinMatchesTSVResultWriter(output, true)) {
+                    for (Protein protein : proteins) {
+                        writer.write(protein);
+                    }
+                }
+                break;
+            case "json":
+                try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(output, false)) {
+                    writer.writeHeader(VERSION);
+                    for (Protein protein : proteins) {
+                        writer.write(protein);
+                    }
+                }
+                break;
+            case "xml":
+            case "xml-parallel":
+                final int marshallerThreads = format.equals("xml") ? 1 : 4;
+                try (ProteinMatchesXMLJAXBFragmentsResultWriter writer = new ProteinMatchesXMLJAXBFragmentsResultWriter(output, Protein.class, false, marshallerThreads)) {
+                    writer.header(VERSION, "protein-matches");
+                    for (Protein protein : proteins) {
+                        writer.write(protein, "p", false);
+                    }
+                    writer.footer();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown output format " + format);
+        }
+        return Files.size(output);
+    }
+}
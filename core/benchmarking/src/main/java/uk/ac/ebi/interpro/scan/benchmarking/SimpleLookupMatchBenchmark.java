@@ -0,0 +1,48 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.SimpleLookupMatch;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing 1000 comma separated precalculated match lookup hits, as stored by the lookup service and
+ * sent in its XML responses, into {@link SimpleLookupMatch}es.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SimpleLookupMatchBenchmark {
+
+    private static final String[] LIBRARIES = {"PFAM,33.1", "GENE3D,4.3.0", "SUPERFAMILY,1.75", "PANTHER,15.0", "SMART,7.1"};
+
+    private static final String PROTEIN_MD5 = "00006F313F29B29DA473B6DDF28AF744";
+
+    private String[] hits;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(SyntheticData.SEED);
+        hits = new String[1000];
+        for (int i = 0; i < hits.length; i++) {
+            final int start = 1 + random.nextInt(800);
+            final int end = start + 20 + random.nextInt(200);
+            final double score = 20 + random.nextDouble() * 200;
+            final String evalue = String.format(Locale.ENGLISH, "%.1E", Math.pow(10, -score / 10));
+            final String accession = String.format("SIG%05d", random.nextInt(20000));
+            hits[i] = LIBRARIES[i % LIBRARIES.length] + "," + accession + "," + accession + "," + start + "," + end + ","
+                    + start + "-" + end + "-S," + score + "," + evalue + ",[]," + 1 + "," + (end - start) + ","
+                    + (end - start + 10) + "," + (start - 1) + "," + (end + 1) + "," + evalue + "," + score + ",";
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String hit : hits) {
+            blackhole.consume(new SimpleLookupMatch(PROTEIN_MD5, hit));
+        }
+    }
+}
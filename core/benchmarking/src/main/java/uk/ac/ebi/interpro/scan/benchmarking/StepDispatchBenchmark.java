@@ -0,0 +1,160 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.interpro.scan.jms.activemq.StepExecutionTransaction;
+import uk.ac.ebi.interpro.scan.jms.master.InProcessStepExecutor;
+import uk.ac.ebi.interpro.scan.management.dao.StepExecutionDAO;
+import uk.ac.ebi.interpro.scan.management.model.Jobs;
+import uk.ac.ebi.interpro.scan.management.model.Step;
+import uk.ac.ebi.interpro.scan.management.model.StepExecution;
+import uk.ac.ebi.interpro.scan.management.model.StepInstance;
+
+import javax.jms.*;
+import java.lang.IllegalStateException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of dispatching one (no-op) StepExecution in standalone mode and receiving its completion:
+ * through the embedded in-VM ActiveMQ broker (ObjectMessage to the job request queue, a listener replying
+ * on the response queue, as the embedded workers and responseMonitorListener do) against the
+ * {@link InProcessStepExecutor}.  The StepInstance covers a 1000 protein range, as for each chunk of a
+ * 1,000 sequence job; multiply by the StepInstances of a job for its total dispatch overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StepDispatchBenchmark {
+
+    private static final int PRIORITY = 6;
+
+    /**
+     * Static, so the StepInstance does not reference the benchmark when serialised.
+     */
+    private static class NoOpStep extends Step {
+        @Override
+        public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
+        }
+    }
+
+    private final Step step = new NoOpStep();
+
+    private final SynchronousQueue<StepExecution> completed = new SynchronousQueue<>();
+
+    private InProcessStepExecutor executor;
+
+    private BrokerService broker;
+
+    private Connection connection;
+
+    private Session session;
+
+    private MessageProducer producer;
+
+    private MessageConsumer responseConsumer;
+
+    @Setup
+    public void setup() throws Exception {
+        step.setBeanName("stepPfamA_RunHmmer3");
+
+        executor = new InProcessStepExecutor();
+        executor.setJobs(new Jobs());
+        executor.setStepExecutionDAO((StepExecutionDAO) Proxy.newProxyInstance(StepDispatchBenchmark.class.getClassLoader(),
+                new Class<?>[]{StepExecutionDAO.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;
+                    }
+                }));
+        executor.setStepExecutor(new StepExecutionTransaction() {
+            @Override
+            public void executeInTransaction(StepExecution stepExecution, Message message) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void executeInTransaction(StepExecution stepExecution) {
+                stepExecution.setToRun();
+                stepExecution.completeSuccessfully();
+            }
+        });
+        executor.start(1, new InProcessStepExecutor.CompletionListener() {
+            @Override
+            public void stepExecutionCompleted(StepExecution stepExecution) {
+                try {
+                    completed.put(stepExecution);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        broker = new BrokerService();
+        broker.setBrokerName("dispatch-benchmark");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(false);
+        broker.start();
+        final ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://dispatch-benchmark?create=false");
+        connectionFactory.setTrustAllPackages(true);
+        connection = connectionFactory.createConnection();
+        connection.start();
+        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        final Queue jobRequestQueue = session.createQueue("jobRequestQueue");
+        final Queue jobResponseQueue = session.createQueue("jobResponseQueue");
+        producer = session.createProducer(jobRequestQueue);
+        producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        responseConsumer = session.createConsumer(jobResponseQueue);
+
+        // The worker, on its own session (and so its own thread).
+        final Session workerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        final MessageProducer replyProducer = workerSession.createProducer(jobResponseQueue);
+        replyProducer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        workerSession.createConsumer(jobRequestQueue).setMessageListener(new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                try {
+                    final StepExecution stepExecution = (StepExecution) ((ObjectMessage) message).getObject();
+                    stepExecution.setToRun();
+                    stepExecution.completeSuccessfully();
+                    replyProducer.send(workerSession.createObjectMessage(stepExecution));
+                } catch (JMSException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        connection.close();
+        broker.stop();
+    }
+
+    private StepInstance stepInstance() {
+        final StepInstance stepInstance = new StepInstance(step, 1L, 1000L, null, null);
+        stepInstance.addParameter("fasta.file.path", "/tmp/temp/job/000000000001_000000001000.fasta");
+        stepInstance.addParameter("output.file.path", "/tmp/temp/job/000000000001_000000001000.raw.out");
+        return stepInstance;
+    }
+
+    @Benchmark
+    public StepExecution inProcess() throws InterruptedException {
+        executor.submit(stepInstance(), PRIORITY);
+        return completed.take();
+    }
+
+    @Benchmark
+    public StepExecution jmsBroker() throws JMSException {
+        final StepExecution stepExecution = stepInstance().createStepExecution();
+        final ObjectMessage message = session.createObjectMessage(stepExecution);
+        producer.send(message, DeliveryMode.NON_PERSISTENT, PRIORITY, 0);
+        return (StepExecution) ((ObjectMessage) responseConsumer.receive()).getObject();
+    }
+}
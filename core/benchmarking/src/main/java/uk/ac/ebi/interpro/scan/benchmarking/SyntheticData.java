@@ -0,0 +1,97 @@
+package uk.ac.ebi.interpro.scan.benchmarking;
+
+import uk.ac.ebi.interpro.scan.model.*;
+
+import java.util.*;
+
+/**
+ * Fixed, seeded data sets shared by the benchmarks, so that a change in a benchmark score comes from
+ * the code under test and not from the data.  Every method returns the same data for the same arguments.
+ */
+final class SyntheticData {
+
+    static final long SEED = 42;
+
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+
+    private SyntheticData() {
+    }
+
+    static String sequence(Random random, int length) {
+        final char[] residues = new char[length];
+        for (int i = 0; i < length; i++) {
+            residues[i] = AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length()));
+        }
+        return new String(residues);
+    }
+
+    /**
+     * @return protein sequences of 50 to 1049 residues.
+     */
+    static List<String> sequences(int count) {
+        final Random random = new Random(SEED);
+        final List<String> sequences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sequences.add(sequence(random, 50 + random.nextInt(1000)));
+        }
+        return sequences;
+    }
+
+    /**
+     * @return the sequences as FASTA, wrapped at 60 residues as UniProt does.
+     */
+    static String fasta(List<String> sequences) {
+        final StringBuilder fasta = new StringBuilder();
+        for (int i = 0; i < sequences.size(); i++) {
+            fasta.append(">").append(proteinId(i)).append(" Synthetic protein ").append(i).append('\n');
+            final String sequence = sequences.get(i);
+            for (int start = 0; start < sequence.length(); start += 60) {
+                fasta.append(sequence, start, Math.min(start + 60, sequence.length())).append('\n');
+            }
+        }
+        return fasta.toString();
+    }
+
+    static String proteinId(int index) {
+        return String.format("SYN%06d", index);
+    }
+
+    /**
+     * A Pfam-like match set: one signature per match, one or two locations per match.
+     */
+    static HashSet<Match> matches(Random random, int matchCount) {
+        final SignatureLibraryRelease release = new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1");
+        final HashSet<Match> matches = new HashSet<>();
+        for (int i = 0; i < matchCount; i++) {
+            final Signature signature = new Signature.Builder(String.format("PF%05d", random.nextInt(20000)))
+                    .name("Synthetic family " + i)
+                    .description("Synthetic Pfam family used for benchmarking")
+                    .signatureLibraryRelease(release)
+                    .build();
+            final Set<Hmmer3Match.Hmmer3Location> locations = new HashSet<>();
+            final int locationCount = 1 + random.nextInt(2);
+            for (int l = 0; l < locationCount; l++) {
+                final int start = 1 + random.nextInt(800);
+                final int end = start + 20 + random.nextInt(200);
+                locations.add(new Hmmer3Match.Hmmer3Location(start, end, random.nextDouble() * 100, random.nextDouble() * 1e-5,
+                        1, end - start, end - start + 10, HmmBounds.COMPLETE, start, end, false, DCStatus.CONTINUOUS));
+            }
+            matches.add(new Hmmer3Match(signature, signature.getAccession(), random.nextDouble() * 200, random.nextDouble() * 1e-10, locations));
+        }
+        return matches;
+    }
+
+    /**
+     * @return proteins with a cross reference and eight Pfam-like matches each, as written to the output files.
+     */
+    static List<Protein> proteins(int count) {
+        final Random random = new Random(SEED);
+        final List<Protein> proteins = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Set<Match> matches = new HashSet<Match>(matches(random, 8));
+            final Set<ProteinXref> xrefs = Collections.singleton(new ProteinXref(proteinId(i)));
+            proteins.add(new Protein(sequence(random, 50 + random.nextInt(1000)), matches, xrefs));
+        }
+        return proteins;
+    }
+}
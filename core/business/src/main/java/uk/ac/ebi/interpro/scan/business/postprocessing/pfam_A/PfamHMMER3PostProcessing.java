@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Required;
 import uk.ac.ebi.interpro.scan.business.postprocessing.pfam_A.model.PfamClan;
 import uk.ac.ebi.interpro.scan.business.postprocessing.pfam_A.model.PfamClanData;
 import uk.ac.ebi.interpro.scan.business.postprocessing.pfam_A.model.PfamModel;
+import uk.ac.ebi.interpro.scan.io.referencedata.ReferenceDataCache;
+import uk.ac.ebi.interpro.scan.io.referencedata.ReferenceDataLoader;
 import uk.ac.ebi.interpro.scan.model.Hmmer3Match;
 import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
@@ -37,6 +39,10 @@ public class PfamHMMER3PostProcessing implements Serializable {
 
     private String pfamHmmDataPath;
 
+    private boolean pfamHmmDataSnapshot = false;
+
+    private static final PfamHmmDataLoader PFAM_HMM_DATA_LOADER = new PfamHmmDataLoader();
+
     @Required
     public void setClanFileParser(ClanFileParser clanFileParser) {
         this.clanFileParser = clanFileParser;
@@ -57,6 +63,14 @@ public class PfamHMMER3PostProcessing implements Serializable {
         this.pfamHmmDataPath = pfamHmmDataPath;
     }
 
+    /**
+     * @param pfamHmmDataSnapshot if true, the parsed nesting data is also saved as a binary snapshot next to
+     *                            the Pfam-A.hmm.dat file, and read from there by later runs.
+     */
+    public void setPfamHmmDataSnapshot(boolean pfamHmmDataSnapshot) {
+        this.pfamHmmDataSnapshot = pfamHmmDataSnapshot;
+    }
+
     /**
      * Post-processes raw results for Pfam HMMER3 in the batch requested.
      *
@@ -379,7 +393,80 @@ public class PfamHMMER3PostProcessing implements Serializable {
     }
 
 
+    /**
+     * @return model accession to the accessions of the models that may be nested in it, parsed once per JVM
+     * from the Pfam-A.hmm.dat file.  Shared, so must not be modified.
+     */
     public Map<String, Set<String>> getPfamHmmData() throws IOException {
+        return ReferenceDataCache.get(new File(pfamHmmDataPath), PFAM_HMM_DATA_LOADER, pfamHmmDataSnapshot);
+    }
+
+    /**
+     * Parses the nesting (NE) lines of Pfam-A.hmm.dat, with a binary snapshot of the result.
+     */
+    static class PfamHmmDataLoader extends ReferenceDataLoader<Map<String, Set<String>>> {
+
+        @Override
+        public String getName() {
+            return "pfam-nesting";
+        }
+
+        @Override
+        public Map<String, Set<String>> parse(File file) throws IOException {
+            return Collections.unmodifiableMap(parsePfamHmmData(file.getPath()));
+        }
+
+        @Override
+        public long estimateSize(Map<String, Set<String>> data) {
+            long size = 0;
+            for (Map.Entry<String, Set<String>> entry : data.entrySet()) {
+                size += 100 + stringSize(entry.getKey());
+                for (String nested : entry.getValue()) {
+                    size += 32 + stringSize(nested);
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public int getSnapshotVersion() {
+            return 1;
+        }
+
+        @Override
+        public void writeSnapshot(Map<String, Set<String>> data, DataOutput out) throws IOException {
+            out.writeInt(data.size());
+            for (Map.Entry<String, Set<String>> entry : data.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String nested : entry.getValue()) {
+                    // A nested model name missing from the file maps to a null accession.
+                    out.writeBoolean(nested != null);
+                    if (nested != null) {
+                        out.writeUTF(nested);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Map<String, Set<String>> readSnapshot(DataInput in) throws IOException {
+            final int size = in.readInt();
+            final Map<String, Set<String>> data = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                final String accession = in.readUTF();
+                final int nestedCount = in.readInt();
+                final Set<String> nested = new HashSet<>(nestedCount * 2);
+                for (int j = 0; j < nestedCount; j++) {
+                    nested.add(in.readBoolean() ? in.readUTF() : null);
+                }
+                data.put(accession, nested);
+            }
+            return Collections.unmodifiableMap(data);
+        }
+    }
+
+    static Map<String, Set<String>> parsePfamHmmData(String pfamHmmDataPath) throws IOException {
         LOGGER.debug("Starting to parse hmm data file.");
         Utilities.verboseLog(1100, "Starting to parse hmm data file -- " + pfamHmmDataPath);
         Map<String, String> domainNameToAccesstion = new HashMap<>();
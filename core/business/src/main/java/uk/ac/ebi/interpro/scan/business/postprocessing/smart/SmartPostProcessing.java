@@ -3,6 +3,9 @@ package uk.ac.ebi.interpro.scan.business.postprocessing.smart;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.core.io.Resource;
+import uk.ac.ebi.interpro.scan.io.referencedata.ReferenceDataCache;
+import uk.ac.ebi.interpro.scan.io.referencedata.ReferenceDataLoader;
 import uk.ac.ebi.interpro.scan.io.smart.SmartOverlappingFileParser;
 import uk.ac.ebi.interpro.scan.io.smart.SmartOverlaps;
 import uk.ac.ebi.interpro.scan.io.smart.SmartThresholdFileParser;
@@ -12,6 +15,7 @@ import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.raw.SmartRawMatch;
 import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
@@ -46,8 +50,8 @@ public class SmartPostProcessing implements Serializable {
     private SmartOverlappingFileParser overlappingFileParser;
     private SmartResourceManager smartResourceManager;
     private ProteinDAO proteinDAO;
-    private SmartOverlaps smartOverlaps;
-    private SmartThresholds smartThresholds;
+    private volatile SmartOverlaps smartOverlaps;
+    private volatile SmartThresholds smartThresholds;
 
 
     @Required
@@ -105,6 +109,78 @@ public class SmartPostProcessing implements Serializable {
         return filteredMatches;
     }
 
+    /**
+     * Licensed resources are present, so parse them (once per JVM, via the ReferenceDataCache).
+     */
+    private synchronized void loadLicensedResources() throws IOException {
+        if (smartThresholds != null && smartOverlaps != null) {
+            return;
+        }
+        final SmartThresholds thresholds = load(smartResourceManager.getThresholdFileResource(), new ReferenceDataLoader<SmartThresholds>() {
+            @Override
+            public String getName() {
+                return "smart-thresholds";
+            }
+
+            @Override
+            public SmartThresholds parse(File file) throws IOException {
+                return thresholdFileParser.parse(smartResourceManager.getThresholdFileResource());
+            }
+
+            @Override
+            public long estimateSize(SmartThresholds data) {
+                return data.size() * 400L;
+            }
+        });
+        // The overlaps are resolved against a particular version of the thresholds file.
+        final String thresholdsVersion = getFileVersion(smartResourceManager.getThresholdFileResource());
+        final ReferenceDataLoader<SmartOverlaps> overlapsLoader = new ReferenceDataLoader<SmartOverlaps>() {
+            @Override
+            public String getName() {
+                return "smart-overlapping-" + thresholdsVersion;
+            }
+
+            @Override
+            public SmartOverlaps parse(File file) throws IOException {
+                return overlappingFileParser.parse(smartResourceManager.getOverlappingFileResource(), thresholds);
+            }
+
+            @Override
+            public long estimateSize(SmartOverlaps data) {
+                return data.size() * 200L;
+            }
+        };
+        smartOverlaps = (thresholdsVersion == null)
+                ? overlapsLoader.parse(null)
+                : load(smartResourceManager.getOverlappingFileResource(), overlapsLoader);
+        smartThresholds = thresholds;
+    }
+
+    /**
+     * @return the canonical path, modification time and length of the file, or null if the resource is not a file
+     * (in which case it is parsed again on each load, rather than cached).
+     */
+    private static String getFileVersion(Resource resource) throws IOException {
+        final File file;
+        try {
+            file = resource.getFile();
+        } catch (IOException e) {
+            return null;
+        }
+        return file.getCanonicalPath() + '@' + file.lastModified() + '@' + file.length();
+    }
+
+    private static <T> T load(Resource resource, ReferenceDataLoader<T> loader) throws IOException {
+        final File file;
+        try {
+            file = resource.getFile();
+        } catch (IOException e) {
+            // e.g. a classpath resource in a jar, which cannot be checked for changes.
+            return loader.parse(null);
+        }
+        return ReferenceDataCache.get(file, loader, false);
+    }
+
     /**
      * The SMART resources are available, so running in licensed mode.
      *
@@ -114,9 +190,7 @@ public class SmartPostProcessing implements Serializable {
      */
     private RawProtein<SmartRawMatch> processProteinLicensed(RawProtein<SmartRawMatch> smartRawMatchRawProtein) throws IOException {
         if (smartThresholds == null || smartOverlaps == null) {
-            // Licensed resources are present, so parse them.
-            smartThresholds = thresholdFileParser.parse(smartResourceManager.getThresholdFileResource());
-            smartOverlaps = overlappingFileParser.parse(smartResourceManager.getOverlappingFileResource(), smartThresholds);
+            loadLicensedResources();
         }
 
         // Lots of filters...
@@ -22,6 +22,7 @@ import javax.xml.bind.JAXBException;
 import java.io.IOException;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Looks up precalculated matches from the Berkeley WebService.
@@ -64,6 +65,8 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
 
     private int proteinPrecalcLookupBatchSize = 100;
 
+    private int lookupBatchesInFlight = 1;
+
     private Map<String, SignatureLibraryRelease> analysisJobMap;
 
     private String interproscanVersion;
@@ -72,7 +75,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
 
     private Long timeLookupSynchronisationError = null;
 
-    private int totalLookedup = 0;
+    private final AtomicInteger totalLookedup = new AtomicInteger();
 
     public BerkeleyPrecalculatedProteinLookup() {
 
@@ -121,6 +124,18 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         this.preCalcMatchClient = preCalcMatchClient;
     }
 
+    public void setProteinPrecalcLookupBatchSize(int proteinPrecalcLookupBatchSize) {
+        this.proteinPrecalcLookupBatchSize = proteinPrecalcLookupBatchSize;
+    }
+
+    /**
+     * Optional, the number of lookup requests that run() keeps in flight while it assembles the next batches.
+     * 1 (the default) looks the batches up one after the other.
+     */
+    public void setLookupBatchesInFlight(int lookupBatchesInFlight) {
+        this.lookupBatchesInFlight = lookupBatchesInFlight;
+    }
+
     public void setAnalysisJobMap(Map<String, SignatureLibraryRelease> analysisJobMap) {
         this.analysisJobMap = analysisJobMap;
     }
@@ -138,81 +153,46 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         }
 
         final Set<Protein> proteinsAwaitingPrecalcLookup = new HashSet<>();
-        final Set<Protein> precalculatedProteins = new HashSet<>();
+        final AtomicInteger precalculatedProteinCount = new AtomicInteger();
         int proteinsCount = proteins.size();
 
-        int proteinNotInLookupCount = 0;
         //check the kv stores in proteinDAO
         proteinDAO.checkKVDBStores();
 
         int oldProgressMeter = 0;
-        for (Protein protein : proteins) {
-            count++;
-            if (proteinsAwaitingPrecalcLookup == null) {
-                Utilities.verboseLog(30, proteinRange + "proteinsAwaitingPrecalcLookup is null -- " + proteinsAwaitingPrecalcLookup);
-            }
-            proteinsAwaitingPrecalcLookup.add(protein);
-            if ((proteinsAwaitingPrecalcLookup.size() >= proteinPrecalcLookupBatchSize) || (count >= proteinsCount)) {
-                batchCount++;
-                Utilities.verboseLog(30, proteinRange + " lookup up protein batch no. " + batchCount);
-                final Set<Protein> localPrecalculatedProteins = getPrecalculated(proteinsAwaitingPrecalcLookup, analysisJobMap);
-                boolean printedProteinKeyRep = false;
-                if (localPrecalculatedProteins != null) {
-                    Utilities.verboseLog(30, proteinRange + " We have precalculated proteins: " + localPrecalculatedProteins.size());
-                    final Map<String, Protein> md5ToPrecalcProtein = new HashMap<>(localPrecalculatedProteins.size());
-                    for (Protein precalc : localPrecalculatedProteins) {
-                        md5ToPrecalcProtein.put(precalc.getMd5(), precalc);
-                    }
-
-                    for (Protein proteinAwaitingPrecalcLookup : proteinsAwaitingPrecalcLookup) {
-                        if (md5ToPrecalcProtein.keySet().contains(proteinAwaitingPrecalcLookup.getMd5())) {
-                            precalculatedProteins.add(md5ToPrecalcProtein.get(proteinAwaitingPrecalcLookup.getMd5()));
-                        } else {
-                            //addProteinToBatch(proteinAwaitingPrecalcLookup);
-                            String proteinKey = String.valueOf(proteinAwaitingPrecalcLookup.getId());
-                            if (!printedProteinKeyRep) {
-                                Utilities.verboseLog(100, "md5ToPrecalcProtein does NOT contain proteinKey Rep: " + proteinKey);
-                                printedProteinKeyRep = true;
-                            }
-                            if (proteinDAO.getLevelDBStore() == null) {
-                                LOGGER.error("Something wrong witht the kv store: proteinsNotInLookupDB");
-                            }
-                            proteinDAO.insertProteinNotInLookup(proteinKey, proteinAwaitingPrecalcLookup);
+        // The batches are looked up in the background while the next ones are assembled, and then stored here in order.
+        try (PrecalculatedLookupPipeline<PrecalculatedMatches> lookupPipeline = new PrecalculatedLookupPipeline<>(lookupBatchesInFlight,
+                batch -> fetchPrecalculated(batch, analysisJobMap),
+                (batch, precalculatedMatches) -> precalculatedProteinCount.addAndGet(storeLookedUpBatch(batch, precalculatedMatches, proteinRange)))) {
+            for (Protein protein : proteins) {
+                count++;
+                proteinsAwaitingPrecalcLookup.add(protein);
+                if ((proteinsAwaitingPrecalcLookup.size() >= proteinPrecalcLookupBatchSize) || (count >= proteinsCount)) {
+                    batchCount++;
+                    Utilities.verboseLog(30, proteinRange + " lookup up protein batch no. " + batchCount);
+                    lookupPipeline.submit(new HashSet<>(proteinsAwaitingPrecalcLookup));
+                    proteinsAwaitingPrecalcLookup.clear();
+                }
+                int progressMeter = count * 100 / proteinsCount;
+                if (progressMeter % 5 == 0 && progressMeter != oldProgressMeter) {
+                    if (proteinRanges.get("bottom") == 1l && progressMeter % 5 == 0) {
+                        if (proteinsCount >= 2000 && progressMeter % 25 == 0) {
+                            Utilities.verboseLog(30, " LookupProgress " + proteinRange + " : " + progressMeter + "%");
+                        }
+                        if (progressMeter % 10 == 0) {
+                            Utilities.printMemoryUsage("in lookup " + progressMeter + " % of " + proteinRange);
                         }
                     }
-                } else {
-                    //there are no matches or we are not using the lookup match service
-                    Utilities.verboseLog(30, proteinRange + " There are NO matches for these proteins: " + proteinsAwaitingPrecalcLookup.size());
-                    for (Protein proteinAwaitingPrecalcLookup : proteinsAwaitingPrecalcLookup) {
-                        String proteinKey = String.valueOf(proteinAwaitingPrecalcLookup.getId());
-                        proteinDAO.insertProteinNotInLookup(proteinKey, proteinAwaitingPrecalcLookup);
-                        proteinNotInLookupCount++;
-                        //addProteinToBatch(proteinAwaitingPrecalcLookup);
+                    if (progressMeter % 40 == 0) {
+                        Utilities.verboseLog(20, " LookupProgress " + proteinRange + " : " + progressMeter + "%");
+                    } else {
+                        Utilities.verboseLog(50, "LookupProgress " + proteinRange + " : " + progressMeter + "%");
                     }
+                    oldProgressMeter = progressMeter;
                 }
-                precalculatedProteins.addAll(proteinsAwaitingPrecalcLookup);
 
-                // All dealt with, so clear.
-                proteinsAwaitingPrecalcLookup.clear();
             }
-            int progressMeter = count * 100 / proteinsCount;
-            if (progressMeter % 5 == 0 && progressMeter != oldProgressMeter) {
-                if (proteinRanges.get("bottom") == 1l && progressMeter % 5 == 0) {
-                    if (proteinsCount >= 2000 && progressMeter % 25 == 0) {
-                        Utilities.verboseLog(30, " LookupProgress " + proteinRange + " : " + progressMeter + "%");
-                    }
-                    if (progressMeter % 10 == 0) {
-                        Utilities.printMemoryUsage("in lookup " + progressMeter + " % of " + proteinRange);
-                    }
-                }
-                if (progressMeter % 40 == 0) {
-                    Utilities.verboseLog(20, " LookupProgress " + proteinRange + " : " + progressMeter + "%");
-                } else {
-                    Utilities.verboseLog(50, "LookupProgress " + proteinRange + " : " + progressMeter + "%");
-                }
-                oldProgressMeter = progressMeter;
-            }
-
+            lookupPipeline.finish();
         }
 
         //add all the proteins not in the lookup to the concurrent set
@@ -230,7 +210,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         Utilities.verboseLog(110, "1. proteinsNotInLookupCount :  " + proteinsNotInLookupCount);
 
 
-        Utilities.verboseLog(110, "2. Precalculated Proteins " + proteinRange + "  size: " + precalculatedProteins.size());
+        Utilities.verboseLog(110, "2. Precalculated Proteins " + proteinRange + "  size: " + precalculatedProteinCount.get());
         Utilities.verboseLog(110, "2. Proteing not in LookUp Service (proteinDAO.proteinsNotInLookupCount) " + proteinRange + "  size: " + proteinsNotInLookupCount);
 
         //Get all the proteins without a lookup hit
@@ -244,6 +224,47 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         }
     }
 
+    /**
+     * Completes the lookup of a batch: adds the matches to the precalculated proteins and records the rest as
+     * proteins that are not in the lookup service, to be analysed locally.
+     *
+     * @param precalculatedMatches null if the whole batch is to be analysed locally.
+     * @return the number of precalculated proteins in the batch.
+     */
+    private int storeLookedUpBatch(Set<Protein> batch, PrecalculatedMatches precalculatedMatches, String proteinRange) {
+        final Set<Protein> localPrecalculatedProteins = (precalculatedMatches == null)
+                ? null
+                : populatePrecalculated(precalculatedMatches, analysisJobMap);
+        if (localPrecalculatedProteins == null) {
+            //there are no matches or we are not using the lookup match service
+            Utilities.verboseLog(30, proteinRange + " There are NO matches for these proteins: " + batch.size());
+            for (Protein proteinAwaitingPrecalcLookup : batch) {
+                proteinDAO.insertProteinNotInLookup(String.valueOf(proteinAwaitingPrecalcLookup.getId()), proteinAwaitingPrecalcLookup);
+            }
+            return 0;
+        }
+        Utilities.verboseLog(30, proteinRange + " We have precalculated proteins: " + localPrecalculatedProteins.size());
+        final Set<String> precalculatedMd5s = new HashSet<>(localPrecalculatedProteins.size());
+        for (Protein precalc : localPrecalculatedProteins) {
+            precalculatedMd5s.add(precalc.getMd5());
+        }
+        boolean printedProteinKeyRep = false;
+        for (Protein proteinAwaitingPrecalcLookup : batch) {
+            if (!precalculatedMd5s.contains(proteinAwaitingPrecalcLookup.getMd5())) {
+                String proteinKey = String.valueOf(proteinAwaitingPrecalcLookup.getId());
+                if (!printedProteinKeyRep) {
+                    Utilities.verboseLog(100, "md5ToPrecalcProtein does NOT contain proteinKey Rep: " + proteinKey);
+                    printedProteinKeyRep = true;
+                }
+                if (proteinDAO.getLevelDBStore() == null) {
+                    LOGGER.error("Something wrong witht the kv store: proteinsNotInLookupDB");
+                }
+                proteinDAO.insertProteinNotInLookup(proteinKey, proteinAwaitingPrecalcLookup);
+            }
+        }
+        return localPrecalculatedProteins.size();
+    }
+
     /**
      * Adds a protein to the batch of proteins to be persisted.  If the maximum
      * batch size is reached, store all these proteins (by calling persistBatch().)
@@ -343,6 +364,12 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
 
     @Override
     public Set<Protein> getPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
+        final PrecalculatedMatches precalculatedMatches = fetchPrecalculated(proteins, analysisJobMap);
+        return (precalculatedMatches == null) ? null : populatePrecalculated(precalculatedMatches, analysisJobMap);
+    }
+
+    @Override
+    public PrecalculatedMatches fetchPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
         // Check if the precalc service is configure and available.
         Utilities.verboseLog(110, "Start getPrecalculated for " + proteins.size() + " proteins");
         if (!preCalcMatchClient.isConfigured()) {
@@ -404,7 +431,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
             Utilities.verboseLog(110, "GOt MD5sOfProteinsAlreadyAnalysed :" + analysedMd5s.size());
             // Check if NONE have been pre-calculated - if so, return empty set.
             if (analysedMd5s == null || analysedMd5s.size() == 0) {
-                return Collections.emptySet();
+                return PrecalculatedMatches.none();
             }
 
             // Create a Set of proteins that have been precalculated - this is what will end up being returned.
@@ -431,12 +458,11 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
             //if null is returned from the lookupmatch then may need to be calculated
             if (kvSequenceEntryXML == null) {
                 Utilities.verboseLog(120, "For this batch, calculate the matches locally - analysedMd5s.size =  " + analysedMd5s.size());
-                Utilities.verboseLog(120, "totalLookedup though: " + totalLookedup);
-                return Collections.emptySet();
+                Utilities.verboseLog(120, "totalLookedup though: " + totalLookedup.get());
+                return PrecalculatedMatches.none();
             }
 
-            totalLookedup = totalLookedup + analysedMd5s.size();
-            Utilities.verboseLog(110, "TotalLookedup: " + totalLookedup);
+            Utilities.verboseLog(110, "TotalLookedup: " + totalLookedup.addAndGet(analysedMd5s.size()));
             long timetaken = System.nanoTime() - startTime;
             long lookupTimeMillis = 0;
             if (timetaken > 0) {
@@ -449,7 +475,6 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Time to lookup " + kvSequenceEntryXML.getMatches().size() + " matches for " + md5s.length + " proteins: " + lookupTimeMillis + " millis");
             }
-            startTime = System.nanoTime();
             // Check if the analysis versions are consistent and then proceed
             int precalculatedProteinsCount = precalculatedProteins.size();
             Utilities.verboseLog(110, "Now check the version consistency : for " + precalculatedProteinsCount + " precalculatedProteins");
@@ -476,27 +501,17 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
                 kvSequenceEntryMatches = kvSequenceEntryXML.getMatches();
             }
 
-            if (isAnalysisVersionConsistent(precalculatedProteins, kvSequenceEntryXML.getMatches(), analysisJobMap)) {
-                if (kvSequenceEntryMatches != null && kvSequenceEntrySites != null) {
-                    Utilities.verboseLog(110, "Analysis versions ARE Consistent ..  populateProteinMatches : kvSequenceEntryMatches " + kvSequenceEntryMatches.size() +
-                            " kvSequenceEntrySites: " + kvSequenceEntrySites.size());
-                }
-                lookupStoreToI5ModelDAO.populateProteinMatches(precalculatedProteins, kvSequenceEntryMatches, kvSequenceEntrySites, analysisJobMap, includeCDDorSFLD);
-                Utilities.verboseLog(110, "Completed Populate precalculated Protein Matches:  " + precalculatedProteins.size());
-            } else {
+            if (!isAnalysisVersionConsistent(precalculatedProteins, kvSequenceEntryXML.getMatches(), analysisJobMap)) {
                 // If the member database version at lookupmatch service is different  from the analysis version in
                 // interproscan, then disable the lookup match service for this batch (return null precalculatedProteins )
                 Utilities.verboseLog(110, "Analysis versions NOT Consistent");
                 return null;
             }
-            timetaken = System.nanoTime() - startTime;
-            lookupTimeMillis = 0;
-            if (timetaken > 0) {
-                lookupTimeMillis = timetaken / 1000000;
+            if (kvSequenceEntryMatches != null && kvSequenceEntrySites != null) {
+                Utilities.verboseLog(110, "Analysis versions ARE Consistent ..  kvSequenceEntryMatches " + kvSequenceEntryMatches.size() +
+                        " kvSequenceEntrySites: " + kvSequenceEntrySites.size());
             }
-            Utilities.verboseLog(110, "Time to convert to i5 matches " + kvSequenceEntryXML.getMatches().size() + " matches for " + md5s.length + " proteins: " + lookupTimeMillis + " millis");
-
-            return precalculatedProteins;
+            return new PrecalculatedMatches(precalculatedProteins, kvSequenceEntryMatches, kvSequenceEntrySites, includeCDDorSFLD);
 
         } catch (Exception e) {
             hostAvailabilityCheck(preCalcMatchClient.getUrl());
@@ -506,6 +521,28 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
 
     }
 
+    @Override
+    public Set<Protein> populatePrecalculated(PrecalculatedMatches precalculatedMatches, Map<String, SignatureLibraryRelease> analysisJobMap) {
+        final Set<Protein> precalculatedProteins = precalculatedMatches.getProteins();
+        if (precalculatedProteins.isEmpty()) {
+            return precalculatedProteins;
+        }
+        try {
+            final long startTime = System.nanoTime();
+            lookupStoreToI5ModelDAO.populateProteinMatches(precalculatedProteins, precalculatedMatches.getMatches(), precalculatedMatches.getSites(), analysisJobMap, precalculatedMatches.isIncludeCDDorSFLD());
+            Utilities.verboseLog(110, "Completed Populate precalculated Protein Matches:  " + precalculatedProteins.size());
+            final long lookupTimeMillis = Math.max(0, System.nanoTime() - startTime) / 1000000;
+            Utilities.verboseLog(110, "Time to convert to i5 matches " + precalculatedMatches.getMatches().size() + " matches for " + precalculatedProteins.size() + " proteins: " + lookupTimeMillis + " millis");
+
+            return precalculatedProteins;
+
+        } catch (Exception e) {
+            displayLookupError(e, "Convert matches of proteins analysed previously");
+            return null;
+        }
+
+    }
+
     public KVSequenceEntryXML getMatchesFromLookup(String... md5s) throws InterruptedException {
         int count = 0;
         int maxTries = 4;
@@ -625,11 +662,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         Utilities.verboseLog(1100, "Check if AnalysisVersion Consistent  ...");
         Map<String, String> lookupAnalysesMap = new HashMap<String, String>();
         for (KVSequenceEntry kvSequenceEntry : kvSequenceEntries) {
-            String proteinMD5 = kvSequenceEntry.getProteinMD5();
-            Set<String> sequenceHits = kvSequenceEntry.getSequenceHits();
-            for (String sequenceHit : sequenceHits) {
-                LOGGER.debug("csvMatch:" + sequenceHit);
-                SimpleLookupMatch simpleMatch = new SimpleLookupMatch(proteinMD5, sequenceHit);
+            for (SimpleLookupMatch simpleMatch : kvSequenceEntry.getLookupMatches()) {
                 LOGGER.debug("simpleMatch " + simpleMatch.toString());
                 String signatureLibraryReleaseVersion = simpleMatch.getSigLibRelease();
                 final SignatureLibrary sigLib = SignatureLibraryLookup.lookupSignatureLibrary(simpleMatch.getSignatureLibraryName());
@@ -682,7 +715,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
         return false;
     }
 
-    private void displayLookupError(Exception e, String lookupMessageStatus) {
+    private synchronized void displayLookupError(Exception e, String lookupMessageStatus) {
         /* Barf out - the user wants pre-calculated, but this is not available - tell them what action to take. */
 
         if (timeLookupError != null) {
@@ -720,7 +753,7 @@ public class BerkeleyPrecalculatedProteinLookup implements PrecalculatedProteinL
 
     }
 
-    private void displayLookupSynchronisationError(String clientVersion, String serverVersion) {
+    private synchronized void displayLookupSynchronisationError(String clientVersion, String serverVersion) {
 
         if (timeLookupSynchronisationError != null) {
             if (!fixedTimeLapsed(timeLookupSynchronisationError)) {
@@ -22,6 +22,7 @@ import javax.xml.bind.JAXBException;
 import java.io.IOException;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Looks up precalculated matches from the Berkeley WebService.
@@ -53,7 +54,7 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
 
     private Long timeLookupSynchronisationError = null;
 
-    private int totalLookedup = 0;
+    private final AtomicInteger totalLookedup = new AtomicInteger();
 
     public BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup() {
 
@@ -162,6 +163,12 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
 
     @Override
     public Set<Protein> getPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
+        final PrecalculatedMatches precalculatedMatches = fetchPrecalculated(proteins, analysisJobMap);
+        return (precalculatedMatches == null) ? null : populatePrecalculated(precalculatedMatches, analysisJobMap);
+    }
+
+    @Override
+    public PrecalculatedMatches fetchPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
         // Check if the precalc service is configure and available.
         if (!preCalcMatchClient.isConfigured()) {
             return null;
@@ -188,7 +195,7 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
 
             // Check if NONE have been pre-calculated - if so, return empty set.
             if (analysedMd5s == null || analysedMd5s.size() == 0) {
-                return Collections.emptySet();
+                return PrecalculatedMatches.none();
             }
 
             // Create a Set of proteins that have been precalculated - this is what will end up being returned.
@@ -214,11 +221,10 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
             //if null is returned from the lookupmatch then may need to be calculated
             if (kvSequenceEntryXML == null){
                 Utilities.verboseLog(110, "For this batch, calculate the matches locally - analysedMd5s.size =  " + analysedMd5s.size());
-                Utilities.verboseLog(110, "totalLookedup though: " +  totalLookedup);
-                return Collections.emptySet();
+                Utilities.verboseLog(110, "totalLookedup though: " +  totalLookedup.get());
+                return PrecalculatedMatches.none();
 	        }
-            totalLookedup =	totalLookedup + analysedMd5s.size();
-            Utilities.verboseLog(110, "totalLookedup: " +  totalLookedup);
+            Utilities.verboseLog(110, "totalLookedup: " +  totalLookedup.addAndGet(analysedMd5s.size()));
             long timetaken = System.nanoTime() - startTime;
             long lookupTimeMillis = 0;
             if (timetaken > 0) {
@@ -230,36 +236,53 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Time to lookup " + kvSequenceEntryXML.getMatches().size() + " matches for " + md5s.length + " proteins: " + lookupTimeMillis + " millis");
             }
-            startTime = System.nanoTime();
             // Check if the analysis versions are consistent and then proceed
             boolean includeCDDorSFLD = includeCDDorSFLD(analysisJobMap);
-            KVSequenceEntryXML kvSitesSequenceEntryXML = null;
+            List<KVSequenceEntry> kvSequenceEntrySites = Collections.emptyList();
             if(includeCDDorSFLD){
                 Utilities.verboseLog(1100, "lookup Sites ... ");
-                kvSitesSequenceEntryXML = getSitesFromLookup(md5s);
-                Utilities.verboseLog(1100, "lookup Sites XML:" + kvSitesSequenceEntryXML.toString());
+                final KVSequenceEntryXML kvSitesSequenceEntryXML = getSitesFromLookup(md5s);
+                if (kvSitesSequenceEntryXML != null) {
+                    Utilities.verboseLog(1100, "lookup Sites XML:" + kvSitesSequenceEntryXML.toString());
+                    kvSequenceEntrySites = kvSitesSequenceEntryXML.getMatches();
+                }
             }
-            if (isAnalysisVersionConsistent(precalculatedProteins, kvSequenceEntryXML.getMatches(), analysisJobMap)) {
-//                Utilities.verboseLog(110, "Analysis versions ARE Consistent" );
-                lookupStoreToI5ModelDAO.populateProteinMatches(precalculatedProteins, kvSequenceEntryXML.getMatches(), kvSitesSequenceEntryXML.getMatches(), analysisJobMap, includeCDDorSFLD);
-            } else {
+            if (!isAnalysisVersionConsistent(precalculatedProteins, kvSequenceEntryXML.getMatches(), analysisJobMap)) {
                 // If the member database version at lookupmatch service is different  from the analysis version in
                 // interproscan, then disable the lookup match service for this batch (return null precalculatedProteins )
                 Utilities.verboseLog(110, "Analysis versions NOT Consistent");
                 return null;
             }
-            timetaken = System.nanoTime() - startTime;
-            lookupTimeMillis = 0;
+            return new PrecalculatedMatches(precalculatedProteins, kvSequenceEntryXML.getMatches(), kvSequenceEntrySites, includeCDDorSFLD);
+
+        } catch (Exception e) {
+            hostAvailabilityCheck(preCalcMatchClient.getUrl());
+            displayLookupError(e, lookupMessageStatus);
+            return null;
+        }
+
+    }
+
+    @Override
+    public Set<Protein> populatePrecalculated(PrecalculatedMatches precalculatedMatches, Map<String, SignatureLibraryRelease> analysisJobMap) {
+        final Set<Protein> precalculatedProteins = precalculatedMatches.getProteins();
+        if (precalculatedProteins.isEmpty()) {
+            return precalculatedProteins;
+        }
+        try {
+            final long startTime = System.nanoTime();
+            lookupStoreToI5ModelDAO.populateProteinMatches(precalculatedProteins, precalculatedMatches.getMatches(), precalculatedMatches.getSites(), analysisJobMap, precalculatedMatches.isIncludeCDDorSFLD());
+            long timetaken = System.nanoTime() - startTime;
+            long lookupTimeMillis = 0;
             if (timetaken > 0) {
                 lookupTimeMillis = timetaken / 1000000;
             }
-            Utilities.verboseLog(110, "Time to convert to i5 matches " + kvSequenceEntryXML.getMatches().size() + " matches for " + md5s.length + " proteins: " + lookupTimeMillis + " millis");
+            Utilities.verboseLog(110, "Time to convert to i5 matches " + precalculatedMatches.getMatches().size() + " matches for " + precalculatedProteins.size() + " proteins: " + lookupTimeMillis + " millis");
 
             return precalculatedProteins;
 
         } catch (Exception e) {
-            hostAvailabilityCheck(preCalcMatchClient.getUrl());
-            displayLookupError(e, lookupMessageStatus);
+            displayLookupError(e, "Convert matches of proteins analysed previously");
             return null;
         }
 
@@ -384,11 +407,7 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
         // Collection of BerkeleyMatches of different kinds.
         Map<String, String> lookupAnalysesMap = new HashMap<String, String>();
         for (KVSequenceEntry kvSequenceEntry : kvSequenceEntries) {
-            String proteinMD5 = kvSequenceEntry.getProteinMD5();
-            Set<String> sequenceHits = kvSequenceEntry.getSequenceHits();
-            for (String sequenceHit :sequenceHits) {
-                LOGGER.debug("csvMatch:" + sequenceHit);
-                SimpleLookupMatch simpleMatch = new SimpleLookupMatch(proteinMD5, sequenceHit);
+            for (SimpleLookupMatch simpleMatch : kvSequenceEntry.getLookupMatches()) {
                 LOGGER.debug("simpleMatch " + simpleMatch.toString());
                 String signatureLibraryReleaseVersion = simpleMatch.getSigLibRelease();
                 final SignatureLibrary sigLib = SignatureLibraryLookup.lookupSignatureLibrary(simpleMatch.getSignatureLibraryName());
@@ -430,7 +449,7 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
         return false;
     }
 
-    private void displayLookupError(Exception e, String lookupMessageStatus) {
+    private synchronized void displayLookupError(Exception e, String lookupMessageStatus) {
         /* Barf out - the user wants pre-calculated, but this is not available - tell them what action to take. */
 
         if (timeLookupError != null) {
@@ -468,7 +487,7 @@ public class BerkeleyPrecalculatedProteinLookupPreMultiThreadedLookup implements
 
     }
 
-    private void displayLookupSynchronisationError(String clientVersion, String serverVersion) {
+    private synchronized void displayLookupSynchronisationError(String clientVersion, String serverVersion) {
 
         if (timeLookupSynchronisationError != null) {
             if (!fixedTimeLapsed(timeLookupSynchronisationError)) {
@@ -0,0 +1,169 @@
+package uk.ac.ebi.interpro.scan.business.sequence;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends batches of proteins to the precalculated match lookup service from a small pool of threads, so that the
+ * caller can go on building the next batches while earlier requests are still in flight.
+ * <p/>
+ * At most maxBatchesInFlight requests are outstanding: once that many have been submitted, submit() waits for the
+ * oldest one. The results are handed back on the submitting thread, in the order that the batches were submitted,
+ * so that they can be persisted there in order. A batch whose lookup fails is handed back with a null result,
+ * i.e. its proteins are analysed locally.
+ * <p/>
+ * With maxBatchesInFlight of 1 or less each batch is looked up on the submitting thread, as before.
+ * <p/>
+ * Not thread safe - a pipeline is fed by a single thread.
+ *
+ * @param <R> the result of looking up a batch.
+ */
+public class PrecalculatedLookupPipeline<R> implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(PrecalculatedLookupPipeline.class.getName());
+
+    public interface BatchLookup<R> {
+
+        /**
+         * Called on a lookup thread.
+         *
+         * @return the lookup result, or null if the proteins should be analysed locally.
+         */
+        R lookup(Set<Protein> batch) throws Exception;
+    }
+
+    public interface BatchHandler<R> {
+
+        /**
+         * Called on the submitting thread, in the order that the batches were submitted.
+         *
+         * @param result of the lookup, null if the proteins should be analysed locally.
+         */
+        void lookedUp(Set<Protein> batch, R result);
+    }
+
+    private static class PendingBatch<R> {
+
+        private final Set<Protein> batch;
+
+        private final Future<R> result;
+
+        private PendingBatch(Set<Protein> batch, Future<R> result) {
+            this.batch = batch;
+            this.result = result;
+        }
+    }
+
+    private final int maxBatchesInFlight;
+
+    private final BatchLookup<R> lookup;
+
+    private final BatchHandler<R> handler;
+
+    private final ExecutorService lookupPool;
+
+    private final Deque<PendingBatch<R>> pendingBatches = new ArrayDeque<>();
+
+    public PrecalculatedLookupPipeline(int maxBatchesInFlight, BatchLookup<R> lookup, BatchHandler<R> handler) {
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.lookup = lookup;
+        this.handler = handler;
+        if (maxBatchesInFlight > 1) {
+            this.lookupPool = Executors.newFixedThreadPool(maxBatchesInFlight, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "precalc-lookup-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        } else {
+            this.lookupPool = null;
+        }
+    }
+
+    /**
+     * Submits a batch for lookup, first handing back any batches that have completed.
+     *
+     * @param batch of proteins, which must not be modified after it is submitted.
+     */
+    public void submit(final Set<Protein> batch) {
+        if (lookupPool == null) {
+            R result;
+            try {
+                result = lookup.lookup(batch);
+            } catch (Exception e) {
+                result = lookupFailed(batch, e);
+            }
+            handler.lookedUp(batch, result);
+            return;
+        }
+        while (pendingBatches.size() >= maxBatchesInFlight) {
+            handleOldest();
+        }
+        pendingBatches.add(new PendingBatch<>(batch, lookupPool.submit(() -> lookup.lookup(batch))));
+        while (!pendingBatches.isEmpty() && pendingBatches.peek().result.isDone()) {
+            handleOldest();
+        }
+    }
+
+    /**
+     * Waits for and hands back all of the batches that are still in flight.
+     */
+    public void finish() {
+        while (!pendingBatches.isEmpty()) {
+            handleOldest();
+        }
+    }
+
+    public int getBatchesInFlight() {
+        return pendingBatches.size();
+    }
+
+    private void handleOldest() {
+        final PendingBatch<R> pendingBatch = pendingBatches.poll();
+        R result;
+        try {
+            result = pendingBatch.result.get();
+        } catch (ExecutionException e) {
+            result = lookupFailed(pendingBatch.batch, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the precalculated match lookup service", e);
+        }
+        handler.lookedUp(pendingBatch.batch, result);
+    }
+
+    private R lookupFailed(Set<Protein> batch, Throwable cause) {
+        LOGGER.warn("Lookup of a batch of " + batch.size() + " proteins failed, their matches will be calculated locally", cause);
+        return null;
+    }
+
+    /**
+     * Abandons any batches still in flight (call finish() first to keep them) and stops the lookup threads.
+     */
+    @Override
+    public void close() {
+        for (PendingBatch<R> pendingBatch : pendingBatches) {
+            pendingBatch.result.cancel(true);
+        }
+        pendingBatches.clear();
+        if (lookupPool != null) {
+            lookupPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.ebi.interpro.scan.business.sequence;
+
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The matches of the precalculated proteins of a batch, as returned by the lookup service and not yet
+ * converted to the I5 model.
+ */
+public class PrecalculatedMatches {
+
+    private final Set<Protein> proteins;
+
+    private final List<KVSequenceEntry> matches;
+
+    private final List<KVSequenceEntry> sites;
+
+    private final boolean includeCDDorSFLD;
+
+    PrecalculatedMatches(Set<Protein> proteins, List<KVSequenceEntry> matches, List<KVSequenceEntry> sites, boolean includeCDDorSFLD) {
+        this.proteins = proteins;
+        this.matches = matches;
+        this.sites = sites;
+        this.includeCDDorSFLD = includeCDDorSFLD;
+    }
+
+    static PrecalculatedMatches none() {
+        return new PrecalculatedMatches(Collections.<Protein>emptySet(), Collections.<KVSequenceEntry>emptyList(), Collections.<KVSequenceEntry>emptyList(), false);
+    }
+
+    public Set<Protein> getProteins() {
+        return proteins;
+    }
+
+    List<KVSequenceEntry> getMatches() {
+        return matches;
+    }
+
+    List<KVSequenceEntry> getSites() {
+        return sites;
+    }
+
+    boolean isIncludeCDDorSFLD() {
+        return includeCDDorSFLD;
+    }
+}
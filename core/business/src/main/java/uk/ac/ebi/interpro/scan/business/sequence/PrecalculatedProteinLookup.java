@@ -22,6 +22,22 @@ public interface PrecalculatedProteinLookup {
 
     Set<Protein> getPrecalculated(Set<Protein> proteins,Map<String, SignatureLibraryRelease> analysisJobMap);
 
+    /**
+     * First half of getPrecalculated(Set): asks the lookup service which of the proteins are precalculated and
+     * fetches their matches. Only talks to the lookup service, so may be called from several threads at once.
+     *
+     * @return the matches of the precalculated proteins, or null if the lookup service cannot be used for this batch.
+     */
+    PrecalculatedMatches fetchPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap);
+
+    /**
+     * Second half of getPrecalculated(Set): converts the fetched matches to the I5 model and stores them.
+     * Called on one thread at a time.
+     *
+     * @return the precalculated proteins with their matches, or null if the matches could not be converted.
+     */
+    Set<Protein> populatePrecalculated(PrecalculatedMatches precalculatedMatches, Map<String, SignatureLibraryRelease> analysisJobMap);
+
     boolean isConfigured();
 
     /**
@@ -31,6 +31,11 @@ public class ProteinLoader implements SequenceLoader<Protein> {
 
     private PrecalculatedProteinLookup proteinLookup;
 
+    /**
+     * The lookup as configured, as proteinLookup is set to null for a run that does not use the lookup service.
+     */
+    private PrecalculatedProteinLookup configuredProteinLookup;
+
     private boolean displayLookupMessage = false;
 
     private ProteinDAO proteinDAO;
@@ -51,6 +56,13 @@ public class ProteinLoader implements SequenceLoader<Protein> {
 
     private Set<Protein> precalculatedProteins = new HashSet<>();
 
+    private int lookupBatchesInFlight = 1;
+
+    /**
+     * Lookups of the batches submitted since the last call to persist.
+     */
+    private PrecalculatedLookupPipeline<PrecalculatedMatches> lookupPipeline;
+
     private Long bottomProteinId;
 
     private Long topProteinId;
@@ -59,8 +71,11 @@ public class ProteinLoader implements SequenceLoader<Protein> {
 
     private GetOrfDescriptionLineParser descriptionLineParser;
 
+    private SequenceLengthIndex sequenceLengthIndex;
+
     public void setProteinLookup(PrecalculatedProteinLookup proteinLookup) {
         this.proteinLookup = proteinLookup;
+        this.configuredProteinLookup = proteinLookup;
     }
 
     @Required
@@ -90,10 +105,25 @@ public class ProteinLoader implements SequenceLoader<Protein> {
         proteinsAwaitingPrecalcLookup = new HashSet<>(proteinPrecalcLookupBatchSize);
     }
 
+    /**
+     * Optional, the number of batches to have in flight to the lookup service while the following sequences
+     * are stored.  1 (the default) looks up each batch as soon as it is full and waits for the result.
+     */
+    public void setLookupBatchesInFlight(int lookupBatchesInFlight) {
+        this.lookupBatchesInFlight = lookupBatchesInFlight;
+    }
+
     public void setDescriptionLineParser(GetOrfDescriptionLineParser descriptionLineParser) {
         this.descriptionLineParser = descriptionLineParser;
     }
 
+    /**
+     * Optional, records the length of each new protein for the chunking of the analyses.
+     */
+    public void setSequenceLengthIndex(SequenceLengthIndex sequenceLengthIndex) {
+        this.sequenceLengthIndex = sequenceLengthIndex;
+    }
+
     public void setNucleotideSequenceDAO(NucleotideSequenceDAO nucleotideSequenceDAO) {
         this.nucleotideSequenceDAO = nucleotideSequenceDAO;
     }
@@ -129,43 +159,34 @@ public class ProteinLoader implements SequenceLoader<Protein> {
     }
 
     /**
+     * Submits the proteins awaiting lookup as a batch to the lookup service (or straight to the batch to be
+     * persisted, if the lookup service is not used).
+     *
      * @param analysisJobMap
      */
     private void lookupProteins(Map<String, SignatureLibraryRelease> analysisJobMap) {
         if (proteinsAwaitingPrecalcLookup.size() > 0) {
-            final boolean usingLookupService = proteinLookup != null;
-            if (!usingLookupService) {
+            final PrecalculatedProteinLookup lookup = proteinLookup;
+            if (lookup == null) {
+                //we are not using the lookup match service
                 proteinInsertBatchSize = proteinInsertBatchSizeNoLookup;
-            }
-
-            //check if the looku
-            Set<Protein> localPrecalculatedProteins = (usingLookupService)
-                    ? proteinLookup.getPrecalculated(proteinsAwaitingPrecalcLookup, analysisJobMap)
-                    : null;
-
-//            if(proteinLookup.isAnalysisVersionConsistent(analysisJobMap)){
-//
-//            }
-
-            // Put precalculated proteins into a Map of MD5 to Protein;
-            if (localPrecalculatedProteins != null) {
-                final Map<String, Protein> md5ToPrecalcProtein = new HashMap<>(localPrecalculatedProteins.size());
-                for (Protein precalc : localPrecalculatedProteins) {
-                    md5ToPrecalcProtein.put(precalc.getMd5(), precalc);
-                }
-
                 for (Protein protein : proteinsAwaitingPrecalcLookup) {
-                    if (md5ToPrecalcProtein.keySet().contains(protein.getMd5())) {
-                        precalculatedProteins.add(md5ToPrecalcProtein.get(protein.getMd5()));
-                    } else {
-                        addProteinToBatch(protein);
-                    }
+                    addProteinToBatch(protein);
                 }
             } else {
-                //there are no matches or we are not using the lookup match service
-
-                for (Protein protein : proteinsAwaitingPrecalcLookup) {
-                    addProteinToBatch(protein);
+                if (lookupPipeline == null) {
+                    // Only the requests to the lookup service run on the pipeline threads: the matches are
+                    // converted and stored on this thread, in the order the batches were submitted.
+                    lookupPipeline = new PrecalculatedLookupPipeline<>(lookupBatchesInFlight,
+                            batch -> lookup.fetchPrecalculated(batch, analysisJobMap),
+                            (batch, precalculatedMatches) -> mergeLookedUpBatch(batch,
+                                    (precalculatedMatches == null) ? null : lookup.populatePrecalculated(precalculatedMatches, analysisJobMap)));
+                }
+                try {
+                    lookupPipeline.submit(new HashSet<>(proteinsAwaitingPrecalcLookup));
+                } catch (RuntimeException | Error e) {
+                    abandonLookups();
+                    throw e;
                 }
             }
             // All dealt with, so clear.
@@ -173,6 +194,58 @@ public class ProteinLoader implements SequenceLoader<Protein> {
         }
     }
 
+    /**
+     * Called in the order the batches were submitted: keeps the precalculated proteins and adds
+     * the rest to the batch of proteins to be persisted.
+     *
+     * @param localPrecalculatedProteins null if there are no matches or the lookup failed.
+     */
+    private void mergeLookedUpBatch(Set<Protein> batch, Set<Protein> localPrecalculatedProteins) {
+        // Put precalculated proteins into a Map of MD5 to Protein;
+        if (localPrecalculatedProteins != null) {
+            final Map<String, Protein> md5ToPrecalcProtein = new HashMap<>(localPrecalculatedProteins.size());
+            for (Protein precalc : localPrecalculatedProteins) {
+                md5ToPrecalcProtein.put(precalc.getMd5(), precalc);
+            }
+
+            for (Protein protein : batch) {
+                if (md5ToPrecalcProtein.containsKey(protein.getMd5())) {
+                    precalculatedProteins.add(md5ToPrecalcProtein.get(protein.getMd5()));
+                } else {
+                    addProteinToBatch(protein);
+                }
+            }
+        } else {
+            //there are no matches or the lookup failed, so these are analysed locally
+            for (Protein protein : batch) {
+                addProteinToBatch(protein);
+            }
+        }
+    }
+
+    /**
+     * Waits for the lookups still in flight.
+     */
+    private void finishLookups() {
+        if (lookupPipeline != null) {
+            try {
+                lookupPipeline.finish();
+            } finally {
+                abandonLookups();
+            }
+        }
+    }
+
+    /**
+     * Stops the lookup threads, dropping any lookups still in flight, e.g. when loading failed.
+     */
+    private void abandonLookups() {
+        if (lookupPipeline != null) {
+            lookupPipeline.close();
+            lookupPipeline = null;
+        }
+    }
+
     /**
      * Adds a protein to the batch of proteins to be persisted.  If the maximum
      * batch size is reached, store all these proteins (by calling persistBatch().)
@@ -202,6 +275,11 @@ public class ProteinLoader implements SequenceLoader<Protein> {
             final ProteinDAO.PersistedProteins persistedProteins = proteinDAO.insertNewProteins(proteinsAwaitingPersistence);
             bottomProteinId = persistedProteins.updateBottomProteinId(bottomProteinId);
             topProteinId = persistedProteins.updateTopProteinId(topProteinId);
+            if (sequenceLengthIndex != null) {
+                for (Protein newProtein : persistedProteins.getNewProteins()) {
+                    sequenceLengthIndex.record(newProtein.getId(), newProtein.getSequenceLength());
+                }
+            }
             Utilities.verboseLog(1100, "Completed Persisting topProteinId: " + topProteinId + " bottomProteinId: " + bottomProteinId);
             if (isGetOrfOutput) {
                 Utilities.verboseLog(1100, "Persisting  getOrfOutput topProteinId: " + topProteinId + " bottomProteinId: " + bottomProteinId);
@@ -222,6 +300,7 @@ public class ProteinLoader implements SequenceLoader<Protein> {
     public void persist(SequenceLoadListener sequenceLoadListener, Map<String, SignatureLibraryRelease> analysisJobMap) {
         // Check any remaining proteins awaiting lookup
         lookupProteins(analysisJobMap);
+        finishLookups();
 
         // Persist any remaining proteins (that last batch)
         persistBatch();
@@ -241,6 +320,7 @@ public class ProteinLoader implements SequenceLoader<Protein> {
         }
 
         persistBatch();
+        precalculatedProteins.clear();
 
         final Long bottomPrecalcProteinId = bottomProteinId;
         final Long topPrecalcProteinId = topProteinId;
@@ -264,6 +344,9 @@ public class ProteinLoader implements SequenceLoader<Protein> {
 
     public void setUseMatchLookupService(boolean useMatchLookupService) {
         String lookupMessage = "";
+        // Drop any lookups left behind by a load that failed.
+        abandonLookups();
+        this.proteinLookup = configuredProteinLookup;
         if (proteinLookup == null || !proteinLookup.isConfigured()) {
             this.proteinLookup = null;
             if (!useMatchLookupService) {
@@ -0,0 +1,92 @@
+package uk.ac.ebi.interpro.scan.business.sequence;
+
+import java.util.Arrays;
+
+/**
+ * Lengths of the protein sequences loaded in this run, by protein primary key.
+ * <p/>
+ * Recorded by the sequence loaders as the proteins are persisted, so that StepInstances can later be
+ * created for slices of similar total sequence length, rather than of similar numbers of proteins.
+ * <p/>
+ * A singleton bean, shared by the loaders and the StepInstance creation (both run in the master JVM).
+ */
+public class SequenceLengthIndex {
+
+    /**
+     * Sequence length by protein id (offset by firstProteinId), 0 if not recorded.
+     */
+    private int[] lengths = new int[1024];
+
+    /**
+     * Protein id of lengths[0], -1 until the first length is recorded.  Protein ids keep increasing over the
+     * runs of a long running master, so the index starts at the first protein of the run.
+     */
+    private long firstProteinId = -1;
+
+    private long recordedCount = 0;
+
+    public synchronized void record(long proteinId, int length) {
+        if (proteinId < 0) {
+            throw new IllegalArgumentException("Protein id out of range for the sequence length index: " + proteinId);
+        }
+        if (firstProteinId < 0) {
+            firstProteinId = proteinId;
+        } else if (proteinId < firstProteinId) {
+            final long shift = firstProteinId - proteinId;
+            if (lengths.length + shift >= Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Protein id out of range for the sequence length index: " + proteinId);
+            }
+            final int[] shifted = new int[(int) (lengths.length + shift)];
+            System.arraycopy(lengths, 0, shifted, (int) shift, lengths.length);
+            lengths = shifted;
+            firstProteinId = proteinId;
+        }
+        final long index = proteinId - firstProteinId;
+        if (index >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Protein id out of range for the sequence length index: " + proteinId);
+        }
+        if (index >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(index + 1, lengths.length * 2L)));
+        }
+        if (lengths[(int) index] == 0) {
+            recordedCount++;
+        }
+        lengths[(int) index] = length;
+    }
+
+    /**
+     * @return the length of the protein sequence, or 0 if it has not been recorded.
+     */
+    public synchronized int getLength(long proteinId) {
+        final long index = proteinId - firstProteinId;
+        return (firstProteinId >= 0 && index >= 0 && index < lengths.length) ? lengths[(int) index] : 0;
+    }
+
+    /**
+     * @return TRUE if the lengths of all of the proteins in the range (inclusive) have been recorded.
+     */
+    public synchronized boolean covers(long bottomProteinId, long topProteinId) {
+        if (firstProteinId < 0 || bottomProteinId < firstProteinId || topProteinId - firstProteinId >= lengths.length) {
+            return false;
+        }
+        for (long proteinId = bottomProteinId; proteinId <= topProteinId; proteinId++) {
+            if (lengths[(int) (proteinId - firstProteinId)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the lengths of the previous run.
+     */
+    public synchronized void clear() {
+        lengths = new int[1024];
+        firstProteinId = -1;
+        recordedCount = 0;
+    }
+
+    public synchronized long getRecordedCount() {
+        return recordedCount;
+    }
+}
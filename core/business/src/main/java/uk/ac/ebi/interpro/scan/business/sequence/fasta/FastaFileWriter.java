@@ -4,6 +4,9 @@ import uk.ac.ebi.interpro.scan.io.sequence.FastaEntryWriter;
 import uk.ac.ebi.interpro.scan.model.Protein;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -22,7 +25,9 @@ import java.util.regex.Pattern;
  */
 public class FastaFileWriter implements Serializable {
 
-    private int sequenceLineLength = 60;
+    private static final int DEFAULT_SEQUENCE_LINE_LENGTH = 60;
+
+    private int sequenceLineLength = DEFAULT_SEQUENCE_LINE_LENGTH;
 
     private Pattern alphabetPattern;
 
@@ -66,6 +71,38 @@ public class FastaFileWriter implements Serializable {
         this.sequenceLineLength = sequenceLineLength;
     }
 
+    /**
+     * @return true if this writer writes every sequence unchanged at the default line length, so
+     * its files are the same as those of any other such writer (and may be shared).
+     */
+    public boolean writesUnchangedSequences() {
+        return alphabetPattern == null && sequenceLineLength == DEFAULT_SEQUENCE_LINE_LENGTH;
+    }
+
+    /**
+     * Applies the residue substitutions, if the sequence deviates from the alphabet.
+     *
+     * @return the sequence to write, or null if the sequence cannot be analysed.
+     */
+    private String filterSequence(String seq) {
+        // Analyses such as Phobius & TMHMM break if they are given non-standard amino acids
+        // such as Pyrrolysine (O).
+        if (deviatesFromAlphabet(seq)) {
+            // Attempt to replace disallowed residues
+            if (residueSubstitutions != null) {
+                for (String from : residueSubstitutions.keySet()) {
+                    seq = seq.replaceAll(from, residueSubstitutions.get(from));
+                }
+            }
+            if (deviatesFromAlphabet(seq)) {
+                // OK, so even following the substitution, the sequence still contains non-standard codes.
+                // Do not attempt to analyse this sequence.
+                return null;
+            }
+        }
+        return seq;
+    }
+
     public void writeFastaFile(List<Protein> proteins, String filePath) throws IOException, FastaFileWritingException {
         BufferedWriter writer = null;
         try {
@@ -82,21 +119,9 @@ public class FastaFileWriter implements Serializable {
             }
             writer = new BufferedWriter(new FileWriter(file));
             for (Protein protein : proteins) {
-                String seq = protein.getSequence();
-                // Analyses such as Phobius & TMHMM break if they are given non-standard amino acids
-                // such as Pyrrolysine (O).
-                if (deviatesFromAlphabet(seq)) {
-                    // Attempt to replace disallowed residues
-                    if (residueSubstitutions != null) {
-                        for (String from : residueSubstitutions.keySet()) {
-                            seq = seq.replaceAll(from, residueSubstitutions.get(from));
-                        }
-                    }
-                    if (deviatesFromAlphabet(seq)) {
-                        // OK, so even following the substitution, the sequence still contains non-standard codes.
-                        // Do not attempt to analyse this sequence.
-                        continue;
-                    }
+                final String seq = filterSequence(protein.getSequence());
+                if (seq == null) {
+                    continue;
                 }
                 if (protein.getId() == null) {
                     throw new FastaFileWritingException("The FastaFileWriter class can only write out Protein objects that have already been persisted to the database as it uses the database primary key as the protein ID in the fasta file.", filePath);
@@ -110,6 +135,42 @@ public class FastaFileWriter implements Serializable {
         }
     }
 
+    /**
+     * Writes a fasta file from one written by a default FastaFileWriter (so already identified by the
+     * protein primary keys), applying the alphabet and line length of this writer.
+     *
+     * @param sourceFastaFile fasta file to read the proteins from.
+     * @param filePath        of the fasta file to write.
+     */
+    public void writeFastaFile(Path sourceFastaFile, String filePath) throws IOException {
+        final Charset charset = Charset.defaultCharset();
+        try (BufferedReader reader = Files.newBufferedReader(sourceFastaFile, charset);
+             BufferedWriter writer = Files.newBufferedWriter(new File(filePath).toPath(), charset)) {
+            String identifier = null;
+            final StringBuilder sequence = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(">")) {
+                    writeFilteredEntry(writer, identifier, sequence);
+                    identifier = line.substring(1);
+                    sequence.setLength(0);
+                } else {
+                    sequence.append(line);
+                }
+            }
+            writeFilteredEntry(writer, identifier, sequence);
+        }
+    }
+
+    private void writeFilteredEntry(Writer writer, String identifier, CharSequence sequence) throws IOException {
+        if (identifier != null) {
+            final String seq = filterSequence(sequence.toString());
+            if (seq != null) {
+                FastaEntryWriter.writeFastaFileEntry(writer, identifier, seq, sequenceLineLength);
+            }
+        }
+    }
+
     public class FastaFileWritingException extends Exception {
 
         private String filePath;
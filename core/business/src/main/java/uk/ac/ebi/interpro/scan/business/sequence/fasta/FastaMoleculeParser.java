@@ -0,0 +1,289 @@
+package uk.ac.ebi.interpro.scan.business.sequence.fasta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+/**
+ * Creates the molecules for blocks of FASTA records on parserThreads threads (MD5 and validation of the
+ * sequences being the costly part), while the loading thread goes on reading the file.  The blocks are merged
+ * on the loading thread in file order, so identical sequences are collapsed and the molecules are returned in
+ * the order in which they first appear in the file, however many threads are used.
+ * <p/>
+ * Single use: {@link #close()} must be called once the records have been parsed, or parsing failed.
+ * <p/>
+ * T is "Protein" or "NucleotideSequence"
+ */
+class FastaMoleculeParser<T> {
+
+    private static final Logger LOGGER = LogManager.getLogger(FastaMoleculeParser.class.getName());
+
+    private static final int RECORDS_PER_BLOCK = 1000;
+
+    /**
+     * Creates the molecules of one kind, and merges the identifiers of identical sequences.
+     */
+    interface MoleculeFactory<T> {
+
+        /**
+         * Creates the molecule for a sequence, removing any white space. Called on the parser threads.
+         */
+        T createMolecule(String sequence);
+
+        String getMd5(T molecule);
+
+        /**
+         * Adds the identifier from the FASTA header to the molecule, which may already carry the identifiers of
+         * identical sequences. Called on the loading thread.
+         */
+        void addCrossReference(T molecule, String identifier);
+    }
+
+    private static class FastaRecord {
+
+        private final String identifier;
+
+        private final String sequence;
+
+        private final boolean lastRecord;
+
+        private FastaRecord(String identifier, String sequence, boolean lastRecord) {
+            this.identifier = identifier;
+            this.sequence = sequence;
+            this.lastRecord = lastRecord;
+        }
+    }
+
+    private final MoleculeFactory<T> moleculeFactory;
+
+    private final ExecutorService parserPool;
+
+    private final int maxBlocksInFlight;
+
+    private final Deque<Future<List<T>>> pendingBlocks = new ArrayDeque<>();
+
+    private final Deque<List<FastaRecord>> pendingRecords = new ArrayDeque<>();
+
+    private List<FastaRecord> block = new ArrayList<>(RECORDS_PER_BLOCK);
+
+    private final Map<String, T> parsedMolecules = new LinkedHashMap<>();
+
+    private int sequencesParsed = 0;
+
+    FastaMoleculeParser(MoleculeFactory<T> moleculeFactory, int parserThreads) {
+        this.moleculeFactory = moleculeFactory;
+        if (parserThreads > 1) {
+            parserPool = Executors.newFixedThreadPool(parserThreads, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "fasta-parser-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            maxBlocksInFlight = parserThreads * 2;
+        } else {
+            parserPool = null;
+            maxBlocksInFlight = 0;
+        }
+    }
+
+    /**
+     * Reads all of the records of a FASTA file.
+     *
+     * @return the molecules, identical sequences being collapsed, in the order they first appear in the file.
+     */
+    Set<T> parse(BufferedReader reader) throws IOException {
+        String currentId = null;
+        final StringBuilder currentSequence = new StringBuilder();
+        int lineNumber = 0;
+        String line;
+        boolean foundIdLine = false;
+
+        Utilities.verboseLog(1100, "start Parsing  input file stream");
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.length() > 0) {
+                if ('>' == line.charAt(0)) {
+                    // Found ID line.
+                    foundIdLine = true;
+                    // Store previous record, if it exists.
+                    if (currentId != null) {
+                        add(new FastaRecord(currentId, currentSequence.toString(), false));
+                        currentSequence.setLength(0);
+                    }
+                    currentId = parseId(line, lineNumber);
+                } else {
+                    // must be a sequence line.
+                    if (foundIdLine) {
+                        currentSequence.append(line.trim());
+                    }
+                    else {
+                        // The sequence had no FASTA header, fatal user input error!
+                        throw new IllegalStateException("All input sequences should include their FASTA header lines. "
+                                + "In the provided input, no FASTA header could be found before line " + lineNumber + ": " + line);
+                        // Note: This doesn't stop this sort of issue, but we can't account for everything!
+                        // > Seq 1
+                        // Seq1Sequence
+                        //
+                        // Seq2Sequence
+                    }
+                }
+            }
+        }
+        // Store the final record (if there were any at all!)
+        if (currentId != null) {
+            add(new FastaRecord(currentId, currentSequence.toString(), true));
+        }
+        return finish();
+    }
+
+    /**
+     * Adds a record that was not read from a FASTA file, e.g. an ORF translated in process.
+     * The identifier must already be trimmed to the length of the database column.
+     */
+    void add(String identifier, String sequence) {
+        add(new FastaRecord(identifier, sequence, false));
+    }
+
+    /**
+     * @return the molecules of the records added, identical sequences being collapsed, in the order they were added.
+     */
+    Set<T> finish() {
+        submit();
+        while (!pendingBlocks.isEmpty()) {
+            mergeOldest();
+        }
+        return new LinkedHashSet<>(parsedMolecules.values());
+    }
+
+    void close() {
+        if (parserPool != null) {
+            parserPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses out an ID line, replaces white space with underscores in IDs
+     *
+     * @param line
+     * @param lineNumber
+     * @return
+     */
+    private String parseId(String line, int lineNumber) {
+        String currentId = null;
+        if (line.length() > 1) {
+            currentId = line.substring(1).trim();
+        }
+
+        if (currentId == null || currentId.isEmpty()) {
+            LOGGER.error("Found an empty ID line in the FASTA file on line " + lineNumber);
+            throw new IllegalStateException("Found an empty ID line in the FASTA file on line " + lineNumber);
+        } else if (currentId.length() > 255) {
+            // ID line is too long to fit in the database column, so trim it!
+            // TODO Really this line should be parsed properly!
+            currentId = currentId.substring(0, 255);
+        }
+        return currentId;
+    }
+
+    private void add(FastaRecord record) {
+        block.add(record);
+        if (block.size() >= RECORDS_PER_BLOCK) {
+            submit();
+        }
+    }
+
+    private void submit() {
+        if (block.isEmpty()) {
+            return;
+        }
+        final List<FastaRecord> records = block;
+        block = new ArrayList<>(RECORDS_PER_BLOCK);
+        if (parserPool == null) {
+            merge(records, createMolecules(records));
+            return;
+        }
+        while (pendingBlocks.size() >= maxBlocksInFlight) {
+            mergeOldest();
+        }
+        pendingRecords.add(records);
+        pendingBlocks.add(parserPool.submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+                return createMolecules(records);
+            }
+        }));
+    }
+
+    private void mergeOldest() {
+        final List<FastaRecord> records = pendingRecords.poll();
+        try {
+            merge(records, pendingBlocks.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the FASTA file", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not parse the FASTA file", e.getCause());
+        }
+    }
+
+    /**
+     * @return the molecule for each record, null for records that are skipped.
+     */
+    private List<T> createMolecules(List<FastaRecord> records) {
+        final List<T> molecules = new ArrayList<>(records.size());
+        for (FastaRecord record : records) {
+            if (!record.lastRecord && record.sequence.trim().isEmpty()) {
+                molecules.add(null);
+                continue;
+            }
+            if (LOGGER.isTraceEnabled()) {
+                Matcher seqCheckMatcher = Protein.AMINO_ACID_PATTERN.matcher(record.sequence);
+                if (!seqCheckMatcher.matches()) {
+                    LOGGER.warn("Strange sequence parsed from FASTA file, does not match the Protein AMINO_ACID_PATTERN regex:\n" + record.sequence);
+                }
+            }
+            molecules.add(moleculeFactory.createMolecule(record.sequence));
+        }
+        return molecules;
+    }
+
+    private void merge(List<FastaRecord> records, List<T> molecules) {
+        for (int i = 0; i < records.size(); i++) {
+            T molecule = molecules.get(i);
+            if (molecule == null) {
+                continue;
+            }
+            final String md5 = moleculeFactory.getMd5(molecule);
+            final T existing = parsedMolecules.get(md5);
+            if (existing == null) {
+                parsedMolecules.put(md5, molecule);
+            } else {
+                molecule = existing;
+            }
+            moleculeFactory.addCrossReference(molecule, records.get(i).identifier);
+            sequencesParsed++;
+            if (sequencesParsed % 4000 == 0) {
+                if (sequencesParsed % 16000 == 0) {
+                    Utilities.verboseLog(1100, "Parsed " + sequencesParsed + " sequences");
+                } else if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("Parsed " + sequencesParsed + " sequences");
+                }
+            }
+        }
+    }
+}
@@ -42,4 +42,12 @@ public interface LoadFastaFile extends Serializable {
     void loadSequences(InputStream fastaFileInputStream, SequenceLoadListener sequenceLoadListener, Map<String, SignatureLibraryRelease> analysisJobMap, boolean useMatchLookupService);
 
     void setLevelDBStoreRoot(String levelDBStoreRoot);
+
+    /**
+     * Set the minimum ORF size (in nucleotides) for loaders that translate nucleic acid sequences.
+     *
+     * @param minimumOrfNucleotideSize from the command line, or null for the configured default.
+     */
+    default void setMinimumOrfNucleotideSize(String minimumOrfNucleotideSize) {
+    }
 }
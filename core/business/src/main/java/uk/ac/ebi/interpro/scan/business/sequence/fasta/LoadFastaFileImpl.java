@@ -6,8 +6,6 @@ import org.springframework.beans.factory.annotation.Required;
 import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoadListener;
 import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoader;
-import uk.ac.ebi.interpro.scan.model.NucleotideSequence;
-import uk.ac.ebi.interpro.scan.model.Protein;
 import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
@@ -15,10 +13,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.*;
 import java.util.regex.Pattern;
 
 /**
@@ -43,10 +38,19 @@ public abstract class LoadFastaFileImpl<T> implements LoadFastaFile {
 
     protected static final Pattern WHITE_SPACE_PATTERN = Pattern.compile("\\s+");
 
+    /**
+     * Number of threads creating the molecules (and so calculating the MD5s) of the parsed FASTA records.
+     */
+    private int parserThreads = 1;
+
     public void setInputType(String inputType) {
         this.inputType = inputType;
     }
 
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
     @Override
     @Required
     public void setSequenceLoader(SequenceLoader sequenceLoader) {
@@ -64,97 +68,25 @@ public abstract class LoadFastaFileImpl<T> implements LoadFastaFile {
         sequenceLoader.setDisplayLookupMessage(true);
         sequenceLoader.setUseMatchLookupService(useMatchLookupService);
         LOGGER.debug("Entered LoadFastaFileImpl.loadSequences() method");
-        int sequencesParsed = 0;
-        try (BufferedReader  reader = new BufferedReader(new InputStreamReader(fastaFileInputStream))) {
-            String currentId = null;
-            final StringBuffer currentSequence = new StringBuffer();
-            int lineNumber = 0;
-            String line;
-            boolean foundIdLine = false;
-
-            final Set<T> parsedMolecules = new HashSet<>();
-
-            Utilities.verboseLog(1100, "start Parsing  input file stream");
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (line.length() > 0) {
-                    if ('>' == line.charAt(0)) {
-                        // Found ID line.
-                        foundIdLine = true;
-                        // Store previous record, if it exists.
-                        if (currentId != null) {
-                            if (LOGGER.isDebugEnabled()) {
-//                                if (sequencesParsed % 500 == 0) {
-//                                    LOGGER.debug("Stored " + sequencesParsed + " sequences.");
-//                                    if (LOGGER.isTraceEnabled()) {
-//                                        LOGGER.trace("Current id: " + currentId);
-//                                        LOGGER.trace("Current sequence: '" + currentSequence + "'");
-//                                    }
-//                                }
-                                if (LOGGER.isTraceEnabled()) {
-                                    Matcher seqCheckMatcher = Protein.AMINO_ACID_PATTERN.matcher(currentSequence);
-                                    if (!seqCheckMatcher.matches()) {
-                                        LOGGER.warn("Strange sequence parsed from FASTA file, does not match the Protein AMINO_ACID_PATTERN regex:\n" + currentSequence);
-                                    }
-                                }
-                            }
-                            final String seq = currentSequence.toString();
-                            if (seq.trim().length() > 0) {
-                                addToMoleculeCollection(seq, currentId, parsedMolecules);
-                                sequencesParsed++;
-                            }
-//                            if (sequencesParsed == 1000 ) {
-//                                //check if we are running nucleotides
-//                               if (parsedMolecules.iterator().next() instanceof NucleotideSequence){
-//                                    LOGGER.info("You are analysing more than 1000 nucleotide sequences. " +
-//                                            " Either use an external tool to translate the sequences or Chunk the input and then send the chunks to InterProScan. Refer to " +
-//                                            " https://github.com/ebi-pf-team/interproscan/wiki/ScanNucleicAcidSeqs#improving-performance");
-//                                }
-//                                throw new IllegalStateException("Input error - nucleotide sequence  count : " + sequencesParsed);
-//                            }
-
-                            currentSequence.delete(0, currentSequence.length());
-                            if (sequencesParsed % 4000 == 0) {
-                                if (sequencesParsed % 16000 == 0) {
-                                    //TODO use utilities.verboselog
-                                    Utilities.verboseLog(1100, "Parsed " + sequencesParsed + " sequences");
-                                    //System.out.println(sdf.format(Calendar.getInstance().getTime()) + " Parsed " + sequencesParsed + " sequences");
-                                }else{
-                                    if(LOGGER.isInfoEnabled()){
-                                        LOGGER.info( "Parsed " + sequencesParsed + " sequences");
-                                    }
-                                }
-
-                            }
-                        }
-                        currentId = parseId(line, lineNumber);
-                    } else {
-                        // must be a sequence line.
-                        if (foundIdLine) {
-                            currentSequence.append(line.trim());
-                        }
-                        else {
-                            // The sequence had no FASTA header, fatal user input error!
-                            LOGGER.fatal("A FASTA input sequence had no header. Stopping now.");
-                            System.out.println("Error: All input sequences should include their FASTA header lines.");
-                            System.out.println("In the provided input, no FASTA header could be found before line: " + line);
-                            System.out.println("No seqeuences have been processed.");
-                            System.exit(999);
-                            // Note: This doesn't stop this sort of issue, but we can't account for everything!
-                            // > Seq 1
-                            // Seq1Sequence
-                            //
-                            // Seq2Sequence
-                        }
-                    }
-                }
+        final FastaMoleculeParser<T> parser = new FastaMoleculeParser<>(new FastaMoleculeParser.MoleculeFactory<T>() {
+            @Override
+            public T createMolecule(String sequence) {
+                return LoadFastaFileImpl.this.createMolecule(sequence);
             }
-            // Store the final record (if there were any at all!)
-            if (currentId != null) {
-                addToMoleculeCollection(currentSequence.toString(), currentId, parsedMolecules);
-                LOGGER.debug("About to call SequenceLoader.persist().");
+
+            @Override
+            public String getMd5(T molecule) {
+                return LoadFastaFileImpl.this.getMd5(molecule);
             }
 
+            @Override
+            public void addCrossReference(T molecule, String identifier) {
+                LoadFastaFileImpl.this.addCrossReference(molecule, identifier);
+            }
+        }, parserThreads);
+        try (BufferedReader  reader = new BufferedReader(new InputStreamReader(fastaFileInputStream))) {
+            final Set<T> parsedMolecules = parser.parse(reader);
+
             Utilities.verboseLog(1100, "Parsed Molecules (sequences) : " + parsedMolecules.size());
 
             // Now iterate over Proteins and store using Sequence Loader.
@@ -166,33 +98,22 @@ public abstract class LoadFastaFileImpl<T> implements LoadFastaFile {
             Utilities.verboseLog(1100, "Store and persist the sequences ...  completed");
         } catch (IOException e) {
             throw new IllegalStateException("Could not read the fastaFileInputStream. ", e);
+        } finally {
+            parser.close();
         }
     }
 
     /**
-     * Parses out an ID line, replaces white space with underscores in IDs
-     *
-     * @param line
-     * @param lineNumber
-     * @return
+     * Creates the molecule for a sequence, removing any white space. Called on the parser threads.
      */
-    private String parseId(String line, int lineNumber) {
-        String currentId = null;
-        if (line.length() > 1) {
-            currentId = line.substring(1).trim();
-        }
+    protected abstract T createMolecule(String sequence);
 
-        if (currentId == null || currentId.isEmpty()) {
-            LOGGER.error("Found an empty ID line in the FASTA file on line " + lineNumber);
-            throw new IllegalStateException("Found an empty ID line in the FASTA file on line " + lineNumber);
-        } else if (currentId.length() > 255) {
-            // ID line is too long to fit in the database column, so trim it!
-            // TODO Really this line should be parsed properly!
-            currentId = currentId.substring(0, 255);
-        }
-        return currentId;
-    }
+    protected abstract String getMd5(T molecule);
 
-    protected abstract void addToMoleculeCollection(String sequence, final String currentId, final Set<T> parsedMolecules);
+    /**
+     * Adds the identifier from the FASTA header to the molecule, which may already carry the identifiers of
+     * identical sequences. Called on the loading thread.
+     */
+    protected abstract void addCrossReference(T molecule, String identifier);
 }
 //todo edit
@@ -4,10 +4,12 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLengthIndex;
 import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoadListener;
 import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoader;
 import uk.ac.ebi.interpro.scan.io.getorf.GetOrfDescriptionLineParser;
 import uk.ac.ebi.interpro.scan.io.ntranslate.ORFDescriptionLineParser;
+import uk.ac.ebi.interpro.scan.io.ntranslate.SixFrameTranslator;
 import uk.ac.ebi.interpro.scan.io.sequence.XrefParser;
 import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.persistence.NucleotideSequenceDAO;
@@ -26,7 +28,6 @@ import org.apache.commons.lang3.SerializationUtils;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -62,6 +63,50 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
     private ORFDescriptionLineParser orfDescriptionLineParser;
     private GetOrfDescriptionLineParser descriptionLineParser;
 
+    /**
+     * If set, the input is nucleic acid and is translated in process into ORFs, rather than
+     * being a protein FASTA file written by an external ORF prediction tool.
+     */
+    private SixFrameTranslator sixFrameTranslator;
+
+    /**
+     * Minimum ORF size in nucleotides for the current run (the -ms option), or null for the translator default.
+     */
+    private String minimumOrfNucleotideSize;
+
+    /**
+     * ORFs from the in-process translation of the current run, keyed on the ORF header (protein xref name).
+     */
+    private final Map<String, OpenReadingFrame> translatedOrfs = new HashMap<>();
+
+    /**
+     * Optional, records the sequence lengths for the chunking of the analyses.
+     */
+    private SequenceLengthIndex sequenceLengthIndex;
+
+    /**
+     * Number of threads creating the proteins (and so calculating the MD5s) of the parsed FASTA records or ORFs.
+     */
+    private int parserThreads = 1;
+
+    private static final FastaMoleculeParser.MoleculeFactory<Protein> PROTEIN_FACTORY = new FastaMoleculeParser.MoleculeFactory<Protein>() {
+        @Override
+        public Protein createMolecule(String sequence) {
+            return new Protein(WHITE_SPACE_PATTERN.matcher(sequence).replaceAll(""));
+        }
+
+        @Override
+        public String getMd5(Protein protein) {
+            return protein.getMd5();
+        }
+
+        @Override
+        public void addCrossReference(Protein protein, String identifier) {
+            // Being added to a Set, so no risk of duplicates
+            protein.addCrossReference(XrefParser.getProteinXref(identifier));
+        }
+    };
+
     @Required
     public void setProteinDAO(ProteinDAO proteinDAO) {
         this.proteinDAO = proteinDAO;
@@ -91,6 +136,23 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
         this.descriptionLineParser = descriptionLineParser;
     }
 
+    public void setSixFrameTranslator(SixFrameTranslator sixFrameTranslator) {
+        this.sixFrameTranslator = sixFrameTranslator;
+    }
+
+    @Override
+    public void setMinimumOrfNucleotideSize(String minimumOrfNucleotideSize) {
+        this.minimumOrfNucleotideSize = minimumOrfNucleotideSize;
+    }
+
+    public void setSequenceLengthIndex(SequenceLengthIndex sequenceLengthIndex) {
+        this.sequenceLengthIndex = sequenceLengthIndex;
+    }
+
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
     public void setNucleotideSequenceDAO(NucleotideSequenceDAO nucleotideSequenceDAO) {
         this.nucleotideSequenceDAO = nucleotideSequenceDAO;
     }
@@ -106,102 +168,28 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
         sequenceLoader.setUseMatchLookupService(useMatchLookupService); //set lookup and display message
         LOGGER.debug("Entered LoadFastaFileImpl.loadSequences() method");
         Utilities.verboseLog(110, "Entered LoadFastaFiletoDBImpl.loadSequences() method");
-        int sequencesParsed = 0;
 
         levelDBStoreName = levelDBStoreRoot + "/leveldb";
         LOGGER.debug("levelDBStoreName: " + levelDBStoreName);
 //        levelDBStore = getLevelDBStore(levelDBStoreName);
+        final FastaMoleculeParser<Protein> parser = new FastaMoleculeParser<>(PROTEIN_FACTORY, parserThreads);
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(fastaFileInputStream))) {
-            String currentId = null;
-            final StringBuffer currentSequence = new StringBuffer();
-            int lineNumber = 0;
-            String line;
-            boolean foundIdLine = false;
-
-            final Set<Protein> parsedMolecules = new HashSet<>();
-
-            Utilities.verboseLog(110, "start Parsing  input file stream");
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (line.length() > 0) {
-                    if ('>' == line.charAt(0)) {
-                        // Found ID line.
-                        foundIdLine = true;
-                        // Store previous record, if it exists.
-                        if (currentId != null) {
-                            if (LOGGER.isDebugEnabled()) {
-//                                if (sequencesParsed % 500 == 0) {
-//                                    LOGGER.debug("Stored " + sequencesParsed + " sequences.");
-//                                    if (LOGGER.isTraceEnabled()) {
-//                                        LOGGER.trace("Current id: " + currentId);
-//                                        LOGGER.trace("Current sequence: '" + currentSequence + "'");
-//                                    }
-//                                }
-                                if (LOGGER.isTraceEnabled()) {
-                                    Matcher seqCheckMatcher = Protein.AMINO_ACID_PATTERN.matcher(currentSequence);
-                                    if (!seqCheckMatcher.matches()) {
-                                        LOGGER.warn("Strange sequence parsed from FASTA file, does not match the Protein AMINO_ACID_PATTERN regex:\n" + currentSequence);
-                                    }
-                                }
-                            }
-                            final String seq = currentSequence.toString();
-                            if (seq.trim().length() > 0) {
-                                addToMoleculeCollectionInDB(seq, currentId, parsedMolecules);
-                                sequencesParsed++;
-                            }
-//                            if (sequencesParsed == 1000 ) {
-//                                //check if we are running nucleotides
-//                               if (parsedMolecules.iterator().next() instanceof NucleotideSequence){
-//                                    LOGGER.info("You are analysing more than 1000 nucleotide sequences. " +
-//                                            " Either use an external tool to translate the sequences or Chunk the input and then send the chunks to InterProScan. Refer to " +
-//                                            " https://github.com/ebi-pf-team/interproscan/wiki/ScanNucleicAcidSeqs#improving-performance");
-//                                }
-//                                throw new IllegalStateException("Input error - nucleotide sequence  count : " + sequencesParsed);
-//                            }
-
-                            currentSequence.delete(0, currentSequence.length());
-                            if (sequencesParsed % 4000 == 0) {
-                                if (sequencesParsed % 16000 == 0) {
-                                    //TODO use utilities.verboselog
-                                    Utilities.verboseLog(110, "Parsed " + sequencesParsed + " sequences");
-                                    //System.out.println(sdf.format(Calendar.getInstance().getTime()) + " Parsed " + sequencesParsed + " sequences");
-                                } else {
-                                    if (LOGGER.isInfoEnabled()) {
-                                        LOGGER.info("Parsed " + sequencesParsed + " sequences");
-                                    }
-                                }
-
-                            }
-                        }
-                        currentId = parseId(line, lineNumber);
-                    } else {
-                        // must be a sequence line.
-                        if (foundIdLine) {
-                            currentSequence.append(line.trim());
-                        } else {
-                            // The sequence had no FASTA header, fatal user input error!
-                            LOGGER.fatal("A FASTA input sequence had no header. Stopping now.");
-                            System.out.println("Error: All input sequences should include their FASTA header lines.");
-                            System.out.println("In the provided input, no FASTA header could be found before line: " + line);
-                            System.out.println("No seqeuences have been processed.");
-                            System.exit(999);
-                            // Note: This doesn't stop this sort of issue, but we can't account for everything!
-                            // > Seq 1
-                            // Seq1Sequence
-                            //
-                            // Seq2Sequence
-                        }
-                    }
-                }
-            }
-            // Store the final record (if there were any at all!)
-            if (currentId != null) {
-                addToMoleculeCollectionInDB(currentSequence.toString(), currentId, parsedMolecules);
-                LOGGER.debug("About to call SequenceLoader.persist().");
+            final Set<Protein> parsedMolecules;
+            if (sixFrameTranslator == null) {
+                parsedMolecules = parser.parse(reader);
+            } else {
+                parsedMolecules = translateNucleotideSequences(reader, parser);
             }
+            // The parser threads are not needed while the proteins are persisted.
+            parser.close();
 
             int totalProteinsParsed = parsedMolecules.size();
             Utilities.verboseLog(110, "Parsed Molecules (sequences) : " + totalProteinsParsed);
+            if (parsedMolecules.isEmpty()) {
+                // Nothing to analyse, the caller reports it (see Utilities.getSequenceCount()).
+                Utilities.setSequenceCount(0);
+                return;
+            }
 
             // Now iterate over Proteins and store using Sequence Loader.
             LOGGER.info("Store and persist the sequences");
@@ -254,6 +242,9 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
                         }
                     }
                     proteinDAO.insert(sequenceId, protein);
+                    if (sequenceLengthIndex != null) {
+                        sequenceLengthIndex.record(protein.getId(), protein.getSequenceLength());
+                    }
                     count++;
                 }
                 Utilities.verboseLog(110, "Stored " + count + " parsed sequences into KVDB ... ");
@@ -280,56 +271,34 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
 
         } catch (IOException e) {
             throw new IllegalStateException("Could not read the fastaFileInputStream. ", e);
+        } finally {
+            parser.close();
         }
     }
 
     /**
-     * Parses out an ID line, replaces white space with underscores in IDs
+     * Translates nucleic acid sequences into ORFs, creating the ORF proteins with the parser.
+     * The ORFs are held until the proteins are persisted, so the ORF description lines need not be parsed back.
      *
-     * @param line
-     * @param lineNumber
-     * @return
+     * @return the ORF proteins, identical sequences being collapsed; empty if no ORF is long enough.
      */
-    private String parseId(String line, int lineNumber) {
-        String currentId = null;
-        if (line.length() > 1) {
-            currentId = line.substring(1).trim();
+    private Set<Protein> translateNucleotideSequences(BufferedReader reader, final FastaMoleculeParser<Protein> parser) throws IOException {
+        int minimumOrfLength = sixFrameTranslator.getMinimumOrfLength();
+        if (minimumOrfNucleotideSize != null && !minimumOrfNucleotideSize.trim().isEmpty()) {
+            // The -ms option is in nucleotides (as for EMBOSS getorf), the translator works in codons
+            minimumOrfLength = (Integer.parseInt(minimumOrfNucleotideSize.trim()) + 2) / 3;
         }
-
-        if (currentId == null || currentId.isEmpty()) {
-            LOGGER.error("Found an empty ID line in the FASTA file on line " + lineNumber);
-            throw new IllegalStateException("Found an empty ID line in the FASTA file on line " + lineNumber);
-        } else if (currentId.length() > 255) {
-            // ID line is too long to fit in the database column, so trim it!
-            // TODO Really this line should be parsed properly!
-            currentId = currentId.substring(0, 255);
-        }
-        return currentId;
-    }
-
-//    protected abstract void addToMoleculeCollection(String sequence, final String currentId, final Set<T> parsedMolecules);
-
-    protected void addToMoleculeCollectionInDB(String sequence, final String currentId, final Set<Protein> parsedMolecules) {
-        sequence = WHITE_SPACE_PATTERN.matcher(sequence).replaceAll("");
-        Protein thisProtein = new Protein(sequence);
-
-        // Check if this sequence is already in the Set.  If it is, retrieve it.
-        boolean isMoleculeAdded = parsedMolecules.add(thisProtein);
-        if (!isMoleculeAdded) {
-            for (Protein existing : parsedMolecules) {
-                if (existing.getMd5().equals(thisProtein.getMd5())) {
-                    thisProtein = existing;
-                    break;
-                }
-            }
-        }
-
-        // Add the Xref to the Protein object. (Being added to a Set, so no risk of duplicates)
-        thisProtein.addCrossReference(XrefParser.getProteinXref(currentId));
-
+        translatedOrfs.clear();
+        final int orfCount = sixFrameTranslator.translate(reader, minimumOrfLength, (header, proteinSequence, orf) -> {
+            final String orfId = (header.length() > 255) ? header.substring(0, 255) : header;
+            parser.add(orfId, proteinSequence);
+            translatedOrfs.put(orfId, orf);
+        });
+        final Set<Protein> parsedMolecules = parser.finish();
+        Utilities.verboseLog(110, "Translated " + orfCount + " ORFs of at least " + minimumOrfLength + " codons");
+        return parsedMolecules;
     }
 
-
     private void createAndPersistNewORFs(final ProteinDAO.PersistedProteins persistedProteins) {
         //Holder for new ORFs which should be persisted
         Utilities.verboseLog(110, "Start createAndPersistNewORFs for new proteins and their cross references.");
@@ -375,8 +344,11 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
 
                 for (ProteinXref proteinXref : proteinXrefSet) {
                     totalProteinXrefs++;
-                    String description = proteinXref.getDescription();
-                    OpenReadingFrame newOrf = orfDescriptionLineParser.createORFFromParsingResult(description);
+                    OpenReadingFrame newOrf = translatedOrfs.remove(proteinXref.getName());
+                    if (newOrf == null) {
+                        String description = proteinXref.getDescription();
+                        newOrf = orfDescriptionLineParser.createORFFromParsingResult(description);
+                    }
                     Long startSetNucleotideSequence = System.currentTimeMillis();
 
                     toDebugPrint(proteinXrefMapKeySize, totalProteinXrefs,
@@ -412,6 +384,7 @@ public class LoadFastaFileIntoDBImpl<T> implements LoadFastaFile {
                 (System.currentTimeMillis() - startCreateAndPersistNewORFs) + " millis ");
 
 
+        translatedOrfs.clear();
         Utilities.verboseLog(110, "createAndPersistNewORFs done in " +
                 (System.currentTimeMillis() - startCreateAndPersistNewORFs) + " millis");
     }
@@ -3,8 +3,6 @@ package uk.ac.ebi.interpro.scan.business.sequence.fasta;
 import uk.ac.ebi.interpro.scan.io.sequence.XrefParser;
 import uk.ac.ebi.interpro.scan.model.Protein;
 
-import java.util.Set;
-
 /**
  * Created with IntelliJ IDEA.
  *
@@ -14,22 +12,19 @@ import java.util.Set;
  */
 public class LoadProteinFastaFile extends LoadFastaFileImpl<Protein> {
 
-    protected void addToMoleculeCollection(String sequence, final String currentId, final Set<Protein> parsedMolecules) {
-        sequence = WHITE_SPACE_PATTERN.matcher(sequence).replaceAll("");
-        Protein thisProtein = new Protein(sequence);
+    @Override
+    protected Protein createMolecule(String sequence) {
+        return new Protein(WHITE_SPACE_PATTERN.matcher(sequence).replaceAll(""));
+    }
 
-        // Check if this sequence is already in the Set.  If it is, retrieve it.
-        boolean isMoleculeAdded = parsedMolecules.add(thisProtein);
-        if (!isMoleculeAdded) {
-            for (Protein existing : parsedMolecules) {
-                if (existing.getMd5().equals(thisProtein.getMd5())) {
-                    thisProtein = existing;
-                    break;
-                }
-            }
-        }
+    @Override
+    protected String getMd5(Protein protein) {
+        return protein.getMd5();
+    }
 
-        // Add the Xref to the Protein object. (Being added to a Set, so no risk of duplicates)
-        thisProtein.addCrossReference(XrefParser.getProteinXref(currentId));
+    @Override
+    protected void addCrossReference(Protein protein, String identifier) {
+        // Being added to a Set, so no risk of duplicates
+        protein.addCrossReference(XrefParser.getProteinXref(identifier));
     }
 }
@@ -0,0 +1,158 @@
+package uk.ac.ebi.interpro.scan.business.sequence.fasta;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Materialises the fasta file of a protein range once, for all of the analyses run over that range.
+ * <p/>
+ * The shared file is kept in a directory next to the per-job working directories.  Each analysis gets a
+ * hard link to it at its usual fasta file path (a copy if the file system cannot link), so the link count
+ * of the shared file is its reference count: once the analyses have deleted their fasta files, the shared
+ * file is deleted too.  Analyses with their own alphabet (e.g. Phobius, TMHMM) derive their fasta file
+ * from the shared one, rather than loading the proteins again.
+ */
+public class SharedFastaFileStore implements Serializable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SharedFastaFileStore.class.getName());
+
+    /**
+     * Name of the directory, alongside the job directories, holding the shared fasta files.
+     */
+    public static final String SHARED_DIRECTORY_NAME = "sequences";
+
+    /**
+     * Guards writing and releasing each shared file within this JVM.
+     */
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the proteins of the range, only called when the shared file does not yet exist.
+     */
+    public interface ProteinSource {
+        List<Protein> getProteins() throws IOException;
+    }
+
+    /**
+     * @param temporaryFileDirectory working directory of the job.
+     * @param proteinSet             name of the set of proteins written (e.g. all, or only those not in the lookup).
+     * @param fileName               of the fasta file for the protein range.
+     * @return the path of the shared fasta file.
+     */
+    public static Path getSharedFilePath(String temporaryFileDirectory, String proteinSet, String fileName) {
+        return Paths.get(temporaryFileDirectory).toAbsolutePath()
+                .resolveSibling(SHARED_DIRECTORY_NAME)
+                .resolve(proteinSet)
+                .resolve(fileName);
+    }
+
+    /**
+     * Writes the fasta file for an analysis, from the shared file (which is written first if need be).
+     *
+     * @param sharedFile     shared fasta file of the protein range.
+     * @param filePath       of the fasta file of the analysis.
+     * @param fastaFileWriter of the analysis.
+     * @param proteinSource  to load the proteins if the shared file does not exist.
+     * @return true if there are no proteins in the range.
+     */
+    public boolean writeFastaFile(Path sharedFile, String filePath, FastaFileWriter fastaFileWriter, ProteinSource proteinSource)
+            throws IOException, FastaFileWriter.FastaFileWritingException {
+        final Path target = Paths.get(filePath);
+        synchronized (lock(sharedFile)) {
+            // A retried step may find its old fasta file, possibly a link to the shared file.
+            Files.deleteIfExists(target);
+            for (int attempt = 1; ; attempt++) {
+                if (!Files.exists(sharedFile)) {
+                    createSharedFile(sharedFile, proteinSource);
+                }
+                try {
+                    final boolean empty = Files.size(sharedFile) == 0;
+                    if (fastaFileWriter.writesUnchangedSequences()) {
+                        link(sharedFile, target);
+                    } else {
+                        fastaFileWriter.writeFastaFile(sharedFile, filePath);
+                    }
+                    return empty;
+                } catch (NoSuchFileException e) {
+                    // Released by another process in the meantime, so write it again.
+                    if (attempt > 1) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once an analysis has deleted its fasta file: deletes the matching shared file if no
+     * analysis still links to it.
+     *
+     * @param temporaryFileDirectory working directory of the job.
+     * @param fileName               of the deleted fasta file.
+     */
+    public static void release(String temporaryFileDirectory, String fileName) {
+        final Path sharedDirectory = Paths.get(temporaryFileDirectory).toAbsolutePath().resolveSibling(SHARED_DIRECTORY_NAME);
+        if (!Files.isDirectory(sharedDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> proteinSets = Files.newDirectoryStream(sharedDirectory)) {
+            for (Path proteinSet : proteinSets) {
+                final Path sharedFile = proteinSet.resolve(fileName);
+                synchronized (lock(sharedFile)) {
+                    if (Files.exists(sharedFile) && (Integer) Files.getAttribute(sharedFile, "unix:nlink") <= 1) {
+                        Files.delete(sharedFile);
+                        Utilities.verboseLog(110, "Deleted unreferenced shared fasta file " + sharedFile);
+                    }
+                }
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // No link count on this file system, so the shared files are left for the end of run clean up.
+            LOGGER.debug("Unable to check the link count of the shared fasta files in " + sharedDirectory);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to release the shared fasta file " + fileName + " in " + sharedDirectory, e);
+        }
+    }
+
+    private static Object lock(Path sharedFile) {
+        return LOCKS.computeIfAbsent(sharedFile.toString(), key -> new Object());
+    }
+
+    private void createSharedFile(Path sharedFile, ProteinSource proteinSource)
+            throws IOException, FastaFileWriter.FastaFileWritingException {
+        final List<Protein> proteins = proteinSource.getProteins();
+        Files.createDirectories(sharedFile.getParent());
+        // Written under a temporary name, so another process never sees a partial file.
+        final Path temporaryFile = Files.createTempFile(sharedFile.getParent(), sharedFile.getFileName().toString(), ".tmp");
+        try {
+            new FastaFileWriter().writeFastaFile(proteins, temporaryFile.toString());
+            try {
+                Files.move(temporaryFile, sharedFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, sharedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        Utilities.verboseLog(110, "Wrote shared fasta file " + sharedFile + " with " + proteins.size() + " proteins");
+    }
+
+    private void link(Path sharedFile, Path target) throws IOException {
+        try {
+            Files.createLink(target, sharedFile);
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            LOGGER.debug("Unable to link " + target + " to " + sharedFile + ", so copying it: " + e.getMessage());
+            Files.copy(sharedFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
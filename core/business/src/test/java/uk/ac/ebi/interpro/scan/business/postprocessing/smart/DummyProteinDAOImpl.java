@@ -158,6 +158,11 @@ public class DummyProteinDAOImpl implements uk.ac.ebi.interpro.scan.persistence.
         return null;
     }
 
+    @Override
+    public List<Protein> getProteins(List<String> keys) {
+        return null;
+    }
+
     @Override
     public void persistProteinNotInLookup(byte[] key, byte[] protein) {
 
@@ -0,0 +1,81 @@
+package uk.ac.ebi.interpro.scan.business.sequence;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for PrecalculatedLookupPipeline, with a lookup that takes a varying time per batch.
+ */
+public class PrecalculatedLookupPipelineTest {
+
+    private static List<Set<Protein>> batches(int count) {
+        final List<Set<Protein>> batches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batches.add(Collections.singleton(new Protein("MKVLAAGIVALLLAAGCSS" + "ACDEFGHIKLMNPQRSTVWY".charAt(i % 20))));
+        }
+        return batches;
+    }
+
+    @Test
+    public void testResultsInSubmissionOrder() {
+        final List<Set<Protein>> batches = batches(20);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final List<Set<Protein>> handled = new ArrayList<>();
+        final Set<Thread> handlerThreads = new HashSet<>();
+        final Random random = new Random(3);
+
+        try (PrecalculatedLookupPipeline<Integer> pipeline = new PrecalculatedLookupPipeline<>(3,
+                batch -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(random.nextInt(20));
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    return batches.indexOf(batch);
+                },
+                (batch, result) -> {
+                    assertEquals(handled.size(), result.intValue());
+                    handled.add(batch);
+                    handlerThreads.add(Thread.currentThread());
+                })) {
+            for (Set<Protein> batch : batches) {
+                pipeline.submit(batch);
+                assertTrue(pipeline.getBatchesInFlight() <= 3);
+            }
+            pipeline.finish();
+        }
+        assertEquals(batches, handled);
+        assertEquals(Collections.singleton(Thread.currentThread()), handlerThreads, "Results should be handled on the submitting thread");
+        assertTrue(maxInFlight.get() <= 3, "No more than 3 lookups at once, was " + maxInFlight.get());
+    }
+
+    @Test
+    public void testFailedBatchIsAnalysedLocally() {
+        final List<Set<Protein>> batches = batches(6);
+        for (int batchesInFlight : new int[]{1, 4}) {
+            final List<Integer> results = new ArrayList<>();
+            try (PrecalculatedLookupPipeline<Integer> pipeline = new PrecalculatedLookupPipeline<>(batchesInFlight,
+                    batch -> {
+                        final int index = batches.indexOf(batch);
+                        if (index == 2) {
+                            throw new IllegalStateException("Lookup service unavailable");
+                        }
+                        return (index == 4) ? null : index;
+                    },
+                    (batch, result) -> results.add(result))) {
+                for (Set<Protein> batch : batches) {
+                    pipeline.submit(batch);
+                }
+                pipeline.finish();
+            }
+            assertEquals(Arrays.asList(0, 1, null, 3, null, 5), results);
+        }
+    }
+}
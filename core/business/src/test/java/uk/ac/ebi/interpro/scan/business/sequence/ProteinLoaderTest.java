@@ -0,0 +1,168 @@
+package uk.ac.ebi.interpro.scan.business.sequence;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.business.sequence.fasta.NoopSequenceLoadListener;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
+import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ProteinLoader with several batches in flight to a stub lookup service, whose precalculated proteins
+ * are those ending in 'A'.
+ */
+public class ProteinLoaderTest {
+
+    private static class StubLookup implements PrecalculatedProteinLookup {
+
+        private final Set<String> fetchThreads = Collections.synchronizedSet(new HashSet<String>());
+
+        private final Set<Thread> populateThreads = new HashSet<>();
+
+        @Override
+        public Protein getPrecalculated(Protein protein, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Protein> getPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PrecalculatedMatches fetchPrecalculated(Set<Protein> proteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            fetchThreads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                return null;
+            }
+            final Set<Protein> precalculated = new HashSet<>();
+            for (Protein protein : proteins) {
+                if (protein.getSequence().endsWith("A")) {
+                    precalculated.add(protein);
+                }
+            }
+            return new PrecalculatedMatches(precalculated, Collections.<KVSequenceEntry>emptyList(), Collections.<KVSequenceEntry>emptyList(), false);
+        }
+
+        @Override
+        public Set<Protein> populatePrecalculated(PrecalculatedMatches precalculatedMatches, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            populateThreads.add(Thread.currentThread());
+            return precalculatedMatches.getProteins();
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public boolean isSynchronised() {
+            return true;
+        }
+
+        @Override
+        public boolean isAnalysisVersionConsistent(Set<Protein> preCalculatedProteins, List<KVSequenceEntry> kvSequenceEntries, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            return true;
+        }
+    }
+
+    /**
+     * Records the proteins inserted, giving them ids, and fails once failAfter proteins have been inserted.
+     */
+    private static ProteinDAO proteinDAO(final List<Protein> inserted, final int failAfter) {
+        return (ProteinDAO) Proxy.newProxyInstance(ProteinDAO.class.getClassLoader(), new Class<?>[]{ProteinDAO.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (!"insertNewProteins".equals(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        if (inserted.size() >= failAfter) {
+                            throw new IllegalStateException("Database unavailable");
+                        }
+                        final ProteinDAO.PersistedProteins persisted = new ProteinDAO.PersistedProteins();
+                        final Method addNewProtein = ProteinDAO.PersistedProteins.class.getDeclaredMethod("addNewProtein", Protein.class);
+                        addNewProtein.setAccessible(true);
+                        final Field id = Protein.class.getDeclaredField("id");
+                        id.setAccessible(true);
+                        for (Object protein : (Collection<?>) args[0]) {
+                            inserted.add((Protein) protein);
+                            id.set(protein, (long) inserted.size());
+                            addNewProtein.invoke(persisted, protein);
+                        }
+                        return persisted;
+                    }
+                });
+    }
+
+    private static ProteinLoader proteinLoader(StubLookup lookup, ProteinDAO proteinDAO) {
+        final ProteinLoader loader = new ProteinLoader();
+        loader.setProteinLookup(lookup);
+        loader.setProteinDAO(proteinDAO);
+        loader.setProteinInsertBatchSize(7);
+        loader.setProteinInsertBatchSizeNoLookup(7);
+        loader.setProteinPrecalcLookupBatchSize(10);
+        loader.setLookupBatchesInFlight(4);
+        loader.setGetOrfOutput(false);
+        loader.setDisplayLookupMessage(false);
+        loader.setUseMatchLookupService(true);
+        return loader;
+    }
+
+    private static Set<Protein> proteins(int count) {
+        final Set<Protein> proteins = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            final StringBuilder sequence = new StringBuilder("MKVLAAGIV");
+            for (int v = i; v > 0; v /= 20) {
+                sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(v % 20));
+            }
+            proteins.add(new Protein(sequence.toString()));
+        }
+        return proteins;
+    }
+
+    private static List<Thread> lookupThreads() {
+        final List<Thread> threads = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("precalc-lookup-")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    @Test
+    public void testMatchesPopulatedOnLoadingThread() {
+        final StubLookup lookup = new StubLookup();
+        final List<Protein> inserted = new ArrayList<>();
+        final ProteinLoader loader = proteinLoader(lookup, proteinDAO(inserted, Integer.MAX_VALUE));
+        final Set<Protein> proteins = proteins(300);
+
+        loader.storeAll(proteins, Collections.<String, SignatureLibraryRelease>emptyMap());
+        loader.persist(new NoopSequenceLoadListener(), Collections.<String, SignatureLibraryRelease>emptyMap());
+
+        assertEquals(proteins, new HashSet<>(inserted));
+        assertEquals(proteins.size(), inserted.size());
+        assertEquals(Collections.singleton(Thread.currentThread()), lookup.populateThreads, "Matches should be stored on the loading thread");
+        assertFalse(lookup.fetchThreads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testLookupThreadsStoppedWhenLoadingFails() throws InterruptedException {
+        final ProteinLoader loader = proteinLoader(new StubLookup(), proteinDAO(new ArrayList<Protein>(), 50));
+
+        assertThrows(IllegalStateException.class,
+                () -> loader.storeAll(proteins(300), Collections.<String, SignatureLibraryRelease>emptyMap()));
+        for (Thread thread : lookupThreads()) {
+            thread.join(5000);
+            assertFalse(thread.isAlive(), thread.getName() + " is still running");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package uk.ac.ebi.interpro.scan.business.sequence.fasta;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoadListener;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoader;
+import uk.ac.ebi.interpro.scan.io.ntranslate.SixFrameTranslator;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.model.ProteinXref;
+import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
+import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for LoadFastaFileIntoDBImpl, loading protein FASTA files and in-process ORF translations
+ * on one parser thread and on several, with an in-memory protein DAO.
+ */
+public class LoadFastaFileIntoDBImplTest {
+
+    private static final SequenceLoader<Protein> SEQUENCE_LOADER = new SequenceLoader<Protein>() {
+        @Override
+        public void store(String sequence, Map<String, SignatureLibraryRelease> analysisJobMap, String... crossReferences) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void persist(SequenceLoadListener sequenceLoadListener, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setUseMatchLookupService(boolean useMatchLookupService) {
+        }
+
+        @Override
+        public void setDisplayLookupMessage(boolean displayMessage) {
+        }
+
+        @Override
+        public void storeAll(Set<Protein> parsedMolecules, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    /**
+     * Gives the proteins ids in the order they are inserted, and records them.
+     */
+    private static ProteinDAO proteinDAO(final List<Protein> inserted) {
+        return (ProteinDAO) Proxy.newProxyInstance(ProteinDAO.class.getClassLoader(), new Class<?>[]{ProteinDAO.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        switch (method.getName()) {
+                            case "insertNewProteins":
+                                final ProteinDAO.PersistedProteins persisted = new ProteinDAO.PersistedProteins();
+                                final Method addNewProtein = ProteinDAO.PersistedProteins.class.getDeclaredMethod("addNewProtein", Protein.class);
+                                addNewProtein.setAccessible(true);
+                                final Field id = Protein.class.getDeclaredField("id");
+                                id.setAccessible(true);
+                                for (Object protein : (Collection<?>) args[0]) {
+                                    inserted.add((Protein) protein);
+                                    id.set(protein, (long) inserted.size());
+                                    addNewProtein.invoke(persisted, protein);
+                                }
+                                return persisted;
+                            case "getProteinsBetweenIds":
+                                return new ArrayList<>(inserted.subList((int) (long) (Long) args[0] - 1, (int) (long) (Long) args[1]));
+                            case "insert":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+
+    private static List<String> load(String fasta, int parserThreads, SixFrameTranslator sixFrameTranslator) {
+        final List<Protein> inserted = new ArrayList<>();
+        final LoadFastaFileIntoDBImpl<Protein> loader = new LoadFastaFileIntoDBImpl<>();
+        loader.setSequenceLoader(SEQUENCE_LOADER);
+        loader.setProteinDAO(proteinDAO(inserted));
+        loader.setGetOrfOutput(false);
+        loader.setParserThreads(parserThreads);
+        loader.setSixFrameTranslator(sixFrameTranslator);
+        loader.loadSequences(new ByteArrayInputStream(fasta.getBytes(StandardCharsets.UTF_8)), new NoopSequenceLoadListener(), null, false);
+
+        final List<String> descriptions = new ArrayList<>();
+        for (Protein protein : inserted) {
+            final Set<String> identifiers = new TreeSet<>();
+            for (ProteinXref xref : protein.getCrossReferences()) {
+                identifiers.add(xref.getIdentifier());
+            }
+            descriptions.add(protein.getId() + " " + protein.getSequence() + " " + identifiers);
+        }
+        return descriptions;
+    }
+
+    private static String proteinFasta(int sequenceCount) {
+        final StringBuilder fasta = new StringBuilder();
+        for (int i = 0; i < sequenceCount; i++) {
+            // Every 5th sequence repeats an earlier one.
+            final int variant = (i % 5 == 4) ? i - 2 : i;
+            final StringBuilder sequence = new StringBuilder("MKVLAAGIVALL");
+            for (int v = variant; v > 0; v /= 20) {
+                sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(v % 20));
+            }
+            fasta.append(">prot").append(i).append('\n').append(sequence, 0, 6).append('\n').append(sequence.substring(6)).append('\n');
+        }
+        return fasta.toString();
+    }
+
+    @Test
+    public void testProteinFasta() {
+        final String fasta = proteinFasta(2500);
+        final List<String> serial = load(fasta, 1, null);
+        assertEquals(2000, serial.size());
+        assertEquals("1 MKVLAAGIVALL [prot0]", serial.get(0));
+        // prot2 and prot4 have the same sequence.
+        assertEquals("3 MKVLAAGIVALLD [prot2, prot4]", serial.get(2));
+        assertEquals(serial, load(fasta, 4, null));
+    }
+
+    @Test
+    public void testTranslatedOrfs() {
+        final StringBuilder fasta = new StringBuilder();
+        final Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            fasta.append(">dna").append(i).append('\n');
+            for (int n = 0; n < 600; n++) {
+                fasta.append("ACGT".charAt(random.nextInt(4)));
+            }
+            fasta.append('\n');
+        }
+        // The first nucleic acid sequence again, so its ORF proteins are shared.
+        fasta.append(">copy\n").append(fasta.substring(fasta.indexOf("\n") + 1, fasta.indexOf(">dna1")));
+
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMinimumOrfLength(30);
+        final List<String> serial = load(fasta.toString(), 1, translator);
+        assertTrue(serial.size() > 300, "Expected ORFs of at least 30 codons in random sequences");
+        int sharedProteins = 0;
+        for (String protein : serial) {
+            if (protein.contains(", ")) {
+                sharedProteins++;
+            }
+        }
+        assertTrue(sharedProteins > 0, "Expected the ORFs of the copy to share their proteins");
+        assertEquals(serial, load(fasta.toString(), 3, translator));
+    }
+
+    @Test
+    public void testNoOrfs() {
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMinimumOrfLength(30);
+        Utilities.setSequenceCount(5);
+        assertTrue(load(">short\nATGAAACCCTAA\n", 1, translator).isEmpty());
+        assertEquals(0, Utilities.getSequenceCount());
+    }
+}
@@ -0,0 +1,110 @@
+package uk.ac.ebi.interpro.scan.business.sequence.fasta;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoadListener;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoader;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.model.ProteinXref;
+import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for LoadProteinFastaFile, parsing the same file on one thread and on several.
+ */
+public class LoadProteinFastaFileTest {
+
+    private static class RecordingSequenceLoader implements SequenceLoader<Protein> {
+
+        private final List<Protein> stored = new ArrayList<>();
+
+        private boolean persisted;
+
+        @Override
+        public void store(String sequence, Map<String, SignatureLibraryRelease> analysisJobMap, String... crossReferences) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void persist(SequenceLoadListener sequenceLoadListener, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            persisted = true;
+        }
+
+        @Override
+        public void setUseMatchLookupService(boolean useMatchLookupService) {
+        }
+
+        @Override
+        public void setDisplayLookupMessage(boolean displayMessage) {
+        }
+
+        @Override
+        public void storeAll(Set<Protein> parsedProteins, Map<String, SignatureLibraryRelease> analysisJobMap) {
+            stored.addAll(parsedProteins);
+        }
+    }
+
+    private static String fasta(int sequenceCount) {
+        final StringBuilder fasta = new StringBuilder();
+        for (int i = 0; i < sequenceCount; i++) {
+            fasta.append(">seq").append(i).append(" test sequence\n");
+            // Every 7th sequence repeats an earlier one.
+            final int variant = (i % 7 == 6) ? i - 3 : i;
+            final StringBuilder sequence = new StringBuilder("MKVLAAGIVALLLAAGCSS");
+            for (int v = variant; v > 0; v /= 20) {
+                sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(v % 20));
+            }
+            // Split over lines, one with trailing white space.
+            fasta.append(sequence, 0, 10).append(" \n").append(sequence.substring(10)).append('\n');
+        }
+        return fasta.toString();
+    }
+
+    private static List<Protein> load(String fasta, int parserThreads) {
+        final RecordingSequenceLoader sequenceLoader = new RecordingSequenceLoader();
+        final LoadProteinFastaFile loader = new LoadProteinFastaFile();
+        loader.setSequenceLoader(sequenceLoader);
+        loader.setParserThreads(parserThreads);
+        loader.loadSequences(new ByteArrayInputStream(fasta.getBytes(StandardCharsets.UTF_8)), null, null, false);
+        assertTrue(sequenceLoader.persisted);
+        return sequenceLoader.stored;
+    }
+
+    private static List<String> describe(List<Protein> proteins) {
+        final List<String> descriptions = new ArrayList<>();
+        for (Protein protein : proteins) {
+            final Set<String> identifiers = new TreeSet<>();
+            for (ProteinXref xref : protein.getCrossReferences()) {
+                identifiers.add(xref.getIdentifier());
+            }
+            descriptions.add(protein.getMd5() + " " + identifiers);
+        }
+        return descriptions;
+    }
+
+    @Test
+    public void testSameProteinsInFileOrder() {
+        final String fasta = fasta(3500);
+        final List<Protein> serial = load(fasta, 1);
+        assertEquals(3000, serial.size());
+        assertEquals("MKVLAAGIVALLLAAGCSS", serial.get(0).getSequence());
+        assertEquals("MKVLAAGIVALLLAAGCSSC", serial.get(1).getSequence());
+        // seq3 and seq6 have the same sequence.
+        assertEquals(2, serial.get(3).getCrossReferences().size());
+
+        final List<Protein> parallel = load(fasta, 4);
+        assertEquals(describe(serial), describe(parallel));
+    }
+
+    @Test
+    public void testInvalidSequence() {
+        final String fasta = fasta(2500) + ">bad\nMKV*LA1\n" + fasta(10);
+        for (int parserThreads : new int[]{1, 3}) {
+            assertThrows(IllegalArgumentException.class, () -> load(fasta, parserThreads));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.ebi.interpro.scan.business.sequence.fasta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for SharedFastaFileStore, with two job directories sharing the fasta file of a protein range.
+ */
+public class SharedFastaFileStoreTest {
+
+    private static final String FILE_NAME = "000000000001_000000000002.fasta";
+
+    private static Protein persistedProtein(long proteinId, String sequence) {
+        return new Protein(sequence) {
+            {
+                id = proteinId;
+            }
+        };
+    }
+
+    @Test
+    public void testSharedAndDerivedFastaFiles(@TempDir Path tempDir) throws Exception {
+        final Path pfamDirectory = Files.createDirectories(tempDir.resolve("jobPfam"));
+        final Path smartDirectory = Files.createDirectories(tempDir.resolve("jobSMART"));
+        final Path tmhmmDirectory = Files.createDirectories(tempDir.resolve("jobTMHMM"));
+        final List<Protein> proteins = Arrays.asList(
+                persistedProtein(1, "MKVLAAGIVALLLAAGCSSMKVLAAGIVALLLAAGCSSMKVLAAGIVALLLAAGCSSMKVLAAGIVA"),
+                persistedProtein(2, "MSTNPKPQROTKRNTNRRPQDVKFPGG"));
+        final AtomicInteger loads = new AtomicInteger();
+        final SharedFastaFileStore.ProteinSource source = () -> {
+            loads.incrementAndGet();
+            return proteins;
+        };
+
+        final SharedFastaFileStore store = new SharedFastaFileStore();
+        final Path sharedFile = SharedFastaFileStore.getSharedFilePath(pfamDirectory.toString(), "all", FILE_NAME);
+        assertEquals(tempDir.resolve(SharedFastaFileStore.SHARED_DIRECTORY_NAME).resolve("all").resolve(FILE_NAME).toAbsolutePath(), sharedFile);
+
+        final Path pfamFile = pfamDirectory.resolve(FILE_NAME);
+        final Path smartFile = smartDirectory.resolve(FILE_NAME);
+        assertFalse(store.writeFastaFile(sharedFile, pfamFile.toString(), new FastaFileWriter(), source));
+        assertFalse(store.writeFastaFile(sharedFile, smartFile.toString(), new FastaFileWriter(), source));
+        assertEquals(1, loads.get(), "The proteins should only be loaded once");
+
+        final Path expectedFile = tempDir.resolve("expected.fasta");
+        new FastaFileWriter().writeFastaFile(proteins, expectedFile.toString());
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(pfamFile));
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(smartFile));
+
+        // An analysis with its own alphabet gets its own file, derived from the shared one.
+        final FastaFileWriter tmhmmWriter = new FastaFileWriter();
+        tmhmmWriter.setValidAlphabet("ARNDCEQGHILKMFPSTWYVX");
+        tmhmmWriter.setResidueSubstitutions(Collections.singletonMap("O", "K"));
+        final Path tmhmmFile = tmhmmDirectory.resolve(FILE_NAME);
+        store.writeFastaFile(sharedFile, tmhmmFile.toString(), tmhmmWriter, source);
+        assertEquals(1, loads.get());
+        final List<String> tmhmmLines = Files.readAllLines(tmhmmFile, Charset.defaultCharset());
+        assertEquals(5, tmhmmLines.size());
+        assertEquals("MSTNPKPQRKTKRNTNRRPQDVKFPGG", tmhmmLines.get(4));
+
+        // The shared file is only deleted once no analysis links to it.
+        Files.delete(pfamFile);
+        SharedFastaFileStore.release(pfamDirectory.toString(), FILE_NAME);
+        assertTrue(Files.exists(sharedFile));
+        Files.delete(smartFile);
+        SharedFastaFileStore.release(smartDirectory.toString(), FILE_NAME);
+        assertFalse(Files.exists(sharedFile));
+    }
+
+    @Test
+    public void testEmptyRange(@TempDir Path tempDir) throws Exception {
+        final Path jobDirectory = Files.createDirectories(tempDir.resolve("jobPfam"));
+        final Path sharedFile = SharedFastaFileStore.getSharedFilePath(jobDirectory.toString(), "notInLookup", FILE_NAME);
+        assertTrue(new SharedFastaFileStore().writeFastaFile(sharedFile, jobDirectory.resolve(FILE_NAME).toString(),
+                new FastaFileWriter(), Collections::emptyList));
+        assertEquals(0, Files.size(jobDirectory.resolve(FILE_NAME)));
+    }
+}
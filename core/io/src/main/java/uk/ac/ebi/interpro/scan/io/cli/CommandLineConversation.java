@@ -131,4 +131,25 @@ public interface CommandLineConversation extends Serializable {
      * @param commandInputStream data to be piped into the command.
      */
     void setCommandInputStream(InputStream commandInputStream);
+
+    /**
+     * This optional method allows the output of the command to be consumed (e.g. parsed) while
+     * the command is still running.  If an output file is also set, the output is still written to it.
+     *
+     * @param outputConsumer reads the output of the command.
+     */
+    void setOutputConsumer(OutputConsumer outputConsumer);
+
+    /**
+     * Reads the output of a command as it is produced, on the thread that empties the output stream of the process.
+     */
+    interface OutputConsumer {
+
+        /**
+         * @param output of the command.  Anything left unread when this method returns is discarded
+         *               (but still written to the output file, if any).
+         * @throws IOException if the output cannot be read or is not as expected.
+         */
+        void consume(InputStream output) throws IOException;
+    }
 }
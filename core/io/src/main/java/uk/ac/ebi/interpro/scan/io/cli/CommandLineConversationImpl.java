@@ -67,6 +67,11 @@ public class CommandLineConversationImpl implements CommandLineConversation {
      */
     private InputStream commandInputStream;
 
+    /**
+     * This is an optional consumer of the output of the command, run while the command is running.
+     */
+    private OutputConsumer outputConsumer;
+
     /**
      * Runs a command on the command line synchronously.
      *
@@ -153,7 +158,7 @@ public class CommandLineConversationImpl implements CommandLineConversation {
         }
         Long releaseLockTime = System.currentTimeMillis();
         Long startuptime = System.currentTimeMillis() - releaseLockTime;
-        final StreamGobbler outputGobbler = new StreamGobbler(process.getInputStream(), outputFileHandle);
+        final StreamGobbler outputGobbler = new StreamGobbler(process.getInputStream(), outputFileHandle, outputConsumer);
         final StreamGobbler errorGobbler = new StreamGobbler(process.getErrorStream(), errorFileHandle);
         errorGobbler.start();
         outputGobbler.start();
@@ -287,6 +292,17 @@ public class CommandLineConversationImpl implements CommandLineConversation {
         this.commandInputStream = commandInputStream;
     }
 
+    /**
+     * This optional method allows the output of the command to be consumed (e.g. parsed) while
+     * the command is still running.  If an output file is also set, the output is still written to it.
+     *
+     * @param outputConsumer reads the output of the command.
+     */
+    @Override
+    public void setOutputConsumer(OutputConsumer outputConsumer) {
+        this.outputConsumer = outputConsumer;
+    }
+
     /**
      * Sets the working directory for subsequent commands.
      *
@@ -372,20 +388,26 @@ public class CommandLineConversationImpl implements CommandLineConversation {
         InputStream inputStream;
         StringBuffer stringBuffer = new StringBuffer();
         private File gobblerFileHandle;
+        private OutputConsumer gobblerOutputConsumer;
 
-        private boolean stillRunning = true;
+        private volatile boolean stillRunning = true;
 
         StreamGobbler(InputStream inputStream) {
             this(inputStream, null);
         }
 
         StreamGobbler(InputStream inputStream, File outputFileHandle) {
+            this(inputStream, outputFileHandle, null);
+        }
+
+        StreamGobbler(InputStream inputStream, File outputFileHandle, OutputConsumer outputConsumer) {
             // These stream gobblers really need to run as a high priority to keep up with the external process.
             this.setPriority(Thread.MAX_PRIORITY);
             this.inputStream = inputStream;
             if (outputFileHandle != null) {
                 this.gobblerFileHandle = outputFileHandle;
             }
+            this.gobblerOutputConsumer = outputConsumer;
         }
 
         public boolean isStillRunning() {
@@ -397,7 +419,9 @@ public class CommandLineConversationImpl implements CommandLineConversation {
          */
         public void run() {
             try {
-                if (gobblerFileHandle == null) {
+                if (gobblerOutputConsumer != null) {
+                    outputToConsumer();
+                } else if (gobblerFileHandle == null) {
                     outputToString();
                 } else {
                     outputToFile();
@@ -434,6 +458,46 @@ public class CommandLineConversationImpl implements CommandLineConversation {
             }
         }
 
+        /**
+         * Passes the output to the consumer, copying it to the output file (if any) as it is read.
+         * Whatever the consumer leaves unread is then drained, so that the process never blocks on a full pipe.
+         */
+        private void outputToConsumer() {
+            OutputStream fileOutputStream = null;
+            try {
+                fileOutputStream = (gobblerFileHandle == null)
+                        ? null
+                        : new BufferedOutputStream(new FileOutputStream(gobblerFileHandle), BUFFER_SIZE * 16);
+                final InputStream teeInputStream = new TeeInputStream(inputStream, fileOutputStream);
+                try {
+                    gobblerOutputConsumer.consume(teeInputStream);
+                } catch (RuntimeException e) {
+                    throw new IOException("Failed to consume the output of the external process.", e);
+                } finally {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    while (teeInputStream.read(buffer) != -1) {
+                        // Drain the rest of the output.
+                    }
+                }
+            } catch (IOException ioe) {
+                LOGGER.error("IOException thrown when attempting to consume InputStream from external process.", ioe);
+                if (exceptionThrownByGobbler == null) {
+                    exceptionThrownByGobbler = ioe;
+                }
+            } finally {
+                try {
+                    if (fileOutputStream != null) {
+                        fileOutputStream.close();
+                    }
+                    inputStream.close();
+                } catch (IOException ioe) {
+                    LOGGER.error("IOException thrown when attempting to close " +
+                            "the output file from external process.", ioe);
+                    exceptionThrownByGobbler = ioe;
+                }
+            }
+        }
+
         /**
          * Uses java.nio for maximum speed / efficiency.
          */
@@ -483,4 +547,62 @@ public class CommandLineConversationImpl implements CommandLineConversation {
         }
     }
 
+    /**
+     * Copies all bytes read from the input stream to an (optional) output stream.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream inputStream, OutputStream copy) {
+            super(inputStream);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b != -1 && copy != null) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            final int read = in.read(bytes, offset, length);
+            if (read > 0 && copy != null) {
+                copy.write(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Read rather than skip, so that the copy is complete.
+            final byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            long skipped = 0;
+            while (skipped < n) {
+                final int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * The process stream is closed by the gobbler, once drained.
+         */
+        @Override
+        public void close() {
+        }
+    }
+
 }
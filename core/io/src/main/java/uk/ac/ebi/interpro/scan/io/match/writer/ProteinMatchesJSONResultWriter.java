@@ -1,10 +1,8 @@
 package uk.ac.ebi.interpro.scan.io.match.writer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.LogManager;
 import uk.ac.ebi.interpro.scan.model.*;
 
 import java.io.BufferedWriter;
@@ -12,101 +10,75 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Set;
 
 
 /**
  * Write matches as output for InterProScan user in JSON format.
+ * <p/>
+ * The document is streamed: {@link #writeHeader}, then {@link #write(OutputListElement)} for each
+ * protein (or nucleotide sequence), then {@link #close}, which completes the document.  Each element is
+ * serialised straight into the buffered file, so only one is held in memory at a time.
  */
 public class ProteinMatchesJSONResultWriter implements AutoCloseable {
 
-    private static final Logger LOGGER = LogManager.getLogger(ProteinMatchesJSONResultWriter.class.getName());
-
-    protected BufferedWriter fileWriter;
-
-    ObjectMapper mapper;
-    ObjectWriter objectWriter;
+    /**
+     * Shared, as it caches the serialisers of the model classes.  Thread safe once configured.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false) // E.g. matches for un-integrated signatures have no InterPro entry assigned
+            .configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
 
-    protected DateFormat dmyFormat;
     protected static final Charset characterSet = Charset.defaultCharset();
 
-    public ProteinMatchesJSONResultWriter(Path path, boolean isSlimOutput) throws IOException {
-        this.fileWriter = Files.newBufferedWriter(path, characterSet);
-        this.dmyFormat = new SimpleDateFormat("dd-MM-yyyy");
-        mapper = new ObjectMapper();
-        objectWriter = (isSlimOutput ? mapper.writer() : mapper.writerWithDefaultPrettyPrinter());
+    private final JsonGenerator generator;
 
-    }
+    private boolean headerWritten = false;
 
-    public void header(String interProScanVersion) throws IOException{
-        fileWriter.write("{\n \"interproscan-version\": \"" + interProScanVersion + "\",\n");
-        fileWriter.write("\"results\": [ ");
+    public ProteinMatchesJSONResultWriter(Path path, boolean isSlimOutput) throws IOException {
+        final BufferedWriter fileWriter = Files.newBufferedWriter(path, characterSet);
+        this.generator = MAPPER.getFactory().createGenerator(fileWriter);
+        if (!isSlimOutput) {
+            // Set on the generator, rather than per value, so the whole document is laid out as one.
+            generator.useDefaultPrettyPrinter();
+        }
     }
 
-    public void footer() throws IOException{
-        fileWriter.write(" ]\n");
-        fileWriter.write("}\n");
-    }
     /**
-     * Writes out a set of proteins to a JSON file
-     *
-     * @throws IOException in the event of I/O problem writing out the file.
+     * Starts the document and the array of results.
      */
-    public void write(final IMatchesHolder matchesHolder,  final String sequenceType, final boolean isSlimOutput) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false); // E.g. matches for un-integrated signatures have no InterPro entry assigned
-
-        Set<? extends OutputListElement> list = null;
-        if (sequenceType.equalsIgnoreCase("n") && matchesHolder instanceof NucleicAcidMatchesHolder) {
-            list = ((NucleicAcidMatchesHolder) matchesHolder).getNucleotideSequences();
-        } else if (matchesHolder instanceof ProteinMatchesHolder){
-            list = ((ProteinMatchesHolder) matchesHolder).getProteins();
-        }
-        else {
-            LOGGER.error("Expected ProteinMatchesHolder or NucleicAcidMatchesHolder, found " + matchesHolder.getClass().getName());
+    public void writeHeader(String interProScanVersion) throws IOException {
+        if (headerWritten) {
+            throw new IllegalStateException("The JSON header has already been written.");
         }
-
-//        if (isSlimOutput) {
-//            // TODO Exclude null values from slim output? This doesn't work anyway!
-//            mapper.configOverride(Protein.class).setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, null));
-//            mapper.configOverride(Entry.class).setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, null));
-//            mapper.configOverride(Signature.class).setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, null));
-//        }
-        ObjectWriter objectWriter = (isSlimOutput ? mapper.writer() : mapper.writerWithDefaultPrettyPrinter());
-        fileWriter.write("{\n \"interproscan-version\": \"" + matchesHolder.getInterProScanVersion() + "\",\n");
-        fileWriter.write("\"results\": [ ");
-        if (list != null && list.size() > 0) {
-            final int len = list.size();
-            int i = 0;
-            for (OutputListElement obj : list) {
-                String json = objectWriter.writeValueAsString(obj);
-                fileWriter.write(json);
-                i++;
-                if (i < len) {
-                    fileWriter.write(","); // More proteins/nucleotide sequences to follow
-                }
-            }
-        }
-        fileWriter.write(" ]\n");
-        fileWriter.write("}\n");
+        generator.writeStartObject();
+        generator.writeStringField("interproscan-version", interProScanVersion);
+        generator.writeArrayFieldStart("results");
+        headerWritten = true;
     }
 
-    public int write(OutputListElement protein) throws IOException {
-        String json = objectWriter.writeValueAsString(protein);
-        fileWriter.write(json);
-        return 0;
-    }
-
-    public int write(String outputString) throws IOException {
-        fileWriter.write(outputString);
-        return 0;
+    /**
+     * Writes one protein or nucleotide sequence to the results array.
+     */
+    public void write(OutputListElement outputListElement) throws IOException {
+        if (!headerWritten) {
+            throw new IllegalStateException("The JSON header must be written before the results.");
+        }
+        MAPPER.writeValue(generator, outputListElement);
     }
 
+    /**
+     * Completes the document (if started) and closes the file.
+     */
     public void close() throws IOException {
-        if (fileWriter != null) {
-            fileWriter.close();
+        try {
+            if (headerWritten && !generator.isClosed()) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        } finally {
+            // Also closes the file writer.
+            generator.close();
         }
     }
 
@@ -30,18 +30,42 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
- * Write matches as output for InterProScan user in JSON format.
+ * Write matches as output for InterProScan user in XML format, one protein (or nucleotide sequence)
+ * fragment at a time.
+ * <p/>
+ * With more than one marshaller thread, the fragments are marshalled in parallel, each thread with its own
+ * Marshaller and XMLStreamWriter positioned inside the same root element as the file's, and written to the
+ * file in the order they were passed to {@link #write}.  The file is the same, byte for byte, as when the
+ * fragments are marshalled straight into it.
  */
 public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable {
 
     private static final Logger LOGGER = LogManager.getLogger(ProteinMatchesXMLJAXBFragmentsResultWriter.class.getName());
 
+    private static final String NAMESPACE = "http://www.ebi.ac.uk/interpro/resources/schemas/interproscan5";
+
+    /**
+     * JAXBContexts are thread safe and expensive to create, so one per bound class is shared.
+     */
+    private static final ConcurrentMap<Class, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    /**
+     * Fragments marshalled ahead of the file, per thread.
+     */
+    private static final int FRAGMENTS_AHEAD_PER_THREAD = 16;
+
     //protected BufferedWriter fileWriter;
 
     private XMLStreamWriter writer;
@@ -58,7 +82,27 @@ public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable
     protected DateFormat dmyFormat;
     protected static final Charset characterSet = Charset.defaultCharset();
 
+    private ExecutorService marshallerPool;
+
+    private ThreadLocal<FragmentMarshaller> fragmentMarshallers;
+
+    private final Deque<Future<String>> pendingFragments = new ArrayDeque<>();
+
+    private int maxPendingFragments;
+
+    private String interProScanVersion;
+
+    private String rootLocalName;
+
     public ProteinMatchesXMLJAXBFragmentsResultWriter(Path path, Class classToBind, boolean isSlimOutput) throws IOException, XMLStreamException, JAXBException {
+        this(path, classToBind, isSlimOutput, 1);
+    }
+
+    /**
+     * @param marshallerThreads the number of threads marshalling fragments.  With 1, they are marshalled on the
+     *                          calling thread.
+     */
+    public ProteinMatchesXMLJAXBFragmentsResultWriter(Path path, Class classToBind, boolean isSlimOutput, int marshallerThreads) throws IOException, XMLStreamException, JAXBException {
 
         this.dmyFormat = new SimpleDateFormat("dd-MM-yyyy");
 
@@ -68,15 +112,14 @@ public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable
             bos = new BufferedOutputStream(Files.newOutputStream(path));
             bufferedWriter = Files.newBufferedWriter(path, characterSet);
 
-            this.writer = XMLOutputFactory.newFactory()
-                    .createXMLStreamWriter(bufferedWriter);
+            this.writer = OUTPUT_FACTORY.createXMLStreamWriter(bufferedWriter);
 
             //this.writer = XMLOutputFactory.newFactory()
             //       .createXMLStreamWriter(bos);
 
 //            writer = new StreamResult(bos);
 //                    .createXMLStreamWriter(System.out);
-            writer.setDefaultNamespace("http://www.ebi.ac.uk/interpro/resources/schemas/interproscan5");
+            writer.setDefaultNamespace(NAMESPACE);
         }catch (IOException e){
             e.printStackTrace();
         }finally {
@@ -85,14 +128,35 @@ public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable
             }
         }
 
-        this.jaxbContext = JAXBContext.newInstance(classToBind);
+        this.jaxbContext = getJAXBContext(classToBind);
         //this.jaxbContext = JAXBContext.newInstance(NucleotideSequence.class);
-        this.marshaller = jaxbContext.createMarshaller();
+        this.marshaller = createMarshaller(jaxbContext);
 
         this.jaxb2Marshaller =  new Jaxb2Marshaller();
 
-        this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-        this.marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        if (marshallerThreads > 1) {
+            this.maxPendingFragments = marshallerThreads * FRAGMENTS_AHEAD_PER_THREAD;
+            this.marshallerPool = Executors.newFixedThreadPool(marshallerThreads, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "xml-marshaller-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.fragmentMarshallers = new ThreadLocal<FragmentMarshaller>() {
+                @Override
+                protected FragmentMarshaller initialValue() {
+                    try {
+                        return new FragmentMarshaller();
+                    } catch (JAXBException | XMLStreamException e) {
+                        throw new IllegalStateException("Unable to create an XML fragment marshaller", e);
+                    }
+                }
+            };
+        }
         //marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
         //marshaller.setProperty("jaxb.formatted.output", true);
 
@@ -104,21 +168,113 @@ public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable
 
     }
 
+    private static JAXBContext getJAXBContext(Class classToBind) throws JAXBException {
+        JAXBContext context = JAXB_CONTEXTS.get(classToBind);
+        if (context == null) {
+            final JAXBContext newContext = JAXBContext.newInstance(classToBind);
+            context = JAXB_CONTEXTS.putIfAbsent(classToBind, newContext);
+            if (context == null) {
+                context = newContext;
+            }
+        }
+        return context;
+    }
+
+    private static Marshaller createMarshaller(JAXBContext context) throws JAXBException {
+        // Marshallers are not thread safe, so each writer (and each marshaller thread) has its own.
+        final Marshaller newMarshaller = context.createMarshaller();
+        newMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        newMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        return newMarshaller;
+    }
+
+    private static void writeRootStartElement(XMLStreamWriter streamWriter, String interProScanVersion, String localname) throws XMLStreamException {
+        streamWriter.writeStartElement(NAMESPACE, localname);
+        streamWriter.writeAttribute("interproscan-version", interProScanVersion);
+        streamWriter.writeNamespace("", NAMESPACE);
+    }
+
     public void header(String interProScanVersion, String localname) throws XMLStreamException, IOException {
        // writer.setDefaultNamespace("http://www.ebi.ac.uk");
         writer.writeStartDocument();
         //bufferedWriter.write("\n");
-        writer.writeStartElement("http://www.ebi.ac.uk/interpro/resources/schemas/interproscan5", localname);
-        writer.writeAttribute("interproscan-version", interProScanVersion);
-        writer.writeNamespace("", "http://www.ebi.ac.uk/interpro/resources/schemas/interproscan5");
+        writeRootStartElement(writer, interProScanVersion, localname);
         //writer.writeStartElement("protein-matches");
-
+        this.interProScanVersion = interProScanVersion;
+        this.rootLocalName = localname;
+        if (marshallerPool != null) {
+            // Close the start tag, as marshalling the first fragment would, so the fragments can be appended as text.
+            writer.writeCharacters("");
+            writer.flush();
+        }
     }
 
     public void write(final OutputListElement protein,  final String sequenceType, final boolean isSlimOutput) throws IOException, JAXBException {
         //jaxb2Marshaller.marshal(writer);
-        marshaller.marshal(protein , writer);
+        if (marshallerPool == null) {
+            marshaller.marshal(protein , writer);
+            return;
+        }
+        if (rootLocalName == null) {
+            throw new IllegalStateException("The XML header must be written before the fragments.");
+        }
+        pendingFragments.addLast(marshallerPool.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return fragmentMarshallers.get().marshal(protein);
+            }
+        }));
+        while (pendingFragments.size() > maxPendingFragments) {
+            writeNextFragment();
+        }
+    }
+
+    /**
+     * Waits for the oldest pending fragment and appends it to the file.
+     */
+    private void writeNextFragment() throws IOException, JAXBException {
+        final String fragment;
+        try {
+            fragment = pendingFragments.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while marshalling XML fragments", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JAXBException) {
+                throw (JAXBException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to marshal an XML fragment", e.getCause());
+        }
+        bufferedWriter.write(fragment);
+    }
+
+    /**
+     * Marshals fragments into a buffer with a stream writer already inside the root element, so the namespace
+     * declarations and the indentation match those of fragments marshalled straight into the file.
+     */
+    private final class FragmentMarshaller {
+
+        private final StringWriter buffer = new StringWriter();
+
+        private final XMLStreamWriter fragmentWriter;
 
+        private final Marshaller fragmentMarshaller;
+
+        FragmentMarshaller() throws JAXBException, XMLStreamException {
+            this.fragmentMarshaller = createMarshaller(jaxbContext);
+            this.fragmentWriter = OUTPUT_FACTORY.createXMLStreamWriter(buffer);
+            fragmentWriter.setDefaultNamespace(NAMESPACE);
+            writeRootStartElement(fragmentWriter, interProScanVersion, rootLocalName);
+            fragmentWriter.writeCharacters("");
+            fragmentWriter.flush();
+        }
+
+        String marshal(OutputListElement outputListElement) throws JAXBException, XMLStreamException {
+            buffer.getBuffer().setLength(0);
+            fragmentMarshaller.marshal(outputListElement, fragmentWriter);
+            fragmentWriter.flush();
+            return buffer.toString();
+        }
     }
 
     public String marshal(final OutputListElement outputListElement) throws JAXBException {
@@ -137,6 +293,17 @@ public class ProteinMatchesXMLJAXBFragmentsResultWriter implements AutoCloseable
     }
 
     public void close() throws XMLStreamException, IOException {
+        if (marshallerPool != null) {
+            try {
+                while (!pendingFragments.isEmpty()) {
+                    writeNextFragment();
+                }
+            } catch (JAXBException e) {
+                throw new IllegalStateException("Failed to marshal an XML fragment", e);
+            } finally {
+                marshallerPool.shutdownNow();
+            }
+        }
         writer.writeEndDocument();
         writer.close();
         //System.out.println("");
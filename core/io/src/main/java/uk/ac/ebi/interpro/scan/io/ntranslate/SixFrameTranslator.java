@@ -0,0 +1,538 @@
+package uk.ac.ebi.interpro.scan.io.ntranslate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.NucleotideSequenceStrand;
+import uk.ac.ebi.interpro.scan.model.OpenReadingFrame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Six-frame translation of nucleic acid FASTA to open reading frames, in the JVM, in place of running
+ * esl-translate and filtering its output with parseOrfs.py.
+ * <p/>
+ * As for esl-translate (with no -m / -M switch) an ORF is a run of at least the minimum number of codons
+ * between stop codons, or the ends of the sequence, with degenerate codons translated when all of their
+ * expansions agree and to X otherwise.  ORFs are numbered, and described, as esl-translate does
+ * ("orf3 source=seq1 coords=3..119 length=39 frame=3 desc=..."), so the cross references read the same.
+ * As parseOrfs.py did, only the longest ORFs of each sequence are kept.
+ * <p/>
+ * Each sequence is held once, one byte per base, while it is translated; no objects are created per base or
+ * per codon.
+ */
+public class SixFrameTranslator {
+
+    private static final Logger LOGGER = LogManager.getLogger(SixFrameTranslator.class.getName());
+
+    /**
+     * Receives the ORFs kept for each sequence.
+     */
+    public interface OrfHandler {
+        /**
+         * @param header          the ORF description line, without the leading '>'.
+         * @param proteinSequence the translation of the ORF.
+         * @param orf             the location of the ORF on the nucleic acid sequence.
+         */
+        void orf(String header, String proteinSequence, OpenReadingFrame orf);
+    }
+
+    /**
+     * NCBI translation table 1, in the TCAG order of the NCBI tables.
+     */
+    private static final String STANDARD_CODE = "FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG";
+
+    /**
+     * The NCBI translation tables esl-translate offers, as their differences from the standard table.
+     */
+    private static final Map<Integer, String> GENETIC_CODES = new HashMap<>();
+
+    static {
+        GENETIC_CODES.put(1, STANDARD_CODE);
+        GENETIC_CODES.put(2, alternativeCode("AGA*", "AGG*", "ATAM", "TGAW"));
+        GENETIC_CODES.put(3, alternativeCode("ATAM", "CTTT", "CTCT", "CTAT", "CTGT", "TGAW"));
+        GENETIC_CODES.put(4, alternativeCode("TGAW"));
+        GENETIC_CODES.put(5, alternativeCode("AGAS", "AGGS", "ATAM", "TGAW"));
+        GENETIC_CODES.put(6, alternativeCode("TAAQ", "TAGQ"));
+        GENETIC_CODES.put(9, alternativeCode("AAAN", "AGAS", "AGGS", "TGAW"));
+        GENETIC_CODES.put(10, alternativeCode("TGAC"));
+        GENETIC_CODES.put(11, STANDARD_CODE);
+        GENETIC_CODES.put(12, alternativeCode("CTGS"));
+        GENETIC_CODES.put(13, alternativeCode("AGAG", "AGGG", "ATAM", "TGAW"));
+        GENETIC_CODES.put(14, alternativeCode("AAAN", "AGAS", "AGGS", "TAAY", "TGAW"));
+        GENETIC_CODES.put(16, alternativeCode("TAGL"));
+        GENETIC_CODES.put(21, alternativeCode("AAAN", "AGAS", "AGGS", "ATAM", "TGAW"));
+        GENETIC_CODES.put(22, alternativeCode("TCA*", "TAGL"));
+        GENETIC_CODES.put(23, alternativeCode("TTA*"));
+        GENETIC_CODES.put(24, alternativeCode("AGAS", "AGGK", "TGAW"));
+        GENETIC_CODES.put(25, alternativeCode("TGAG"));
+    }
+
+    /*
+     * Bases are held as IUPAC bit masks over T, C, A and G, so degenerate codons index the codon tables too.
+     */
+    private static final int T = 1;
+    private static final int C = 2;
+    private static final int A = 4;
+    private static final int G = 8;
+    private static final int N = T | C | A | G;
+
+    /**
+     * Base mask for each character, -1 for characters that are not part of the sequence.
+     */
+    private static final byte[] BASE_MASKS = new byte[128];
+
+    static {
+        Arrays.fill(BASE_MASKS, (byte) -1);
+        setBaseMask("T", T);
+        setBaseMask("U", T);
+        setBaseMask("C", C);
+        setBaseMask("A", A);
+        setBaseMask("G", G);
+        setBaseMask("R", A | G);
+        setBaseMask("Y", C | T);
+        setBaseMask("S", G | C);
+        setBaseMask("W", A | T);
+        setBaseMask("K", G | T);
+        setBaseMask("M", A | C);
+        setBaseMask("B", C | G | T);
+        setBaseMask("D", A | G | T);
+        setBaseMask("H", A | C | T);
+        setBaseMask("V", A | C | G);
+        // Anything else alphabetic (N, X...) could be any base.
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            if (BASE_MASKS[letter] < 0) {
+                setBaseMask(String.valueOf(letter), N);
+            }
+        }
+    }
+
+    private static final int MAX_ID_LENGTH_IN_ERRORS = 50;
+
+    /**
+     * Minimum ORF length, in codons (esl-translate -l).
+     */
+    private int minimumOrfLength = 20;
+
+    private boolean translateSense = true;
+
+    private boolean translateAntisense = true;
+
+    /**
+     * The number of ORFs kept for each sequence, longest first, or 0 to keep them all.
+     */
+    private int maxOrfsPerSequence = 6;
+
+    private char[] senseCodons;
+
+    private char[] antisenseCodons;
+
+    /**
+     * Degenerate codons that may be stop codons are translated (to X) within an ORF, but do not start one.
+     */
+    private boolean[] senseMayStop;
+
+    private boolean[] antisenseMayStop;
+
+    public SixFrameTranslator() {
+        setGeneticCode(1);
+    }
+
+    public void setMinimumOrfLength(int minimumOrfLength) {
+        this.minimumOrfLength = minimumOrfLength;
+    }
+
+    public int getMinimumOrfLength() {
+        return minimumOrfLength;
+    }
+
+    /**
+     * @param strand "both", "sense" (esl-translate --watson) or "antisense" (esl-translate --crick).
+     */
+    public void setStrand(String strand) {
+        final String value = strand == null ? "" : strand.trim().toLowerCase();
+        if (value.isEmpty() || value.equals("both")) {
+            translateSense = true;
+            translateAntisense = true;
+        } else if (value.equals(NucleotideSequenceStrand.SENSE.name().toLowerCase())) {
+            translateSense = true;
+            translateAntisense = false;
+        } else if (value.equals(NucleotideSequenceStrand.ANTISENSE.name().toLowerCase())) {
+            translateSense = false;
+            translateAntisense = true;
+        } else {
+            throw new IllegalArgumentException("Unknown strand '" + strand + "' to translate, expected both, sense or antisense");
+        }
+    }
+
+    public void setMaxOrfsPerSequence(int maxOrfsPerSequence) {
+        this.maxOrfsPerSequence = maxOrfsPerSequence;
+    }
+
+    /**
+     * @param geneticCode the id of an NCBI translation table (esl-translate -c).
+     */
+    public void setGeneticCode(int geneticCode) {
+        final String code = GENETIC_CODES.get(geneticCode);
+        if (code == null) {
+            throw new IllegalArgumentException("Unsupported genetic code " + geneticCode + ", expected one of " + new TreeSet<>(GENETIC_CODES.keySet()));
+        }
+        senseCodons = new char[16 * 16 * 16];
+        antisenseCodons = new char[16 * 16 * 16];
+        senseMayStop = new boolean[16 * 16 * 16];
+        antisenseMayStop = new boolean[16 * 16 * 16];
+        for (int first = 0; first < 16; first++) {
+            for (int second = 0; second < 16; second++) {
+                for (int third = 0; third < 16; third++) {
+                    final int codon = (first << 8) | (second << 4) | third;
+                    senseCodons[codon] = translateDegenerate(code, first, second, third);
+                    senseMayStop[codon] = mayBeStop(code, first, second, third);
+                    // The antisense codon is read from the sense strand backwards, complementing each base.
+                    antisenseCodons[codon] = translateDegenerate(code, complement(first), complement(second), complement(third));
+                    antisenseMayStop[codon] = mayBeStop(code, complement(first), complement(second), complement(third));
+                }
+            }
+        }
+    }
+
+    /**
+     * Translates each sequence of the FASTA input with the configured minimum ORF length.
+     *
+     * @return the number of ORFs passed to the handler.
+     */
+    public int translate(Reader fasta, OrfHandler handler) throws IOException {
+        return translate(fasta, minimumOrfLength, handler);
+    }
+
+    /**
+     * Translates each sequence of the FASTA input.
+     *
+     * @param minimumOrfLength in codons, overriding the configured minimum.
+     * @return the number of ORFs passed to the handler.
+     */
+    public int translate(Reader fasta, int minimumOrfLength, OrfHandler handler) throws IOException {
+        final SequenceTranslation translation = new SequenceTranslation(minimumOrfLength, handler);
+        final char[] buffer = new char[64 * 1024];
+        final StringBuilder header = new StringBuilder();
+        boolean inHeader = false;
+        boolean atLineStart = true;
+        int charsRead;
+        while ((charsRead = fasta.read(buffer)) != -1) {
+            for (int i = 0; i < charsRead; i++) {
+                final char c = buffer[i];
+                if (inHeader) {
+                    if (c == '\n') {
+                        inHeader = false;
+                        atLineStart = true;
+                        translation.startSequence(header.toString());
+                    } else if (c != '\r') {
+                        header.append(c);
+                    }
+                } else if (c == '\n') {
+                    atLineStart = true;
+                } else if (atLineStart && c == '>') {
+                    translation.endSequence();
+                    header.setLength(0);
+                    inHeader = true;
+                    atLineStart = false;
+                } else {
+                    atLineStart = false;
+                    final int mask = c < 128 ? BASE_MASKS[c] : -1;
+                    if (mask >= 0) {
+                        translation.addBase(mask);
+                    }
+                }
+            }
+        }
+        if (inHeader) {
+            translation.startSequence(header.toString());
+        }
+        translation.endSequence();
+        return translation.orfsKept;
+    }
+
+    private static void setBaseMask(String letter, int mask) {
+        BASE_MASKS[letter.charAt(0)] = (byte) mask;
+        BASE_MASKS[Character.toLowerCase(letter.charAt(0))] = (byte) mask;
+    }
+
+    private static int codonIndex(String codon) {
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            index = index * 4 + "TCAG".indexOf(codon.charAt(i));
+        }
+        return index;
+    }
+
+    private static String alternativeCode(String... codonChanges) {
+        final char[] code = STANDARD_CODE.toCharArray();
+        for (String change : codonChanges) {
+            code[codonIndex(change)] = change.charAt(3);
+        }
+        return new String(code);
+    }
+
+    private static int complement(int mask) {
+        return ((mask & T) << 2) | ((mask & A) >> 2) | ((mask & C) << 2) | ((mask & G) >> 2);
+    }
+
+    private static boolean mayBeStop(String code, int first, int second, int third) {
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                for (int k = 0; k < 4; k++) {
+                    if ((first & (1 << i)) != 0 && (second & (1 << j)) != 0 && (third & (1 << k)) != 0
+                            && code.charAt(i * 16 + j * 4 + k) == '*') {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the amino acid all of the codons the (degenerate) bases may stand for translate to, or X.
+     */
+    private static char translateDegenerate(String code, int first, int second, int third) {
+        char aminoAcid = 0;
+        for (int i = 0; i < 4; i++) {
+            if ((first & (1 << i)) == 0) continue;
+            for (int j = 0; j < 4; j++) {
+                if ((second & (1 << j)) == 0) continue;
+                for (int k = 0; k < 4; k++) {
+                    if ((third & (1 << k)) == 0) continue;
+                    final char translation = code.charAt(i * 16 + j * 4 + k);
+                    if (aminoAcid != 0 && aminoAcid != translation) {
+                        return 'X';
+                    }
+                    aminoAcid = translation;
+                }
+            }
+        }
+        return aminoAcid == 0 ? 'X' : aminoAcid;
+    }
+
+    /**
+     * An ORF found on a sequence.  Only created for ORFs that may be kept.
+     */
+    private static final class Orf {
+
+        private final int number;
+
+        private final int frame;
+
+        /**
+         * Of the first codon, on the translated strand, counting from 0.
+         */
+        private final int start;
+
+        private final int length;
+
+        private String header;
+
+        private Orf(int number, int frame, int start, int length) {
+            this.number = number;
+            this.frame = frame;
+            this.start = start;
+            this.length = length;
+        }
+
+        private boolean isAntisense() {
+            return frame > 3;
+        }
+    }
+
+    /**
+     * The state of the translation of one FASTA input.
+     */
+    private final class SequenceTranslation {
+
+        private final int minimumOrfLength;
+
+        private final OrfHandler handler;
+
+        /**
+         * Ranks ORFs as parseOrfs.py did, by length and then by description line.
+         */
+        private final Comparator<Orf> longestFirst = new Comparator<Orf>() {
+            @Override
+            public int compare(Orf first, Orf second) {
+                if (first.length != second.length) {
+                    return first.length > second.length ? -1 : 1;
+                }
+                return header(second).compareTo(header(first));
+            }
+        };
+
+        /**
+         * The ORFs kept so far for the current sequence, the first to be dropped at the head.
+         */
+        private final PriorityQueue<Orf> keptOrfs = new PriorityQueue<>(11, Collections.reverseOrder(longestFirst));
+
+        private byte[] sequence = new byte[1024 * 1024];
+
+        private int sequenceLength;
+
+        private String sequenceId;
+
+        private String sequenceDescription;
+
+        private int orfNumber;
+
+        private int orfsKept;
+
+        private SequenceTranslation(int minimumOrfLength, OrfHandler handler) {
+            this.minimumOrfLength = minimumOrfLength;
+            this.handler = handler;
+        }
+
+        private void startSequence(String header) {
+            final String trimmed = header.trim();
+            int idEnd = 0;
+            while (idEnd < trimmed.length() && !Character.isWhitespace(trimmed.charAt(idEnd))) {
+                idEnd++;
+            }
+            if (idEnd == 0) {
+                throw new IllegalStateException("Found an empty ID line in the nucleic acid FASTA input");
+            }
+            sequenceId = trimmed.substring(0, idEnd);
+            sequenceDescription = trimmed.substring(idEnd).trim();
+            sequenceLength = 0;
+        }
+
+        private void addBase(int mask) {
+            if (sequenceId == null) {
+                throw new IllegalStateException("A nucleic acid FASTA input sequence has no header line");
+            }
+            if (sequenceLength == sequence.length) {
+                if (sequence.length == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Nucleic acid sequence " + abbreviatedId() + " is too long to translate");
+                }
+                sequence = Arrays.copyOf(sequence, (int) Math.min(Integer.MAX_VALUE - 8, sequence.length * 2L));
+            }
+            sequence[sequenceLength++] = (byte) mask;
+        }
+
+        private void endSequence() {
+            if (sequenceId == null) {
+                return;
+            }
+            if (translateSense) {
+                findOrfs(false);
+            }
+            if (translateAntisense) {
+                findOrfs(true);
+            }
+            final List<Orf> orfs = new ArrayList<>(keptOrfs);
+            keptOrfs.clear();
+            Collections.sort(orfs, longestFirst);
+            for (Orf orf : orfs) {
+                handler.orf(header(orf), translate(orf), openReadingFrame(orf));
+            }
+            orfsKept += orfs.size();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Kept " + orfs.size() + " ORFs of nucleic acid sequence " + abbreviatedId() + " of length " + sequenceLength);
+            }
+            sequenceId = null;
+        }
+
+        /**
+         * Finds the ORFs of the three frames of one strand in a single pass, numbering them in the order
+         * esl-translate reports them: as each is ended by a stop codon, then those running to the end of the
+         * sequence, starting with the frame of the last codon read.
+         */
+        private void findOrfs(boolean antisense) {
+            final char[] codons = antisense ? antisenseCodons : senseCodons;
+            final boolean[] mayStop = antisense ? antisenseMayStop : senseMayStop;
+            final int[] orfStarts = {-1, -1, -1};
+            for (int position = 0; position + 2 < sequenceLength; position++) {
+                final int frame = position % 3;
+                final int codon;
+                if (antisense) {
+                    final int base = sequenceLength - 1 - position;
+                    codon = (sequence[base] << 8) | (sequence[base - 1] << 4) | sequence[base - 2];
+                } else {
+                    codon = (sequence[position] << 8) | (sequence[position + 1] << 4) | sequence[position + 2];
+                }
+                if (codons[codon] == '*') {
+                    if (orfStarts[frame] >= 0) {
+                        found(antisense, frame, orfStarts[frame], (position - orfStarts[frame]) / 3);
+                        orfStarts[frame] = -1;
+                    }
+                } else if (orfStarts[frame] < 0 && !mayStop[codon]) {
+                    orfStarts[frame] = position;
+                }
+            }
+            if (sequenceLength >= 3) {
+                for (int i = 0; i < 3; i++) {
+                    final int frame = (sequenceLength - 2 + i) % 3;
+                    if (orfStarts[frame] >= 0) {
+                        found(antisense, frame, orfStarts[frame], (sequenceLength - orfStarts[frame]) / 3);
+                    }
+                }
+            }
+        }
+
+        private void found(boolean antisense, int frame, int start, int length) {
+            if (length < minimumOrfLength) {
+                return;
+            }
+            orfNumber++;
+            if (maxOrfsPerSequence > 0 && keptOrfs.size() == maxOrfsPerSequence && length < keptOrfs.peek().length) {
+                return;
+            }
+            keptOrfs.add(new Orf(orfNumber, antisense ? frame + 4 : frame + 1, start, length));
+            if (maxOrfsPerSequence > 0 && keptOrfs.size() > maxOrfsPerSequence) {
+                keptOrfs.poll();
+            }
+        }
+
+        private String header(Orf orf) {
+            if (orf.header == null) {
+                orf.header = "orf" + orf.number + " source=" + sequenceId + " coords=" + from(orf) + ".." + to(orf)
+                        + " length=" + orf.length + " frame=" + orf.frame + " desc=" + sequenceDescription;
+            }
+            return orf.header;
+        }
+
+        /**
+         * @return the position of the first base of the ORF on the sequence, counting from 1.
+         */
+        private int from(Orf orf) {
+            return orf.isAntisense() ? sequenceLength - orf.start : orf.start + 1;
+        }
+
+        /**
+         * @return the position of the last base of the ORF on the sequence, counting from 1.
+         */
+        private int to(Orf orf) {
+            final int end = orf.start + orf.length * 3;
+            return orf.isAntisense() ? sequenceLength - end + 1 : end;
+        }
+
+        private OpenReadingFrame openReadingFrame(Orf orf) {
+            return orf.isAntisense()
+                    ? new OpenReadingFrame(to(orf), from(orf), NucleotideSequenceStrand.ANTISENSE)
+                    : new OpenReadingFrame(from(orf), to(orf), NucleotideSequenceStrand.SENSE);
+        }
+
+        private String translate(Orf orf) {
+            final char[] protein = new char[orf.length];
+            for (int i = 0; i < orf.length; i++) {
+                final int position = orf.start + i * 3;
+                if (orf.isAntisense()) {
+                    final int base = sequenceLength - 1 - position;
+                    protein[i] = antisenseCodons[(sequence[base] << 8) | (sequence[base - 1] << 4) | sequence[base - 2]];
+                } else {
+                    protein[i] = senseCodons[(sequence[position] << 8) | (sequence[position + 1] << 4) | sequence[position + 2]];
+                }
+            }
+            return new String(protein);
+        }
+
+        private String abbreviatedId() {
+            return sequenceId.length() > MAX_ID_LENGTH_IN_ERRORS ? sequenceId.substring(0, MAX_ID_LENGTH_IN_ERRORS) + "..." : sequenceId;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package uk.ac.ebi.interpro.scan.io.referencedata;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM wide cache of parsed member database auxiliary files (Pfam dat, PIRSF dat, ...), so that each file is
+ * parsed at most once per JVM rather than once per post-processing batch or per Spring bean.
+ * <p/>
+ * Entries are keyed by loader name and canonical path, and are re-read if the modification time or length
+ * of the file changes.  If requested, and the loader supports it, the parsed data is also written to a
+ * binary snapshot next to the data file (&lt;file&gt;.&lt;loader name&gt;.snapshot), which later JVMs read in
+ * place of parsing the file.  A snapshot is only used if it was written from a file with the same modification
+ * time and length; failing to write one (e.g. a read-only data directory) is not an error.
+ */
+public final class ReferenceDataCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(ReferenceDataCache.class.getName());
+
+    private static final int SNAPSHOT_MAGIC = 0x49355244;
+
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private ReferenceDataCache() {
+    }
+
+    /**
+     * Load statistics of a cached file.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final Object data;
+        private final long loadMillis;
+        private final boolean fromSnapshot;
+        private final long estimatedSize;
+
+        private Entry(String name, String path, long lastModified, long length, Object data,
+                      long loadMillis, boolean fromSnapshot, long estimatedSize) {
+            this.name = name;
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.data = data;
+            this.loadMillis = loadMillis;
+            this.fromSnapshot = fromSnapshot;
+            this.estimatedSize = estimatedSize;
+        }
+
+        private boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getLoadMillis() {
+            return loadMillis;
+        }
+
+        public boolean isFromSnapshot() {
+            return fromSnapshot;
+        }
+
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + path + ": " + (fromSnapshot ? "read snapshot" : "parsed") + " in " + loadMillis
+                    + " ms, ~" + (estimatedSize / 1024) + " KB";
+        }
+    }
+
+    public static <T> T get(String path, ReferenceDataLoader<T> loader) throws IOException {
+        return get(new File(path), loader, false);
+    }
+
+    /**
+     * @param file     the data file.
+     * @param loader   parses the file.
+     * @param snapshot if true, read and write a binary snapshot next to the file when the loader supports it.
+     * @return the parsed data, shared with all other callers for the same file and loader.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(File file, ReferenceDataLoader<T> loader, boolean snapshot) throws IOException {
+        final String path = file.getCanonicalPath();
+        final String key = loader.getName() + ':' + path;
+        Entry entry = ENTRIES.get(key);
+        if (entry == null || !entry.isCurrent(file)) {
+            // One load per file at a time; other files are loaded concurrently.
+            synchronized (lockFor(key)) {
+                entry = ENTRIES.get(key);
+                if (entry == null || !entry.isCurrent(file)) {
+                    entry = load(file, path, loader, snapshot && loader.getSnapshotVersion() > 0);
+                    ENTRIES.put(key, entry);
+                    Utilities.verboseLog(110, "ReferenceDataCache: " + entry);
+                }
+            }
+        }
+        return (T) entry.data;
+    }
+
+    private static Object lockFor(String key) {
+        final Object lock = new Object();
+        final Object existing = LOCKS.putIfAbsent(key, lock);
+        return existing == null ? lock : existing;
+    }
+
+    private static <T> Entry load(File file, String path, ReferenceDataLoader<T> loader, boolean snapshot) throws IOException {
+        // Read before parsing, so a file replaced during the parse is seen as changed next time.
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        final long start = System.currentTimeMillis();
+        final File snapshotFile = snapshotFile(file, loader);
+        T data = null;
+        if (snapshot) {
+            data = readSnapshot(snapshotFile, loader, lastModified, length);
+        }
+        final boolean fromSnapshot = data != null;
+        if (data == null) {
+            data = loader.parse(file);
+            if (snapshot) {
+                writeSnapshot(snapshotFile, loader, data, lastModified, length);
+            }
+        }
+        final long loadMillis = System.currentTimeMillis() - start;
+        return new Entry(loader.getName(), path, lastModified, length, data, loadMillis, fromSnapshot, loader.estimateSize(data));
+    }
+
+    static File snapshotFile(File file, ReferenceDataLoader<?> loader) {
+        return new File(file.getParentFile(), file.getName() + '.' + loader.getName() + ".snapshot");
+    }
+
+    private static <T> T readSnapshot(File snapshotFile, ReferenceDataLoader<T> loader, long lastModified, long length) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC
+                    || in.readInt() != loader.getSnapshotVersion()
+                    || in.readLong() != lastModified
+                    || in.readLong() != length) {
+                LOGGER.debug("Ignoring out of date snapshot " + snapshotFile);
+                return null;
+            }
+            return loader.readSnapshot(in);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to read the snapshot " + snapshotFile + ", parsing the data file instead: " + e);
+            return null;
+        }
+    }
+
+    private static <T> void writeSnapshot(File snapshotFile, ReferenceDataLoader<T> loader, T data, long lastModified, long length) {
+        File temporary = null;
+        try {
+            temporary = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(loader.getSnapshotVersion());
+                out.writeLong(lastModified);
+                out.writeLong(length);
+                loader.writeSnapshot(data, out);
+            }
+            // Other JVMs sharing the data directory never see a partly written snapshot.
+            if (!temporary.renameTo(snapshotFile)) {
+                LOGGER.debug("Unable to rename " + temporary + " to " + snapshotFile);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Not writing the snapshot " + snapshotFile + ": " + e);
+        } finally {
+            if (temporary != null && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+    }
+
+    /**
+     * @return the load statistics of each file in the cache.
+     */
+    public static List<Entry> getEntries() {
+        final List<Entry> entries = new ArrayList<>(ENTRIES.values());
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the approximate heap size of all of the cached data.
+     */
+    public static long getEstimatedSize() {
+        long size = 0;
+        for (Entry entry : ENTRIES.values()) {
+            size += entry.estimatedSize;
+        }
+        return size;
+    }
+
+    /**
+     * Empties the cache (snapshots are left on disk).
+     */
+    public static void clear() {
+        ENTRIES.clear();
+    }
+}
@@ -0,0 +1,53 @@
+package uk.ac.ebi.interpro.scan.io.referencedata;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Parses one kind of member database auxiliary file (e.g. Pfam-A.hmm.dat) for the {@link ReferenceDataCache}.
+ * <p/>
+ * Loaders that can also write and read a pre-indexed binary snapshot of the parsed data should override
+ * {@link #getSnapshotVersion()}, {@link #writeSnapshot} and {@link #readSnapshot}.  The data returned
+ * is shared by all threads, so must not be modified by the callers.
+ *
+ * @param <T> the parsed data.
+ */
+public abstract class ReferenceDataLoader<T> {
+
+    /**
+     * @return the name of this kind of data, unique among the loaders (part of the cache key and snapshot file name).
+     */
+    public abstract String getName();
+
+    public abstract T parse(File file) throws IOException;
+
+    /**
+     * @return an approximate heap size of the data in bytes, for reporting only.
+     */
+    public abstract long estimateSize(T data);
+
+    /**
+     * @return the snapshot format version, changed whenever the snapshot layout changes, or 0 if
+     * this loader does not support snapshots.
+     */
+    public int getSnapshotVersion() {
+        return 0;
+    }
+
+    public void writeSnapshot(T data, DataOutput out) throws IOException {
+        throw new UnsupportedOperationException(getName() + " does not support snapshots");
+    }
+
+    public T readSnapshot(DataInput in) throws IOException {
+        throw new UnsupportedOperationException(getName() + " does not support snapshots");
+    }
+
+    /**
+     * Rough heap size of a String, for {@link #estimateSize}.
+     */
+    protected static long stringSize(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
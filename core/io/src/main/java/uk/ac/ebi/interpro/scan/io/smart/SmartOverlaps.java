@@ -29,4 +29,8 @@ public class SmartOverlaps {
     public SmartOverlappingFileParser.SmartOverlap getSmartOverlapByModelId(String modelId) {
         return modelIdToOverlap.get(modelId);
     }
+
+    public int size() {
+        return modelIdToOverlap.size();
+    }
 }
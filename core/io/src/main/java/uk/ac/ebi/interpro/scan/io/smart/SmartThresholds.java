@@ -27,4 +27,8 @@ public class SmartThresholds {
     public SmartThresholdFileParser.SmartThreshold getThresholdByModelId(String modelId) {
         return modelIdToSmartThreshold.get(modelId);
     }
+
+    public int size() {
+        return modelIdToSmartThreshold.size();
+    }
 }
@@ -4,8 +4,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -116,4 +123,42 @@ public class CommandLineConversationImplTest {
             fail(e.toString());
         }
     }
+
+    /**
+     * Reads only the first line of `java -version` while the command runs, and checks
+     * that the whole output still reaches the output file.
+     */
+    @Test
+    public void testCommandWithOutputConsumer() throws IOException, InterruptedException {
+        final Path outputFile = Paths.get("target", "command_consumed_output");
+        final List<String> consumedLines = new ArrayList<String>();
+        CommandLineConversation clc = new CommandLineConversationImpl();
+        clc.setOutputPathToFile(outputFile.toString(), true, false);
+        clc.setOutputConsumer(new CommandLineConversation.OutputConsumer() {
+            @Override
+            public void consume(InputStream output) throws IOException {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8));
+                consumedLines.add(reader.readLine());
+                reader.close();
+            }
+        });
+        int outcome = clc.runCommand(true, "java", "-version");
+        assertEquals(0, outcome);
+        assertEquals(1, consumedLines.size());
+        final List<String> fileLines = Files.readAllLines(outputFile, StandardCharsets.UTF_8);
+        assertTrue(fileLines.size() > 1, "The output file should have all of the output");
+        assertEquals(fileLines.get(0), consumedLines.get(0));
+    }
+
+    @Test
+    public void testOutputConsumerFailure() {
+        CommandLineConversation clc = new CommandLineConversationImpl();
+        clc.setOutputConsumer(new CommandLineConversation.OutputConsumer() {
+            @Override
+            public void consume(InputStream output) {
+                throw new IllegalStateException("Unexpected output");
+            }
+        });
+        assertThrows(IOException.class, () -> clc.runCommand(true, "java", "-version"));
+    }
 }
@@ -0,0 +1,74 @@
+package uk.ac.ebi.interpro.scan.io.match.writer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ProteinMatchesJSONResultWriter.
+ */
+public class ProteinMatchesJSONResultWriterTest {
+
+    private static final String VERSION = "5.47-82.0";
+
+    private static Protein protein(String sequence, String id, String accession, int start, int end) {
+        final Signature signature = new Signature.Builder(accession)
+                .name("Test family")
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1"))
+                .build();
+        final Set<Hmmer3Match.Hmmer3Location> locations = new HashSet<>();
+        locations.add(new Hmmer3Match.Hmmer3Location(start, end, 25.1, 1e-8,
+                1, end - start, end - start + 10, HmmBounds.COMPLETE, start, end, false, DCStatus.CONTINUOUS));
+        final Set<Match> matches = new HashSet<>();
+        matches.add(new Hmmer3Match(signature, accession, 30.2, 1e-9, locations));
+        return new Protein(sequence, matches, Collections.singleton(new ProteinXref(id)));
+    }
+
+    private static JsonNode writeAndRead(Path path, boolean isSlimOutput, Protein... proteins) throws IOException {
+        try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(path, isSlimOutput)) {
+            writer.writeHeader(VERSION);
+            for (Protein protein : proteins) {
+                writer.write(protein);
+            }
+        }
+        return new ObjectMapper().readTree(path.toFile());
+    }
+
+    @Test
+    public void testStreamedDocument(@TempDir Path tempDir) throws IOException {
+        final Path path = tempDir.resolve("test.json");
+        final JsonNode document = writeAndRead(path, false,
+                protein("MKVLAAGIVALLLAAGCSS", "P00001", "PF00001", 2, 15),
+                protein("MSTNPKPQRKTKRNTNRRPQDVKFPGG", "P00002", "PF00002", 5, 20));
+
+        assertEquals(VERSION, document.get("interproscan-version").asText());
+        final JsonNode results = document.get("results");
+        assertEquals(2, results.size());
+        assertEquals("MKVLAAGIVALLLAAGCSS", results.get(0).get("sequence").asText());
+        assertEquals("P00002", results.get(1).get("xref").get(0).get("id").asText());
+        assertEquals("PF00002", results.get(1).get("matches").get(0).get("signature").get("accession").asText());
+        assertTrue(Files.readAllLines(path, Charset.defaultCharset()).size() > 10, "Should be pretty printed");
+    }
+
+    @Test
+    public void testSlimAndEmptyDocuments(@TempDir Path tempDir) throws IOException {
+        final Path slimPath = tempDir.resolve("slim.json");
+        final JsonNode slim = writeAndRead(slimPath, true, protein("MKVLAAGIVALLLAAGCSS", "P00001", "PF00001", 2, 15));
+        assertEquals(1, slim.get("results").size());
+        assertEquals(1, Files.readAllLines(slimPath, Charset.defaultCharset()).size(), "Slim output should be one line");
+
+        final JsonNode empty = writeAndRead(tempDir.resolve("empty.json"), false);
+        assertEquals(VERSION, empty.get("interproscan-version").asText());
+        assertEquals(0, empty.get("results").size());
+    }
+}
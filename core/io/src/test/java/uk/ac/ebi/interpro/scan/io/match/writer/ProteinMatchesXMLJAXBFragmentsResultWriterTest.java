@@ -0,0 +1,81 @@
+package uk.ac.ebi.interpro.scan.io.match.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for ProteinMatchesXMLJAXBFragmentsResultWriter, checking that fragments marshalled in parallel
+ * give the same file as those marshalled on the calling thread.
+ */
+public class ProteinMatchesXMLJAXBFragmentsResultWriterTest {
+
+    private static final String VERSION = "5.47-82.0";
+
+    private static final String[] SEQUENCES = {
+            "MKVLAAGIVALLLAAGCSS",
+            "MSTNPKPQRKTKRNTNRRPQDVKFPGG",
+            "MADEEKLPPGWEKRMSRSSGRVYYFNHITNASQWERPSG"
+    };
+
+    private static Protein protein(int index) {
+        final String accession = String.format("PF%05d", index % 50);
+        final Signature signature = new Signature.Builder(accession)
+                .name("Test family " + index % 50)
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1"))
+                .build();
+        final int start = 1 + index % 5;
+        final int end = start + 10;
+        final Set<Hmmer3Match.Hmmer3Location> locations = new HashSet<>();
+        locations.add(new Hmmer3Match.Hmmer3Location(start, end, 25.1, 1e-8,
+                1, end - start, end - start + 10, HmmBounds.COMPLETE, start, end, false, DCStatus.CONTINUOUS));
+        final Set<Match> matches = new HashSet<>();
+        matches.add(new Hmmer3Match(signature, accession, 30.2, 1e-9, locations));
+        // Distinct sequences, so the proteins are not equal.
+        final StringBuilder sequence = new StringBuilder(SEQUENCES[index % SEQUENCES.length]);
+        for (int i = index; i > 0; i /= 20) {
+            sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(i % 20));
+        }
+        return new Protein(sequence.toString(), matches,
+                Collections.singleton(new ProteinXref("P" + index)));
+    }
+
+    private static byte[] write(Path path, int marshallerThreads, List<Protein> proteins) throws Exception {
+        final ProteinMatchesXMLJAXBFragmentsResultWriter writer =
+                new ProteinMatchesXMLJAXBFragmentsResultWriter(path, Protein.class, false, marshallerThreads);
+        writer.header(VERSION, "protein-matches");
+        for (Protein protein : proteins) {
+            writer.write(protein, "p", false);
+        }
+        writer.close();
+        return Files.readAllBytes(path);
+    }
+
+    @Test
+    public void testParallelOutputIdentical(@TempDir Path tempDir) throws Exception {
+        final List<Protein> proteins = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            proteins.add(protein(i));
+        }
+        final byte[] serial = write(tempDir.resolve("serial.xml"), 1, proteins);
+        final byte[] parallel = write(tempDir.resolve("parallel.xml"), 4, proteins);
+
+        final String document = new String(serial, "UTF-8");
+        assertTrue(document.contains("interproscan-version=\"" + VERSION + "\""));
+        assertTrue(document.indexOf("P0") < document.indexOf("P499"), "Proteins should be in the order written");
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    public void testEmptyOutputIdentical(@TempDir Path tempDir) throws Exception {
+        final List<Protein> proteins = Collections.emptyList();
+        assertArrayEquals(write(tempDir.resolve("serial.xml"), 1, proteins),
+                write(tempDir.resolve("parallel.xml"), 4, proteins));
+    }
+}
@@ -0,0 +1,142 @@
+package uk.ac.ebi.interpro.scan.io.ntranslate;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.model.NucleotideSequenceStrand;
+import uk.ac.ebi.interpro.scan.model.OpenReadingFrame;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for SixFrameTranslator.  The expected ORFs are those written by esl-translate (Easel 0.46)
+ * for the same input.
+ */
+public class SixFrameTranslatorTest {
+
+    private static final String FASTA =
+            ">seq1 first test sequence\n" +
+            "ATGAACCCAGGATTTAAATGTCCANTAAAGGGATTCCCAAAGGGATTCCCAAACCTGGGACCAAACCTGGGACCATGC\n" +
+            "ATGCATGCATGCATGCTAGCATGCATGCATG\n" +
+            ">seq2\n" +
+            "GGGCTTAGTCTTAAGCTTTAGGCTCTTGGGCTTAGTCTTAAGCTTTAGGCTCTTGGGCTTAGTCTTAAGCTTTAGGCTCTTGGGCTTAG\n";
+
+    private static final String DEGENERATE_FASTA =
+            ">e20\n" + repeat("CCN", 20) + "\n" +
+            ">e19\n" + repeat("CCN", 19) + "\n" +
+            ">tar\n" + repeat("CCN", 10) + "TAR" + repeat("CCN", 25) + "\n";
+
+    private static String repeat(String codon, int times) {
+        final StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sequence.append(codon);
+        }
+        return sequence.toString();
+    }
+
+    private static final class Orf {
+        private final String header;
+        private final String sequence;
+        private final OpenReadingFrame orf;
+
+        private Orf(String header, String sequence, OpenReadingFrame orf) {
+            this.header = header;
+            this.sequence = sequence;
+            this.orf = orf;
+        }
+    }
+
+    private static List<Orf> translate(SixFrameTranslator translator, String fasta) throws IOException {
+        final List<Orf> orfs = new ArrayList<>();
+        final int count = translator.translate(new StringReader(fasta),
+                (header, proteinSequence, orf) -> orfs.add(new Orf(header, proteinSequence, orf)));
+        assertEquals(orfs.size(), count);
+        return orfs;
+    }
+
+    @Test
+    public void testSixFrames() throws IOException {
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMaxOrfsPerSequence(0);
+        final List<Orf> orfs = translate(translator, FASTA);
+        assertEquals(8, orfs.size());
+
+        // Longest first within each sequence, as parseOrfs.py orders them.
+        final Orf first = orfs.get(0);
+        assertEquals("orf3 source=seq1 coords=1..108 length=36 frame=1 desc=first test sequence", first.header);
+        assertEquals("MNPGFKCPXKGFPKGFPNLGPNLGPCMHACMLACMH", first.sequence);
+        assertEquals(1, first.orf.getStart());
+        assertEquals(108, first.orf.getEnd());
+        assertEquals(NucleotideSequenceStrand.SENSE, first.orf.getStrand());
+
+        final Orf antisense = orfs.get(3);
+        assertEquals("orf4 source=seq1 coords=109..17 length=31 frame=4 desc=first test sequence", antisense.header);
+        assertEquals("HACMLACMHACMVPGLVPGLGIPLGIPLXDI", antisense.sequence);
+        assertEquals(17, antisense.orf.getStart());
+        assertEquals(109, antisense.orf.getEnd());
+        assertEquals(NucleotideSequenceStrand.ANTISENSE, antisense.orf.getStrand());
+
+        assertEquals("orf1 source=seq1 coords=29..94 length=22 frame=2 desc=first test sequence", orfs.get(5).header);
+        assertEquals("RDSQRDSQTWDQTWDHACMHAC", orfs.get(5).sequence);
+        assertEquals("orf8 source=seq2 coords=87..1 length=29 frame=6 desc=", orfs.get(6).header);
+        assertEquals("orf7 source=seq2 coords=2..88 length=29 frame=2 desc=", orfs.get(7).header);
+        assertEquals("GLVLSFRLLGLVLSFRLLGLVLSFRLLGL", orfs.get(7).sequence);
+    }
+
+    @Test
+    public void testFilterSizeAndStrand() throws IOException {
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMaxOrfsPerSequence(3);
+        List<Orf> orfs = translate(translator, FASTA);
+        assertEquals(5, orfs.size());
+        assertEquals("orf6 source=seq1 coords=93..1 length=31 frame=5 desc=first test sequence", orfs.get(2).header);
+        assertEquals("orf8 source=seq2 coords=87..1 length=29 frame=6 desc=", orfs.get(3).header);
+
+        translator.setMaxOrfsPerSequence(0);
+        translator.setStrand("sense");
+        orfs = translate(translator, FASTA);
+        assertEquals(4, orfs.size());
+        for (Orf orf : orfs) {
+            assertEquals(NucleotideSequenceStrand.SENSE, orf.orf.getStrand());
+        }
+        // ORFs are still numbered as esl-translate --watson numbers them.
+        assertTrue(orfs.get(3).header.startsWith("orf4 source=seq2 coords=2..88 "));
+    }
+
+    @Test
+    public void testDegenerateCodonsAndMinimumLength() throws IOException {
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMaxOrfsPerSequence(0);
+        final List<Orf> orfs = translate(translator, DEGENERATE_FASTA);
+        assertEquals(8, orfs.size());
+        // e20 has ORFs of exactly the minimum length, e19 none.  Ties are ordered on the header, descending.
+        assertEquals("orf2 source=e20 coords=60..1 length=20 frame=4 desc=", orfs.get(0).header);
+        assertEquals(repeat("X", 20), orfs.get(0).sequence);
+        assertEquals("orf1 source=e20 coords=1..60 length=20 frame=1 desc=", orfs.get(1).header);
+        assertEquals(repeat("P", 20), orfs.get(1).sequence);
+        // TAR is always a stop, so frame 1 starts after it.
+        assertEquals("orf8 source=tar coords=108..1 length=36 frame=4 desc=", orfs.get(2).header);
+        assertEquals(repeat("X", 25) + "L" + repeat("X", 10), orfs.get(2).sequence);
+        assertEquals("orf5 source=tar coords=34..108 length=25 frame=1 desc=", orfs.get(7).header);
+        assertEquals(repeat("P", 25), orfs.get(7).sequence);
+
+        // Overriding the minimum length leaves only the ORFs of the last sequence.
+        assertEquals(6, translator.translate(new StringReader(DEGENERATE_FASTA), 21,
+                (header, proteinSequence, orf) -> assertTrue(header.contains("source=tar"))));
+    }
+
+    @Test
+    public void testGeneticCode() throws IOException {
+        final SixFrameTranslator translator = new SixFrameTranslator();
+        translator.setMaxOrfsPerSequence(0);
+        translator.setGeneticCode(11);
+        translator.setStrand("sense");
+        assertEquals(4, translate(translator, DEGENERATE_FASTA).size());
+
+        assertThrows(IllegalArgumentException.class, () -> translator.setGeneticCode(7));
+        assertThrows(IllegalArgumentException.class, () -> translator.setStrand("watson"));
+    }
+}
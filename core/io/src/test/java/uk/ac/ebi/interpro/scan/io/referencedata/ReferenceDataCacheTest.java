@@ -0,0 +1,134 @@
+package uk.ac.ebi.interpro.scan.io.referencedata;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link ReferenceDataCache} with a loader that reads the lines of a file.
+ */
+public class ReferenceDataCacheTest {
+
+    private File directory;
+
+    private File dataFile;
+
+    private static final class LinesLoader extends ReferenceDataLoader<List<String>> {
+        private int parses = 0;
+
+        @Override
+        public String getName() {
+            return "lines";
+        }
+
+        @Override
+        public List<String> parse(File file) throws IOException {
+            parses++;
+            return Collections.unmodifiableList(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public long estimateSize(List<String> data) {
+            long size = 0;
+            for (String line : data) {
+                size += stringSize(line);
+            }
+            return size;
+        }
+
+        @Override
+        public int getSnapshotVersion() {
+            return 1;
+        }
+
+        @Override
+        public void writeSnapshot(List<String> data, DataOutput out) throws IOException {
+            out.writeInt(data.size());
+            for (String line : data) {
+                out.writeUTF(line);
+            }
+        }
+
+        @Override
+        public List<String> readSnapshot(DataInput in) throws IOException {
+            final int size = in.readInt();
+            final List<String> data = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                data.add(in.readUTF());
+            }
+            return data;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ReferenceDataCache.clear();
+        directory = Files.createTempDirectory("referencedata").toFile();
+        dataFile = new File(directory, "models.dat");
+        write(dataFile, "PF00001", "PF00002");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReferenceDataCache.clear();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static void write(File file, String... lines) throws IOException {
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testParsedOnceUntilChanged() throws IOException {
+        final LinesLoader loader = new LinesLoader();
+        final List<String> first = ReferenceDataCache.get(dataFile.getPath(), loader);
+        assertSame(first, ReferenceDataCache.get(dataFile.getPath(), loader));
+        assertEquals(1, loader.parses);
+        assertFalse(ReferenceDataCache.snapshotFile(dataFile, loader).exists(), "No snapshot unless requested");
+
+        write(dataFile, "PF00001", "PF00002", "PF00003");
+        assertTrue(dataFile.setLastModified(dataFile.lastModified() + 2000));
+        assertEquals(3, ReferenceDataCache.get(dataFile.getPath(), loader).size());
+        assertEquals(2, loader.parses);
+
+        assertEquals(1, ReferenceDataCache.getEntries().size());
+        assertTrue(ReferenceDataCache.getEstimatedSize() > 0);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        final LinesLoader loader = new LinesLoader();
+        final List<String> parsed = ReferenceDataCache.get(dataFile, loader, true);
+        assertTrue(ReferenceDataCache.snapshotFile(dataFile, loader).isFile());
+
+        // As a new JVM would.
+        ReferenceDataCache.clear();
+        assertEquals(parsed, ReferenceDataCache.get(dataFile, loader, true));
+        assertEquals(1, loader.parses);
+        assertTrue(ReferenceDataCache.getEntries().get(0).isFromSnapshot());
+
+        // A snapshot of an older file is not used.
+        ReferenceDataCache.clear();
+        write(dataFile, "PF00009");
+        assertTrue(dataFile.setLastModified(dataFile.lastModified() + 2000));
+        assertEquals(Collections.singletonList("PF00009"), ReferenceDataCache.get(dataFile, loader, true));
+        assertEquals(2, loader.parses);
+        assertFalse(ReferenceDataCache.getEntries().get(0).isFromSnapshot());
+    }
+}
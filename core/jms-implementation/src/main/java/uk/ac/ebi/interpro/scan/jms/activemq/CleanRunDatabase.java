@@ -11,7 +11,11 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Restores the in-memory database from a backup file.
@@ -45,6 +49,11 @@ public class CleanRunDatabase implements Runnable {
 
     private String inMemoryDatabasePassword;
 
+    /**
+     * Tables that are empty in the backup, i.e. that only hold the data of a run.
+     */
+    private final List<String> runTables = new ArrayList<>();
+
     @Required
     public void setDatabaseBackupFile(String databaseBackupFile) {
         this.databaseBackupFile = databaseBackupFile;
@@ -114,6 +123,7 @@ public class CleanRunDatabase implements Runnable {
 
             // TODO - this statement is H2 specific.
             conn.createStatement().execute("RUNSCRIPT from '" + originalFile.getAbsolutePath() + "' COMPRESSION ZIP");
+            recordRunTables(conn);
             stillLoading = false;
             while (parentProcessRunning) {
                 // To ensure the in-memory database restored in this method is used by the
@@ -133,6 +143,56 @@ public class CleanRunDatabase implements Runnable {
         }
     }
 
+    private void recordRunTables(Connection conn) throws SQLException {
+        runTables.clear();
+        final List<String> tables = new ArrayList<>();
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                     "WHERE TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA'")) {
+            while (resultSet.next()) {
+                tables.add('"' + resultSet.getString(1) + "\".\"" + resultSet.getString(2) + '"');
+            }
+        }
+        for (String table : tables) {
+            try (Statement statement = conn.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                if (!resultSet.next()) {
+                    runTables.add(table);
+                }
+            }
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Tables holding run data: " + runTables);
+        }
+    }
+
+    /**
+     * Removes the data of the previous run from the in-memory database, by emptying the tables that are
+     * empty in the backup, so that a long running master can start the next run without restoring the
+     * whole database again.  The metadata (signatures, entries etc.) loaded from the backup is kept.
+     * <p/>
+     * Must only be called once the database has been loaded and no steps are running.
+     */
+    public void clearRunData() {
+        if (stillLoading) {
+            throw new IllegalStateException("The in-memory database has not been loaded yet.");
+        }
+        try (Connection conn = DriverManager.getConnection(inMemoryDatabaseURL, inMemoryDatabaseUsername, inMemoryDatabasePassword);
+             Statement statement = conn.createStatement()) {
+            // TODO - these statements are H2 specific.
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                for (String table : runTables) {
+                    statement.execute("TRUNCATE TABLE " + table);
+                }
+            } finally {
+                statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        } catch (SQLException sqle) {
+            throw new IllegalStateException("An SQLException has been thrown when attempting to clear the in-memory database.", sqle);
+        }
+    }
+
     public boolean stillLoading() {
         return stillLoading;
     }
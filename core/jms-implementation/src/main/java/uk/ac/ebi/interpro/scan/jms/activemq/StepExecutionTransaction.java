@@ -14,4 +14,12 @@ import javax.jms.Message;
  */
 public interface StepExecutionTransaction {
     void executeInTransaction(StepExecution stepExecution, Message message);
+
+    /**
+     * Executes the StepExecution in a transaction without replying to the broker, for
+     * StepExecutions that are run in the Master's own JVM.  Returns once the transaction has committed.
+     *
+     * @param stepExecution The StepExecution to run.
+     */
+    void executeInTransaction(StepExecution stepExecution);
 }
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Required;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import uk.ac.ebi.interpro.scan.io.TemporaryDirectoryManager;
 import uk.ac.ebi.interpro.scan.management.model.Jobs;
 import uk.ac.ebi.interpro.scan.management.model.Step;
@@ -67,12 +69,16 @@ public class StepExecutionTransactionImpl implements StepExecutionTransaction {
     /**
      * Executing the StepInstance and responding to the JMS Broker
      * if the execution is successful.
+     * <p/>
+     * The response is only sent once the transaction has committed, so that the Master never
+     * submits a dependent StepInstance before the data written by this one is visible
+     * (the response is the commit marker for the protein range of the StepInstance).
      *
      * @param stepExecution The StepExecution to run.
      * @param message
      */
     @Transactional
-    public void executeInTransaction(final StepExecution stepExecution, Message message) {
+    public void executeInTransaction(final StepExecution stepExecution, final Message message) {
         stepExecution.setToRun();
         final StepInstance stepInstance = stepExecution.getStepInstance();
         final Step step = stepInstance.getStep(jobs);
@@ -90,6 +96,37 @@ public class StepExecutionTransactionImpl implements StepExecutionTransaction {
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("Successful run of Step.executeInTransaction() method for StepExecution ID: " + stepExecution.getId());
 
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    respond(stepExecution, message, canRunRemotely);
+                }
+            });
+        } else {
+            respond(stepExecution, message, canRunRemotely);
+        }
+    }
+
+    /**
+     * Executing the StepInstance without a reply - the caller is told of the outcome by the method
+     * returning (after the transaction has committed) or throwing.
+     *
+     * @param stepExecution The StepExecution to run.
+     */
+    @Transactional
+    public void executeInTransaction(final StepExecution stepExecution) {
+        stepExecution.setToRun();
+        final StepInstance stepInstance = stepExecution.getStepInstance();
+        final Step step = stepInstance.getStep(jobs);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Step ID: " + step.getId() + " step instance: " + stepInstance + " step execution id: " + stepExecution.getId());
+        }
+        step.execute(stepInstance, getValidWorkingDirectory(step));
+        stepExecution.completeSuccessfully();
+    }
+
+    private void respond(final StepExecution stepExecution, Message message, final boolean canRunRemotely) {
         jmsTemplate.send(jobResponseQueue, new MessageCreator() {
             public Message createMessage(Session session) throws JMSException {
                 final ObjectMessage message = session.createObjectMessage(stepExecution);
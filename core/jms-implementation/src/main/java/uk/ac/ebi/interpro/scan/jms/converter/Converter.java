@@ -6,25 +6,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import org.springframework.beans.factory.annotation.Required;
-import org.springframework.oxm.UnmarshallingFailureException;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import uk.ac.ebi.interpro.scan.io.FileOutputFormat;
 import uk.ac.ebi.interpro.scan.io.TemporaryDirectoryManager;
 import uk.ac.ebi.interpro.scan.io.match.writer.*;
 import uk.ac.ebi.interpro.scan.jms.main.AbstractI5Runner;
 import uk.ac.ebi.interpro.scan.jms.master.SimpleBlackBoxMaster;
+import uk.ac.ebi.interpro.scan.management.model.implementations.writer.GraphicalOutputResultWriter;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.ProteinMatchesHTMLResultWriter;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.ProteinMatchesSVGResultWriter;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.TarArchiveBuilder;
+import uk.ac.ebi.interpro.scan.management.model.implementations.writer.TarArchiveStreamWriter;
 import uk.ac.ebi.interpro.scan.model.*;
-import uk.ac.ebi.interpro.scan.util.Utilities;
 import uk.ac.ebi.interpro.scan.web.io.EntryHierarchy;
 
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -76,6 +73,9 @@ public class Converter extends AbstractI5Runner implements SimpleBlackBoxMaster
 
     private EntryHierarchy entryHierarchy;
 
+    /* Not required. The number of threads unmarshalling the XML file, 1 (default) to unmarshal it on the main thread.*/
+    private int xmlUnmarshallerThreads = 1;
+
     @Required
     public void setInterproscanVersion(String interproscanVersion) {
         this.interproscanVersion = interproscanVersion;
@@ -96,6 +96,10 @@ public class Converter extends AbstractI5Runner implements SimpleBlackBoxMaster
         this.htmlResultWriter = htmlResultWriter;
     }
 
+    public void setXmlUnmarshallerThreads(int xmlUnmarshallerThreads) {
+        this.xmlUnmarshallerThreads = xmlUnmarshallerThreads;
+    }
+
     public void setFastaFilePath(String fastaFilePath) {
         this.xmlInputFilePath = fastaFilePath;
     }
@@ -194,93 +198,34 @@ public class Converter extends AbstractI5Runner implements SimpleBlackBoxMaster
             final String formatsAsString = Arrays.toString(getOutputFormats());
             LOGGER.info("Requested output formats are: " + (outputFormats != null ? formatsAsString : "Undefined, therefore the default set will be use, which is " + formatsAsString));
         }
-        //read in XML file and map it to the I5 model
-        Source source;
-        try {
-            source = new StreamSource(new FileReader(new File(xmlInputFilePath)));
-            IMatchesHolder iMatchesHolder = (IMatchesHolder) marshaller.unmarshal(source);
-
-            Collection<Protein> proteins;
-            Collection<NucleotideSequence> nucleotideSequences = null;
-            final char sequenceType;
-
-            if (iMatchesHolder instanceof ProteinMatchesHolder) {
-                proteins = ((ProteinMatchesHolder) iMatchesHolder).getProteins();
-                sequenceType = 'p';
+        // Open an output per requested format, then stream the XML file through all of them
+        final List<String> fileOutputFormats = new ArrayList<>();
+        for (String fileOutputFormat : getOutputFormats()) {
+            if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.XML.getFileExtension())) {
+                // No point to convert from XML to XML!
+                System.out.println("XML output format was ignored in convert mode.");
+            } else if (isSupportedOutputFormat(fileOutputFormat)) {
+                fileOutputFormats.add(fileOutputFormat);
             } else {
-                proteins = new HashSet<>();
-                nucleotideSequences = ((NucleicAcidMatchesHolder) iMatchesHolder).getNucleotideSequences();
-                for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
-                    Set<OpenReadingFrame> openReadingFrames = nucleotideSequence.getOpenReadingFrames();
-                    for (OpenReadingFrame orf : openReadingFrames) {
-                        Protein protein = orf.getProtein();
-                        if (protein != null) {
-                            proteins.add(protein);
-                        }
-                    }
-                }
-                sequenceType = 'n';
-            }
-            if (LOGGER.isDebugEnabled()) {
-                if (sequenceType == 'p') {
-                    LOGGER.debug("XML file contains a set of protein sequences and associated matches!");
-                } else if (sequenceType == 'n') {
-                    LOGGER.debug("XML file contains a set of nucleotide sequences and associated matches!");
-                }
-            }
-            for (String fileOutputFormat : getOutputFormats()) {
-                if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.GFF3.getFileExtension())) {
-                    LOGGER.info("Generating GFF3 result output...");
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.GFF3);
-                    if (sequenceType == 'n') {
-                        outputNucleotideSequencesToGFF(outputFile, nucleotideSequences);
-                    } else {
-                        outputProteinsToGFF(outputFile, proteins);
-                    }
-                    LOGGER.info("Finished generation of GFF3.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.TSV.getFileExtension())) {
-                    LOGGER.info("Generating TSV result output...");
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.TSV);
-                    outputToTSV(outputFile, proteins);
-                    LOGGER.info("Finished generation of TSV.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.HTML.getFileExtension())) {
-                    LOGGER.info("Generating HTML result output...");
-                    htmlResultWriter.setTempDirectory(temporaryDirectory);
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.HTML);
-                    outputToHTML(outputFile, proteins);
-                    LOGGER.info("Finished generation of HTML.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.SVG.getFileExtension())) {
-                    LOGGER.info("Generating SVG result output...");
-                    svgResultWriter.setTempDirectory(temporaryDirectory);
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.SVG);
-                    outputToSVG(outputFile, proteins);
-                    LOGGER.info("Finished generation of SVG.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.RAW.getFileExtension())) {
-                    LOGGER.info("Generating RAW result output...");
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.RAW);
-                    outputToRAW(outputFile, proteins);
-                    LOGGER.info("Finished generation of RAW.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.JSON.getFileExtension())) {
-                    LOGGER.info("Generating JSON result output...");
-                    Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.JSON);
-                    outputToJSON(outputFile, iMatchesHolder, proteins, nucleotideSequences, sequenceType);
-                    LOGGER.info("Finished generation of JSON.");
-                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.XML.getFileExtension())) {
-                    // No point to convert from XML to XML!
-                    System.out.println("XML output format was ignored in convert mode.");
-                } else {
-                    // Note that GFF3_PARTIAL, XML_SLIM etc are internal formats, not supported by convert mode
-                    LOGGER.error("The specified output format - " + fileOutputFormat + " - is not supported!");
-                    System.out.println("\n\n" + "The specified output file format " + fileOutputFormat + " was not recognised." + "\n\n");
-                    System.exit(1);
-                }
+                // Note that GFF3_PARTIAL, XML_SLIM etc are internal formats, not supported by convert mode
+                LOGGER.error("The specified output format - " + fileOutputFormat + " - is not supported!");
+                System.out.println("\n\n" + "The specified output file format " + fileOutputFormat + " was not recognised." + "\n\n");
+                System.exit(1);
             }
-        } catch (FileNotFoundException e1) {
-            throw new IllegalArgumentException("File not found exception, neither input nor output file!", e1);
-        } catch (UnmarshallingFailureException e2) {
-            throw new IllegalArgumentException("Input file isn't in valid IMPACT XML!", e2);
-        } catch (IOException e3) {
-            LOGGER.error("Cannot write or create result file!", e3);
+        }
+        if (!inputFile.exists()) {
+            throw new IllegalArgumentException("File not found exception, neither input nor output file!");
+        }
+        final ConvertHandler handler = new ConvertHandler(fileOutputFormats);
+        try {
+            final int count = new MatchesXmlStreamReader(marshaller.getJaxbContext(), xmlUnmarshallerThreads)
+                    .read(inputFile.toPath(), handler);
+            handler.close();
+            LOGGER.info("Converted " + count + (handler.sequenceType == 'n' ? " nucleotide sequences." : " proteins."));
+        } catch (IOException e) {
+            LOGGER.error("Cannot write or create result file!", e);
+        } finally {
+            handler.closeQuietly();
         }
 
         // TODO Possible refactoring to consider, currently there is similar code in WriteOutputStep.execute() method
@@ -354,200 +299,273 @@ public class Converter extends AbstractI5Runner implements SimpleBlackBoxMaster
     }
 
 
-    private void outputToJSON(final Path path, IMatchesHolder iMatchesHolder,
-                              final Collection<Protein> proteins,
-                              final Collection<NucleotideSequence> nucleotideSequences,
-                              final char sequenceType) throws IOException {
-        try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(path, false)) {
-            writeProteinMatches(writer, iMatchesHolder, proteins, nucleotideSequences, sequenceType);
+    private boolean isSupportedOutputFormat(String fileOutputFormat) {
+        for (FileOutputFormat format : new FileOutputFormat[]{FileOutputFormat.GFF3, FileOutputFormat.TSV, FileOutputFormat.HTML,
+                FileOutputFormat.SVG, FileOutputFormat.RAW, FileOutputFormat.JSON}) {
+            if (fileOutputFormat.equalsIgnoreCase(format.getFileExtension())) {
+                return true;
+            }
         }
+        return false;
     }
 
-    private void outputToTSV(final Path path,
-                             final Collection<Protein> proteins) throws IOException {
-        try (ProteinMatchesTSVResultWriter writer = new ProteinMatchesTSVResultWriter(path, true)) {
-            writeProteinMatches(writer, proteins);
+    /**
+     * Creates the outputs once the type of sequence in the XML file is known, and hands each sequence read to all
+     * of them.  For nucleotide sequences, the protein based outputs get the proteins of the ORFs, each one once.
+     */
+    private class ConvertHandler implements MatchesXmlStreamReader.Handler {
+
+        private final List<String> fileOutputFormats;
+
+        private final List<ConvertOutput> outputs = new ArrayList<>();
+
+        /* MD5s of the ORF proteins already written, as the same protein may be found on several ORFs */
+        private final Set<String> writtenProteinMd5s = new HashSet<>();
+
+        private char sequenceType;
+
+        ConvertHandler(List<String> fileOutputFormats) {
+            this.fileOutputFormats = fileOutputFormats;
         }
-    }
 
-    private void outputToHTML(final Path path,
-                              final Collection<Protein> proteins) throws IOException {
-        if (proteins != null && proteins.size() > 0) {
-            for (Protein protein : proteins) {
-                htmlResultWriter.write(protein, entryHierarchy);
+        @Override
+        public void start(char sequenceType) throws IOException {
+            this.sequenceType = sequenceType;
+            if (LOGGER.isDebugEnabled()) {
+                if (sequenceType == 'p') {
+                    LOGGER.debug("XML file contains a set of protein sequences and associated matches!");
+                } else if (sequenceType == 'n') {
+                    LOGGER.debug("XML file contains a set of nucleotide sequences and associated matches!");
+                }
+            }
+            for (String fileOutputFormat : fileOutputFormats) {
+                if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.GFF3.getFileExtension())) {
+                    LOGGER.info("Generating GFF3 result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.GFF3);
+                    outputs.add((sequenceType == 'n') ? new NucleotideGFFOutput(outputFile) : new GFFOutput(outputFile));
+                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.TSV.getFileExtension())) {
+                    LOGGER.info("Generating TSV result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.TSV);
+                    outputs.add(new ProteinMatchesOutput(new ProteinMatchesTSVResultWriter(outputFile, true)));
+                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.HTML.getFileExtension())) {
+                    LOGGER.info("Generating HTML result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.HTML);
+                    outputs.add(new GraphicalOutput(outputFile, htmlResultWriter));
+                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.SVG.getFileExtension())) {
+                    LOGGER.info("Generating SVG result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.SVG);
+                    outputs.add(new GraphicalOutput(outputFile, svgResultWriter));
+                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.RAW.getFileExtension())) {
+                    LOGGER.info("Generating RAW result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.RAW);
+                    outputs.add(new ProteinMatchesOutput(new ProteinMatchesRAWResultWriter(outputFile)));
+                } else if (fileOutputFormat.equalsIgnoreCase(FileOutputFormat.JSON.getFileExtension())) {
+                    LOGGER.info("Generating JSON result output...");
+                    final Path outputFile = initOutputFile(isExplicitFileNameSet, FileOutputFormat.JSON);
+                    outputs.add(new JSONOutput(outputFile));
+                }
             }
-            List<Path> resultFiles = htmlResultWriter.getResultFiles();
-            buildTarArchive(path, resultFiles);
         }
-    }
 
-    /**
-     * This method renders the SVG output files.
-     * <p/>
-     * Please note:
-     * <p/>
-     * When the SVG files aren't archived, they are written to the output file directory.
-     * Otherwise they will be written into the default tempDirectory of the {@link ProteinMatchesSVGResultWriter).
-     *
-     * @param outputDir Output directory (this file object contains the output path).
-     * @param proteins  Set of result proteins.
-     * @throws IOException
-     */
-    private void outputToSVG(final Path path, final Collection<Protein> proteins) throws IOException {
-        if (proteins != null && proteins.size() > 0) {
-            for (Protein protein : proteins) {
-                try {
-                    svgResultWriter.write(protein, entryHierarchy);
-                } catch (IOException e) {
-                    LOGGER.error("Cannot write SVG output file!", e);
+        @Override
+        public void protein(Protein protein) throws IOException {
+            for (ConvertOutput output : outputs) {
+                output.write(protein);
+            }
+        }
+
+        @Override
+        public void nucleotideSequence(NucleotideSequence nucleotideSequence) throws IOException {
+            final List<Protein> newProteins = new ArrayList<>();
+            for (OpenReadingFrame orf : nucleotideSequence.getOpenReadingFrames()) {
+                final Protein protein = orf.getProtein();
+                if (protein != null && writtenProteinMd5s.add(protein.getMd5().toLowerCase())) {
+                    newProteins.add(protein);
                 }
             }
-            List<Path> resultFiles = svgResultWriter.getResultFiles();
-            buildTarArchive(path, resultFiles);
+            for (ConvertOutput output : outputs) {
+                output.write(nucleotideSequence, newProteins);
+            }
+        }
+
+        void close() throws IOException {
+            while (!outputs.isEmpty()) {
+                outputs.remove(0).close();
+            }
         }
-    }
 
-    private void buildTarArchive(Path path, List<Path> resultFiles) throws IOException {
-        TarArchiveBuilder tarArchiveBuilder = new TarArchiveBuilder(resultFiles, path, true);
-        tarArchiveBuilder.buildTarArchive();
-        //Delete result files in the temp directory at the end
-        for (Path resultFile : resultFiles) {
-            //Only delete HTML files, but not the resource directory which is also part of the result files list
-            if (Files.isRegularFile(resultFile)) {
+        void closeQuietly() {
+            for (ConvertOutput output : outputs) {
                 try {
-                    Files.delete(resultFile);
+                    output.close();
                 } catch (IOException e) {
-                    if (LOGGER.isWarnEnabled()) {
-                        final String r = resultFile.toAbsolutePath().toString();
-                        LOGGER.warn("Couldn't delete file " + r);
-                    }
+                    LOGGER.warn("Unable to close an output file", e);
                 }
             }
         }
     }
 
-    private void outputProteinsToGFF(final Path path,
-                                     final Collection<Protein> proteins) throws IOException {
-        try (ProteinMatchesGFFResultWriter writer = new GFFResultWriterForProtSeqs(path, interproscanVersion)) {
-            //This step writes features (protein matches) into the GFF file
-            writeProteinMatches(writer, proteins);
-            //This step writes FASTA sequence at the end of the GFF file
-            writeFASTASequences(writer);
-        }
-    }
+    /**
+     * One output file of the conversion, written a sequence at a time.
+     */
+    private abstract static class ConvertOutput implements Closeable {
 
-    private void outputNucleotideSequencesToGFF(final Path path,
-                                                final Collection<NucleotideSequence> nucleotideSequences) throws IOException {
-        try (GFFResultWriterForNucSeqs writer = new GFFResultWriterForNucSeqs(path, interproscanVersion, false)) {
-            //This step writes features (protein matches) into the GFF file
-            writeProteinMatches(writer, nucleotideSequences);
-            //This step writes FASTA sequence at the end of the GFF file
-            writeFASTASequences(writer);
+        abstract void write(Protein protein) throws IOException;
+
+        /**
+         * @param newProteins the proteins of the ORFs of the sequence, not yet written for an earlier sequence.
+         */
+        void write(NucleotideSequence nucleotideSequence, List<Protein> newProteins) throws IOException {
+            for (Protein protein : newProteins) {
+                write(protein);
+            }
         }
     }
 
     /**
-     * Output in InterProScan 4 RAW (TSV) output format.
-     *
-     * @param path     The file to create
-     * @param proteins Protein data
-     * @throws IOException In the event of an input/output error.
+     * TSV and RAW (InterProScan 4 TSV output format).
      */
-    private void outputToRAW(final Path path,
-                             final Collection<Protein> proteins) throws IOException {
-        try (ProteinMatchesRAWResultWriter writer = new ProteinMatchesRAWResultWriter(path)) {
-            writeProteinMatches(writer, proteins);
+    private static class ProteinMatchesOutput extends ConvertOutput {
+
+        private final ProteinMatchesResultWriter writer;
+
+        ProteinMatchesOutput(ProteinMatchesResultWriter writer) {
+            this.writer = writer;
+            writer.setMapToInterProEntries(true);
+            writer.setMapToGO(true);
+            writer.setMapToPathway(true);
+        }
+
+        @Override
+        void write(Protein protein) throws IOException {
+            writer.write(protein);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
         }
     }
 
-    private void writeProteinMatches(final ProteinMatchesResultWriter writer,
-                                     final Collection<Protein> proteins) throws IOException {
-//        final Map<String, String> parameters = stepInstance.getParameters();
-//        final boolean mapToPathway = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_PATHWAY));
-//        final boolean mapToGO = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_GO));
-//        final boolean mapToInterProEntries = mapToPathway || mapToGO || Boolean.TRUE.toString().equals(parameters.get(MAP_TO_INTERPRO_ENTRIES));
-        writer.setMapToInterProEntries(true);
-        writer.setMapToGO(true);
-        writer.setMapToPathway(true);
-        if (proteins != null) {
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Loaded " + proteins.size() + " proteins.");
+    private class GFFOutput extends ConvertOutput {
+
+        private final ProteinMatchesGFFResultWriter writer;
+
+        private boolean closed = false;
+
+        GFFOutput(Path path) throws IOException {
+            this(new GFFResultWriterForProtSeqs(path, interproscanVersion));
+        }
+
+        GFFOutput(ProteinMatchesGFFResultWriter writer) {
+            this.writer = writer;
+            writer.setMapToInterProEntries(true);
+            writer.setMapToGO(true);
+            writer.setMapToPathway(true);
+        }
+
+        @Override
+        void write(Protein protein) throws IOException {
+            //This step writes features (protein matches) into the GFF file
+            writer.write(protein);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
             }
-            for (Protein protein : proteins) {
-                writer.write(protein);
+            closed = true;
+            try {
+                //This step writes FASTA sequence at the end of the GFF file
+                Map<String, String> identifierToSeqMap = writer.getIdentifierToSeqMap();
+                for (String key : identifierToSeqMap.keySet()) {
+                    writer.writeFASTASequence(key, identifierToSeqMap.get(key));
+                }
+            } finally {
+                writer.close();
             }
         }
     }
 
+    private class NucleotideGFFOutput extends GFFOutput {
 
-    private void writeProteinMatches(final ProteinMatchesJSONResultWriter writer, IMatchesHolder iMatchesHolder,
-                                     final Collection<Protein> proteins, final Collection<NucleotideSequence> nucleotideSequences,
-                                     final char sequenceType) throws IOException {
-        //try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
-        //old way??
-        //writer.write()
-        // writer.write(iMatchesHolder, proteinDAO, , isSlimOutput);
+        private final GFFResultWriterForNucSeqs writer;
+
+        NucleotideGFFOutput(Path path) throws IOException {
+            this(new GFFResultWriterForNucSeqs(path, interproscanVersion, false));
+        }
+
+        private NucleotideGFFOutput(GFFResultWriterForNucSeqs writer) {
+            super(writer);
+            this.writer = writer;
+        }
 
-        //LOGGER.warn("Write to JSON " + proteins.size() + " proteins");
-        //LOGGER.error("Write to JSON " + proteins.size() + " proteins");
+        @Override
+        void write(NucleotideSequence nucleotideSequence, List<Protein> newProteins) throws IOException {
+            writer.write(nucleotideSequence);
+        }
+    }
 
-        writer.header(interproscanVersion);
+    private class JSONOutput extends ConvertOutput {
 
-        if (sequenceType == 'p' && !proteins.isEmpty()) {
-            int proteinCount = proteins.size();
-            Utilities.verboseLog(110, " WriteOutputStep -JSON new " + " There are " + proteinCount + " proteins.");
-            int count = 0;
+        private final ProteinMatchesJSONResultWriter writer;
 
-            for (Protein protein: proteins) {
-                if (protein == null) {
-                    LOGGER.warn("protein with id  is null");
-                    continue;
-                }
-                writer.write(protein);
-                count++;
-                if (count < proteinCount) {
-                    writer.write(","); // More proteins/nucleotide sequences to follow
-                }
-            }
+        JSONOutput(Path path) throws IOException {
+            this.writer = new ProteinMatchesJSONResultWriter(path, false);
+            writer.writeHeader(interproscanVersion);
         }
-        if (sequenceType == 'n' && !nucleotideSequences.isEmpty()) {
-            Utilities.verboseLog(110, " WriteOutputStep - JSON  NucleotideSequence " + " There are " + nucleotideSequences.size() + " nucleotides.");
-            int count = 0;
 
-            for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
-                writer.write(nucleotideSequence);
-                count++;
-                if (count < nucleotideSequences.size()) {
-                    writer.write(","); // More proteins/nucleotide sequences to follow
-                }
-            }
-            Utilities.verboseLog(1100, "WriteOutPut nucleotideSequences size: " + nucleotideSequences.size());
+        @Override
+        void write(Protein protein) throws IOException {
+            writer.write(protein);
         }
-        writer.close();
 
+        @Override
+        void write(NucleotideSequence nucleotideSequence, List<Protein> newProteins) throws IOException {
+            writer.write(nucleotideSequence);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
     }
 
-    private void writeProteinMatches(final GFFResultWriterForNucSeqs writer,
-                                     final Collection<NucleotideSequence> nucleotideSequences) throws IOException {
-        writer.setMapToInterProEntries(true);
-        writer.setMapToGO(true);
-        writer.setMapToPathway(true);
-        if (nucleotideSequences != null) {
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Loaded " + nucleotideSequences.size() + " nucleotide sequences.");
+    /**
+     * HTML and SVG, rendered straight into the archive, which is only created if there is at least one protein.
+     */
+    private class GraphicalOutput extends ConvertOutput {
+
+        private final Path path;
+
+        private final GraphicalOutputResultWriter writer;
+
+        private TarArchiveStreamWriter tarArchiveWriter;
+
+        GraphicalOutput(Path path, GraphicalOutputResultWriter writer) {
+            this.path = path;
+            this.writer = writer;
+        }
+
+        @Override
+        void write(Protein protein) throws IOException {
+            if (tarArchiveWriter == null) {
+                tarArchiveWriter = new TarArchiveStreamWriter(path, true);
+                for (Path resourceFile : writer.getResourceFiles()) {
+                    tarArchiveWriter.addPath(resourceFile);
+                }
             }
-            for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
-                writer.write(nucleotideSequence);
+            for (Map.Entry<String, byte[]> document : writer.render(protein, entryHierarchy).entrySet()) {
+                tarArchiveWriter.addEntry(document.getKey(), document.getValue());
             }
         }
-    }
 
-    private void writeFASTASequences(ProteinMatchesGFFResultWriter writer) throws IOException {
-        Map<String, String> identifierToSeqMap = writer.getIdentifierToSeqMap();
-        for (String key : identifierToSeqMap.keySet()) {
-            writer.writeFASTASequence(key, identifierToSeqMap.get(key));
+        @Override
+        public void close() throws IOException {
+            if (tarArchiveWriter != null) {
+                tarArchiveWriter.close();
+            }
         }
     }
-
-
 }
@@ -0,0 +1,399 @@
+package uk.ac.ebi.interpro.scan.jms.converter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.NucleotideSequence;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads an InterProScan XML file one protein (or nucleotide sequence) at a time, so that memory use does not
+ * depend on the size of the file.
+ * <p/>
+ * The file is read with StAX, and each child element of the root is unmarshalled on its own.  With more than one
+ * thread, the main thread copies each element into a small XML document and the other threads unmarshal the
+ * documents, which are handed on in file order.
+ * <p/>
+ * Not thread safe.
+ */
+public class MatchesXmlStreamReader {
+
+    private static final Logger LOGGER = LogManager.getLogger(MatchesXmlStreamReader.class.getName());
+
+    private static final String PROTEIN_MATCHES = "protein-matches";
+
+    private static final String NUCLEIC_ACID_MATCHES = "nucleotide-sequence-matches";
+
+    /* The number of elements unmarshalled ahead of the handler, per thread.*/
+    private static final int ELEMENTS_AHEAD_PER_THREAD = 16;
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /**
+     * Receives the content of the file, on the thread calling {@link #read}.
+     */
+    public interface Handler {
+
+        /**
+         * Called once the root element has been read, before any sequence.
+         *
+         * @param sequenceType p for proteins, n for nucleotide sequences.
+         */
+        void start(char sequenceType) throws IOException;
+
+        void protein(Protein protein) throws IOException;
+
+        void nucleotideSequence(NucleotideSequence nucleotideSequence) throws IOException;
+    }
+
+    private final JAXBContext jaxbContext;
+
+    private final int unmarshallerThreads;
+
+    /**
+     * @param jaxbContext         bound to the InterProScan model.
+     * @param unmarshallerThreads the number of threads unmarshalling the elements.  With 1, they are unmarshalled
+     *                            on the calling thread.
+     */
+    public MatchesXmlStreamReader(JAXBContext jaxbContext, int unmarshallerThreads) {
+        this.jaxbContext = jaxbContext;
+        this.unmarshallerThreads = Math.max(1, unmarshallerThreads);
+    }
+
+    /**
+     * Reads the file, handing each sequence to the handler in file order.
+     *
+     * @return the number of sequences read.
+     * @throws IllegalArgumentException if the file is not InterProScan XML.
+     */
+    public int read(Path xmlFile, Handler handler) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile))) {
+            final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                return read(reader, handler);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IllegalArgumentException("Input file " + xmlFile + " isn't in valid InterProScan XML!", e);
+        }
+    }
+
+    private int read(XMLStreamReader reader, Handler handler) throws IOException, XMLStreamException, JAXBException {
+        reader.nextTag();
+        final String rootName = reader.getLocalName();
+        final Class<?> elementClass;
+        final String elementName;
+        if (PROTEIN_MATCHES.equals(rootName)) {
+            handler.start('p');
+            elementClass = Protein.class;
+            elementName = "protein";
+        } else if (NUCLEIC_ACID_MATCHES.equals(rootName)) {
+            handler.start('n');
+            elementClass = NucleotideSequence.class;
+            elementName = "nucleotide-sequence";
+        } else {
+            throw new XMLStreamException("Unexpected root element " + rootName + ", expected " + PROTEIN_MATCHES + " or " + NUCLEIC_ACID_MATCHES);
+        }
+        final ElementSource source = (unmarshallerThreads > 1)
+                ? new ParallelElementSource(reader, elementClass)
+                : new SerialElementSource(reader, elementClass);
+        try {
+            int count = 0;
+            reader.next();
+            while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+                if (elementName.equals(reader.getLocalName())) {
+                    final Object element = source.next();
+                    if (element != null) {
+                        deliver(element, handler);
+                        count++;
+                    }
+                } else {
+                    LOGGER.warn("Skipping unexpected element " + reader.getLocalName() + " in " + rootName);
+                    skipElement(reader);
+                }
+            }
+            for (Object element = source.finish(); element != null; element = source.finish()) {
+                deliver(element, handler);
+                count++;
+            }
+            Utilities.verboseLog(110, "MatchesXmlStreamReader - read " + count + " " + elementName + " elements");
+            return count;
+        } finally {
+            source.close();
+        }
+    }
+
+    private static void deliver(Object element, Handler handler) throws IOException {
+        if (element instanceof Protein) {
+            handler.protein((Protein) element);
+        } else {
+            handler.nucleotideSequence((NucleotideSequence) element);
+        }
+    }
+
+    /**
+     * Moves to the next start or end tag, unless the reader is already on one (as after unmarshalling an element).
+     */
+    private static int nextTag(XMLStreamReader reader) throws XMLStreamException {
+        int event = reader.getEventType();
+        while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.END_DOCUMENT) {
+                throw new XMLStreamException("Unexpected end of document");
+            }
+            event = reader.next();
+        }
+        return event;
+    }
+
+    /**
+     * Moves past the end of the current element.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        do {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        } while (depth >= 0);
+        reader.next();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Unmarshals the elements of the root, leaving the reader after each one.
+     */
+    private interface ElementSource extends Closeable {
+
+        /**
+         * @return the next element in file order, or null if it is not unmarshalled yet.
+         */
+        Object next() throws XMLStreamException, JAXBException;
+
+        /**
+         * @return the next element still pending at the end of the file, or null once there are none.
+         */
+        Object finish() throws JAXBException;
+    }
+
+    private final class SerialElementSource implements ElementSource {
+
+        private final XMLStreamReader reader;
+
+        private final Class<?> elementClass;
+
+        private final Unmarshaller unmarshaller;
+
+        SerialElementSource(XMLStreamReader reader, Class<?> elementClass) throws JAXBException {
+            this.reader = reader;
+            this.elementClass = elementClass;
+            this.unmarshaller = jaxbContext.createUnmarshaller();
+        }
+
+        @Override
+        public Object next() throws JAXBException {
+            return unmarshaller.unmarshal(reader, elementClass).getValue();
+        }
+
+        @Override
+        public Object finish() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class ParallelElementSource implements ElementSource {
+
+        private final XMLStreamReader reader;
+
+        private final Class<?> elementClass;
+
+        private final ExecutorService unmarshallerPool;
+
+        private final ThreadLocal<Unmarshaller> unmarshallers;
+
+        private final Deque<Future<Object>> pendingElements = new ArrayDeque<>();
+
+        private final int maxPendingElements;
+
+        /* Namespaces declared on the root element, declared again on each copied element.*/
+        private final String[][] rootNamespaces;
+
+        ParallelElementSource(XMLStreamReader reader, Class<?> elementClass) {
+            this.reader = reader;
+            this.elementClass = elementClass;
+            this.rootNamespaces = new String[reader.getNamespaceCount()][];
+            for (int i = 0; i < rootNamespaces.length; i++) {
+                rootNamespaces[i] = new String[]{reader.getNamespacePrefix(i), reader.getNamespaceURI(i)};
+            }
+            this.maxPendingElements = unmarshallerThreads * ELEMENTS_AHEAD_PER_THREAD;
+            this.unmarshallerPool = Executors.newFixedThreadPool(unmarshallerThreads, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "xml-unmarshaller-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.unmarshallers = new ThreadLocal<Unmarshaller>() {
+                @Override
+                protected Unmarshaller initialValue() {
+                    try {
+                        return jaxbContext.createUnmarshaller();
+                    } catch (JAXBException e) {
+                        throw new IllegalStateException("Unable to create an XML unmarshaller", e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Object next() throws XMLStreamException, JAXBException {
+            final String element = copyElement();
+            pendingElements.addLast(unmarshallerPool.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws JAXBException, XMLStreamException {
+                    final XMLStreamReader elementReader = INPUT_FACTORY.createXMLStreamReader(new StringReader(element));
+                    try {
+                        return unmarshallers.get().unmarshal(elementReader, elementClass).getValue();
+                    } finally {
+                        elementReader.close();
+                    }
+                }
+            }));
+            return (pendingElements.size() > maxPendingElements) ? nextUnmarshalled() : null;
+        }
+
+        @Override
+        public Object finish() throws JAXBException {
+            return pendingElements.isEmpty() ? null : nextUnmarshalled();
+        }
+
+        @Override
+        public void close() {
+            unmarshallerPool.shutdownNow();
+        }
+
+        private Object nextUnmarshalled() throws JAXBException {
+            try {
+                return pendingElements.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while unmarshalling the XML", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof JAXBException) {
+                    throw (JAXBException) e.getCause();
+                }
+                throw new IllegalStateException("Failed to unmarshal an XML element", e.getCause());
+            }
+        }
+
+        /**
+         * Copies the current element into a document of its own, leaving the reader after its end tag.
+         */
+        private String copyElement() throws XMLStreamException {
+            final StringWriter buffer = new StringWriter(4096);
+            final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(buffer);
+            int depth = 0;
+            do {
+                switch (reader.getEventType()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        writeStartElement(writer, depth == 0);
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                        // The indentation between elements is not part of the model, so is not worth copying
+                        if (!reader.isWhiteSpace()) {
+                            writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(reader.getText());
+                        break;
+                    default:
+                        // Comments and processing instructions are not part of the model
+                        break;
+                }
+                reader.next();
+            } while (depth > 0);
+            writer.close();
+            return buffer.toString();
+        }
+
+        private void writeStartElement(XMLStreamWriter writer, boolean root) throws XMLStreamException {
+            final String prefix = reader.getPrefix();
+            final String namespaceURI = reader.getNamespaceURI();
+            writer.writeStartElement(prefix == null ? "" : prefix, reader.getLocalName(), namespaceURI == null ? "" : namespaceURI);
+            if (root) {
+                for (String[] namespace : rootNamespaces) {
+                    if (!declaresPrefix(namespace[0])) {
+                        writeNamespace(writer, namespace[0], namespace[1]);
+                    }
+                }
+            }
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                writeNamespace(writer, reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                final String attributePrefix = reader.getAttributePrefix(i);
+                final String attributeNamespace = reader.getAttributeNamespace(i);
+                if (attributeNamespace == null || attributeNamespace.isEmpty()) {
+                    writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                } else {
+                    writer.writeAttribute(attributePrefix == null ? "" : attributePrefix, attributeNamespace,
+                            reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+            }
+        }
+
+        private boolean declaresPrefix(String prefix) {
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                final String declared = reader.getNamespacePrefix(i);
+                if ((declared == null || declared.isEmpty()) ? (prefix == null || prefix.isEmpty()) : declared.equals(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void writeNamespace(XMLStreamWriter writer, String prefix, String namespaceURI) throws XMLStreamException {
+            if (prefix == null || prefix.isEmpty()) {
+                writer.writeDefaultNamespace(namespaceURI);
+            } else {
+                writer.writeNamespace(prefix, namespaceURI);
+            }
+        }
+    }
+}
@@ -21,6 +21,8 @@ public enum Mode {
     DISTRIBUTED_MASTER("distributedMaster", "spring/jms/master/distributed-master-context.xml"),
     CLUSTER("distributedMaster", "spring/jms/master/distributed-master-context.xml"),
     SINGLESEQ("ssOptimisedBlackBoxMaster", "spring/jms/master/singleseq-optimised-master-context.xml"),
+    //Long running standalone master, running the jobs posted to it without loading the Spring context and database again
+    SERVER("interproscanServer", "spring/jms/master/server-master-context.xml"),
     // Use this internal mode for creating the H2 in-memory database
     INSTALLER("installer", "spring/installer/installer-context.xml"),
     // Use this mode for creating the test database that lives in /jms-implementation/src/test/resources/
@@ -26,6 +26,7 @@ import uk.ac.ebi.interpro.scan.jms.converter.Converter;
 import uk.ac.ebi.interpro.scan.jms.exception.InvalidInputException;
 import uk.ac.ebi.interpro.scan.jms.master.*;
 import uk.ac.ebi.interpro.scan.jms.monitoring.MasterControllerApplication;
+import uk.ac.ebi.interpro.scan.jms.server.InterProScanServer;
 import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 import uk.ac.ebi.interpro.scan.jms.worker.WorkerImpl;
@@ -36,6 +37,7 @@ import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
 import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
 
 import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStagingArea;
 
 import java.io.File;
 import java.io.FilePermission;
@@ -114,6 +116,13 @@ public class Run extends AbstractI5Runner {
     }
 
 
+    /**
+     * @return the options accepted on the command line, also used to parse the options of a server job.
+     */
+    public static Options getCommandLineOptions() {
+        return COMMAND_LINE_OPTIONS;
+    }
+
     public static void main(String[] args) {
         // create the command line parser
 
@@ -385,6 +394,8 @@ public class Run extends AbstractI5Runner {
                     runConvertMode(runnable, parsedCommandLine, parsedOutputFormats);
                 } else if (runnable instanceof MasterControllerApplication) {
                     runMasterControllerApplicationMode(runnable, parsedCommandLine, ctx, mode);
+                } else if (runnable instanceof InterProScanServer) {
+                    checkIfServerAndConfigure(runnable, analysesToRun, parsedCommandLine, parsedOutputFormats, ctx, mode, sequenceType);
                 } else {
 
                     checkIfMasterAndConfigure(runnable, analysesToRun, parsedCommandLine, parsedOutputFormats, ctx, mode, sequenceType);
@@ -398,7 +409,7 @@ public class Run extends AbstractI5Runner {
 
                 //get temp directory for cleanup even in convert mode we need temp dir
                 if (!(mode.equals(Mode.INSTALLER) || mode.equals(Mode.WORKER) || mode.equals(Mode.DISTRIBUTED_WORKER)
-                        || mode.equals(Mode.CONVERT) || mode.equals(Mode.HIGHMEM_WORKER))) {
+                        || mode.equals(Mode.CONVERT) || mode.equals(Mode.HIGHMEM_WORKER) || mode.equals(Mode.SERVER))) {
                     //|| mode.equals(Mode.CONVERT)
                     final AbstractMaster master = (AbstractMaster) runnable;
                     if (LOGGER.isDebugEnabled()) {
@@ -458,7 +469,11 @@ public class Run extends AbstractI5Runner {
                     ProteinDAO proteinDAO = (ProteinDAO) ctx.getBean("proteinDAO");
                     proteinDAO.checkKVDBStores();
 
-                } else {
+                    final RawMatchStagingArea rawMatchStagingArea = (RawMatchStagingArea) ctx.getBean("rawMatchStagingArea");
+                    rawMatchStagingArea.setDirectory(workingTemporaryDirectory + File.separator + "rawmatches");
+
+                } else if (!mode.equals(Mode.SERVER)) {
+                    // The server sets up a working directory and the KVStores for each job
                     LOGGER.warn("Working Temporary Directory is not set");
                 }
 
@@ -589,6 +604,21 @@ public class Run extends AbstractI5Runner {
     }
 
 
+    /**
+     * The options given when the server is started configure its master as for a standalone run
+     * (cpu, verbose output, temporary directory), the input and output are given with each job.
+     */
+    private static void checkIfServerAndConfigure(final Runnable runnable,
+                                                  final String[] parsedAnalyses,
+                                                  final CommandLine parsedCommandLine,
+                                                  final String[] parsedOutputFormats,
+                                                  final AbstractApplicationContext ctx,
+                                                  final Mode mode,
+                                                  final String sequenceType) {
+        final InterProScanServer server = (InterProScanServer) runnable;
+        checkIfMasterAndConfigure(server.getMaster(), parsedAnalyses, parsedCommandLine, parsedOutputFormats, ctx, mode, sequenceType);
+    }
+
     private static void checkIfProductionMasterAndConfigure(
             final Master master,
             final AbstractApplicationContext ctx) {
@@ -1062,7 +1092,7 @@ public class Run extends AbstractI5Runner {
      * @param options Un-tidy array of options
      * @return Array of options after tidying.
      */
-    private static String[] tidyOptionsArray(String[] options) {
+    public static String[] tidyOptionsArray(String[] options) {
         if (options == null || options.length < 1) {
             return options;
         }
@@ -350,6 +350,27 @@ public abstract class AbstractBlackBoxMaster extends AbstractMaster implements B
         this.mapToPathway = mapToPathway;
     }
 
+    /**
+     * Puts the options of a single run back to their defaults, before a long running master
+     * (see InterProScanServer) is configured for its next job.
+     */
+    public void clearJobOptions() {
+        fastaFilePath = null;
+        analyses = null;
+        outputBaseFilename = null;
+        explicitFileName = null;
+        outputFormats = null;
+        inclTSVVersion = false;
+        sequenceType = "p";
+        minSize = null;
+        useMatchLookupService = true;
+        excludeSites = false;
+        includeTsvSites = false;
+        mapToInterPro = false;
+        mapToGO = false;
+        mapToPathway = false;
+    }
+
     public void setDatabaseCleaner(CleanRunDatabase databaseCleaner) {
         this.databaseCleaner = databaseCleaner;
     }
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Required;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 import uk.ac.ebi.interpro.scan.jms.lsf.LSFMonitor;
+import uk.ac.ebi.interpro.scan.jms.slurm.SlurmMonitor;
 import uk.ac.ebi.interpro.scan.jms.master.queuejumper.platforms.SubmissionWorkerRunner;
 import uk.ac.ebi.interpro.scan.jms.stats.StatsMessageListener;
 import uk.ac.ebi.interpro.scan.jms.stats.StatsUtil;
@@ -83,6 +84,8 @@ public class DistributedBlackBoxMaster extends AbstractBlackBoxMaster implements
 
     private LSFMonitor lsfMonitor;
 
+    private SlurmMonitor slurmMonitor;
+
     /**
      * completion time target for worker creation by the Master
      * should be  less than worker max lifetime  =  7*24*60*60*1000;
@@ -368,7 +371,7 @@ public class DistributedBlackBoxMaster extends AbstractBlackBoxMaster implements
                 if (System.currentTimeMillis() - timeLastDisplayedStatsAndUpdatedClusterState > 30 * 60 * 1000) {
                     displayStats = true;
                     timeLastDisplayedStatsAndUpdatedClusterState = System.currentTimeMillis();
-                    if (gridName.equals("lsf") && !clusterStateUpdatedRecently()) {
+                    if ((gridName.equals("lsf") || gridName.equals("slurm")) && !clusterStateUpdatedRecently()) {
                         //shutdown the previous executor task and start a new task
                         scheduledExecutorService.shutdownNow();
                         scheduledExecutorService = updateClusterState();
@@ -553,6 +556,10 @@ public class DistributedBlackBoxMaster extends AbstractBlackBoxMaster implements
         this.lsfMonitor = lsfMonitor;
     }
 
+    public void setSlurmMonitor(SlurmMonitor slurmMonitor) {
+        this.slurmMonitor = slurmMonitor;
+    }
+
     @Required
     public void setGridName(String gridName) {
         this.gridName = gridName;
@@ -1340,12 +1347,13 @@ public class DistributedBlackBoxMaster extends AbstractBlackBoxMaster implements
         SERVICE.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                Utilities.verboseLog(1100, "start lsf monitor ");
+                Utilities.verboseLog(1100, "start " + gridName + " monitor ");
                 Long startTimeForMonitor = System.currentTimeMillis();
-                if (gridName.equals("lsf")) {
+                if (gridName.equals("lsf") || gridName.equals("slurm")) {
                     try {
-                        int activeJobs = lsfMonitor.activeJobs(projectId);
-                        int pendingJobs = lsfMonitor.pendingJobs(projectId);
+                        final boolean slurm = gridName.equals("slurm");
+                        int activeJobs = slurm ? slurmMonitor.activeJobs(projectId) : lsfMonitor.activeJobs(projectId);
+                        int pendingJobs = slurm ? slurmMonitor.pendingJobs(projectId) : lsfMonitor.pendingJobs(projectId);
                         int runningJobs = activeJobs - pendingJobs;
                         ClusterState clusterState = new ClusterState(gridLimit, activeJobs, pendingJobs);
                         if (verboseLogLevel > 3) {
@@ -1364,7 +1372,7 @@ public class DistributedBlackBoxMaster extends AbstractBlackBoxMaster implements
                     }
                 }
                 Long timePassed = System.currentTimeMillis() - startTimeForMonitor;
-                Utilities.verboseLog(1100, "End  lsf monitor : Took " + timePassed + " ms");
+                Utilities.verboseLog(1100, "End  " + gridName + " monitor : Took " + timePassed + " ms");
 
             }
         }, 1, gridCheckInterval, TimeUnit.SECONDS);
@@ -0,0 +1,312 @@
+package uk.ac.ebi.interpro.scan.jms.master;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import uk.ac.ebi.interpro.scan.jms.activemq.StepExecutionTransaction;
+import uk.ac.ebi.interpro.scan.management.dao.StepExecutionDAO;
+import uk.ac.ebi.interpro.scan.management.model.Jobs;
+import uk.ac.ebi.interpro.scan.management.model.StepExecution;
+import uk.ac.ebi.interpro.scan.management.model.StepInstance;
+import uk.ac.ebi.interpro.scan.management.model.implementations.RunBinaryStep;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs StepExecutions on a thread pool in the Master's JVM, for the standalone mode, in place of the
+ * embedded workers listening to the in-VM JMS broker.  The StepExecution is handed to the pool as it is,
+ * rather than being serialised into an ObjectMessage, queued by the broker, deserialised by the worker
+ * and the reply sent back the same way.
+ * <p/>
+ * No more StepExecutions run at once than the requested CPUs, as for the embedded workers.  Whenever one
+ * may start, the highest priority queued StepExecution is started (first come first served for equal
+ * priorities), as the JMS message priority did.  RunBinarySteps and other steps are queued separately, and
+ * may each be limited to fewer running at once, so that the steps preparing input for and parsing output of
+ * the binaries are not all held up behind long binary runs.
+ */
+public class InProcessStepExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger(InProcessStepExecutor.class.getName());
+
+    /**
+     * Told of each StepExecution once it has completed, successfully or not, in place of the reply
+     * message.  Called on the thread that ran it, before the outcome is written to the database.
+     */
+    public interface CompletionListener {
+        void stepExecutionCompleted(StepExecution stepExecution);
+    }
+
+    private StepExecutionTransaction stepExecutor;
+
+    private StepExecutionDAO stepExecutionDAO;
+
+    private Jobs jobs;
+
+    private int stepThreadCount = 0;
+
+    private int binaryThreadCount = 0;
+
+    private final AtomicLong submissionCount = new AtomicLong();
+
+    private ThreadPoolExecutor pool;
+
+    /**
+     * Queued StepExecutions, started in {@link #dispatch()}.  These and the counts below are guarded by this.
+     */
+    private final PriorityQueue<PrioritisedExecution> stepQueue = new PriorityQueue<>();
+
+    private final PriorityQueue<PrioritisedExecution> binaryQueue = new PriorityQueue<>();
+
+    private int maxRunning;
+
+    private int maxStepsRunning;
+
+    private int maxBinariesRunning;
+
+    private int stepsRunning = 0;
+
+    private int binariesRunning = 0;
+
+    private boolean shutdown = false;
+
+    private CompletionListener listener;
+
+    @Required
+    public void setStepExecutor(StepExecutionTransaction stepExecutor) {
+        this.stepExecutor = stepExecutor;
+    }
+
+    @Required
+    public void setStepExecutionDAO(StepExecutionDAO stepExecutionDAO) {
+        this.stepExecutionDAO = stepExecutionDAO;
+    }
+
+    @Required
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * @param stepThreadCount most steps other than RunBinarySteps running at once.  If not set (or 0), the
+     *                        thread count passed to {@link #start} is used.
+     */
+    public void setStepThreadCount(int stepThreadCount) {
+        this.stepThreadCount = stepThreadCount;
+    }
+
+    /**
+     * @param binaryThreadCount most RunBinarySteps running at once.  If not set (or 0), the thread count
+     *                          passed to {@link #start} is used.
+     */
+    public void setBinaryThreadCount(int binaryThreadCount) {
+        this.binaryThreadCount = binaryThreadCount;
+    }
+
+    /**
+     * Creates the thread pool.
+     *
+     * @param threadCount the number of StepExecutions that may run at once.  Usually the number of CPUs requested.
+     * @param listener    to be told of each completed StepExecution.
+     */
+    public synchronized void start(int threadCount, CompletionListener listener) {
+        if (pool != null) {
+            throw new IllegalStateException("The in-process step executor has already been started.");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be at least 1, but was " + threadCount);
+        }
+        this.listener = listener;
+        maxRunning = threadCount;
+        maxStepsRunning = (stepThreadCount > 0) ? Math.min(stepThreadCount, threadCount) : threadCount;
+        maxBinariesRunning = (binaryThreadCount > 0) ? Math.min(binaryThreadCount, threadCount) : threadCount;
+        // Never more than threadCount StepExecutions are handed to the pool, so none wait in its queue.
+        pool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "step-executor-" + threadNumber.getAndIncrement());
+                        // Must not keep the JVM alive if the Master exits without calling shutdown.
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        Utilities.verboseLog(110, "InProcessStepExecutor: running at once: " + threadCount
+                + " steps: " + maxStepsRunning + " binary steps: " + maxBinariesRunning);
+    }
+
+    /**
+     * Creates a StepExecution for the StepInstance, records it as submitted and queues it.
+     *
+     * @param stepInstance to run.
+     * @param priority     higher values are run first, as for JMS message priorities.
+     */
+    public void submit(StepInstance stepInstance, int priority) {
+        synchronized (this) {
+            if (pool == null) {
+                throw new IllegalStateException("The in-process step executor has not been started.");
+            }
+            if (shutdown) {
+                throw new IllegalStateException("The in-process step executor has been shut down.");
+            }
+        }
+        final StepExecution stepExecution = stepInstance.createStepExecution();
+        stepExecutionDAO.insert(stepExecution);
+        stepExecution.submit(stepExecutionDAO);
+        final boolean binary = stepInstance.getStep(jobs) instanceof RunBinaryStep;
+        synchronized (this) {
+            (binary ? binaryQueue : stepQueue).add(new PrioritisedExecution(stepExecution, priority, submissionCount.getAndIncrement(), binary));
+            dispatch();
+        }
+    }
+
+    /**
+     * Starts the highest priority queued StepExecutions, for as long as another may run.
+     */
+    private synchronized void dispatch() {
+        while (stepsRunning + binariesRunning < maxRunning) {
+            final PrioritisedExecution nextStep = (stepsRunning < maxStepsRunning) ? stepQueue.peek() : null;
+            final PrioritisedExecution nextBinary = (binariesRunning < maxBinariesRunning) ? binaryQueue.peek() : null;
+            final PrioritisedExecution next;
+            if (nextStep == null) {
+                next = nextBinary;
+            } else if (nextBinary == null) {
+                next = nextStep;
+            } else {
+                next = (nextStep.compareTo(nextBinary) < 0) ? nextStep : nextBinary;
+            }
+            if (next == null) {
+                return;
+            }
+            if (next.binary) {
+                binaryQueue.poll();
+                binariesRunning++;
+            } else {
+                stepQueue.poll();
+                stepsRunning++;
+            }
+            pool.execute(next);
+        }
+    }
+
+    private synchronized void finished(PrioritisedExecution execution) {
+        if (execution.binary) {
+            binariesRunning--;
+        } else {
+            stepsRunning--;
+        }
+        dispatch();
+        if (isIdle()) {
+            notifyAll();
+            if (shutdown) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return stepsRunning + binariesRunning == 0 && stepQueue.isEmpty() && binaryQueue.isEmpty();
+    }
+
+    /**
+     * @return the number of StepExecutions queued or running.
+     */
+    public synchronized int getActiveCount() {
+        return stepQueue.size() + binaryQueue.size() + stepsRunning + binariesRunning;
+    }
+
+    /**
+     * Drops the StepExecutions that have not started yet, e.g. those of a job that has failed,
+     * and waits for the running ones to complete.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized void cancelQueuedAndAwaitIdle() throws InterruptedException {
+        stepQueue.clear();
+        binaryQueue.clear();
+        while (!isIdle()) {
+            wait();
+        }
+    }
+
+    /**
+     * Stops the threads once the queued StepExecutions have run.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (pool != null && isIdle()) {
+            pool.shutdown();
+        }
+    }
+
+    private void execute(StepExecution stepExecution) {
+        final StepInstance stepInstance = stepExecution.getStepInstance();
+        final String stepName = stepInstance.getStepId();
+        final String proteinRange = (stepInstance.getBottomProtein() == null)
+                ? "000-000"
+                : stepInstance.getBottomProtein() + "-" + stepInstance.getTopProtein();
+        final long now = System.currentTimeMillis();
+        Utilities.verboseLog(0, Thread.currentThread().getName() + " Processing " + stepName.replace("step", "")
+                + " - stepInstanceId = " + stepInstance.getId() + " [" + proteinRange + "]");
+        try {
+            stepExecutor.executeInTransaction(stepExecution);
+            Utilities.verboseLog(10, "Execution Time (ms) for stepName: " + stepName.replace("step", "")
+                    + " [" + proteinRange + "]" + "  time: " + (System.currentTimeMillis() - now));
+        } catch (Throwable e) {
+            // Errors as well, as the Master would otherwise wait for this StepExecution forever.
+            LOGGER.error("Exception thrown when attempting to execute the StepExecution for " + stepName
+                    + " [" + proteinRange + "].  All database activity rolled back.", e);
+            stepExecution.fail(e);
+        }
+        try {
+            listener.stepExecutionCompleted(stepExecution);
+            stepExecutionDAO.refreshStepExecution(stepExecution);
+        } catch (RuntimeException e) {
+            LOGGER.error("Exception thrown when reporting the completion of the StepExecution for " + stepName
+                    + " [" + proteinRange + "]", e);
+        }
+    }
+
+    private class PrioritisedExecution implements Runnable, Comparable<PrioritisedExecution> {
+
+        private final StepExecution stepExecution;
+
+        private final int priority;
+
+        private final long sequence;
+
+        private final boolean binary;
+
+        PrioritisedExecution(StepExecution stepExecution, int priority, long sequence, boolean binary) {
+            this.stepExecution = stepExecution;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.binary = binary;
+        }
+
+        @Override
+        public void run() {
+            try {
+                execute(stepExecution);
+            } finally {
+                finished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritisedExecution that) {
+            if (this.priority != that.priority) {
+                return (this.priority > that.priority) ? -1 : 1;
+            }
+            return Long.compare(this.sequence, that.sequence);
+        }
+    }
+}
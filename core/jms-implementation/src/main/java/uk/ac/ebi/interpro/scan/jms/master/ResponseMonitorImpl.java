@@ -33,6 +33,8 @@ public class ResponseMonitorImpl implements MessageListener {
 
     private StatsUtil statsUtil;
 
+    private StepInstanceScheduler stepInstanceScheduler;
+
     public ResponseMonitorImpl(StepExecutionDAO stepExecutionDAO) {
         this.stepExecutionDAO = stepExecutionDAO;
     }
@@ -45,6 +47,14 @@ public class ResponseMonitorImpl implements MessageListener {
         this.statsUtil = statsUtil;
     }
 
+    /**
+     * Optional - if set, the scheduler is told about each completed StepExecution
+     * before it is written to the database, so dependants can be submitted straight away.
+     */
+    public void setStepInstanceScheduler(StepInstanceScheduler stepInstanceScheduler) {
+        this.stepInstanceScheduler = stepInstanceScheduler;
+    }
+
     @Override
     public void onMessage(Message message) {
         LOGGER.info("Master: received a message on the  responseQueue");
@@ -57,6 +67,9 @@ public class ResponseMonitorImpl implements MessageListener {
                 if (messageContents instanceof StepExecution) {
                     canHandle = true;
                     StepExecution freshStepExecution = (StepExecution) messageContents;
+                    if (stepInstanceScheduler != null) {
+                        stepInstanceScheduler.stepExecutionCompleted(freshStepExecution);
+                    }
                     stepExecutionDAO.refreshStepExecution(freshStepExecution);
                     Utilities.verboseLog(110, "ResponseMonitorImpl: " + freshStepExecution.getStepInstance().toString());
                     statsUtil.updateSubmittedStepInstances(freshStepExecution.getStepInstance());
@@ -2,6 +2,7 @@ package uk.ac.ebi.interpro.scan.jms.master;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
+import org.springframework.beans.factory.annotation.Required;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import uk.ac.ebi.interpro.scan.jms.stats.StatsUtil;
 import uk.ac.ebi.interpro.scan.management.model.implementations.RunBinaryStep;
@@ -9,15 +10,14 @@ import uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCrea
 import uk.ac.ebi.interpro.scan.management.model.implementations.WriteOutputStep;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 import uk.ac.ebi.interpro.scan.management.model.Step;
+import uk.ac.ebi.interpro.scan.management.model.StepExecution;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.management.model.implementations.WriteFastaFileStep;
-import uk.ac.ebi.interpro.scan.management.model.implementations.prosite.RunPsScanStep;
 
 import javax.jms.JMSException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ThreadFactory;
 
 import java.util.concurrent.TimeUnit;
 
@@ -35,6 +35,17 @@ public class StandaloneBlackBoxMaster extends AbstractBlackBoxMaster {
 
     private static final int MEGA = 1024 * 1024;
 
+    /**
+     * Longest time the master waits for a StepExecution to complete before re-checking progress.
+     */
+    private static final long SCHEDULER_WAIT_MILLIS = 1000;
+
+    private StepInstanceScheduler stepInstanceScheduler;
+
+    private InProcessStepExecutor inProcessStepExecutor;
+
+    private boolean inProcessExecution = false;
+
     public StandaloneBlackBoxMaster(DefaultMessageListenerContainer workerQueueJmsContainer) {
         this.workerQueueJmsContainer = workerQueueJmsContainer;
     }
@@ -62,6 +73,229 @@ public class StandaloneBlackBoxMaster extends AbstractBlackBoxMaster {
             Utilities.verboseLog(40, "temp dir: " + getWorkingTemporaryDirectoryPath());
         }
 
+        if (inProcessExecution) {
+            startInProcessStepExecutor();
+        } else {
+            startWorkerQueueJmsContainer();
+        }
+
+        long nowAfterLoadingDatabase = now;
+
+        try {
+            loadInMemoryDatabase();
+            runStatus = 21;
+            nowAfterLoadingDatabase = System.currentTimeMillis();
+
+            analyse();
+            runStatus = 0;
+        } catch (JMSException e) {
+            LOGGER.error("JMSException thrown by StandaloneBlackBoxMaster: ", e);
+            systemExit(999);
+        } catch (Exception e) {
+            LOGGER.error("Exception thrown by StandaloneBlackBoxMaster: ", e);
+            e.printStackTrace(); //TODO fro debug only remove in production
+            systemExit(999);
+        }
+
+        if (runStatus == 0) {
+            System.out.println(Utilities.getTimeNow() + " 100% done:  InterProScan analyses completed \n");
+        }else{
+            LOGGER.error("InterProScan analyses failed, check log details for the errors - " + runStatus);
+        }
+
+        if(Utilities.verboseLogLevel >= 10){
+            final long executionTime =   System.currentTimeMillis() - now;
+            final long executionTimeExclLoadDatabase =   System.currentTimeMillis() - nowAfterLoadingDatabase;
+            System.out.println("Computation time : (" + TimeUnit.MILLISECONDS.toSeconds(executionTime)+ " s) => " + String.format("%d min, %d sec",
+                    TimeUnit.MILLISECONDS.toMinutes(executionTime),
+                    TimeUnit.MILLISECONDS.toSeconds(executionTime) -
+                            TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(executionTime))
+            ));
+            System.out.println("Computation time exc ldb : (" + TimeUnit.MILLISECONDS.toSeconds(executionTimeExclLoadDatabase)+ " s) => " + String.format("%d min, %d sec",
+                    TimeUnit.MILLISECONDS.toMinutes(executionTimeExclLoadDatabase),
+                    TimeUnit.MILLISECONDS.toSeconds(executionTimeExclLoadDatabase) -
+                            TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(executionTimeExclLoadDatabase))
+            ));
+        }
+        systemExit(runStatus);
+    }
+
+
+    /**
+     * Prepares this master to run several jobs in the same JVM (see InterProScanServer), in place of
+     * {@link #run()}: starts the in-process executor and loads the in-memory database once.
+     *
+     * @throws InterruptedException if interrupted while loading the database.
+     */
+    public void startServer() throws InterruptedException {
+        Utilities.verboseLog = verboseLog;
+        Utilities.verboseLogLevel = verboseLogLevel;
+        Utilities.periodicGCCall = periodicGCCall;
+        // Steps run on the executor threads, there is no broker to send them through.
+        inProcessExecution = true;
+        startInProcessStepExecutor();
+        loadInMemoryDatabase();
+    }
+
+    /**
+     * Runs the job the master has been configured for, once {@link #startServer()} has been called.
+     * The caller sets up the temporary directory and KV stores of the job, and clears the run data
+     * from the database between jobs.
+     *
+     * @throws JMSException         not expected, as the steps run in process.
+     * @throws InterruptedException if interrupted while waiting for the StepExecutions.
+     */
+    public void runServerJob() throws JMSException, InterruptedException {
+        shutdownCalled = false;
+        stepInstanceScheduler.reset();
+        statsUtil.resetRunStats();
+        Utilities.setWriteOutputStepCompleted(false);
+        Utilities.setSequenceCount(0);
+        Utilities.setSequenceType(sequenceType);
+        try {
+            analyse();
+        } finally {
+            // A failed job leaves the rest of its StepInstances behind.
+            inProcessStepExecutor.cancelQueuedAndAwaitIdle();
+        }
+    }
+
+    /**
+     * @return the number of StepInstances of the last job.
+     */
+    public int getStepInstanceCount() {
+        return stepInstanceScheduler.getStepInstanceCount();
+    }
+
+    public void stopServer() {
+        shutdownCalled = true;
+        inProcessStepExecutor.shutdown();
+        databaseCleaner.closeDatabaseCleaner();
+    }
+
+    /**
+     * Creates the StepInstances for the input and runs them until the output has been written.
+     *
+     * @throws JMSException         in the event of a failure sending a message to the JMS Broker.
+     * @throws InterruptedException if interrupted while waiting for the StepExecutions.
+     */
+    private void analyse() throws JMSException, InterruptedException {
+        int stepInstancesCreatedByLoadStep = createStepInstances();
+
+
+        //calculate minimum expected jobs
+
+        int minimumStepsExpected = getMinimumStepsExpected();
+        Utilities.verboseLog(110," DEBUG step instances: " + stepInstanceDAO.count());
+
+        //initialise slow steps
+        List<String> slowSteps = new ArrayList<String>();
+        slowSteps.add("stepPantherRunHmmer3");
+        slowSteps.add("stepSMARTRunBinary");
+        //slowSteps.add("stepPrositeProfilesRunBinary");
+        // If there is an embeddedWorkerFactory (i.e. this Master is running in stand-alone mode)
+        // stop running if there are no StepInstances left to complete.
+        Long scheduleGCStart = System.currentTimeMillis();
+        int allowedWaitTimeMultiplier = 0;
+        boolean controlledLogging = false;
+        stepInstanceScheduler.loadNewStepInstances();
+        while (!shutdownCalled) {
+            for (StepInstance failedStepInstance : stepInstanceScheduler.pollFailedPermanently()) {
+                unrecoverableErrorStrategy.failed(failedStepInstance, jobs);
+            }
+            for (StepInstance stepInstance : stepInstanceScheduler.pollReady()) {
+                submit(stepInstance, slowSteps);
+                controlledLogging = false;
+            }
+            final boolean completed = stepInstanceScheduler.isFinished();
+            long totalStepInstances = stepInstanceScheduler.getStepInstanceCount();
+            int totalUnfinishedStepInstances = stepInstanceScheduler.getUnfinishedCount();
+
+            if(!controlledLogging){
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("StandAlone Master has no jobs ready .. more Jobs will be made ready ");
+                    LOGGER.debug("Step instances left to run: " + totalUnfinishedStepInstances);
+                    LOGGER.debug("Total StepInstances: " + totalStepInstances);
+                }
+                controlledLogging = true;
+            }
+
+            //report progress
+            statsUtil.setTotalJobs(totalStepInstances);
+            statsUtil.setUnfinishedJobs(totalUnfinishedStepInstances);
+            statsUtil.displayMasterProgress();
+
+
+            // Close down (break out of loop) if the analyses are all complete.
+            // The final clause checks that the protein load steps have been created so
+            // i5 doesn't finish prematurely.
+            boolean writeOutputStepCompleted = false;
+            writeOutputStepCompleted = Utilities.isWriteOutputStepCompleted();
+
+
+            int submittedStepInstancesCount = statsUtil.getSubmittedStepInstancesCount();
+            if (completed && writeOutputStepCompleted && Utilities.getSequenceCount() == 0) {
+                // The input had no sequences to analyse (e.g. an empty FASTA file or no ORFs), see FastaFileLoadIntoDBStep.
+                Utilities.verboseLog(1100, "No sequences loaded, stepInstances: " + totalStepInstances);
+                break;
+            }
+            if (completed
+                    && totalStepInstances == submittedStepInstancesCount
+                    && submittedStepInstancesCount >= minimumStepsExpected
+                    && totalStepInstances > stepInstancesCreatedByLoadStep
+                    && totalStepInstances >= minimumStepsExpected
+                    && writeOutputStepCompleted) {
+                Utilities.verboseLog(1100, "stepInstances: " + totalStepInstances
+                        + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
+                        + " minimumStepsExpected : " + minimumStepsExpected
+                        + " SubmittedStepInstancesCount : " + submittedStepInstancesCount
+                        +  " unfinishedSteps " + totalUnfinishedStepInstances);
+
+                break;
+            }
+            if(completed && writeOutputStepCompleted) {
+                if(allowedWaitTimeMultiplier % 5 == 0) {
+                    Utilities.verboseLog(1100, "Should be finished: stepInstances: " + totalStepInstances
+                            + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
+                            + " minimumStepsExpected : " + minimumStepsExpected
+                            + " SubmittedStepInstancesCount : " + statsUtil.getSubmittedStepInstancesCount()
+                            + " unfinishedSteps " + totalUnfinishedStepInstances);
+                }
+                if (totalStepInstances > stepInstancesCreatedByLoadStep){
+                    allowedWaitTimeMultiplier ++;
+                }else{
+                    Utilities.verboseLog(1100, "Should be finished: ...but rest");
+                    allowedWaitTimeMultiplier = 0;
+                }
+
+                if (allowedWaitTimeMultiplier > 5){
+                    Utilities.verboseLog(1100, "chances are all the steps have been completed, so wait for five second then break .. allowedWaitTimeMultiplier" + allowedWaitTimeMultiplier);
+                    break;
+                }
+            }
+            // Sleep until a StepExecution completes, rather than polling the database.
+            // Step instances created by workers are picked up from the database after each
+            // completion, and on the timeout in case the commit arrives after the reply.
+            stepInstanceScheduler.awaitChange(SCHEDULER_WAIT_MILLIS);
+            stepInstanceScheduler.loadNewStepInstances();
+            Long scheduleGCTime = System.currentTimeMillis() - scheduleGCStart;
+            if (scheduleGCTime >= 30 * 60 * 1000){
+                scheduleGCStart = System.currentTimeMillis();
+                Utilities.verboseLog(10,
+                        "stepInstances: " + stepInstanceScheduler.getStepInstanceCount()
+                                + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
+                                + " minimumStepsExpected : " + minimumStepsExpected
+                                + " SubmittedStepInstancesCount : " + statsUtil.getSubmittedStepInstancesCount()
+                                +  " totalUnfinishedStepInstances: " + stepInstanceScheduler.getUnfinishedCount());
+                Utilities.printMemoryUsage("StandaloneBlackBoxMaster - loop - !shutdownCalled ");
+            }
+        }
+    }
+
+    /**
+     * Sizes and (re)starts the embedded workers listening to the job request queue.
+     */
+    private void startWorkerQueueJmsContainer() {
         Utilities.verboseLog(110, "Old values - inVmWorkers min: " + workerQueueJmsContainer.getConcurrentConsumers() + " max: " + workerQueueJmsContainer.getMaxConcurrentConsumers());
 
         //if user has specified CPU value
@@ -114,255 +348,89 @@ public class StandaloneBlackBoxMaster extends AbstractBlackBoxMaster {
                 + " schedlued: " + workerQueueJmsContainer.getScheduledConsumerCount()
                 + " active: " + workerQueueJmsContainer.getActiveConsumerCount()  );
 
-        long nowAfterLoadingDatabase = now;
-
         Utilities.cpuCount = workerQueueJmsContainer.getMaxConcurrentConsumers();
+    }
 
-        try {
-            loadInMemoryDatabase();
-            runStatus = 21;
-            nowAfterLoadingDatabase = System.currentTimeMillis();
-
-            int stepInstancesCreatedByLoadStep = createStepInstances();
-
-
-            //calculate minimum expected jobs
-
-            int minimumStepsExpected = getMinimumStepsExpected();
-            runStatus = 31;
-            Utilities.verboseLog(110," DEBUG step instances: " + stepInstanceDAO.count());
-
-            //initialise slow steps
-            List<String> slowSteps = new ArrayList<String>();
-            slowSteps.add("stepPantherRunHmmer3");
-            slowSteps.add("stepSMARTRunBinary");
-            //slowSteps.add("stepPrositeProfilesRunBinary");
-            // If there is an embeddedWorkerFactory (i.e. this Master is running in stand-alone mode)
-            // stop running if there are no StepInstances left to complete.
-            Long scheduleGCStart = System.currentTimeMillis();
-            int allowedWaitTimeMultiplier = 0;
-            boolean controlledLogging = false;
-            while (!shutdownCalled) {
-                boolean completed = true;
-                runStatus = 41;
-                List<StepInstance> unfinshedStepInstances = stepInstanceDAO.retrieveUnfinishedStepInstances();
-                for (StepInstance stepInstance : unfinshedStepInstances) {
-                    runStatus = 51;
-
-                    if (LOGGER.isTraceEnabled()) {
-                        LOGGER.trace("Iterating over StepInstances: Currently on " + stepInstance);
-                    }
-                    if (stepInstance.hasFailedPermanently(jobs)) {
-                        unrecoverableErrorStrategy.failed(stepInstance, jobs);
-                    }
-                    completed &= stepInstance.haveFinished(jobs);
-                    if (stepInstance.canBeSubmitted(jobs) && stepInstanceDAO.serialGroupCanRun(stepInstance, jobs)) {
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("Step submitted:" + stepInstance);
-                        }
-                        final boolean resubmission = stepInstance.getExecutions().size() > 0;
-                        if (resubmission) {
-                            LOGGER.warn("StepInstance " + stepInstance.getId() + " is being re-run following a failure.");
-                        }
-                        final Step step = stepInstance.getStep(jobs);
-                        // Only set up message selectors for high memory requirements if a suitable worker runner has been set up.
-
-                        // Serial groups should be high priority, however exclude WriteFastaFileStep from this
-                        // as they are very abundant.
-                        // RunPsScanStep should have higher priority as it is slow
-                        //isHighPriorityStep(step);
-                        int priority;
-                        if (step instanceof RunPsScanStep) {
-                            priority = HIGHER_PRIORITY;
-                        }else if (step.getSerialGroup() == null || step instanceof WriteFastaFileStep){
-                            priority = LOW_PRIORITY;
-                        }else {
-                            priority = HIGH_PRIORITY;
-                        }
-
-                        //different rules for priority
-                        if(step instanceof WriteFastaFileStep){
-                            priority = HIGHEST_PRIORITY;
-                        }else if (slowSteps.contains(step.getId())){
-                            priority = HIGHER_PRIORITY;
-                        }else if (step instanceof RunBinaryStep){
-                            priority = HIGH_PRIORITY;
-                        }else if (step.getSerialGroup() == null){
-                            priority = LOW_PRIORITY;
-                        }else {
-                            priority = LOW_PRIORITY;
-                        }
-                        //if inteproscan is onthe last step, watermark this point
-                        if (step instanceof WriteOutputStep) {
-                            Utilities.verboseLog(1100, "Processing WriteOutputStep ..." );
-                            StatsUtil.setForceDisplayProgress(true);
-                            statsUtil.displayMasterProgress();
-                            StatsUtil.setForceDisplayProgress(false);
-                        }
-
-                        // Performed in a transaction.
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("About to send a message for StepInstance: " + stepInstance);
-                        }
-                        if (this.isExcludeSites()) {
-                            stepInstance.addParameter(StepInstanceCreatingStep.EXCLUDE_SITES, Boolean.TRUE.toString());
-                        }
-                        messageSender.sendMessage(stepInstance, false, priority, false);
-                        statsUtil.addToSubmittedStepInstances(stepInstance);
-                        controlledLogging = false;
-                        statsUtil.addToAllAvailableJobs(stepInstance, "submitted");
-                    }else{
-                        statsUtil.addToAllAvailableJobs(stepInstance, "considered");
-                    }
-                    Long scheduleGCTime = System.currentTimeMillis() - scheduleGCStart;
-                    if (scheduleGCTime >= 30 * 60 * 1000){
-                        scheduleGCStart = System.currentTimeMillis();
-                        Utilities.verboseLog(10,
-                        "stepInstanceDAO.count() " + stepInstanceDAO.count()
-                                + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
-                                + " minimumStepsExpected : " + minimumStepsExpected
-                                + " SubmittedStepInstancesCount : " + statsUtil.getSubmittedStepInstancesCount()
-                                +  " totalUnfinishedStepInstances: " + stepInstanceDAO.retrieveUnfinishedStepInstances().size());
-                        Utilities.printMemoryUsage("StandaloneBlackBoxMaster - loop - unfinshedStepInstances ");
-                    }
-                }
-                //Utilities.verboseLog(1100, "runStatus:" + runStatus);
-                //check what is not completed
-                long totalStepInstances = stepInstanceDAO.count();
-                int totalUnfinishedStepInstances = stepInstanceDAO.retrieveUnfinishedStepInstances().size();
-
-//                statsUtil.memoryMonitor();
-                if(!controlledLogging){
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("StandAlone Master has no jobs ready .. more Jobs will be made ready ");
-                        LOGGER.debug("Step instances left to run: " + totalUnfinishedStepInstances);
-                        LOGGER.debug("Total StepInstances: " + totalStepInstances);
-                    }
-                    controlledLogging = true;
-                }
-//                Utilities.verboseLog(1100, "Total StepInstances: " + totalStepInstances +
-//                        ", left to run: " + totalUnfinishedStepInstances);
-//                Utilities.verboseLog(1100, "MaxConcurrentConsumers: " + workerQueueJmsContainer.getMaxConcurrentConsumers()
-//                       + " min ConsumerCount: " + workerQueueJmsContainer.getConcurrentConsumers()
-//                        +  " ActiveConsumerCount: " + workerQueueJmsContainer.getActiveConsumerCount()
-//                         +  " ScheduledConsumerCount: " + workerQueueJmsContainer.getScheduledConsumerCount());
-
-                //report progress
-                statsUtil.setTotalJobs(totalStepInstances);
-                statsUtil.setUnfinishedJobs(totalUnfinishedStepInstances);
-//                final boolean statsAvailable = statsUtil.pollStatsBrokerJobQueue();
-                statsUtil.displayMasterProgress();
-
-
-                // Close down (break out of loop) if the analyses are all complete.
-                // The final clause checks that the protein load steps have been created so
-                // i5 doesn't finish prematurely.
-                boolean writeOutputStepCompleted = false;
-                writeOutputStepCompleted = Utilities.isWriteOutputStepCompleted();
-
-
-                int submittedStepInstancesCount = statsUtil.getSubmittedStepInstancesCount();
-                if (completed
-                        && totalStepInstances == submittedStepInstancesCount
-                        && submittedStepInstancesCount >= minimumStepsExpected
-                        && totalUnfinishedStepInstances == 0
-                        && totalStepInstances > stepInstancesCreatedByLoadStep
-                        && totalStepInstances >= minimumStepsExpected
-                        && writeOutputStepCompleted) {
-                    Utilities.verboseLog(1100, "stepInstanceDAO.count() " + totalStepInstances
-                            + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
-                            + " minimumStepsExpected : " + minimumStepsExpected
-                            + " SubmittedStepInstancesCount : " + submittedStepInstancesCount
-                            +  " unfinishedSteps " + totalUnfinishedStepInstances);
-
-                    runStatus = 0;
-                    break;
-                }
-                if(completed
-                        && totalUnfinishedStepInstances == 0
-                        && writeOutputStepCompleted) {
-                    if(allowedWaitTimeMultiplier % 25 == 0) {
-                        Utilities.verboseLog(1100, "Should be finished: stepInstanceDAO.count() " + totalStepInstances
-                                + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
-                                + " minimumStepsExpected : " + minimumStepsExpected
-                                + " SubmittedStepInstancesCount : " + statsUtil.getSubmittedStepInstancesCount()
-                                + " unfinishedSteps " + totalUnfinishedStepInstances);
-                    }
-                    if (totalStepInstances > stepInstancesCreatedByLoadStep){
-                        //Utilities.verboseLog(1100, "chances are all the steps have been completed, so wait for five second then break");
-                        allowedWaitTimeMultiplier ++;
-                    }else{
-                        Utilities.verboseLog(1100, "Should be finished: ...but rest");
-                        allowedWaitTimeMultiplier = 0;
-                    }
-
-                    if (allowedWaitTimeMultiplier > 50){
-                        Utilities.verboseLog(1100, "chances are all the steps have been completed, so wait for five second then break .. allowedWaitTimeMultiplier" + allowedWaitTimeMultiplier);
-                        break;
-                    }
-                }
-//                if(writeOutputStepCompleted){
-//                    Utilities.verboseLog(1100, "2 Should be finished: stepInstanceDAO.count() " + totalStepInstances
-//                            + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
-//                            + " minimumStepsExpected : " + minimumStepsExpected
-//                            + " SubmittedStepInstancesCount : " + submittedStepInstancesCount
-//                            +  " unfinishedSteps " + totalUnfinishedStepInstances);
-//                    Thread.sleep(30* 1000);
-//                }
-                //for standalone es mode this should be < 200
-                Thread.sleep(100);  // Make sure the Master thread is not hogging resources required by in-memory workers.
-                Long scheduleGCTime = System.currentTimeMillis() - scheduleGCStart;
-                if (scheduleGCTime >= 30 * 60 * 1000){
-                    scheduleGCStart = System.currentTimeMillis();
-                    Utilities.verboseLog(10,
-                            "stepInstanceDAO.count() " + stepInstanceDAO.count()
-                                    + " stepInstancesCreatedByLoadStep : " + stepInstancesCreatedByLoadStep
-                                    + " minimumStepsExpected : " + minimumStepsExpected
-                                    + " SubmittedStepInstancesCount : " + statsUtil.getSubmittedStepInstancesCount()
-                                    +  " totalUnfinishedStepInstances: " + stepInstanceDAO.retrieveUnfinishedStepInstances().size());
-                    Utilities.printMemoryUsage("StandaloneBlackBoxMaster - loop - !shutdownCalled ");
-                }
+    /**
+     * Runs the StepExecutions on thread pools in this JVM, rather than sending them through the broker.
+     * Completion is reported straight to the scheduler, as the responseMonitorListener would on a reply.
+     */
+    private void startInProcessStepExecutor() {
+        Utilities.cpuCount = getMaxConcurrentInVmWorkerCount();
+        inProcessStepExecutor.start(getMaxConcurrentInVmWorkerCount(), new InProcessStepExecutor.CompletionListener() {
+            @Override
+            public void stepExecutionCompleted(StepExecution stepExecution) {
+                stepInstanceScheduler.stepExecutionCompleted(stepExecution);
+                statsUtil.updateSubmittedStepInstances(stepExecution.getStepInstance());
+                StatsUtil.incLocalJobsCompleted();
+                statsUtil.updateLastMessageReceivedTime();
             }
-            runStatus = 0;
-        } catch (JMSException e) {
-            LOGGER.error("JMSException thrown by StandaloneBlackBoxMaster: ", e);
-            systemExit(999);
-        } catch (Exception e) {
-            LOGGER.error("Exception thrown by StandaloneBlackBoxMaster: ", e);
-            e.printStackTrace(); //TODO fro debug only remove in production
-            systemExit(999);
-        }
+        });
+    }
 
-        if (runStatus == 0) {
-            System.out.println(Utilities.getTimeNow() + " 100% done:  InterProScan analyses completed \n");
-        }else{
-            LOGGER.error("InterProScan analyses failed, check log details for the errors - " + runStatus);
+    /**
+     * Sends a StepInstance that the scheduler has released to the workers, or to the
+     * in-process executor.
+     *
+     * @param stepInstance to submit
+     * @param slowSteps ids of Steps that should be given a higher priority
+     * @throws JMSException in the event of a failure sending the message to the JMS Broker.
+     */
+    private void submit(StepInstance stepInstance, List<String> slowSteps) throws JMSException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Step submitted:" + stepInstance);
+        }
+        final boolean resubmission = stepInstance.getExecutions().size() > 0;
+        if (resubmission) {
+            LOGGER.warn("StepInstance " + stepInstance.getId() + " is being re-run following a failure.");
+        }
+        final Step step = stepInstance.getStep(jobs);
+
+        // WriteFastaFileStep is the highest priority as it is abundant and feeds the binaries,
+        // slow steps next, so they start as early as possible.
+        int priority;
+        if(step instanceof WriteFastaFileStep){
+            priority = HIGHEST_PRIORITY;
+        }else if (slowSteps.contains(step.getId())){
+            priority = HIGHER_PRIORITY;
+        }else if (step instanceof RunBinaryStep){
+            priority = HIGH_PRIORITY;
+        }else {
+            priority = LOW_PRIORITY;
+        }
+        //if inteproscan is onthe last step, watermark this point
+        if (step instanceof WriteOutputStep) {
+            Utilities.verboseLog(1100, "Processing WriteOutputStep ..." );
+            StatsUtil.setForceDisplayProgress(true);
+            statsUtil.displayMasterProgress();
+            StatsUtil.setForceDisplayProgress(false);
         }
 
-        if(Utilities.verboseLogLevel >= 10){
-            final long executionTime =   System.currentTimeMillis() - now;
-            final long executionTimeExclLoadDatabase =   System.currentTimeMillis() - nowAfterLoadingDatabase;
-            System.out.println("Computation time : (" + TimeUnit.MILLISECONDS.toSeconds(executionTime)+ " s) => " + String.format("%d min, %d sec",
-                    TimeUnit.MILLISECONDS.toMinutes(executionTime),
-                    TimeUnit.MILLISECONDS.toSeconds(executionTime) -
-                            TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(executionTime))
-            ));
-            System.out.println("Computation time exc ldb : (" + TimeUnit.MILLISECONDS.toSeconds(executionTimeExclLoadDatabase)+ " s) => " + String.format("%d min, %d sec",
-                    TimeUnit.MILLISECONDS.toMinutes(executionTimeExclLoadDatabase),
-                    TimeUnit.MILLISECONDS.toSeconds(executionTimeExclLoadDatabase) -
-                            TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(executionTimeExclLoadDatabase))
-            ));
+        // Performed in a transaction.
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("About to send a message for StepInstance: " + stepInstance);
         }
-        systemExit(runStatus);
+        if (this.isExcludeSites()) {
+            stepInstance.addParameter(StepInstanceCreatingStep.EXCLUDE_SITES, Boolean.TRUE.toString());
+        }
+        if (inProcessExecution) {
+            inProcessStepExecutor.submit(stepInstance, priority);
+        } else {
+            messageSender.sendMessage(stepInstance, false, priority, false);
+        }
+        statsUtil.addToSubmittedStepInstances(stepInstance);
+        statsUtil.addToAllAvailableJobs(stepInstance, "submitted");
     }
 
-
     /**
      * Exit InterProScan 5 immediately with the supplied exit code.
      * @param status Exit code to use
      */
     private void systemExit(int status){
         try {
+            if (inProcessExecution) {
+                inProcessStepExecutor.shutdown();
+            }
             databaseCleaner.closeDatabaseCleaner();
             LOGGER.debug("Ending");
             Thread.sleep(500); // cool off, then exit
@@ -389,6 +457,23 @@ public class StandaloneBlackBoxMaster extends AbstractBlackBoxMaster {
         this.statsUtil = statsUtil;
     }
 
+    @Required
+    public void setStepInstanceScheduler(StepInstanceScheduler stepInstanceScheduler) {
+        this.stepInstanceScheduler = stepInstanceScheduler;
+    }
+
+    public void setInProcessStepExecutor(InProcessStepExecutor inProcessStepExecutor) {
+        this.inProcessStepExecutor = inProcessStepExecutor;
+    }
+
+    /**
+     * @param inProcessExecution if true, the steps are run by the inProcessStepExecutor rather than
+     *                           by the embedded workers through the JMS broker.
+     */
+    public void setInProcessExecution(boolean inProcessExecution) {
+        this.inProcessExecution = inProcessExecution;
+    }
+
 
 
 }
@@ -0,0 +1,334 @@
+package uk.ac.ebi.interpro.scan.jms.master;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import uk.ac.ebi.interpro.scan.management.dao.StepInstanceDAO;
+import uk.ac.ebi.interpro.scan.management.model.*;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.util.*;
+
+/**
+ * In-memory view of the StepInstance dependency graph, used by the Master to decide
+ * what to submit next without re-querying the database.
+ * <p/>
+ * Each StepInstance has a count of dependencies that have not yet completed successfully.
+ * When a completion message arrives (see {@link ResponseMonitorImpl}) the counts of its dependants
+ * are decremented, and those reaching zero are put on the ready queue of their SerialGroup
+ * (or the unrestricted queue if they have none).  At most maxSerialGroupExecutions instances of each
+ * SerialGroup are handed out at a time.
+ * <p/>
+ * The database remains the record of StepInstances and StepExecutions (e.g. for restart), but it is
+ * only read to pick up StepInstances created by Workers, and only when the number of rows has changed.
+ */
+public class StepInstanceScheduler {
+
+    private static final Logger LOGGER = LogManager.getLogger(StepInstanceScheduler.class.getName());
+
+    private enum NodeState {
+        WAITING, READY, RUNNING, SUCCESSFUL, FAILED
+    }
+
+    private static final class Node {
+        private final StepInstance stepInstance;
+        private final SerialGroup serialGroup;
+        private final int retries;
+        private final List<Node> dependants = new ArrayList<>();
+        private int pendingDependencies;
+        private int attempts;
+        private NodeState state;
+
+        private Node(StepInstance stepInstance, Step step) {
+            this.stepInstance = stepInstance;
+            this.serialGroup = step.getSerialGroup();
+            this.retries = step.getRetries();
+            this.attempts = stepInstance.getExecutions().size();
+        }
+    }
+
+    private StepInstanceDAO stepInstanceDAO;
+
+    private Jobs jobs;
+
+    private int maxSerialGroupExecutions = 1;
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    private final Deque<Node> readyQueue = new ArrayDeque<>();
+
+    private final Map<SerialGroup, Deque<Node>> serialGroupReadyQueues = new EnumMap<>(SerialGroup.class);
+
+    private final Map<SerialGroup, Integer> serialGroupRunning = new EnumMap<>(SerialGroup.class);
+
+    private final List<StepInstance> failedPermanently = new ArrayList<>();
+
+    private int unfinishedCount = 0;
+
+    private boolean changed = false;
+
+    @Required
+    public void setStepInstanceDAO(StepInstanceDAO stepInstanceDAO) {
+        this.stepInstanceDAO = stepInstanceDAO;
+    }
+
+    @Required
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public void setMaxSerialGroupExecutions(int maxSerialGroupExecutions) {
+        this.maxSerialGroupExecutions = maxSerialGroupExecutions;
+    }
+
+    /**
+     * Adds any StepInstances in the database that are not yet known to the scheduler.
+     * Cheap when nothing has changed: a single count query.
+     *
+     * @return the number of StepInstances added.
+     */
+    public int loadNewStepInstances() {
+        if (stepInstanceDAO.count() == getStepInstanceCount()) {
+            return 0;
+        }
+        final List<Long> ids = stepInstanceDAO.retrieveStepInstanceIds();
+        final List<Long> newIds = new ArrayList<>();
+        synchronized (this) {
+            for (Long id : ids) {
+                if (!nodes.containsKey(id)) {
+                    newIds.add(id);
+                }
+            }
+        }
+        if (newIds.isEmpty()) {
+            return 0;
+        }
+        return register(stepInstanceDAO.retrieveStepInstances(newIds));
+    }
+
+    /**
+     * Adds StepInstances to the graph, initialising their state from their StepExecutions.
+     *
+     * @param stepInstances to add.  Instances already known are ignored.
+     * @return the number of StepInstances added.
+     */
+    public synchronized int register(Collection<StepInstance> stepInstances) {
+        final List<Node> added = new ArrayList<>();
+        for (StepInstance stepInstance : stepInstances) {
+            final Node node = addNode(stepInstance);
+            if (node != null) {
+                added.add(node);
+            }
+        }
+        // Link dependencies once the whole batch is known, as a batch may depend on itself.
+        for (int i = 0; i < added.size(); i++) {
+            final Node node = added.get(i);
+            for (StepInstance dependency : node.stepInstance.stepInstanceDependsUpon()) {
+                Node dependencyNode = nodes.get(dependency.getId());
+                if (dependencyNode == null) {
+                    dependencyNode = addNode(dependency);
+                    added.add(dependencyNode);
+                }
+                if (dependencyNode.state != NodeState.SUCCESSFUL) {
+                    dependencyNode.dependants.add(node);
+                    node.pendingDependencies++;
+                }
+            }
+        }
+        for (Node node : added) {
+            if (node.state == NodeState.WAITING && node.pendingDependencies == 0) {
+                enqueue(node);
+            }
+        }
+        if (!added.isEmpty()) {
+            Utilities.verboseLog(110, "StepInstanceScheduler: registered " + added.size() + " step instances, total: " + nodes.size());
+            changed = true;
+        }
+        return added.size();
+    }
+
+    private Node addNode(StepInstance stepInstance) {
+        if (nodes.containsKey(stepInstance.getId())) {
+            return null;
+        }
+        final Node node = new Node(stepInstance, stepInstance.getStep(jobs));
+        switch (stepInstance.getStepInstanceState()) {
+            case STEP_EXECUTION_SUCCESSFUL:
+                node.state = NodeState.SUCCESSFUL;
+                break;
+            case NEW_STEP_EXECUTION:
+            case STEP_EXECUTION_SUBMITTED:
+            case STEP_EXECUTION_RUNNING:
+                // Only the Master submits, so this was submitted by a run that did not complete.
+                LOGGER.warn("StepInstance " + stepInstance.getId() + " was submitted by a previous run and will be re-run.");
+                stepInstance.setStateUnknown(true);
+                node.state = NodeState.WAITING;
+                break;
+            case STEP_EXECUTION_FAILED:
+                if (node.attempts >= node.retries) {
+                    node.state = NodeState.FAILED;
+                    failedPermanently.add(stepInstance);
+                    break;
+                }
+                // Otherwise fall through - can be retried.
+            default:
+                node.state = NodeState.WAITING;
+        }
+        if (node.state != NodeState.SUCCESSFUL && node.state != NodeState.FAILED) {
+            unfinishedCount++;
+        }
+        nodes.put(stepInstance.getId(), node);
+        return node;
+    }
+
+    private void enqueue(Node node) {
+        node.state = NodeState.READY;
+        if (node.serialGroup == null) {
+            readyQueue.add(node);
+        } else {
+            Deque<Node> queue = serialGroupReadyQueues.get(node.serialGroup);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                serialGroupReadyQueues.put(node.serialGroup, queue);
+            }
+            queue.add(node);
+        }
+    }
+
+    private void incrementRunning(SerialGroup serialGroup, int increment) {
+        if (serialGroup != null) {
+            final Integer running = serialGroupRunning.get(serialGroup);
+            serialGroupRunning.put(serialGroup, (running == null ? 0 : running) + increment);
+        }
+    }
+
+    /**
+     * Removes and returns the StepInstances that may be submitted now, respecting the
+     * SerialGroup limits.  The returned StepInstances are considered running until
+     * {@link #stepExecutionCompleted(StepExecution)} is called for them.
+     *
+     * @return StepInstances to submit, possibly empty.
+     */
+    public synchronized List<StepInstance> pollReady() {
+        final List<StepInstance> toSubmit = new ArrayList<>();
+        for (Node node : readyQueue) {
+            markRunning(node);
+            toSubmit.add(node.stepInstance);
+        }
+        readyQueue.clear();
+        for (Map.Entry<SerialGroup, Deque<Node>> entry : serialGroupReadyQueues.entrySet()) {
+            final Deque<Node> queue = entry.getValue();
+            final Integer running = serialGroupRunning.get(entry.getKey());
+            int capacity = maxSerialGroupExecutions - (running == null ? 0 : running);
+            while (capacity > 0 && !queue.isEmpty()) {
+                final Node node = queue.poll();
+                markRunning(node);
+                toSubmit.add(node.stepInstance);
+                capacity--;
+            }
+        }
+        return toSubmit;
+    }
+
+    private void markRunning(Node node) {
+        node.state = NodeState.RUNNING;
+        node.attempts++;
+        incrementRunning(node.serialGroup, 1);
+    }
+
+    /**
+     * Called when a Worker replies with a successful or failed StepExecution.
+     * Updates the in-memory StepInstance and releases any dependants that are now ready.
+     *
+     * @param freshStepExecution the StepExecution returned by the Worker.
+     */
+    public synchronized void stepExecutionCompleted(StepExecution freshStepExecution) {
+        changed = true;
+        final Node node = nodes.get(freshStepExecution.getStepInstance().getId());
+        if (node == null || node.state != NodeState.RUNNING) {
+            // Not submitted by this scheduler - it will be picked up from the database.
+            notifyAll();
+            return;
+        }
+        for (StepExecution execution : node.stepInstance.getExecutions()) {
+            // The same instance when the StepExecution was run in this JVM.
+            if (execution != freshStepExecution && execution.getId() != null && execution.getId().equals(freshStepExecution.getId())) {
+                execution.refresh(freshStepExecution);
+            }
+        }
+        incrementRunning(node.serialGroup, -1);
+        if (freshStepExecution.getState() == StepExecutionState.STEP_EXECUTION_SUCCESSFUL) {
+            node.state = NodeState.SUCCESSFUL;
+            unfinishedCount--;
+            for (Node dependant : node.dependants) {
+                dependant.pendingDependencies--;
+                if (dependant.pendingDependencies == 0 && dependant.state == NodeState.WAITING) {
+                    enqueue(dependant);
+                }
+            }
+            node.dependants.clear();
+        } else if (node.attempts < node.retries) {
+            LOGGER.warn("StepInstance " + node.stepInstance.getId() + " failed and will be re-run.");
+            enqueue(node);
+        } else {
+            node.state = NodeState.FAILED;
+            unfinishedCount--;
+            failedPermanently.add(node.stepInstance);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a StepExecution completes or the timeout elapses.
+     *
+     * @param timeoutMillis maximum time to wait.
+     * @return true if something changed since the last call.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized boolean awaitChange(long timeoutMillis) throws InterruptedException {
+        if (!changed) {
+            wait(timeoutMillis);
+        }
+        final boolean hasChanged = changed;
+        changed = false;
+        return hasChanged;
+    }
+
+    /**
+     * @return StepInstances that have failed and will not be retried, since the last call.
+     */
+    public synchronized List<StepInstance> pollFailedPermanently() {
+        final List<StepInstance> failed = new ArrayList<>(failedPermanently);
+        failedPermanently.clear();
+        return failed;
+    }
+
+    /**
+     * Forgets all StepInstances, before the next job of a long running master.
+     * Must only be called once none of the StepInstances are running.
+     */
+    public synchronized void reset() {
+        nodes.clear();
+        readyQueue.clear();
+        serialGroupReadyQueues.clear();
+        serialGroupRunning.clear();
+        failedPermanently.clear();
+        unfinishedCount = 0;
+        changed = false;
+    }
+
+    public synchronized int getStepInstanceCount() {
+        return nodes.size();
+    }
+
+    public synchronized int getUnfinishedCount() {
+        return unfinishedCount;
+    }
+
+    /**
+     * @return true if at least one StepInstance is known and none are left to run.
+     */
+    public synchronized boolean isFinished() {
+        return !nodes.isEmpty() && unfinishedCount == 0;
+    }
+}
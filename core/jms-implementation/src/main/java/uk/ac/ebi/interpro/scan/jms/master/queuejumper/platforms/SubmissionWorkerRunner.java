@@ -13,7 +13,10 @@ import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 
 /**
@@ -129,6 +132,14 @@ public class SubmissionWorkerRunner implements WorkerRunner {
         return gridName;
     }
 
+    /**
+     * @return true for the grids whose job counts are monitored by the master (see ClusterState), and to which
+     * several workers are submitted at once as a job array.
+     */
+    private boolean isMonitoredGrid() {
+        return gridName.equals("lsf") || gridName.equals("slurm");
+    }
+
     @Required
     public void setHighMemory(boolean highMemory) {
         this.highMemory = highMemory;
@@ -246,7 +257,7 @@ public class SubmissionWorkerRunner implements WorkerRunner {
 
         Utilities.verboseLog(1100, "startupNewWorker ");
 
-        if(gridName.equals("lsf")){
+        if(isMonitoredGrid()){
 
             if(clusterState != null) { // && timeSinceLastClusterStateUpdate < 2 * 60 * 1000){
                 Long timeSinceLastClusterStateUpdate = System.currentTimeMillis() - clusterState.getLastUpdated();
@@ -298,13 +309,14 @@ public class SubmissionWorkerRunner implements WorkerRunner {
 
             try {
                 int maxWorkerIndex = newWorkersCount;
-                if(gridName.equals("lsf")) {
-                    //for lsf we submit using job arrays
+                if(isMonitoredGrid()) {
+                    //for lsf and slurm we submit using job arrays
                     maxWorkerIndex = 1;
                 }
                 int failedSubmissions = 0;
                 for(int workerIndex = 0;workerIndex < maxWorkerIndex;workerIndex++){
                     final CommandLineConversation clc = new CommandLineConversationImpl();
+                    List<String> slurmCommand = null;
                     if(gridName.equals("lsf")) {
                         commandToSubmit = new StringBuilder(gridCommand)
                                 .append(getClusterCommandArguments(workerIndex)
@@ -321,6 +333,9 @@ public class SubmissionWorkerRunner implements WorkerRunner {
                                         .append(getInterproscanCommandArguments(priority, tcpUri, temporaryDirectory)))
                                 .append("\n")
                                 .append(submissionCommandHeredocClose);
+                    }else if(gridName.equals("slurm")){
+                        slurmCommand = getSlurmCommand(priority, tcpUri, temporaryDirectory);
+                        commandToSubmit = new StringBuilder(slurmCommand.toString());
                     }else{
                         commandToSubmit = new StringBuilder(gridCommand)
                                 .append(getClusterCommandArguments(workerIndex)
@@ -335,7 +350,9 @@ public class SubmissionWorkerRunner implements WorkerRunner {
                         Utilities.verboseLog(1100, "command to submit to cluster:  "
                                 + commandToSubmit);
                     }
-                    int exitStatus = clc.runCommand(false, commandToSubmit.toString().split(" "));
+                    int exitStatus = (slurmCommand != null)
+                            ? clc.runCommand(false, slurmCommand)
+                            : clc.runCommand(false, commandToSubmit.toString().split(" "));
                     Utilities.verboseLog(110, "command  submited to cluster:  exitStatus" + exitStatus);
                     if (exitStatus != 0) {
                         LOGGER.warn("Non-zero exit status from attempting to run a worker: \nCommand:"
@@ -420,6 +437,35 @@ public class SubmissionWorkerRunner implements WorkerRunner {
         return clusterCommandAguments;
     }
 
+    /**
+     * get the sbatch command for slurm.
+     * The worker command is passed to --wrap as a single argument, so it is not split on spaces;
+     * the jobs are named after the project id, which is what the SlurmMonitor counts.
+     *
+     * @param priority
+     * @param tcpUri
+     * @param temporaryDirectory
+     * @return
+     */
+    private List<String> getSlurmCommand(final int priority, final String tcpUri, final String temporaryDirectory){
+        final List<String> command = new ArrayList<>(Arrays.asList(gridCommand.trim().split("\\s+")));
+        if (newWorkersCount > 1) {
+            command.add("--array=1-" + newWorkersCount);
+        }
+        if (projectId != null) {
+            command.add("--job-name=" + projectId);
+        } else if (agent_id != null) {
+            command.add("--job-name=" + agent_id);
+        }
+        if (agent_id != null) {
+            final String jobIndex = (newWorkersCount > 1) ? ".%a" : ".0";
+            command.add("--output=" + logDir + File.separator + agent_id + ".out" + jobIndex);
+            command.add("--error=" + logDir + File.separator + agent_id + ".err" + jobIndex);
+        }
+        command.add("--wrap=" + (i5Command + getInterproscanCommandArguments(priority, tcpUri, temporaryDirectory)).trim());
+        return command;
+    }
+
     /**
      * get the arguments for the interproscan5 command
      * @param priority
@@ -0,0 +1,409 @@
+package uk.ac.ebi.interpro.scan.jms.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLengthIndex;
+import uk.ac.ebi.interpro.scan.jms.activemq.CleanRunDatabase;
+import uk.ac.ebi.interpro.scan.jms.main.Run;
+import uk.ac.ebi.interpro.scan.jms.master.StandaloneBlackBoxMaster;
+import uk.ac.ebi.interpro.scan.management.model.Jobs;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStagingArea;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs InterProScan jobs posted over HTTP in a single long running JVM (SERVER mode), so that the Spring
+ * context, the in-memory database and the member database data cached by the steps are loaded once,
+ * rather than for every run.
+ * <p/>
+ * Requests (plain text, on the loopback interface by default):
+ * <ul>
+ * <li>POST /jobs - the options of the job, one argument per line as on the command line
+ * (e.g. "-i", "/data/proteins.fasta", "-f", "tsv").  Answered once the job has completed, with its
+ * statistics as key=value lines.</li>
+ * <li>GET /stats - the statistics of the server.</li>
+ * <li>POST /shutdown - stops the server once the running job has completed.</li>
+ * </ul>
+ * Jobs run one at a time, each with all the cores given to the server, in its own temporary directory
+ * and KV stores.  The run data is removed from the in-memory database after each job.
+ */
+public class InterProScanServer implements Runnable {
+
+    private static final Logger LOGGER = LogManager.getLogger(InterProScanServer.class.getName());
+
+    private static final String JOB_DIRECTORY_PREFIX = "server-job";
+
+    private StandaloneBlackBoxMaster master;
+
+    private Jobs jobs;
+
+    private CleanRunDatabase databaseCleaner;
+
+    private LevelDBStore kvStoreProteins;
+
+    private LevelDBStore kvStoreProteinsNotInLookup;
+
+    private LevelDBStore kvStoreProteinsOther;
+
+    private LevelDBStore kvStoreMatches;
+
+    private LevelDBStore kvStoreNucleotides;
+
+    private RawMatchStagingArea rawMatchStagingArea;
+
+    private SequenceLengthIndex sequenceLengthIndex;
+
+    private String temporaryFileDirSuffix;
+
+    private String bindAddress = "127.0.0.1";
+
+    private int port;
+
+    private File temporaryDirectoryRoot;
+
+    private final Object jobLock = new Object();
+
+    private final AtomicInteger jobIdSequence = new AtomicInteger();
+
+    private final AtomicInteger waitingJobs = new AtomicInteger();
+
+    private final AtomicInteger completedJobs = new AtomicInteger();
+
+    private final AtomicInteger failedJobs = new AtomicInteger();
+
+    private volatile ServerJob runningJob;
+
+    private volatile boolean shuttingDown = false;
+
+    private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+
+    private final long startTime = System.currentTimeMillis();
+
+    private long startupMillis;
+
+    @Required
+    public void setMaster(StandaloneBlackBoxMaster master) {
+        this.master = master;
+    }
+
+    public StandaloneBlackBoxMaster getMaster() {
+        return master;
+    }
+
+    @Required
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    @Required
+    public void setDatabaseCleaner(CleanRunDatabase databaseCleaner) {
+        this.databaseCleaner = databaseCleaner;
+    }
+
+    @Required
+    public void setKvStoreProteins(LevelDBStore kvStoreProteins) {
+        this.kvStoreProteins = kvStoreProteins;
+    }
+
+    @Required
+    public void setKvStoreProteinsNotInLookup(LevelDBStore kvStoreProteinsNotInLookup) {
+        this.kvStoreProteinsNotInLookup = kvStoreProteinsNotInLookup;
+    }
+
+    @Required
+    public void setKvStoreProteinsOther(LevelDBStore kvStoreProteinsOther) {
+        this.kvStoreProteinsOther = kvStoreProteinsOther;
+    }
+
+    @Required
+    public void setKvStoreMatches(LevelDBStore kvStoreMatches) {
+        this.kvStoreMatches = kvStoreMatches;
+    }
+
+    @Required
+    public void setKvStoreNucleotides(LevelDBStore kvStoreNucleotides) {
+        this.kvStoreNucleotides = kvStoreNucleotides;
+    }
+
+    @Required
+    public void setRawMatchStagingArea(RawMatchStagingArea rawMatchStagingArea) {
+        this.rawMatchStagingArea = rawMatchStagingArea;
+    }
+
+    @Required
+    public void setSequenceLengthIndex(SequenceLengthIndex sequenceLengthIndex) {
+        this.sequenceLengthIndex = sequenceLengthIndex;
+    }
+
+    @Required
+    public void setTemporaryFileDirSuffix(String temporaryFileDirSuffix) {
+        this.temporaryFileDirSuffix = temporaryFileDirSuffix;
+    }
+
+    /**
+     * @param bindAddress the address to listen on, the loopback interface by default, as the jobs
+     *                    read and write files on this host.
+     */
+    public void setBindAddress(String bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    @Required
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void run() {
+        try {
+            master.startServer();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the in-memory database", e);
+        }
+        temporaryDirectoryRoot = getTemporaryDirectoryRoot();
+
+        final ExecutorService requestExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "server-request-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final HttpServer httpServer;
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        } catch (IOException e) {
+            master.stopServer();
+            throw new IllegalStateException("Unable to listen on " + bindAddress + ":" + port, e);
+        }
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/jobs", new JobHandler());
+        httpServer.createContext("/stats", new StatsHandler());
+        httpServer.createContext("/shutdown", new ShutdownHandler());
+        httpServer.start();
+        startupMillis = System.currentTimeMillis() - startTime;
+        System.out.println(Utilities.getTimeNow() + " InterProScan server started in " + startupMillis
+                + " ms, listening on http://" + bindAddress + ":" + port + "/jobs");
+
+        try {
+            shutdownLatch.await();
+            // Let the running job complete.
+            synchronized (jobLock) {
+                httpServer.stop(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            httpServer.stop(0);
+        } finally {
+            requestExecutor.shutdownNow();
+            master.stopServer();
+        }
+        System.out.println(Utilities.getTimeNow() + " InterProScan server stopped after " + completedJobs.get()
+                + " completed and " + failedJobs.get() + " failed jobs");
+    }
+
+    /**
+     * @return the temporary directory configured for the master, without the [UNIQUE] directory
+     * that is added for each job.
+     */
+    private File getTemporaryDirectoryRoot() {
+        String temporaryDirectory = master.getTemporaryDirectory();
+        if (temporaryDirectory == null) {
+            temporaryDirectory = "temp";
+        }
+        if (temporaryDirectory.endsWith(File.separator)) {
+            temporaryDirectory = temporaryDirectory.substring(0, temporaryDirectory.length() - 1);
+        }
+        if (temporaryDirectory.endsWith(temporaryFileDirSuffix)) {
+            temporaryDirectory = temporaryDirectory.substring(0, temporaryDirectory.length() - temporaryFileDirSuffix.length());
+        }
+        return new File(temporaryDirectory).getAbsoluteFile();
+    }
+
+    /**
+     * Runs a job, after those before it, and records its statistics.
+     */
+    void runJob(ServerJob job) {
+        waitingJobs.incrementAndGet();
+        synchronized (jobLock) {
+            waitingJobs.decrementAndGet();
+            if (shuttingDown) {
+                job.setStatus(ServerJob.Status.FAILED);
+                job.setError("The server is shutting down");
+                return;
+            }
+            runningJob = job;
+            job.setStatus(ServerJob.Status.RUNNING);
+            final long start = System.currentTimeMillis();
+            final File jobDirectory = new File(temporaryDirectoryRoot, JOB_DIRECTORY_PREFIX + job.getId());
+            boolean kvStoresConfigured = false;
+            try {
+                job.configure(master);
+                master.setTemporaryDirectory(jobDirectory.getPath() + File.separator);
+                master.setupTemporaryDirectory();
+                final String workingDirectory = master.getWorkingTemporaryDirectoryPath();
+                Run.configureKVStores(kvStoreProteins, kvStoreProteinsNotInLookup, kvStoreProteinsOther,
+                        kvStoreMatches, kvStoreNucleotides, workingDirectory);
+                kvStoresConfigured = true;
+                rawMatchStagingArea.setDirectory(workingDirectory + File.separator + "rawmatches");
+                sequenceLengthIndex.clear();
+
+                final long analysisStart = System.currentTimeMillis();
+                job.setSetupMillis(analysisStart - start);
+                master.runServerJob();
+                job.setAnalysisMillis(System.currentTimeMillis() - analysisStart);
+                job.setStatus(ServerJob.Status.COMPLETED);
+                completedJobs.incrementAndGet();
+            } catch (Exception e) {
+                LOGGER.error("Server job " + job.getId() + " failed", e);
+                job.setStatus(ServerJob.Status.FAILED);
+                job.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+                failedJobs.incrementAndGet();
+            } finally {
+                job.setSequenceCount(Utilities.getSequenceCount());
+                job.setStepInstanceCount(master.getStepInstanceCount());
+                if (kvStoresConfigured) {
+                    Run.closeKVStores(kvStoreProteins, kvStoreProteinsNotInLookup, kvStoreProteinsOther,
+                            kvStoreMatches, kvStoreNucleotides, null);
+                }
+                try {
+                    databaseCleaner.clearRunData();
+                } catch (IllegalStateException e) {
+                    // The next job would see the data of this one.
+                    LOGGER.fatal("Unable to clear the in-memory database after server job " + job.getId() + ", shutting down", e);
+                    shuttingDown = true;
+                    shutdownLatch.countDown();
+                }
+                if (master.isDeleteWorkingDirectoryOnCompletion()) {
+                    FileUtils.deleteQuietly(jobDirectory);
+                }
+                job.setTotalMillis(System.currentTimeMillis() - start);
+                runningJob = null;
+            }
+            System.out.println(Utilities.getTimeNow() + " Server job " + job.getId() + " " + job.getStatus()
+                    + " in " + job.getTotalMillis() + " ms: " + job.getFastaFilePath());
+        }
+    }
+
+    Map<String, String> getStats() {
+        final Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("server.uptime.millis", Long.toString(System.currentTimeMillis() - startTime));
+        stats.put("server.startup.millis", Long.toString(startupMillis));
+        stats.put("jobs.completed", Integer.toString(completedJobs.get()));
+        stats.put("jobs.failed", Integer.toString(failedJobs.get()));
+        stats.put("jobs.waiting", Integer.toString(waitingJobs.get()));
+        final ServerJob job = runningJob;
+        stats.put("jobs.running", (job == null) ? "" : Integer.toString(job.getId()));
+        return stats;
+    }
+
+    private static List<String> readArguments(HttpExchange exchange) throws IOException {
+        final List<String> arguments = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    arguments.add(line.trim());
+                }
+            }
+        }
+        return arguments;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Map<String, String> values) throws IOException {
+        final StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            body.append(value.getKey()).append('=').append(value.getValue().replace('\n', ' ')).append('\n');
+        }
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        final Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", message);
+        respond(exchange, status, error);
+    }
+
+    private class JobHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    respondError(exchange, 405, "Jobs must be POSTed");
+                    return;
+                }
+                if (shuttingDown) {
+                    respondError(exchange, 503, "The server is shutting down");
+                    return;
+                }
+                final ServerJob job;
+                try {
+                    job = new ServerJob(jobIdSequence.incrementAndGet(), readArguments(exchange));
+                    job.resolveAnalyses(jobs);
+                } catch (IllegalArgumentException e) {
+                    respondError(exchange, 400, e.getMessage());
+                    return;
+                }
+                runJob(job);
+                respond(exchange, job.getStatus() == ServerJob.Status.COMPLETED ? 200 : 500, job.getStats());
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private class StatsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                respond(exchange, 200, getStats());
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private class ShutdownHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    respondError(exchange, 405, "Shutdown must be POSTed");
+                    return;
+                }
+                shuttingDown = true;
+                respond(exchange, 200, getStats());
+            } finally {
+                exchange.close();
+                shutdownLatch.countDown();
+            }
+        }
+    }
+}
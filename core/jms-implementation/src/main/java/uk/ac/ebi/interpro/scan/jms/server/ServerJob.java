@@ -0,0 +1,282 @@
+package uk.ac.ebi.interpro.scan.jms.server;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.ParseException;
+import uk.ac.ebi.interpro.scan.io.FileOutputFormat;
+import uk.ac.ebi.interpro.scan.jms.exception.InvalidInputException;
+import uk.ac.ebi.interpro.scan.jms.main.I5Option;
+import uk.ac.ebi.interpro.scan.jms.main.Run;
+import uk.ac.ebi.interpro.scan.jms.master.StandaloneBlackBoxMaster;
+import uk.ac.ebi.interpro.scan.management.model.Jobs;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * A job posted to the {@link InterProScanServer}: the options of a run, as they would be given on the
+ * command line, and the statistics of the run once it has completed.
+ * <p/>
+ * Only the options that describe the input, output and analyses can be given per job.  The others
+ * (cpu, temporary directory, verbose output) are those the server was started with.  As the server may
+ * run in another directory than the client, the file paths must be absolute.  The output is written
+ * next to the input file unless the --output-file-base, --outfile or --output-dir option is given.
+ */
+public class ServerJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final Set<String> JOB_OPTIONS = new HashSet<>(Arrays.asList(
+            I5Option.INPUT.getLongOpt(),
+            I5Option.OUTPUT_FORMATS.getLongOpt(),
+            I5Option.BASE_OUT_FILENAME.getLongOpt(),
+            I5Option.OUTPUT_FILE.getLongOpt(),
+            I5Option.OUTPUT_DIRECTORY.getLongOpt(),
+            I5Option.ANALYSES.getLongOpt(),
+            I5Option.SEQUENCE_TYPE.getLongOpt(),
+            I5Option.DISABLE_PRECALC.getLongOpt(),
+            I5Option.IPRLOOKUP.getLongOpt(),
+            I5Option.GOTERMS.getLongOpt(),
+            I5Option.PATHWAY_LOOKUP.getLongOpt(),
+            I5Option.DISABLE_RESIDUE_ANNOT.getLongOpt(),
+            I5Option.ENABLE_TSV_RESIDUE_ANNOT.getLongOpt(),
+            I5Option.TSV_VERSION_OUTPUT.getLongOpt()
+    ));
+
+    private final int id;
+
+    private final CommandLine commandLine;
+
+    private final String fastaFilePath;
+
+    private final String[] outputFormats;
+
+    private final String sequenceType;
+
+    private String outputBaseFilename;
+
+    private String[] analyses;
+
+    private String explicitOutputFilename;
+
+    private volatile Status status = Status.QUEUED;
+
+    private int sequenceCount;
+
+    private int stepInstanceCount;
+
+    private long setupMillis;
+
+    private long analysisMillis;
+
+    private long totalMillis;
+
+    private String error;
+
+    /**
+     * @param id        of the job, unique for the server.
+     * @param arguments the options of the job, e.g. {"-i", "/data/proteins.fasta", "-f", "tsv"}.
+     * @throws IllegalArgumentException if the options are not valid for a server job.
+     */
+    public ServerJob(int id, List<String> arguments) {
+        this.id = id;
+        try {
+            commandLine = new DefaultParser().parse(Run.getCommandLineOptions(), arguments.toArray(new String[arguments.size()]));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid job options: " + e.getMessage(), e);
+        }
+        for (Option option : commandLine.getOptions()) {
+            if (!JOB_OPTIONS.contains(option.getLongOpt())) {
+                throw new IllegalArgumentException("The option --" + option.getLongOpt() + " can not be set for a server job");
+            }
+        }
+        if (!commandLine.getArgList().isEmpty()) {
+            throw new IllegalArgumentException("Unexpected arguments: " + commandLine.getArgList());
+        }
+
+        fastaFilePath = getAbsolutePath(I5Option.INPUT);
+        if (fastaFilePath == null) {
+            throw new IllegalArgumentException("The input file (--" + I5Option.INPUT.getLongOpt() + ") is required");
+        }
+        if (!new File(fastaFilePath).isFile()) {
+            throw new IllegalArgumentException("The input file " + fastaFilePath + " does not exist");
+        }
+
+        outputFormats = Run.tidyOptionsArray(commandLine.getOptionValues(I5Option.OUTPUT_FORMATS.getLongOpt()));
+        if (outputFormats != null) {
+            for (String outputFormat : outputFormats) {
+                if (!FileOutputFormat.isExtensionValid(outputFormat) || "raw".equalsIgnoreCase(outputFormat)) {
+                    throw new IllegalArgumentException("The output format " + outputFormat + " is not supported");
+                }
+            }
+        }
+
+        sequenceType = commandLine.getOptionValue(I5Option.SEQUENCE_TYPE.getLongOpt(), "p");
+        if (!"p".equals(sequenceType) && !"n".equals(sequenceType)) {
+            throw new IllegalArgumentException("The sequence type " + sequenceType + " was not recognised, expected p or n");
+        }
+
+        setOutputPaths();
+    }
+
+    private void setOutputPaths() {
+        final String baseFilename = getAbsolutePath(I5Option.BASE_OUT_FILENAME);
+        final String outputFilename = getAbsolutePath(I5Option.OUTPUT_FILE);
+        final String outputDirectory = getAbsolutePath(I5Option.OUTPUT_DIRECTORY);
+        int outputOptionCount = 0;
+        for (String outputOption : new String[]{baseFilename, outputFilename, outputDirectory}) {
+            if (outputOption != null) {
+                outputOptionCount++;
+            }
+        }
+        if (outputOptionCount > 1) {
+            throw new IllegalArgumentException("The options --output-file-base (-b), --outfile (-o) and --output-dir (-d) are mutually exclusive.");
+        }
+        if (outputFilename != null) {
+            if (outputFormats == null || outputFormats.length != 1
+                    || "html".equalsIgnoreCase(outputFormats[0]) || "svg".equalsIgnoreCase(outputFormats[0])) {
+                throw new IllegalArgumentException("A single output format excluding HTML and SVG is required with an explicit output file name.");
+            }
+            checkWritableDirectory(new File(outputFilename).getAbsoluteFile().getParentFile());
+            explicitOutputFilename = outputFilename;
+        } else if (outputDirectory != null) {
+            checkWritableDirectory(new File(outputDirectory));
+            outputBaseFilename = new File(outputDirectory, new File(fastaFilePath).getName()).getPath();
+        } else if (baseFilename != null) {
+            checkWritableDirectory(new File(baseFilename).getAbsoluteFile().getParentFile());
+            outputBaseFilename = baseFilename;
+        } else {
+            checkWritableDirectory(new File(fastaFilePath).getAbsoluteFile().getParentFile());
+            outputBaseFilename = fastaFilePath;
+        }
+    }
+
+    private static void checkWritableDirectory(File directory) {
+        if (directory == null || !directory.isDirectory() || !directory.canWrite()) {
+            throw new IllegalArgumentException("The output directory " + directory + " does not exist or is not writable");
+        }
+    }
+
+    private String getAbsolutePath(I5Option option) {
+        final String path = commandLine.getOptionValue(option.getLongOpt());
+        if (path != null && !new File(path).isAbsolute()) {
+            throw new IllegalArgumentException("The path given for --" + option.getLongOpt() + " must be absolute: " + path);
+        }
+        return path;
+    }
+
+    /**
+     * Looks up the analyses requested, all analyses being run if none are.
+     *
+     * @throws IllegalArgumentException if the analyses requested do not exist.
+     */
+    public void resolveAnalyses(Jobs jobs) {
+        if (commandLine.hasOption(I5Option.ANALYSES.getLongOpt())) {
+            try {
+                analyses = Run.getApplications(commandLine, jobs);
+            } catch (InvalidInputException e) {
+                throw new IllegalArgumentException("Invalid analyses: " + e.getMessage().trim(), e);
+            }
+        }
+    }
+
+    /**
+     * Sets the options of this job on the master, clearing the options of the previous job.
+     */
+    public void configure(StandaloneBlackBoxMaster master) {
+        master.clearJobOptions();
+        master.setAnalyses(analyses);
+        master.setFastaFilePath(fastaFilePath);
+        master.setSequenceType(sequenceType);
+        master.setOutputFormats(outputFormats);
+        if (explicitOutputFilename != null) {
+            master.setExplicitOutputFilename(explicitOutputFilename);
+        } else {
+            master.setOutputBaseFilename(outputBaseFilename);
+        }
+        if (commandLine.hasOption(I5Option.DISABLE_PRECALC.getLongOpt())) {
+            master.disablePrecalc();
+        }
+        master.setIncludeTsvSites(commandLine.hasOption(I5Option.ENABLE_TSV_RESIDUE_ANNOT.getLongOpt()));
+        master.setExcludeSites(commandLine.hasOption(I5Option.DISABLE_RESIDUE_ANNOT.getLongOpt()));
+        master.setMapToGOAnnotations(commandLine.hasOption(I5Option.GOTERMS.getLongOpt()));
+        master.setMapToPathway(commandLine.hasOption(I5Option.PATHWAY_LOOKUP.getLongOpt()));
+        // InterPro lookup is always on, as for the command line.
+        master.setMapToInterProEntries(true);
+        master.setInclTSVVersion(commandLine.hasOption(I5Option.TSV_VERSION_OUTPUT.getLongOpt()));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getFastaFilePath() {
+        return fastaFilePath;
+    }
+
+    public String getOutputBaseFilename() {
+        return outputBaseFilename;
+    }
+
+    public String getExplicitOutputFilename() {
+        return explicitOutputFilename;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public void setSequenceCount(int sequenceCount) {
+        this.sequenceCount = sequenceCount;
+    }
+
+    public void setStepInstanceCount(int stepInstanceCount) {
+        this.stepInstanceCount = stepInstanceCount;
+    }
+
+    public void setSetupMillis(long setupMillis) {
+        this.setupMillis = setupMillis;
+    }
+
+    public void setAnalysisMillis(long analysisMillis) {
+        this.analysisMillis = analysisMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return the statistics of the job, in the order they are reported to the client.
+     */
+    public Map<String, String> getStats() {
+        final Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("job.id", Integer.toString(id));
+        stats.put("job.status", status.name());
+        stats.put("job.input", fastaFilePath);
+        stats.put("job.sequences", Integer.toString(sequenceCount));
+        stats.put("job.step.instances", Integer.toString(stepInstanceCount));
+        stats.put("job.setup.millis", Long.toString(setupMillis));
+        stats.put("job.analysis.millis", Long.toString(analysisMillis));
+        stats.put("job.total.millis", Long.toString(totalMillis));
+        if (error != null) {
+            stats.put("job.error", error);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.ebi.interpro.scan.jms.slurm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the output of
+ * <pre>
+ *     squeue --noheader --format=%i|%T ...
+ * </pre>
+ * i.e. one "job id|state" line per job.
+ * <p/>
+ * Pending array tasks may be listed together (e.g. "1234_[5-20%4]"), in which case the tasks in the range are
+ * counted.
+ */
+public class SlurmJobInfoParser {
+
+    private static final Logger LOGGER = LogManager.getLogger(SlurmJobInfoParser.class.getName());
+
+    public List<SlurmJobInformation> parse(String output) {
+        final List<SlurmJobInformation> jobs = new ArrayList<>();
+        if (output == null) {
+            return jobs;
+        }
+        for (String line : output.split("\\n")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            final String[] fields = line.split("\\|");
+            if (fields.length < 2) {
+                LOGGER.warn("Unexpected line in the Slurm job information: " + line);
+                continue;
+            }
+            final String jobId = fields[0].trim();
+            jobs.add(new SlurmJobInformation(jobId, SlurmJobState.getJobState(fields[1]), taskCount(jobId)));
+        }
+        return jobs;
+    }
+
+    /**
+     * @param jobId e.g. "1234", "1234_7" or "1234_[1-3,7,9-20%5]".
+     */
+    static int taskCount(String jobId) {
+        final int open = jobId.indexOf("_[");
+        if (open < 0 || !jobId.endsWith("]")) {
+            return 1;
+        }
+        String ranges = jobId.substring(open + 2, jobId.length() - 1);
+        final int throttle = ranges.indexOf('%');
+        if (throttle >= 0) {
+            ranges = ranges.substring(0, throttle);
+        }
+        int count = 0;
+        try {
+            for (String range : ranges.split(",")) {
+                final int dash = range.indexOf('-');
+                if (dash < 0) {
+                    count++;
+                } else {
+                    // May have a step, e.g. 1-20:2
+                    final String[] endAndStep = range.substring(dash + 1).split(":");
+                    final int first = Integer.parseInt(range.substring(0, dash));
+                    final int last = Integer.parseInt(endAndStep[0]);
+                    final int step = (endAndStep.length > 1) ? Integer.parseInt(endAndStep[1]) : 1;
+                    count += (last - first) / step + 1;
+                }
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Unable to count the array tasks of Slurm job " + jobId);
+            return 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,39 @@
+package uk.ac.ebi.interpro.scan.jms.slurm;
+
+/**
+ * A line of squeue output: a job, or a range of array tasks that are still pending together.
+ */
+public class SlurmJobInformation {
+
+    private final String jobId;
+
+    private final SlurmJobState state;
+
+    private final int taskCount;
+
+    public SlurmJobInformation(String jobId, SlurmJobState state, int taskCount) {
+        this.jobId = jobId;
+        this.state = state;
+        this.taskCount = taskCount;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public SlurmJobState getState() {
+        return state;
+    }
+
+    /**
+     * @return the number of array tasks on this line, 1 for a single job or task.
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    @Override
+    public String toString() {
+        return jobId + " " + state + " (" + taskCount + ")";
+    }
+}
@@ -0,0 +1,66 @@
+package uk.ac.ebi.interpro.scan.jms.slurm;
+
+/**
+ * Slurm job states, as reported (long form) by squeue --format=%T.
+ */
+public enum SlurmJobState {
+    PENDING(true),
+    CONFIGURING(true),
+    RUNNING(true),
+    COMPLETING(true),
+    SUSPENDED(true),
+    REQUEUED(true),
+    REQUEUE_HOLD(true),
+    REQUEUE_FED(true),
+    RESIZING(true),
+    STAGE_OUT(true),
+    SIGNALING(true),
+    STOPPED(true),
+    COMPLETED(false),
+    CANCELLED(false),
+    FAILED(false),
+    TIMEOUT(false),
+    NODE_FAIL(false),
+    OUT_OF_MEMORY(false),
+    BOOT_FAIL(false),
+    DEADLINE(false),
+    PREEMPTED(false),
+    REVOKED(false),
+    SPECIAL_EXIT(false),
+    UNKNOWN(false);
+
+    private final boolean active;
+
+    SlurmJobState(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * @return true if the job is still queued or running, i.e. counts against the grid jobs limit.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isPending() {
+        return this == PENDING || this == REQUEUED || this == REQUEUE_HOLD || this == CONFIGURING;
+    }
+
+    /**
+     * @param state as printed by squeue, e.g. "RUNNING" or "CANCELLED by 1234".
+     * @return the state, UNKNOWN for states that this release does not know about.
+     */
+    public static SlurmJobState getJobState(String state) {
+        String name = state.trim();
+        final int space = name.indexOf(' ');
+        if (space > 0) {
+            name = name.substring(0, space);
+        }
+        name = name.replace('+', ' ').trim();
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.ebi.interpro.scan.jms.slurm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.io.cli.CommandLineConversationImpl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the jobs of a cluster run on Slurm, the counterpart of {@link uk.ac.ebi.interpro.scan.jms.lsf.LSFMonitor}.
+ * <p/>
+ * Workers are submitted with the cluster run id as the job name (sbatch -J), so the jobs of a run are
+ * those listed by squeue --name. Array tasks are counted individually.
+ */
+public class SlurmMonitor {
+
+    private static final Logger LOGGER = LogManager.getLogger(SlurmMonitor.class.getName());
+
+    private String squeueCommand = "squeue";
+
+    private final SlurmJobInfoParser parser = new SlurmJobInfoParser();
+
+    public void setSqueueCommand(String squeueCommand) {
+        this.squeueCommand = squeueCommand;
+    }
+
+    /**
+     * @param jobName the cluster run id
+     * @return number of pending and running worker jobs of the run
+     */
+    public int activeJobs(String jobName) {
+        int count = 0;
+        for (SlurmJobInformation job : queuedJobs(jobName)) {
+            if (job.getState().isActive()) {
+                count += job.getTaskCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param jobName the cluster run id
+     * @return number of pending worker jobs of the run
+     */
+    public int pendingJobs(String jobName) {
+        int count = 0;
+        for (SlurmJobInformation job : queuedJobs(jobName)) {
+            if (job.getState().isPending()) {
+                count += job.getTaskCount();
+            }
+        }
+        return count;
+    }
+
+    private List<SlurmJobInformation> queuedJobs(String jobName) {
+        LOGGER.info("Monitoring jobs with job name " + jobName);
+        final List<String> command = new ArrayList<>();
+        command.add(squeueCommand);
+        command.add("--noheader");
+        command.add("--name=" + jobName);
+        command.add("--format=%i|%T");
+        return parser.parse(run(command));
+    }
+
+    private String run(List<String> command) {
+        LOGGER.debug("Running the following command: " + command);
+        final CommandLineConversationImpl clc = new CommandLineConversationImpl();
+        try {
+            final int exitStatus = clc.runCommand(false, command);
+            if (exitStatus != 0) {
+                throw new IllegalStateException("Slurm command failed with exit code: " + exitStatus
+                        + "\nCommand: " + command + "\nError output:\n" + clc.getErrorMessage());
+            }
+            return clc.getOutput();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to run the Slurm command " + command, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the Slurm command " + command, e);
+        }
+    }
+}
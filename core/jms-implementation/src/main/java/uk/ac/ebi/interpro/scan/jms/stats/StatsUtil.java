@@ -268,6 +268,24 @@ public class StatsUtil {
         StatsUtil.forceDisplayProgress = forceDisplayProgress;
     }
 
+    /**
+     * Clears the counts and job lists of the previous run, when a master runs several jobs.
+     */
+    public synchronized void resetRunStats() {
+        totalJobs = 0L;
+        unfinishedJobs = 0;
+        previousUnfinishedJobs = 0;
+        progressCounter = 0;
+        progressReportTime = Long.MAX_VALUE;
+        remoteJobsCompleted.set(0);
+        localJobsCompleted.set(0);
+        remoteJobsCount.set(0);
+        totalStepInstanceCount.set(0);
+        allAvailableJobs.clear();
+        runningJobs.clear();
+        submittedStepInstances.clear();
+    }
+
     public static void setSequenceType(String sequenceType) {
         StatsUtil.sequenceType = sequenceType;
     }
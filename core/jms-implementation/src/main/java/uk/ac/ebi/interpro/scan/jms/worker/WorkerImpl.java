@@ -1129,7 +1129,7 @@ public class WorkerImpl implements Worker {
                     + " maximumLifeMillis: " + maximumLifeMillis
             );
         }
-        if(!gridName.equals("lsf")){
+        if(!(gridName.equals("lsf") || gridName.equals("slurm"))){
             return false;
         }
         if(clusterState != null){
@@ -0,0 +1,82 @@
+package uk.ac.ebi.interpro.scan.jms.activemq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restores a small backup into the in-memory database, and clears the data of a run from it
+ * while keeping the data of the backup.
+ */
+public class CleanRunDatabaseTest {
+
+    private static final String URL = "jdbc:h2:mem:cleanRunDatabaseTest";
+
+    private static File createBackup(File directory) throws SQLException {
+        final File backup = new File(directory, "template.zip");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:cleanRunDatabaseTemplate", "sa", "");
+             Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE signature (id BIGINT PRIMARY KEY, accession VARCHAR(20))");
+            statement.execute("INSERT INTO signature VALUES (1, 'PF00001'), (2, 'PF00002')");
+            statement.execute("CREATE TABLE protein (id BIGINT PRIMARY KEY, md5 VARCHAR(32))");
+            statement.execute("CREATE TABLE protein_match (id BIGINT PRIMARY KEY, " +
+                    "protein_id BIGINT REFERENCES protein(id), signature_id BIGINT REFERENCES signature(id))");
+            statement.execute("SCRIPT TO '" + backup.getAbsolutePath() + "' COMPRESSION ZIP");
+        }
+        return backup;
+    }
+
+    private static int count(Statement statement, String table) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    public void testClearRunData(@TempDir File tempDir) throws Exception {
+        final CleanRunDatabase databaseCleaner = new CleanRunDatabase();
+        databaseCleaner.setDatabaseBackupFile(createBackup(tempDir).getAbsolutePath());
+        databaseCleaner.setInMemoryDatabaseDriverClass("org.h2.Driver");
+        databaseCleaner.setInMemoryDatabaseURL(URL);
+        databaseCleaner.setInMemoryDatabaseUsername("sa");
+        databaseCleaner.setInMemoryDatabasePassword("");
+        assertThrows(IllegalStateException.class, databaseCleaner::clearRunData);
+
+        final Thread loader = new Thread(databaseCleaner);
+        loader.start();
+        try {
+            final long timeout = System.currentTimeMillis() + 10000;
+            while (databaseCleaner.stillLoading()) {
+                assertTrue(System.currentTimeMillis() < timeout, "Database not loaded");
+                Thread.sleep(20);
+            }
+            try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+                 Statement statement = conn.createStatement()) {
+                for (int run = 0; run < 2; run++) {
+                    statement.execute("INSERT INTO protein VALUES (" + (run + 1) + ", 'md5')");
+                    statement.execute("INSERT INTO protein_match VALUES (" + (run + 1) + ", " + (run + 1) + ", 2)");
+                    assertEquals(1, count(statement, "protein_match"));
+
+                    databaseCleaner.clearRunData();
+                    assertEquals(0, count(statement, "protein"));
+                    assertEquals(0, count(statement, "protein_match"));
+                    assertEquals(2, count(statement, "signature"));
+                }
+                // The constraints are back on.
+                assertThrows(SQLException.class, () -> statement.execute("INSERT INTO protein_match VALUES (9, 9, 1)"));
+            }
+        } finally {
+            databaseCleaner.closeDatabaseCleaner();
+            loader.join(10000);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package uk.ac.ebi.interpro.scan.jms.converter;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.*;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for MatchesXmlStreamReader, reading files marshalled from the model on one thread and on several.
+ */
+public class MatchesXmlStreamReaderTest {
+
+    private static final String VERSION = "5.47-82.0";
+
+    private static JAXBContext jaxbContext;
+
+    @BeforeAll
+    public static void createContext() throws Exception {
+        jaxbContext = JAXBContext.newInstance(Entry.class, Protein.class, Signature.class, SignatureLibraryRelease.class,
+                ProteinMatchesHolder.class, NucleicAcidMatchesHolder.class);
+    }
+
+    private static Protein protein(int index) {
+        final String accession = String.format("PF%05d", index % 50);
+        final Signature signature = new Signature.Builder(accession)
+                .name("Test family " + index % 50)
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1"))
+                .build();
+        final Set<Hmmer3Match.Hmmer3Location> locations = new HashSet<>();
+        locations.add(new Hmmer3Match.Hmmer3Location(2, 12, 25.1, 1e-8,
+                1, 10, 20, HmmBounds.COMPLETE, 2, 12, false, DCStatus.CONTINUOUS));
+        final Set<Match> matches = new HashSet<>();
+        matches.add(new Hmmer3Match(signature, accession, 30.2, 1e-9, locations));
+        // Distinct sequences, so the proteins are not equal.
+        final StringBuilder sequence = new StringBuilder("MKVLAAGIVALLLAAGCSS");
+        for (int i = index; i > 0; i /= 20) {
+            sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(i % 20));
+        }
+        return new Protein(sequence.toString(), matches, Collections.singleton(new ProteinXref("P" + index)));
+    }
+
+    private static Path marshal(Path path, Object holder) throws Exception {
+        final Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        marshaller.marshal(holder, path.toFile());
+        return path;
+    }
+
+    private static class RecordingHandler implements MatchesXmlStreamReader.Handler {
+
+        private char sequenceType;
+
+        private final List<Protein> proteins = new ArrayList<>();
+
+        private final List<NucleotideSequence> nucleotideSequences = new ArrayList<>();
+
+        @Override
+        public void start(char sequenceType) {
+            this.sequenceType = sequenceType;
+        }
+
+        @Override
+        public void protein(Protein protein) {
+            proteins.add(protein);
+        }
+
+        @Override
+        public void nucleotideSequence(NucleotideSequence nucleotideSequence) {
+            nucleotideSequences.add(nucleotideSequence);
+        }
+    }
+
+    private static RecordingHandler read(Path path, int threads) throws IOException {
+        final RecordingHandler handler = new RecordingHandler();
+        final int count = new MatchesXmlStreamReader(jaxbContext, threads).read(path, handler);
+        assertEquals(handler.proteins.size() + handler.nucleotideSequences.size(), count);
+        return handler;
+    }
+
+    private static List<String> describe(Collection<Protein> proteins) {
+        final List<String> descriptions = new ArrayList<>();
+        for (Protein protein : proteins) {
+            final StringBuilder description = new StringBuilder(protein.getMd5());
+            for (ProteinXref xref : protein.getCrossReferences()) {
+                description.append(' ').append(xref.getIdentifier());
+            }
+            for (Match match : protein.getMatches()) {
+                description.append(' ').append(match.getSignature().getAccession())
+                        .append(' ').append(match.getSignature().getSignatureLibraryRelease().getLibrary())
+                        .append(' ').append(match.getLocations().size());
+            }
+            descriptions.add(description.toString());
+        }
+        return descriptions;
+    }
+
+    @Test
+    public void testProteinMatches(@TempDir Path tempDir) throws Exception {
+        final ProteinMatchesHolder holder = new ProteinMatchesHolder(VERSION);
+        for (int i = 0; i < 300; i++) {
+            holder.addProtein(protein(i));
+        }
+        final Path xml = marshal(tempDir.resolve("proteins.xml"), holder);
+
+        final RecordingHandler serial = read(xml, 1);
+        assertEquals('p', serial.sequenceType);
+        assertEquals(300, serial.proteins.size());
+        assertEquals(describe(holder.getProteins()), describe(serial.proteins), "Proteins should be read in file order");
+        assertEquals(1, serial.proteins.get(0).getMatches().size());
+
+        final RecordingHandler parallel = read(xml, 4);
+        assertEquals(describe(serial.proteins), describe(parallel.proteins));
+    }
+
+    @Test
+    public void testNucleicAcidMatches(@TempDir Path tempDir) throws Exception {
+        final NucleicAcidMatchesHolder holder = new NucleicAcidMatchesHolder(VERSION);
+        for (int n = 0; n < 20; n++) {
+            final StringBuilder sequence = new StringBuilder("ATGAAAGTACTAGCAGCAGGAATCGTAGCACTATTACTA");
+            for (int i = n; i > 0; i /= 4) {
+                sequence.append("ACGT".charAt(i % 4));
+            }
+            final NucleotideSequence nucleotideSequence = new NucleotideSequence(sequence.toString());
+            nucleotideSequence.addCrossReference(new NucleotideSequenceXref("seq" + n));
+            final List<Protein> proteins = new ArrayList<>();
+            for (int o = 0; o < 2; o++) {
+                final OpenReadingFrame orf = new OpenReadingFrame(1 + o, 30 + o, NucleotideSequenceStrand.SENSE);
+                final Protein protein = protein(n * 2 + o);
+                protein.addOpenReadingFrame(orf);
+                nucleotideSequence.addOpenReadingFrame(orf);
+                proteins.add(protein);
+            }
+            holder.addProteins(proteins);
+        }
+        final Path xml = marshal(tempDir.resolve("nucleotides.xml"), holder);
+        assertTrue(new String(Files.readAllBytes(xml), StandardCharsets.UTF_8).contains("<nucleotide-sequence-matches"));
+
+        for (int threads : new int[]{1, 3}) {
+            final RecordingHandler handler = read(xml, threads);
+            assertEquals('n', handler.sequenceType);
+            assertEquals(20, handler.nucleotideSequences.size());
+            final List<Protein> orfProteins = new ArrayList<>();
+            for (NucleotideSequence nucleotideSequence : handler.nucleotideSequences) {
+                assertEquals(2, nucleotideSequence.getOpenReadingFrames().size());
+                for (OpenReadingFrame orf : nucleotideSequence.getOpenReadingFrames()) {
+                    assertNotNull(orf.getProtein());
+                    assertEquals(1, orf.getProtein().getMatches().size());
+                    orfProteins.add(orf.getProtein());
+                }
+            }
+            assertEquals(40, new HashSet<>(orfProteins).size());
+        }
+    }
+
+    @Test
+    public void testNotInterProScanXml(@TempDir Path tempDir) throws Exception {
+        final Path xml = Files.write(tempDir.resolve("other.xml"), "<other><protein/></other>".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> read(xml, 1));
+    }
+}
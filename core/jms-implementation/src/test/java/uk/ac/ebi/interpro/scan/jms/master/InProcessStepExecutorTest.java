@@ -0,0 +1,202 @@
+package uk.ac.ebi.interpro.scan.jms.master;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.jms.activemq.StepExecutionTransaction;
+import uk.ac.ebi.interpro.scan.management.dao.StepExecutionDAO;
+import uk.ac.ebi.interpro.scan.management.model.*;
+import uk.ac.ebi.interpro.scan.management.model.implementations.RunBinaryStep;
+
+import javax.jms.Message;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the priority ordering, separate binary limit, shared limit on running steps and failure reporting
+ * of {@link InProcessStepExecutor}, with the transaction and database replaced by stubs.
+ */
+public class InProcessStepExecutorTest {
+
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    private final BlockingQueue<StepExecution> completed = new LinkedBlockingQueue<>();
+
+    private final CountDownLatch blockerReleased = new CountDownLatch(1);
+
+    private InProcessStepExecutor executor;
+
+    @BeforeEach
+    public void init() {
+        executor = new InProcessStepExecutor();
+        executor.setJobs(new Jobs());
+        executor.setStepExecutionDAO((StepExecutionDAO) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{StepExecutionDAO.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;
+                    }
+                }));
+        executor.setStepExecutor(new StepExecutionTransaction() {
+            @Override
+            public void executeInTransaction(StepExecution stepExecution, Message message) {
+                fail("No reply message should be involved");
+            }
+
+            @Override
+            public void executeInTransaction(StepExecution stepExecution) {
+                stepExecution.setToRun();
+                final String stepId = stepExecution.getStepInstance().getStepId();
+                if (stepId.equals("stepBlocker")) {
+                    try {
+                        assertTrue(blockerReleased.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                } else if (stepId.equals("stepFailing")) {
+                    throw new IllegalStateException("Step failed");
+                }
+                executed.add(stepId);
+                stepExecution.completeSuccessfully();
+            }
+        });
+    }
+
+    private void start(int threadCount) {
+        executor.start(threadCount, new InProcessStepExecutor.CompletionListener() {
+            @Override
+            public void stepExecutionCompleted(StepExecution stepExecution) {
+                completed.add(stepExecution);
+            }
+        });
+    }
+
+    @AfterEach
+    public void shutdown() {
+        blockerReleased.countDown();
+        executor.shutdown();
+    }
+
+    private static StepInstance stepInstance(String id) {
+        final Step step = new Step() {
+            @Override
+            public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
+            }
+        };
+        step.setBeanName(id);
+        return new StepInstance(step);
+    }
+
+    private static StepInstance binaryStepInstance(String id) {
+        final Step step = new RunBinaryStep() {
+            @Override
+            protected List<String> createCommand(StepInstance stepInstance, String temporaryFileDirectory) {
+                return Collections.emptyList();
+            }
+        };
+        step.setBeanName(id);
+        return new StepInstance(step);
+    }
+
+    private StepExecution nextCompleted() throws InterruptedException {
+        final StepExecution stepExecution = completed.poll(10, TimeUnit.SECONDS);
+        assertNotNull(stepExecution, "Timed out waiting for a StepExecution to complete");
+        return stepExecution;
+    }
+
+    @Test
+    public void testPriorityOrderAndBinaryPool() throws Exception {
+        executor.setStepThreadCount(1);
+        start(2);
+        executor.submit(stepInstance("stepBlocker"), 4);
+        executor.submit(stepInstance("stepLow"), 4);
+        executor.submit(stepInstance("stepHigh"), 6);
+        executor.submit(stepInstance("stepHighest"), 9);
+        executor.submit(stepInstance("stepHighestSecond"), 9);
+
+        // Runs, although the only step allowed to run (other than binaries) is busy.
+        executor.submit(binaryStepInstance("stepBinary"), 6);
+        assertEquals("stepBinary", nextCompleted().getStepInstance().getStepId());
+
+        blockerReleased.countDown();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(StepExecutionState.STEP_EXECUTION_SUCCESSFUL, nextCompleted().getState());
+        }
+        assertEquals(Arrays.asList("stepBinary", "stepBlocker", "stepHighest", "stepHighestSecond", "stepHigh", "stepLow"), executed);
+    }
+
+    @Test
+    public void testRunningStepsLimitedAcrossPools() throws Exception {
+        start(1);
+        executor.submit(stepInstance("stepBlocker"), 4);
+        // The binary pool has a free thread, but the one step allowed to run is the blocker.
+        executor.submit(binaryStepInstance("stepBinary"), 6);
+        assertNull(completed.poll(500, TimeUnit.MILLISECONDS));
+
+        blockerReleased.countDown();
+        assertEquals("stepBlocker", nextCompleted().getStepInstance().getStepId());
+        assertEquals("stepBinary", nextCompleted().getStepInstance().getStepId());
+    }
+
+    @Test
+    public void testPriorityAcrossStepTypes() throws Exception {
+        start(1);
+        executor.submit(stepInstance("stepBlocker"), 4);
+        executor.submit(binaryStepInstance("stepBinaryLow"), 4);
+        executor.submit(stepInstance("stepHigh"), 9);
+        executor.submit(binaryStepInstance("stepBinaryHigh"), 6);
+        assertEquals(4, executor.getActiveCount());
+
+        // Nothing is taken from the queues while the blocker holds the only place.
+        blockerReleased.countDown();
+        for (int i = 0; i < 4; i++) {
+            nextCompleted();
+        }
+        assertEquals(Arrays.asList("stepBlocker", "stepHigh", "stepBinaryHigh", "stepBinaryLow"), executed);
+    }
+
+    @Test
+    public void testCancelQueued() throws Exception {
+        start(1);
+        executor.submit(stepInstance("stepBlocker"), 4);
+        executor.submit(stepInstance("stepCancelled"), 9);
+        final ExecutorService canceller = Executors.newSingleThreadExecutor();
+        final Future<?> cancelled = canceller.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                executor.cancelQueuedAndAwaitIdle();
+                return null;
+            }
+        });
+        // Only the running blocker is left, and is waited for.
+        for (int i = 0; i < 100 && executor.getActiveCount() > 1; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, executor.getActiveCount());
+        assertFalse(cancelled.isDone());
+        blockerReleased.countDown();
+        cancelled.get(10, TimeUnit.SECONDS);
+        canceller.shutdown();
+        assertEquals(0, executor.getActiveCount());
+        assertEquals(Collections.singletonList("stepBlocker"), executed);
+    }
+
+    @Test
+    public void testFailureReported() throws Exception {
+        start(1);
+        final StepInstance failing = stepInstance("stepFailing");
+        executor.submit(failing, 4);
+        final StepExecution stepExecution = nextCompleted();
+        assertSame(failing, stepExecution.getStepInstance());
+        assertEquals(StepExecutionState.STEP_EXECUTION_FAILED, stepExecution.getState());
+        assertEquals(StepExecutionState.STEP_EXECUTION_FAILED, failing.getStepInstanceState());
+
+        executor.submit(stepInstance("stepAfterFailure"), 4);
+        assertEquals(StepExecutionState.STEP_EXECUTION_SUCCESSFUL, nextCompleted().getState());
+    }
+}
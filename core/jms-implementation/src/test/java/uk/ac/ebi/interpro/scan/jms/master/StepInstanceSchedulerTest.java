@@ -0,0 +1,133 @@
+package uk.ac.ebi.interpro.scan.jms.master;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.management.model.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the in-memory dependency counting and SerialGroup limits of {@link StepInstanceScheduler},
+ * without a database or message broker.
+ */
+public class StepInstanceSchedulerTest {
+
+    private StepInstanceScheduler scheduler;
+
+    private long nextExecutionId = 1;
+
+    @BeforeEach
+    public void init() {
+        scheduler = new StepInstanceScheduler();
+        scheduler.setJobs(new Jobs());
+    }
+
+    private static Step step(String id, SerialGroup serialGroup, int retries) {
+        final Step step = new Step() {
+            @Override
+            public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
+            }
+        };
+        step.setBeanName(id);
+        step.setSerialGroup(serialGroup);
+        step.setRetries(retries);
+        return step;
+    }
+
+    private static StepInstance stepInstance(long id, Step step, StepInstance... dependencies) throws Exception {
+        final StepInstance stepInstance = new StepInstance(step);
+        setField(StepInstance.class, stepInstance, "id", id);
+        for (StepInstance dependency : dependencies) {
+            stepInstance.addDependentStepInstance(dependency);
+        }
+        return stepInstance;
+    }
+
+    private static void setField(Class<?> type, Object target, String name, Object value) throws Exception {
+        final Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Does what the Master and a Worker would do for a submitted StepInstance, returning
+     * the StepExecution sent back by the Worker.
+     */
+    private StepExecution run(StepInstance stepInstance, boolean successful) throws Exception {
+        final StepExecution execution = stepInstance.createStepExecution();
+        setField(StepExecution.class, execution, "id", nextExecutionId++);
+        final StepExecution fresh = SerializationUtils.clone(execution);
+        fresh.setToRun();
+        if (successful) {
+            fresh.completeSuccessfully();
+        } else {
+            fresh.fail(null);
+        }
+        return fresh;
+    }
+
+    @Test
+    public void testDependantsReleasedOnCompletion() throws Exception {
+        final Step load = step("stepLoad", null, 1);
+        final Step analysis = step("stepAnalysis", null, 1);
+        final StepInstance loadInstance = stepInstance(1, load);
+        final StepInstance first = stepInstance(2, analysis, loadInstance);
+        final StepInstance second = stepInstance(3, analysis, loadInstance);
+
+        // Dependants registered before their dependency, as may happen within a batch.
+        assertEquals(3, scheduler.register(Arrays.asList(first, second, loadInstance)));
+        assertEquals(3, scheduler.getUnfinishedCount());
+        assertEquals(Collections.singletonList(loadInstance), scheduler.pollReady());
+        assertTrue(scheduler.pollReady().isEmpty());
+
+        scheduler.stepExecutionCompleted(run(loadInstance, true));
+        assertTrue(scheduler.awaitChange(0));
+        final List<StepInstance> ready = scheduler.pollReady();
+        assertEquals(2, ready.size());
+        assertTrue(ready.containsAll(Arrays.asList(first, second)));
+        assertEquals(StepExecutionState.STEP_EXECUTION_SUCCESSFUL, loadInstance.getStepInstanceState());
+
+        scheduler.stepExecutionCompleted(run(first, true));
+        scheduler.stepExecutionCompleted(run(second, true));
+        assertTrue(scheduler.isFinished());
+    }
+
+    @Test
+    public void testSerialGroupLimit() throws Exception {
+        final Step parse = step("stepParse", SerialGroup.PARSE_PFAM_A, 1);
+        final StepInstance first = stepInstance(1, parse);
+        final StepInstance second = stepInstance(2, parse);
+        scheduler.register(Arrays.asList(first, second));
+
+        final List<StepInstance> ready = scheduler.pollReady();
+        assertEquals(1, ready.size(), "Only one instance of a SerialGroup should run at a time");
+        assertTrue(scheduler.pollReady().isEmpty());
+
+        scheduler.stepExecutionCompleted(run(ready.get(0), true));
+        assertEquals(1, scheduler.pollReady().size());
+        assertEquals(1, scheduler.getUnfinishedCount());
+    }
+
+    @Test
+    public void testRetryThenPermanentFailure() throws Exception {
+        final Step binary = step("stepBinary", null, 2);
+        final StepInstance stepInstance = stepInstance(1, binary);
+        scheduler.register(Collections.singletonList(stepInstance));
+
+        assertEquals(1, scheduler.pollReady().size());
+        scheduler.stepExecutionCompleted(run(stepInstance, false));
+        assertEquals(Collections.singletonList(stepInstance), scheduler.pollReady(), "Failed instance should be retried");
+        assertTrue(scheduler.pollFailedPermanently().isEmpty());
+
+        scheduler.stepExecutionCompleted(run(stepInstance, false));
+        assertTrue(scheduler.pollReady().isEmpty());
+        assertEquals(Collections.singletonList(stepInstance), scheduler.pollFailedPermanently());
+        assertTrue(scheduler.isFinished());
+    }
+}
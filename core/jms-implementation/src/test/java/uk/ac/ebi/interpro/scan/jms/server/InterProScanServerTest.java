@@ -0,0 +1,211 @@
+package uk.ac.ebi.interpro.scan.jms.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLengthIndex;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoader;
+import uk.ac.ebi.interpro.scan.business.sequence.fasta.LoadFastaFileIntoDBImpl;
+import uk.ac.ebi.interpro.scan.jms.activemq.CleanRunDatabase;
+import uk.ac.ebi.interpro.scan.jms.master.StandaloneBlackBoxMaster;
+import uk.ac.ebi.interpro.scan.management.model.Job;
+import uk.ac.ebi.interpro.scan.management.model.Jobs;
+import uk.ac.ebi.interpro.scan.management.model.StepInstance;
+import uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCreation.proteinLoad.FastaFileLoadIntoDBStep;
+import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStagingArea;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Jobs with input that can not be analysed must complete or fail, leaving the server running.
+ * The master is replaced by one that only runs the FASTA load step of the job.
+ */
+public class InterProScanServerTest {
+
+    private File tempDir;
+
+    private int port;
+
+    private Thread serverThread;
+
+    @BeforeEach
+    public void startServer(@TempDir File tempDir) throws Exception {
+        this.tempDir = tempDir;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        final FastaFileLoadIntoDBStep loadStep = new FastaFileLoadIntoDBStep();
+        loadStep.setBeanName("stepLoadFromFasta");
+        loadStep.setJobs(new Jobs(new ArrayList<Job>()));
+        loadStep.setFastaFileLoader(createLoader());
+
+        final StandaloneBlackBoxMaster master = new StandaloneBlackBoxMaster(null) {
+            @Override
+            public void startServer() {
+            }
+
+            @Override
+            public void runServerJob() {
+                Utilities.setWriteOutputStepCompleted(false);
+                Utilities.setSequenceCount(0);
+                final StepInstance stepInstance = new StepInstance(loadStep);
+                stepInstance.addParameter(FastaFileLoadIntoDBStep.FASTA_FILE_PATH_KEY, fastaFilePath);
+                loadStep.execute(stepInstance, getTemporaryDirectory());
+            }
+
+            @Override
+            public int getStepInstanceCount() {
+                return 1;
+            }
+
+            @Override
+            public void stopServer() {
+            }
+
+            @Override
+            public void setupTemporaryDirectory() {
+            }
+
+            @Override
+            public String getWorkingTemporaryDirectoryPath() {
+                return getTemporaryDirectory();
+            }
+        };
+        master.setTemporaryDirectory(new File(tempDir, "temp").getPath());
+
+        final InterProScanServer server = new InterProScanServer();
+        server.setMaster(master);
+        server.setJobs(new Jobs(new ArrayList<Job>()));
+        server.setDatabaseCleaner(new CleanRunDatabase() {
+            @Override
+            public void clearRunData() {
+            }
+        });
+        server.setKvStoreProteins(new UnopenedStore());
+        server.setKvStoreProteinsNotInLookup(new UnopenedStore());
+        server.setKvStoreProteinsOther(new UnopenedStore());
+        server.setKvStoreMatches(new UnopenedStore());
+        server.setKvStoreNucleotides(new UnopenedStore());
+        server.setRawMatchStagingArea(new RawMatchStagingArea());
+        server.setSequenceLengthIndex(new SequenceLengthIndex());
+        server.setTemporaryFileDirSuffix("[UNIQUE]");
+        server.setPort(port);
+
+        serverThread = new Thread(server, "server-test");
+        serverThread.start();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                request("GET", "/stats", "");
+                break;
+            } catch (IOException e) {
+                if (attempt == 100) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception {
+        request("POST", "/shutdown", "");
+        serverThread.join(10000);
+        assertFalse(serverThread.isAlive());
+    }
+
+    @Test
+    public void testEmptyAndHeaderlessFasta() throws Exception {
+        final File empty = new File(tempDir, "empty.fasta");
+        assertTrue(empty.createNewFile());
+        Map<String, String> stats = postJob(empty);
+        assertEquals("COMPLETED", stats.get("job.status"));
+        assertEquals("0", stats.get("job.sequences"));
+        // No output step follows, so the master must not wait for one.
+        assertTrue(Utilities.isWriteOutputStepCompleted());
+
+        final File headerless = new File(tempDir, "headerless.fasta");
+        Files.write(headerless.toPath(), "MKVLAAGIVALLLAAGCSS\n".getBytes(StandardCharsets.UTF_8));
+        stats = postJob(headerless);
+        assertEquals("FAILED", stats.get("job.status"));
+        assertTrue(stats.get("job.error").contains("FASTA header"), stats.get("job.error"));
+
+        stats = parse(request("GET", "/stats", ""));
+        assertEquals("1", stats.get("jobs.completed"));
+        assertEquals("1", stats.get("jobs.failed"));
+    }
+
+    private Map<String, String> postJob(File input) throws IOException {
+        return parse(request("POST", "/jobs", "-i\n" + input.getAbsolutePath() + "\n-f\ntsv\n"));
+    }
+
+    private String request(String method, String path, String body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if ("POST".equals(method)) {
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            final InputStream in = (connection.getResponseCode() < 400) ? connection.getInputStream() : connection.getErrorStream();
+            final StringBuilder response = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    response.append(line).append('\n');
+                }
+            }
+            return response.toString();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Map<String, String> parse(String response) {
+        final Map<String, String> values = new HashMap<>();
+        for (String line : response.split("\n")) {
+            final int separator = line.indexOf('=');
+            if (separator > 0) {
+                values.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The loader stops at the parsing of these inputs, before any sequence is stored.
+     */
+    private static LoadFastaFileIntoDBImpl<Object> createLoader() {
+        final LoadFastaFileIntoDBImpl<Object> loader = new LoadFastaFileIntoDBImpl<>();
+        loader.setSequenceLoader((SequenceLoader) Proxy.newProxyInstance(SequenceLoader.class.getClassLoader(),
+                new Class[]{SequenceLoader.class}, (proxy, method, args) -> null));
+        loader.setProteinDAO((ProteinDAO) Proxy.newProxyInstance(ProteinDAO.class.getClassLoader(),
+                new Class[]{ProteinDAO.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+        return loader;
+    }
+
+    private static class UnopenedStore extends LevelDBStore {
+        @Override
+        public void setLevelDBStore(String levelDBStorePath) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.ebi.interpro.scan.jms.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parsing and validation of the options of a job posted to the server.
+ */
+public class ServerJobTest {
+
+    private File input;
+
+    private File outputDirectory;
+
+    @BeforeEach
+    public void init(@TempDir File tempDir) throws IOException {
+        input = new File(tempDir, "proteins.fasta");
+        Files.write(input.toPath(), ">p1\nMKVLAAGIVALLLAAGCSS\n".getBytes(StandardCharsets.UTF_8));
+        outputDirectory = new File(tempDir, "out");
+        assertTrue(outputDirectory.mkdir());
+    }
+
+    @Test
+    public void testOutputPaths() {
+        ServerJob job = new ServerJob(1, Arrays.asList("-i", input.getAbsolutePath(), "-f", "tsv,xml"));
+        assertEquals(input.getAbsolutePath(), job.getOutputBaseFilename());
+        assertNull(job.getExplicitOutputFilename());
+        assertEquals(ServerJob.Status.QUEUED, job.getStatus());
+
+        job = new ServerJob(2, Arrays.asList("--input", input.getAbsolutePath(), "-d", outputDirectory.getAbsolutePath(), "-dp"));
+        assertEquals(new File(outputDirectory, "proteins.fasta").getPath(), job.getOutputBaseFilename());
+
+        final String outfile = new File(outputDirectory, "result.tsv").getAbsolutePath();
+        job = new ServerJob(3, Arrays.asList("-i", input.getAbsolutePath(), "-f", "TSV", "-o", outfile));
+        assertEquals(outfile, job.getExplicitOutputFilename());
+        assertNull(job.getOutputBaseFilename());
+
+        assertEquals("3", job.getStats().get("job.id"));
+        assertFalse(job.getStats().containsKey("job.error"));
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        final String in = input.getAbsolutePath();
+        final String out = outputDirectory.getAbsolutePath();
+        // Input required, must exist and be given as an absolute path.
+        assertInvalid();
+        assertInvalid("-i", in + ".missing");
+        assertInvalid("-i", "proteins.fasta");
+        // Options of the server, not of a job.
+        assertInvalid("-i", in, "-cpu", "4");
+        assertInvalid("-i", in, "-T", out);
+        assertInvalid("-i", in, "-ms", "100", "-t", "n");
+        assertInvalid("-i", in, "-mode", "standalone");
+        assertInvalid("-i", in, "extra");
+        // Output.
+        assertInvalid("-i", in, "-f", "raw");
+        assertInvalid("-i", in, "-f", "tsv", "-o", out + "/result.tsv", "-d", out);
+        assertInvalid("-i", in, "-f", "tsv,xml", "-o", out + "/result");
+        assertInvalid("-i", in, "-f", "svg", "-o", out + "/result.svg");
+        assertInvalid("-i", in, "-d", out + "/missing");
+        assertInvalid("-i", in, "-t", "x");
+    }
+
+    private static void assertInvalid(String... arguments) {
+        assertThrows(IllegalArgumentException.class, () -> new ServerJob(1, arguments.length == 0
+                ? Collections.<String>emptyList() : Arrays.asList(arguments)), Arrays.toString(arguments));
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ebi.interpro.scan.jms.slurm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.jms.master.ClusterState;
+import uk.ac.ebi.interpro.scan.jms.master.queuejumper.platforms.SubmissionWorkerRunner;
+import uk.ac.ebi.interpro.scan.jms.master.queuejumper.platforms.UnrestrictedWorkerStartupStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Slurm monitor and worker submission against stub squeue and sbatch scripts.
+ */
+public class SlurmMonitorTest {
+
+    private static final String SQUEUE_OUTPUT =
+            "1001_[4-10%2]|PENDING\n" +
+            "1001_1|RUNNING\n" +
+            "1001_2|RUNNING\n" +
+            "1001_3|COMPLETING\n" +
+            "1002|CONFIGURING\n";
+
+    /**
+     * Writes a script that records its arguments, one per line, and prints the given output.
+     */
+    private static File stub(File directory, String name, String output) throws IOException {
+        final File script = new File(directory, name);
+        final File outputFile = new File(directory, name + ".output");
+        Files.write(outputFile.toPath(), output.getBytes(StandardCharsets.UTF_8));
+        final String content = "#!/bin/sh\n" +
+                "for arg in \"$@\"; do echo \"$arg\" >> " + new File(directory, name + ".args").getAbsolutePath() + "; done\n" +
+                "cat " + outputFile.getAbsolutePath() + "\n";
+        Files.write(script.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertTrue(script.setExecutable(true));
+        return script;
+    }
+
+    private static List<String> arguments(File directory, String name) throws IOException {
+        final File args = new File(directory, name + ".args");
+        return args.exists() ? Files.readAllLines(args.toPath()) : Collections.<String>emptyList();
+    }
+
+    @Test
+    public void testParser() {
+        final List<SlurmJobInformation> jobs = new SlurmJobInfoParser().parse(SQUEUE_OUTPUT + "garbage\n\n1003|CANCELLED by 1234\n1004|BRAND_NEW_STATE\n");
+        assertEquals(7, jobs.size());
+        assertEquals(SlurmJobState.PENDING, jobs.get(0).getState());
+        assertEquals(7, jobs.get(0).getTaskCount());
+        assertEquals(SlurmJobState.COMPLETING, jobs.get(3).getState());
+        assertEquals(SlurmJobState.CANCELLED, jobs.get(5).getState());
+        assertEquals(SlurmJobState.UNKNOWN, jobs.get(6).getState());
+
+        assertEquals(1, SlurmJobInfoParser.taskCount("1001_7"));
+        assertEquals(7, SlurmJobInfoParser.taskCount("1001_[4-10%2]"));
+        assertEquals(5, SlurmJobInfoParser.taskCount("1001_[1-3,7,9]"));
+        assertEquals(5, SlurmJobInfoParser.taskCount("1001_[1-10:2]"));
+    }
+
+    @Test
+    public void testMonitor(@TempDir File tempDir) throws IOException {
+        final SlurmMonitor monitor = new SlurmMonitor();
+        monitor.setSqueueCommand(stub(tempDir, "squeue", SQUEUE_OUTPUT).getAbsolutePath());
+
+        assertEquals(11, monitor.activeJobs("i5run"));
+        assertEquals(8, monitor.pendingJobs("i5run"));
+        assertTrue(arguments(tempDir, "squeue").contains("--name=i5run"));
+    }
+
+    @Test
+    public void testMonitorFailure(@TempDir File tempDir) throws IOException {
+        final File squeue = new File(tempDir, "squeue");
+        Files.write(squeue.toPath(), "#!/bin/sh\necho 'slurm_load_jobs error' >&2\nexit 1\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(squeue.setExecutable(true));
+        final SlurmMonitor monitor = new SlurmMonitor();
+        monitor.setSqueueCommand(squeue.getAbsolutePath());
+        assertThrows(IllegalStateException.class, () -> monitor.activeJobs("i5run"));
+    }
+
+    private static SubmissionWorkerRunner workerRunner(File tempDir) throws IOException {
+        final SubmissionWorkerRunner workerRunner = new SubmissionWorkerRunner();
+        workerRunner.setGridName("slurm");
+        workerRunner.setGridCommand(stub(tempDir, "sbatch", "Submitted batch job 1001\n").getAbsolutePath() + " --partition=production  --mem=8G");
+        workerRunner.setProjectId("i5run");
+        workerRunner.setI5Command("java -Xmx2048m -jar interproscan-5.jar");
+        workerRunner.setLogDir(new File(tempDir, "logs").getAbsolutePath());
+        workerRunner.setGridJobsLimit(10);
+        workerRunner.setHighMemory(false);
+        workerRunner.setWorkerStartupStrategy(new UnrestrictedWorkerStartupStrategy());
+        return workerRunner;
+    }
+
+    @Test
+    public void testSubmitJobArray(@TempDir File tempDir) throws IOException {
+        final SubmissionWorkerRunner workerRunner = workerRunner(tempDir);
+        workerRunner.setClusterState(new ClusterState(10, 7, 0));
+
+        assertEquals(3, workerRunner.startupNewWorker(4, "tcp://master:61616", "/scratch/i5", 5));
+
+        final List<String> arguments = arguments(tempDir, "sbatch");
+        assertEquals("--partition=production", arguments.get(0));
+        assertEquals("--mem=8G", arguments.get(1));
+        assertTrue(arguments.contains("--array=1-3"));
+        assertTrue(arguments.contains("--job-name=i5run"));
+        final String wrap = arguments.get(arguments.size() - 1);
+        assertTrue(wrap.startsWith("--wrap=java -Xmx2048m -jar interproscan-5.jar --mode=distributed_worker --priority=4 --masteruri=tcp://master:61616"), wrap);
+        assertTrue(wrap.contains(" --clusterrunid=i5run "), wrap);
+        boolean output = false;
+        for (String argument : arguments) {
+            output |= argument.startsWith("--output=") && argument.endsWith(".out.%a");
+        }
+        assertTrue(output, arguments.toString());
+    }
+
+    @Test
+    public void testClusterFull(@TempDir File tempDir) throws IOException {
+        final SubmissionWorkerRunner workerRunner = workerRunner(tempDir);
+        workerRunner.setClusterState(new ClusterState(10, 10, 0));
+
+        assertEquals(0, workerRunner.startupNewWorker(4, "tcp://master:61616", "/scratch/i5", 2));
+        assertTrue(arguments(tempDir, "sbatch").isEmpty());
+    }
+}
@@ -33,6 +33,22 @@ public interface StepInstanceDAO extends GenericDAO<StepInstance, String> {
      */
     List<StepInstance> retrieveUnfinishedStepInstances();
 
+    /**
+     * Retrieve the ids of all StepInstances in the database.  Used by the Master to
+     * find StepInstances created by Workers since it last looked, without loading them.
+     *
+     * @return the List of StepInstance ids.
+     */
+    List<Long> retrieveStepInstanceIds();
+
+    /**
+     * Retrieve the StepInstances with the ids passed in as argument.
+     *
+     * @param stepInstanceIds ids of the StepInstances to retrieve.
+     * @return the List of StepInstance objects, ordered by id.
+     */
+    List<StepInstance> retrieveStepInstances(List<Long> stepInstanceIds);
+
     /**
      * Returns true if the SerialGroup passed in as argument
      * does not currently have a running instance. (submitted but not failed or completed)
@@ -102,6 +102,43 @@ public class StepInstanceDAOImpl extends GenericDAOImpl<StepInstance, String> im
         }
     }
 
+    /**
+     * Retrieve the ids of all StepInstances in the database.
+     *
+     * @return the List of StepInstance ids.
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<Long> retrieveStepInstanceIds() {
+        Query query = entityManager.createQuery("select i.id from StepInstance i");
+        synchronized (lockObject) {
+            return query.getResultList();
+        }
+    }
+
+    /**
+     * Retrieve the StepInstances with the ids passed in as argument.
+     *
+     * @param stepInstanceIds ids of the StepInstances to retrieve.
+     * @return the List of StepInstance objects, ordered by id.
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<StepInstance> retrieveStepInstances(List<Long> stepInstanceIds) {
+        final List<StepInstance> stepInstances = new ArrayList<StepInstance>();
+        final int idCount = stepInstanceIds.size();
+        for (int index = 0; index < idCount; index += MAXIMUM_IN_CLAUSE_SIZE) {
+            final int endIndex = Math.min(index + MAXIMUM_IN_CLAUSE_SIZE, idCount);
+            final Query query = entityManager.createQuery(
+                    "select distinct i from StepInstance i where i.id in (:ids) order by i.id");
+            query.setParameter("ids", stepInstanceIds.subList(index, endIndex));
+            synchronized (lockObject) {
+                stepInstances.addAll(query.getResultList());
+            }
+        }
+        return stepInstances;
+    }
+
     /**
      * Returns true if the SerialGroup passed in as argument
      * does not currently have a running instance. (submitted but not failed or completed)
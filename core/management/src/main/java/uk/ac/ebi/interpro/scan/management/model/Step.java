@@ -93,6 +93,13 @@ public abstract class Step implements BeanNameAware {
      */
     protected Integer maxModels;
 
+    /**
+     * Optional field indicating the maximum total length (residues) of the sequences
+     * that a single StepTransaction should handle, for analyses whose run time scales with it.
+     * Applied as well as maxProteins.  If null, then unlimited.
+     */
+    protected Long maxResidues;
+
     /**
      * List of instances of this Step.
      */
@@ -172,6 +179,14 @@ public abstract class Step implements BeanNameAware {
         this.maxProteins = maxProteins;
     }
 
+    public Long getMaxResidues() {
+        return maxResidues;
+    }
+
+    public void setMaxResidues(Long maxResidues) {
+        this.maxResidues = maxResidues;
+    }
+
     public Integer getMaxModels() {
         return maxModels;
     }
@@ -231,6 +246,31 @@ public abstract class Step implements BeanNameAware {
         }
     }
 
+    /**
+     * As {@link #delayForNfs()}, but only waits until the file written by the previous step is visible,
+     * polling with a growing interval.  nfsDelayMilliseconds is the upper bound of the wait rather than
+     * its duration, so on local disk this returns immediately.
+     *
+     * @param filePath the file this step is about to read.
+     */
+    protected void delayForNfs(String filePath) {
+        if (nfsDelayMilliseconds <= 0) {
+            return;
+        }
+        final File file = new File(filePath);
+        final long deadline = System.currentTimeMillis() + nfsDelayMilliseconds;
+        long interval = 10;
+        try {
+            long remaining;
+            while (!file.exists() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                Thread.sleep(Math.min(interval, remaining));
+                interval = Math.min(interval * 2, 1000);
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("InterruptedException thrown when waiting for " + filePath + " to become visible.", e);
+        }
+    }
+
     protected boolean checkIfDoSkipRun(Long bottomProtein, Long topProtein){
         String key = getKey(bottomProtein, topProtein);
 
@@ -82,8 +82,9 @@ public class StepExecution implements Serializable, Comparable<StepExecution> {
 
     protected StepExecution(StepInstance stepInstance) {
         this.stepInstance = stepInstance;
-        this.stepInstance.addStepExecution(this);
+        // Set before adding, as the executions of a StepInstance are ordered by createdTime.
         createdTime = new Date();
+        this.stepInstance.addStepExecution(this);
     }
 
     /**
@@ -57,13 +57,13 @@ public class AbstractParseHmmpfamOutputStep<T extends Hmmer2RawMatch> extends St
      */
     @Override
     public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
-        delayForNfs();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Running Parser HMMER2 Output Step for proteins " + stepInstance.getBottomProtein() + " to " + stepInstance.getTopProtein());
         }
         InputStream is = null;
         try {
             final String hmmerOutputFilePath = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, hmmerOutputFilePathTemplate);
+            delayForNfs(hmmerOutputFilePath);
             is = new FileInputStream(hmmerOutputFilePath);
             final Set<RawProtein<T>> parsedResults = parser.parse(is);
             rawMatchDAO.insertProteinMatches(parsedResults);
@@ -87,24 +87,17 @@ public abstract class CompositeParseStep<T extends RawMatch,  U extends RawSite>
             Utilities.verboseLog(110, "doSkipRun - step: "  + this.getId() + " - " +  key);
             return;
         }
-        delayForNfs();
-
         InputStream is = null;
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, getOutputFileTemplate());
+        delayForNfs(fileName);
         LOGGER.debug("Output fileName: " + fileName);
         try {
             is = new FileInputStream(fileName);
             MatchSiteData<T, U> matchSiteData = getParser().parseMatchesAndSites(is);
             final Set<RawProtein<T>> results = matchSiteData.getRawProteins();
-            RawMatch represantiveRawMatch = null;
             int count = 0;
             for (RawProtein<T> rawProtein : results) {
                 count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
             }
 
             if (LOGGER.isDebugEnabled()) {
@@ -113,40 +106,6 @@ public abstract class CompositeParseStep<T extends RawMatch,  U extends RawSite>
             }
             Utilities.verboseLog(1100, "Parsed out " + results.size() + " proteins with matches from file " + fileName + " -- A total of " + count + " matches");
             rawMatchDAO.insertProteinMatches(results);
-            Long now = System.currentTimeMillis();
-            if (count > 0){
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    while (matchesFound < count) {
-                        Utilities.sleep(waitTimeFactor * 1000);
-                        matchesFound = rawMatchDAO.getActualRawMatchesForProteinIdsInRange(stepInstance.getBottomProtein(),
-                                stepInstance.getTopProtein(), signatureLibraryRelease).size();
-                        if (matchesFound < count) {
-                            LOGGER.warn("Raw matches not yet committed - sleep for 5 seconds , count: " + count);
-                            Utilities.verboseLog(1100, "Raw matches not yet committed - sleep for "
-                                    + waitTimeFactor + " seconds, matches found: " + matchesFound
-                                    + " matchesCount expected: " + count);
-                        }
-                        Long timeTaken = System.currentTimeMillis() - now;
-                        if(timeTaken > (waitTimeFactor * waitTimeFactor * 100 * 1000)){
-                            LOGGER.warn("H2 database problem: failed to verify " + count + " matches in database for "
-                                    + represantiveRawMatch.getSignatureLibrary().getName()
-                                    + " after " + timeTaken + " ms "
-                                    + " - matches found : " + matchesFound);
-                            break;
-                        }
-                    }
-                }else{
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                    + " time taken: " + timeTaken);
-            }
 
             //deal with sites if any
             final Map<String, String> parameters = stepInstance.getParameters();
@@ -174,9 +133,6 @@ public abstract class CompositeParseStep<T extends RawMatch,  U extends RawSite>
                     rawSiteDAO.insertSites(rawProteinSites);
                 }
             }
-            now = System.currentTimeMillis();
-
-
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to parse " + fileName, e);
         } finally {
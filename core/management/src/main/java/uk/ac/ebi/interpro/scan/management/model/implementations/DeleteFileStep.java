@@ -3,6 +3,7 @@ package uk.ac.ebi.interpro.scan.management.model.implementations;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Required;
+import uk.ac.ebi.interpro.scan.business.sequence.fasta.SharedFastaFileStore;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.util.Utilities;
@@ -67,6 +68,8 @@ public class DeleteFileStep extends Step {
                             LOGGER.error("Unable to delete the file located at " + filePathName);
                             throw new IllegalStateException("Unable to delete the file located at " + filePathName);
                         }
+                        // If this was the last link to a shared fasta file, delete that too.
+                        SharedFastaFileStore.release(temporaryFileDirectory, file.getName());
                     }else{
                         LOGGER.info("File not found, file located at " + filePathName);
                     }
@@ -107,18 +107,6 @@ public class MatchAndSitePostProcessingStep<A extends RawMatch, B extends Match,
             Long sequenceCout = stepInstance.getTopProtein() - stepInstance.getBottomProtein();
             Utilities.verboseLog(110, "Zero matches found: on " + sequenceCout + " proteins stepinstance:" + stepInstance.toString());
 
-            int waitTimeFactor = 2;
-            if (!Utilities.isRunningInSingleSeqMode()) {
-                waitTimeFactor = Utilities.getWaitTimeFactorLogE(10 * sequenceCout.intValue()).intValue();
-            }
-            Utilities.sleep(waitTimeFactor * 1000);
-            //try again
-            rawProteins = rawMatchDAO.getProteinsByIdRange(
-                    stepInstance.getBottomProtein(),
-                    stepInstance.getTopProtein(),
-                    signatureLibraryRelease
-            );
-            Utilities.verboseLog(110, "proteins after : " + rawProteins.size());
         }
 
         int matchCount = 0;
@@ -78,21 +78,16 @@ public class ParseAndPersistStep<T extends RawMatch, U extends Match> extends St
         // Retrieve raw matches from the SuperFamily binary output file
         InputStream inputStream = null;
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, outputFileTemplate);
+        delayForNfs(fileName);
         Set<RawProtein<T>> rawProteins;
 
         int count = 0;
-        RawMatch represantiveRawMatch = null;
         try {
             inputStream = new FileInputStream(fileName);
             rawProteins = parser.parse(inputStream);
 
             for (RawProtein<T> rawProtein : rawProteins) {
                 count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
             }
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Parsed out " + rawProteins.size() + " proteins with matches from file " + fileName);
@@ -116,24 +111,6 @@ public class ParseAndPersistStep<T extends RawMatch, U extends Match> extends St
         if (rawProteins != null && rawProteins.size() > 0) {
             // Persist the matches
             filteredMatchDAO.persist(rawProteins);
-            //TODO refactor this
-            Long now = System.currentTimeMillis();
-            if (count > 0){
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                }else{
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         } else {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("No SuperFamily matches were persisted as none were found in the SuperFamily binary output file: " + fileName);
@@ -9,7 +9,7 @@ import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
-import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
@@ -35,8 +35,9 @@ public abstract class ParseStep<T extends RawMatch> extends Step {
 
     private String outputFileTemplate;
     private MatchParser<T> parser;
-    private RawMatchDAO<T> rawMatchDAO;
+    private RawMatchStore<T> rawMatchDAO;
     private boolean useSingleSequenceMode;
+    private boolean parsedWhileRunning = false;
 
     public MatchParser<T> getParser() {
         return parser;
@@ -57,7 +58,7 @@ public abstract class ParseStep<T extends RawMatch> extends Step {
     }
 
     @Required
-    public void setRawMatchDAO(RawMatchDAO<T> rawMatchDAO) {
+    public void setRawMatchDAO(RawMatchStore<T> rawMatchDAO) {
         this.rawMatchDAO = rawMatchDAO;
     }
 
@@ -69,9 +70,20 @@ public abstract class ParseStep<T extends RawMatch> extends Step {
         this.useSingleSequenceMode = useSingleSequenceMode;
     }
 
+    public boolean isParsedWhileRunning() {
+        return parsedWhileRunning;
+    }
+
+    /**
+     * Set to TRUE if the RunBinaryStep this step depends upon parses and stores the output itself
+     * (parseOutputWhileRunning), in which case there is nothing left to do here.
+     */
+    public void setParsedWhileRunning(boolean parsedWhileRunning) {
+        this.parsedWhileRunning = parsedWhileRunning;
+    }
+
     @Override
     public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
-        delayForNfs();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Running ParseStep for proteins " + stepInstance.getBottomProtein() +
                     " to " + stepInstance.getTopProtein());
@@ -83,112 +95,29 @@ public abstract class ParseStep<T extends RawMatch> extends Step {
             return;
         }
 
+        if (parsedWhileRunning) {
+            Utilities.verboseLog(110, "Step " + this.getId() + " - matches already parsed and stored while running the binary");
+            return;
+        }
+
         InputStream is = null;
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, getOutputFileTemplate());
         LOGGER.debug("Output fileName: " + fileName);
+        delayForNfs(fileName);
         try {
             is = new FileInputStream(fileName);
             final Set<RawProtein<T>> results = getParser().parse(is);
-            RawMatch represantiveRawMatch = null;
             int matchCount = 0;
             for (RawProtein<T> rawProtein : results) {
                 matchCount += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
-                if (LOGGER.isDebugEnabled()) {
-                    if (represantiveRawMatch.getSignatureLibrary().getName().contains("PANTHER") ||
-                            represantiveRawMatch.getSignatureLibrary().getName().contains("ProSitePatterns")) {
-                        int rmCount = 0;
-                        for (RawMatch rawMatch : rawProtein.getMatches()) {
-                            rmCount++;
-                            Utilities.verboseLog(represantiveRawMatch.getSignatureLibrary().getName() + " " + rmCount + " "
-                                    + rawMatch.toString());
-                        }
-                    }
-                }
             }
 
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Parsed out " + results.size() + " proteins with matches from file " + fileName);
                 LOGGER.debug("A total of " + matchCount + " matches from file " + fileName);
             }
+            rawMatchDAO.removeRawMatchesInRange(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
             rawMatchDAO.insertProteinMatches(results);
-            Long now = System.currentTimeMillis();
-            long chunkSize =  stepInstance.getTopProtein() - stepInstance.getBottomProtein();
-
-            if (matchCount > 0){
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(matchCount).intValue();
-                if (represantiveRawMatch != null) {
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    Long queryStartTime = System.currentTimeMillis();
-                    Set<RawProtein<T>> rawProteins = rawMatchDAO.getProteinsByIdRange(stepInstance.getBottomProtein(),
-                            stepInstance.getTopProtein(), signatureLibraryRelease);
-                    Long queryTime = System.currentTimeMillis() - queryStartTime;
-
-                    for (RawProtein<T> rawProtein : rawProteins) {
-                        matchesFound += rawProtein.getMatches().size();
-                        if (LOGGER.isDebugEnabled()) {
-                            Utilities.verboseLog(1100, "Considering ... " + represantiveRawMatch.getSignatureLibrary().getName());
-                            if (represantiveRawMatch.getSignatureLibrary().getName().contains("PANTHER") ||
-                                    represantiveRawMatch.getSignatureLibrary().getName().contains("ProSitePatterns")) {
-                                int rmCount = 0;
-                                for (RawMatch rawMatch : rawProtein.getMatches()) {
-                                    rmCount++;
-                                    Utilities.verboseLog(represantiveRawMatch.getSignatureLibrary().getName() + "_R2 " + rmCount + " "
-                                            + rawMatch.toString());
-                                }
-                            }
-                        }
-                    }
-
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    Utilities.verboseLog(represantiveRawMatch.getSignatureLibrary().getName() + " matchesFound: " + matchesFound + " matchCount: " + matchCount
-                            + " queryTime: " + queryTime);
-                    int retryCount = 0;
-                    Long allowedWaitTime = Long.valueOf(waitTimeFactor) * waitTimeFactor * 100 * 1000;
-                    while (matchesFound < matchCount) {
-                        retryCount ++;
-                        Utilities.sleep(waitTimeFactor * 1000);
-                        List<T> rawMatchesInDb = rawMatchDAO.getActualRawMatchesForProteinIdsInRange(stepInstance.getBottomProtein(),
-                                stepInstance.getTopProtein(), signatureLibraryRelease);
-
-                        matchesFound = rawMatchesInDb.size();
-                        Utilities.verboseLog(represantiveRawMatch.getSignatureLibrary().getName() + " matchesFound-2: " +matchesFound + " matchCount: " + matchCount);
-
-                        if (matchesFound < matchCount) {
-                            int matchCountDifference = matchCount - matchesFound;
-
-
-                            if (retryCount == 1) {
-                                LOGGER.warn("Raw matches may not yet committed - sleep for" + waitTimeFactor + " seconds , count: " + matchCount);
-                            }
-                            Long timeTaken = System.currentTimeMillis() - now;
-                            //we try three times then break
-                            if (matchCountDifference < 2 || chunkSize < 100 || timeTaken > allowedWaitTime || retryCount > 3) {
-                                //just break as something else might be happening, need to investigate
-                                String matchPersistWarning = "Possible database problem: failed to " + retryCount + "x verify " + matchCount + " matches in database for "
-                                        + represantiveRawMatch.getSignatureLibrary().getName()
-                                        + " after " + timeTaken + " ms "
-                                        + " - matches found : " + matchesFound;
-                                LOGGER.warn(matchPersistWarning);
-                                Utilities.verboseLog(matchPersistWarning);
-                                break;
-                            }
-                        }
-                    }
-                }else{
-                    String matchPersistWarning = "Check if Raw matches committed " + matchCount + " repm: " + represantiveRawMatch;
-                    LOGGER.warn(matchPersistWarning);
-                    Utilities.verboseLog(matchPersistWarning);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + matchCount + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                    + " time taken: " + timeTaken);
-            }
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to parse " + fileName, e);
         } finally {
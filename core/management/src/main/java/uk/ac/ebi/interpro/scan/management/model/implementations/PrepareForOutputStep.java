@@ -14,6 +14,8 @@ import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.persistence.MatchDAO;
 import uk.ac.ebi.interpro.scan.persistence.NucleotideSequenceDAO;
 import uk.ac.ebi.interpro.scan.persistence.ProteinDAO;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDBRange;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.conversion.toi5.SignatureLibraryLookup;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
@@ -44,6 +46,8 @@ public class PrepareForOutputStep extends Step {
 
     public static final String SEQUENCE_TYPE = "SEQUENCE_TYPE";
 
+    private static final int PROTEIN_BATCH_SIZE = 1000;
+
     public void setProteinDAO(ProteinDAO proteinDAO) {
         this.proteinDAO = proteinDAO;
     }
@@ -192,13 +196,15 @@ public class PrepareForOutputStep extends Step {
         //maybe wait
         //some nucleotides dont have ORFs??
 
-        processesReadyForXMLMarshalling.add(proteinRange);
         try {
-            //set a break clause in case something amis happens
-            while(processesReadyForXMLMarshalling.size() < expectedPrepareJobCount ) {
-                Utilities.verboseLog(30, proteinRange + " processesReadyForXMLMarshalling: " + processesReadyForXMLMarshalling.size()
-                        + " expectedPrepareJobCount: " + expectedPrepareJobCount);
-                Thread.sleep(30 * 1000);
+            synchronized (processesReadyForXMLMarshalling) {
+                processesReadyForXMLMarshalling.add(proteinRange);
+                processesReadyForXMLMarshalling.notifyAll();
+                while (processesReadyForXMLMarshalling.size() < expectedPrepareJobCount) {
+                    Utilities.verboseLog(30, proteinRange + " processesReadyForXMLMarshalling: " + processesReadyForXMLMarshalling.size()
+                            + " expectedPrepareJobCount: " + expectedPrepareJobCount);
+                    processesReadyForXMLMarshalling.wait(30 * 1000);
+                }
             }
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -264,88 +270,60 @@ public class PrepareForOutputStep extends Step {
         //try (ProteinMatchesXMLJAXBFragmentsResultWriter writer = new ProteinMatchesXMLJAXBFragmentsResultWriter(outputPath, Protein.class, isSlimOutput)) {
         //writer.header(interProScanVersion);
         //writer.header(interProScanVersion,   "protein-matches");
-        Set<String> signatureLibraryNames = new HashSet<>();
-
-        for (SignatureLibrary sig : SignatureLibrary.values()) {
-            signatureLibraryNames.add(sig.getName());
-        }
-
-
-        Long middleProtein = topProteinId / 2;
-
-        for (Long proteinIndex = bottomProteinId; proteinIndex <= topProteinId; proteinIndex++) {
-            String proteinKey = Long.toString(proteinIndex);
-            //Protein protein  = proteinDAO.getProteinAndCrossReferencesByProteinId(proteinIndex);
-            Protein protein = proteinDAO.getProtein(proteinKey);
-            if (protein != null) {
-                proteinCount++;
-            }
-
-            for (String signatureLibraryName : signatureLibraryNames) {
-                final String dbKey = proteinKey + signatureLibraryName;
-
-                Set<Match> matches = null;
-                //try this say three times
-                int tryCount = 0;
-                while (tryCount <= 3) {
-                    try {
-                        matches = matchDAO.getMatchSet(dbKey);
-                    } catch (Exception exception) {
-                        //dont recover but sleep for a few seconds and try again
-
-                        Utilities.verboseLog(1100, "Exception type: " + exception.getClass());
+        // The proteins are read in batches, and the matches of all the signature libraries in one ordered
+        // scan over the protein range, rather than a lookup for each protein and library.
+        try (KVDBRange<Set<Match>> matchSets = matchDAO.getMatchSets(bottomProteinId, topProteinId)) {
+            for (Long batchStart = bottomProteinId; batchStart <= topProteinId; batchStart += PROTEIN_BATCH_SIZE) {
+                final Long batchEnd = Math.min(batchStart + PROTEIN_BATCH_SIZE - 1, topProteinId);
+                final List<String> proteinKeys = new ArrayList<>();
+                for (Long proteinIndex = batchStart; proteinIndex <= batchEnd; proteinIndex++) {
+                    proteinKeys.add(Long.toString(proteinIndex));
+                }
+                final List<Protein> proteins = proteinDAO.getProteins(proteinKeys);
+
+                for (int i = 0; i < proteins.size(); i++) {
+                    final Long proteinIndex = batchStart + i;
+                    final String proteinKey = proteinKeys.get(i);
+                    final Protein protein = proteins.get(i);
+                    if (protein != null) {
+                        proteinCount++;
+                    }
 
-                        exception.printStackTrace();
-                        if (tryCount >= 3) {
-                            throw new IllegalStateException("Failed to get matches from the DB for key " + dbKey);
-                        }
-                        //how long to wait for files to be available ??
-                        int waitTime = (proteinsConsidered.intValue() / 8000) * 60 * 1000;
-                        if (getNfsDelayMilliseconds() < waitTime) {
-                            if (waitTime > 120 * 1000) {
-                                waitTime = 120 * 1000;
-                            }
-                            Utilities.sleep(waitTime);
-                        } else {
-                            delayForNfs();
+                    while (matchSets.hasNext() && MatchKey.proteinId(matchSets.peekKey()) == proteinIndex) {
+                        final Map.Entry<String, Set<Match>> matchSet = matchSets.next();
+                        if (protein == null) {
+                            LOGGER.warn("Matches found for protein " + proteinIndex + " which is not in the KV store: " + matchSet.getKey());
+                            continue;
                         }
+                        for (Match match : matchSet.getValue()) {
+                            String accession = match.getSignature().getAccession();
+                            Utilities.verboseLog(120, "dbKey :" + matchSet.getKey() + " - " + accession); //+ " - match: " + match.getLocations()) ;
 
-                        Utilities.verboseLog(110, "  Prepare for output - Slept for at least " + waitTime + " millis");
-
+                            match.getSignature().getCrossReferences();
+                            protein.addMatch(match);
+                            matchCount++;
+                        }
                     }
-                    tryCount++;
-                }
-
-                if (matches != null) {
-                    //Utilities.verboseLog(1100, "Get matches for protein  id: " + protein.getId() +  " dbKey (matchKey): " + dbKey);
-                    for (Match match : matches) {
-                        String accession = match.getSignature().getAccession();
-                        Utilities.verboseLog(120, "dbKey :" + dbKey + " - " + accession); //+ " - match: " + match.getLocations()) ;
-
-                        match.getSignature().getCrossReferences();
-                        //match.getSignature().getEntry();
-                        //try update with cross refs etc
-                        //updateMatch(match);
-                        protein.addMatch(match);
-                        matchCount++;
+                    if (protein == null) {
+                        continue;
                     }
-                }
-            }
 
-            //TDO Temp check what breaks if you dont do pre-marshalling
-            //String xmlProtein = writer.marshal(protein);
+                    //TDO Temp check what breaks if you dont do pre-marshalling
+                    //String xmlProtein = writer.marshal(protein);
 
-            protein.getOpenReadingFrames().size();
+                    protein.getOpenReadingFrames().size();
 
-            for (Match i5Match : protein.getMatches()) {
-                //try update with cross refs etc
-                updateMatch(i5Match);
-            }
+                    for (Match i5Match : protein.getMatches()) {
+                        //try update with cross refs etc
+                        updateMatch(i5Match);
+                    }
 
-            proteinDAO.persist(proteinKey, protein);
-            //help garbage collection??
-            if (bottomProteinId == 1 && proteinBreakPoints.contains(proteinIndex)){
-                Utilities.printMemoryUsage("after GC scheduled at breakIndex = " + proteinIndex);
+                    proteinDAO.persist(proteinKey, protein);
+                    //help garbage collection??
+                    if (bottomProteinId == 1 && proteinBreakPoints.contains(proteinIndex)){
+                        Utilities.printMemoryUsage("after GC scheduled at breakIndex = " + proteinIndex);
+                    }
+                }
             }
         }
         //}catch (JAXBException e){
@@ -545,24 +523,16 @@ public class PrepareForOutputStep extends Step {
         // writer.setMapToPathway(mapToPathway);
         try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
             final String interProScanVersion = "5-34";
-            writer.header(interProScanVersion);
+            writer.writeHeader(interProScanVersion);
             if (bottomProteinId != null && topProteinId != null) {
                 if (LOGGER.isInfoEnabled()) {
                     LOGGER.info("Load " + topProteinId + " proteins from the db.");
                 }
                 Utilities.verboseLog(110, " WriteOutputStep -JSON new " + " There are " + topProteinId + " proteins.");
-                int count = 0;
                 for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
-
                     writer.write(nucleotideSequence);
-                    count++;
-                    if (count < nucleotideSequences.size()) {
-                        writer.write(","); // More proteins/nucleotide sequences to follow
-                    }
-
                 }
             }
-            writer.footer();
         }
 
     }
@@ -614,9 +584,7 @@ public class PrepareForOutputStep extends Step {
                 try {
                     Files.delete(outputPath);
                 } catch (IOException e) {
-                    final String p = outputPath.toAbsolutePath().toString();
-                    System.out.println("Unable to overwrite file " + p + ".  Please check file permissions.");
-                    System.exit(101);
+                    throw new IllegalStateException("Unable to overwrite file " + outputPath.toAbsolutePath() + ".  Please check file permissions.", e);
                 }
             }
         } else {
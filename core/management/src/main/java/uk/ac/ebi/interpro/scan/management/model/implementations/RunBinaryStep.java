@@ -4,8 +4,12 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import uk.ac.ebi.interpro.scan.io.cli.CommandLineConversation;
 import uk.ac.ebi.interpro.scan.io.cli.CommandLineConversationImpl;
+import uk.ac.ebi.interpro.scan.io.match.MatchParser;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
+import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.File;
@@ -14,6 +18,7 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This abstract class factors out the functionality required to run a binary.
@@ -23,6 +28,10 @@ import java.util.List;
  * It also allows binary switches to be passed in as a white-space separated String.
  * <p/>
  * Implementations just need to build the command line in the form of a List<String>.
+ * <p/>
+ * Optionally (parseOutputWhileRunning) the output of the binary is parsed as it is written, by the
+ * outputParser, and the raw matches stored by the rawMatchDAO once the binary has finished, instead of
+ * by a separate {@link ParseStep} reading the output file back.
  *
  * @author John Maslen
  * @author Phil Jones
@@ -46,6 +55,12 @@ abstract public class RunBinaryStep extends Step {
 
     private boolean singleSeqMode = false;
 
+    private boolean parseOutputWhileRunning = false;
+
+    private MatchParser<? extends RawMatch> outputParser;
+
+    private RawMatchStore<? extends RawMatch> rawMatchDAO;
+
     final private String ANALYSIS_TEMP_DIR_SUFFIX = "tmp_files";
 
     public void setUsesFileOutputSwitch(boolean usesFileOutputSwitch) {
@@ -64,6 +79,38 @@ abstract public class RunBinaryStep extends Step {
         this.singleSeqMode = singleSeqMode;
     }
 
+    public boolean isParseOutputWhileRunning() {
+        return parseOutputWhileRunning;
+    }
+
+    /**
+     * If TRUE, the output of the binary (on stdout) is parsed while the binary is running, by the outputParser,
+     * and stored by the rawMatchDAO.  The output file is still written.
+     */
+    public void setParseOutputWhileRunning(boolean parseOutputWhileRunning) {
+        this.parseOutputWhileRunning = parseOutputWhileRunning;
+    }
+
+    public MatchParser<? extends RawMatch> getOutputParser() {
+        return outputParser;
+    }
+
+    public void setOutputParser(MatchParser<? extends RawMatch> outputParser) {
+        this.outputParser = outputParser;
+    }
+
+    public void setRawMatchDAO(RawMatchStore<? extends RawMatch> rawMatchDAO) {
+        this.rawMatchDAO = rawMatchDAO;
+    }
+
+    /**
+     * Storing the raw matches needs the database, so parsing while running stops the step from running remotely.
+     */
+    @Override
+    public boolean isRequiresDatabaseAccess() {
+        return super.isRequiresDatabaseAccess() || parseOutputWhileRunning;
+    }
+
     public String getOutputFileNameTemplate() {
         return outputFileNameTemplate;
     }
@@ -159,9 +206,20 @@ abstract public class RunBinaryStep extends Step {
             LOGGER.debug("Running the following command: " + command);
 
             CommandLineConversation clc = new CommandLineConversationImpl();
+            RawMatchesConsumer<?> rawMatchesConsumer = null;
+            if (parseOutputWhileRunning) {
+                if (outputParser == null || rawMatchDAO == null) {
+                    throw new IllegalStateException("Step " + this.getId() + " is set to parse the output while running, but has no outputParser or rawMatchDAO");
+                }
+                if (this.isUsesFileOutputSwitch()) {
+                    throw new IllegalStateException("Step " + this.getId() + " cannot parse the output while running, as the binary writes it with a file switch");
+                }
+                rawMatchesConsumer = new RawMatchesConsumer<>(outputParser);
+                clc.setOutputConsumer(rawMatchesConsumer);
+            }
             try {
                 //handle binaries that use -o or similar switch for output
-                if (this.usesFileOutputSwitch){
+                if (this.isUsesFileOutputSwitch()){
                     outputFileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, "devnull.txt");
                     outputFileName = "/dev/null";
                     clc.setOutputPathToFile(outputFileName, true, false);
@@ -186,6 +244,9 @@ abstract public class RunBinaryStep extends Step {
             }
             if (exitStatus == 0) {
                 LOGGER.debug("binary finished successfully!");
+                if (rawMatchesConsumer != null) {
+                    persistRawMatches(rawMatchDAO, stepInstance, rawMatchesConsumer.getRawProteins(), outputFileName);
+                }
             } else {
                 StringBuffer failureMessage = new StringBuffer();
                 failureMessage.append("Command line failed with exit code: ")
@@ -206,6 +267,50 @@ abstract public class RunBinaryStep extends Step {
         LOGGER.info("Step with Id " + this.getId() + " finished.");
     }
 
+    /**
+     * Stores the raw matches parsed while the binary was running, in place of any stored by an earlier attempt
+     * of the step instance.  Step instances of the same step store one at a time, as the serial group of a
+     * ParseStep would ensure.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends RawMatch> void persistRawMatches(RawMatchStore<T> rawMatchDAO, StepInstance stepInstance, Set<? extends RawProtein<?>> rawProteins, String outputFileName) {
+        synchronized (rawMatchDAO) {
+            rawMatchDAO.removeRawMatchesInRange(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
+            if (rawProteins.isEmpty()) {
+                LOGGER.debug("No matches in the output of the binary: " + outputFileName);
+                return;
+            }
+            Utilities.verboseLog(110, "Parsed " + rawProteins.size() + " proteins with matches while running step " + this.getId());
+            rawMatchDAO.insertProteinMatches((Set<RawProtein<T>>) rawProteins);
+        }
+    }
+
+    /**
+     * Parses the output of the binary, on the thread that reads it from the process.
+     */
+    private static class RawMatchesConsumer<T extends RawMatch> implements CommandLineConversation.OutputConsumer {
+
+        private final MatchParser<T> parser;
+
+        private volatile Set<RawProtein<T>> rawProteins;
+
+        RawMatchesConsumer(MatchParser<T> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void consume(InputStream output) throws IOException {
+            rawProteins = parser.parse(output);
+        }
+
+        Set<RawProtein<T>> getRawProteins() {
+            if (rawProteins == null) {
+                throw new IllegalStateException("The output of the binary has not been parsed");
+            }
+            return rawProteins;
+        }
+    }
+
     /**
      * Implementations of this method should return a List<String> containing all the components of the command line to be called
      * including any arguments. The StepInstance and temporary file are provided to allow parameters to be built. Use
@@ -4,6 +4,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Required;
 import uk.ac.ebi.interpro.scan.business.sequence.fasta.FastaFileWriter;
+import uk.ac.ebi.interpro.scan.business.sequence.fasta.SharedFastaFileStore;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.model.Protein;
@@ -12,6 +13,8 @@ import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import javax.persistence.Transient;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +33,9 @@ public class WriteFastaFileStep extends Step {
     @Transient
     private FastaFileWriter fastaFileWriter = new FastaFileWriter();
 
+    @Transient
+    private SharedFastaFileStore sharedFastaFileStore = new SharedFastaFileStore();
+
     private String fastaFilePathTemplate;
 
     private ProteinDAO proteinDAO;
@@ -55,6 +61,16 @@ public class WriteFastaFileStep extends Step {
         this.fastaFileWriter = fastaFileWriter;
     }
 
+    /**
+     * By default the fasta file of each protein range is written once and shared by all of the analyses
+     * (see {@link SharedFastaFileStore}).  Set to null to write a separate file for each analysis.
+     *
+     * @param sharedFastaFileStore the store of shared fasta files, or null.
+     */
+    public void setSharedFastaFileStore(SharedFastaFileStore sharedFastaFileStore) {
+        this.sharedFastaFileStore = sharedFastaFileStore;
+    }
+
     /**
      * This method is called to execute the action that the StepInstance must perform.
      *
@@ -67,61 +83,33 @@ public class WriteFastaFileStep extends Step {
             LOGGER.info("Starting step with Id " + this.getId());
         }
         final String fastaFilePathName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, fastaFilePathTemplate);
-        final List<Protein> proteins;
+        final boolean allProteins = doRunLocally || (!useMatchLookupService);
 
         try {
-            if (doRunLocally || (!useMatchLookupService)) {
-                Utilities.verboseLog(110, this.getId() + " GetAllSequences: doRunLocally: " + doRunLocally + " useMatchLookupService: " + useMatchLookupService);
-                proteins = proteinDAO.getProteinsBetweenIds(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
-            } else {
-                //TODO this is getting completed to filter nonlookup up proteins
-
-                //final List<Protein> proteinsInRange = proteinDAO.getProteinsWithoutLookupHitBetweenIds(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
-                //final List<Protein>  proteinsNotInLookup = proteinDAO.getProteinsNotInLookup();
-                //System.out.println("proteinsNotInLookup size: " + proteinsNotInLookup.size());
-                long bottomProtein = stepInstance.getBottomProtein();
-                long topProtein = stepInstance.getTopProtein();
-                proteins = new ArrayList<>();
-                int count = 0;
-                for (long proteinId = bottomProtein; proteinId <= topProtein; proteinId++) {
-                    //Protein protein = proteinDAO.getProtein(Long.toString(proteinId));
-                    Protein proteinNotInLookup = proteinDAO.getProteinNotInLookup(Long.toString(proteinId));
-                    if (proteinNotInLookup != null) {
-                        //System.out.println("write sequence id : " + proteinId + " real id from kv: " + proteinNotInLookup.getId());
-                        proteins.add(proteinNotInLookup);
-                        count++;
-                    }
+            final boolean noProteins;
+            if (sharedFastaFileStore == null) {
+                final List<Protein> proteins = getProteins(stepInstance, allProteins);
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("Writing " + proteins.size() + " proteins to FASTA file...");
                 }
-                long maxProteins = topProtein - bottomProtein;
-
-                Utilities.verboseLog(110, stepInstance.getStepId() + "[" + bottomProtein + "-" + topProtein + "]" + " Writen fasta sequence count : " + count + " of possible " + (maxProteins + 1));
-
-                //deal with cases where there is no sequence in this range
-                if (count == 0) {
-
-                    //String stepID = stepInstance.getStepId();
-                    String libraryName = job.getLibraryRelease().getLibrary().getName();
-                    String range = "_" + bottomProtein + "-" + topProtein;
-                    String key = libraryName + range;
-                    job.addSkipRange(key);
-                    LOGGER.warn("Protein sequences problem - for:  " + key + " - count of proteins to write to file: " + count);
-                }
-
-                 /*   for (Protein protein : proteinsNotInLookup) {
-                        System.out.println("write sequence id : " + protein.getId());
-                        Protein protein = proteinDAO.getProtein(protein.getId().toString());
-                        if (protein.getId() >= stepInstance.getBottomProtein() && protein.getId() <= stepInstance.getTopProtein()) {
-                            proteins.add(protein);
-                        }
-                    }
-                  */
-
+                fastaFileWriter.writeFastaFile(proteins, fastaFilePathName);
+                noProteins = proteins.isEmpty();
+            } else {
+                final Path sharedFile = SharedFastaFileStore.getSharedFilePath(temporaryFileDirectory,
+                        allProteins ? "all" : "notInLookup", Paths.get(fastaFilePathName).getFileName().toString());
+                noProteins = sharedFastaFileStore.writeFastaFile(sharedFile, fastaFilePathName, fastaFileWriter,
+                        () -> getProteins(stepInstance, allProteins));
             }
 
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Writing " + proteins.size() + " proteins to FASTA file...");
+            //deal with cases where there is no sequence in this range
+            if (noProteins && !allProteins) {
+                //String stepID = stepInstance.getStepId();
+                String libraryName = job.getLibraryRelease().getLibrary().getName();
+                String range = "_" + stepInstance.getBottomProtein() + "-" + stepInstance.getTopProtein();
+                String key = libraryName + range;
+                job.addSkipRange(key);
+                LOGGER.warn("Protein sequences problem - for:  " + key + " - count of proteins to write to file: 0");
             }
-            fastaFileWriter.writeFastaFile(proteins, fastaFilePathName);
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to write a fasta file to " + fastaFilePathName, e);
         } catch (FastaFileWriter.FastaFileWritingException e) {
@@ -133,5 +121,34 @@ public class WriteFastaFileStep extends Step {
             LOGGER.info("Step with Id " + this.getId() + " finished.");
         }
     }
+
+    private List<Protein> getProteins(StepInstance stepInstance, boolean allProteins) {
+        if (allProteins) {
+            Utilities.verboseLog(110, this.getId() + " GetAllSequences: doRunLocally: " + doRunLocally + " useMatchLookupService: " + useMatchLookupService);
+            return proteinDAO.getProteinsBetweenIds(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
+        }
+        //TODO this is getting completed to filter nonlookup up proteins
+
+        //final List<Protein> proteinsInRange = proteinDAO.getProteinsWithoutLookupHitBetweenIds(stepInstance.getBottomProtein(), stepInstance.getTopProtein());
+        //final List<Protein>  proteinsNotInLookup = proteinDAO.getProteinsNotInLookup();
+        //System.out.println("proteinsNotInLookup size: " + proteinsNotInLookup.size());
+        long bottomProtein = stepInstance.getBottomProtein();
+        long topProtein = stepInstance.getTopProtein();
+        final List<Protein> proteins = new ArrayList<>();
+        int count = 0;
+        for (long proteinId = bottomProtein; proteinId <= topProtein; proteinId++) {
+            //Protein protein = proteinDAO.getProtein(Long.toString(proteinId));
+            Protein proteinNotInLookup = proteinDAO.getProteinNotInLookup(Long.toString(proteinId));
+            if (proteinNotInLookup != null) {
+                //System.out.println("write sequence id : " + proteinId + " real id from kv: " + proteinNotInLookup.getId());
+                proteins.add(proteinNotInLookup);
+                count++;
+            }
+        }
+        long maxProteins = topProtein - bottomProtein;
+
+        Utilities.verboseLog(110, stepInstance.getStepId() + "[" + bottomProtein + "-" + topProtein + "]" + " Writen fasta sequence count : " + count + " of possible " + (maxProteins + 1));
+        return proteins;
+    }
 }
 
@@ -14,7 +14,9 @@ import uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCrea
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.GraphicalOutputResultWriter;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.ProteinMatchesHTMLResultWriter;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.ProteinMatchesSVGResultWriter;
+import uk.ac.ebi.interpro.scan.management.model.implementations.writer.ProteinOutputPipeline;
 import uk.ac.ebi.interpro.scan.management.model.implementations.writer.TarArchiveBuilder;
+import uk.ac.ebi.interpro.scan.management.model.implementations.writer.TarArchiveStreamWriter;
 import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.persistence.MatchDAO;
 import uk.ac.ebi.interpro.scan.persistence.NucleotideSequenceDAO;
@@ -33,6 +35,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Writes all matches for a slice of proteins to a file.
@@ -73,6 +77,15 @@ public class WriteOutputStep extends Step {
 
     private boolean excludeSites;
 
+    /* Not required. The number of proteins each output format may fall behind the reading of the proteins by.*/
+    private int outputQueueCapacity = 256;
+
+    /* Not required. The number of threads marshalling the XML output, or 0 (default) for the CPU count of the run.*/
+    private int xmlMarshallerThreads = 0;
+
+    /* Not required. The number of threads rendering and compressing the HTML and SVG output, or 0 (default) for the CPU count of the run.*/
+    private int graphicalOutputThreads = 0;
+
     private EntryHierarchy entryHierarchy;
 
     private String interProScanVersion;
@@ -91,6 +104,18 @@ public class WriteOutputStep extends Step {
         this.archiveSVGOutput = archiveSVGOutput;
     }
 
+    public void setOutputQueueCapacity(int outputQueueCapacity) {
+        this.outputQueueCapacity = outputQueueCapacity;
+    }
+
+    public void setXmlMarshallerThreads(int xmlMarshallerThreads) {
+        this.xmlMarshallerThreads = xmlMarshallerThreads;
+    }
+
+    public void setGraphicalOutputThreads(int graphicalOutputThreads) {
+        this.graphicalOutputThreads = graphicalOutputThreads;
+    }
+
     @Required
     public void setCompressHtmlAndSVGOutput(boolean compressHtmlAndSVGOutput) {
         this.compressHtmlAndSVGOutput = compressHtmlAndSVGOutput;
@@ -197,14 +222,6 @@ public class WriteOutputStep extends Step {
                 ? parameters.get(OUTPUT_EXPLICIT_FILE_PATH_KEY)
                 : parameters.get(OUTPUT_FILE_PATH_KEY);
 
-        int waitTimeFactor = 1;  //check what is the average time it takes to get raw results
-        if (!Utilities.isRunningInSingleSeqMode()) {
-            //use loge to get wait time
-            waitTimeFactor = Utilities.getWaitTimeFactorLogE(20 * Utilities.getSequenceCount()).intValue();
-        }
-        Utilities.sleep(waitTimeFactor * 1000);                 //1000 milliseconds is one second.
-        Utilities.verboseLog(110, " WriteOutputStep - get proteins, waitTime - " + waitTimeFactor + " seconds");
-
         final String sequenceType = parameters.get(SEQUENCE_TYPE);
         if (sequenceType.equalsIgnoreCase("p")) {
             LOGGER.debug("Setting unique protein cross references (Please note this function is only performed if the input sequences are proteins)...");
@@ -214,83 +231,90 @@ public class WriteOutputStep extends Step {
         List<FileOutputFormat> outputFormatsList = new ArrayList<>(outputFormats);
         Collections.sort(outputFormatsList, Collections.reverseOrder());
 
-        //always handle xml first ??
-        if (outputFormatsList.contains(FileOutputFormat.XML)) {
-            FileOutputFormat outputFormat = FileOutputFormat.XML;
-            Path outputPath = getPathName(explicitPath, filePathName, outputFormat);
-            try {
-                Utilities.printMemoryUsage("printing " + outputFormat);
-                Utilities.verboseLog(110, "Writing out " + outputPath.toString());
-                Utilities.verboseLog(10, " Writing out " + outputFormat + " output");
-                outputToXML(outputPath, stepInstance, sequenceType, false);
-            } catch (IOException ioe) {
-                final String p = outputPath.toAbsolutePath().toString();
-                throw new IllegalStateException("IOException thrown when attempting to writeComment output from InterProScan to path: " + p, ioe);
+        // Every protein based output is written by the pipeline, from a single pass over the proteins.
+        try (ProteinOutputPipeline pipeline = new ProteinOutputPipeline(outputQueueCapacity)) {
+            //always handle xml first ??
+            if (outputFormatsList.contains(FileOutputFormat.XML)) {
+                FileOutputFormat outputFormat = FileOutputFormat.XML;
+                Path outputPath = getPathName(explicitPath, filePathName, outputFormat);
+                try {
+                    Utilities.printMemoryUsage("printing " + outputFormat);
+                    Utilities.verboseLog(110, "Writing out " + outputPath.toString());
+                    Utilities.verboseLog(10, " Writing out " + outputFormat + " output");
+                    if (sequenceType.equalsIgnoreCase("p")) {
+                        addXMLOutput(pipeline, outputPath, sequenceType, false);
+                    } else {
+                        outputNTToXML(outputPath, stepInstance, sequenceType, false);
+                    }
+                } catch (IOException ioe) {
+                    final String p = outputPath.toAbsolutePath().toString();
+                    throw new IllegalStateException("IOException thrown when attempting to writeComment output from InterProScan to path: " + p, ioe);
+                }
             }
-        }
 
-        for (FileOutputFormat outputFormat : outputFormatsList) {
-            if (outputFormat == FileOutputFormat.XML_SLIM || outputFormat == FileOutputFormat.XML ){
-                continue;
-            }
-            Path outputPath = getPathName(explicitPath, filePathName, outputFormat);
-            try {
-                Utilities.verboseLog(110, "Writing out " + outputPath.toString());
-                if (LOGGER.isInfoEnabled()) {
-                    LOGGER.info("Writing out " + outputFormat + " file");
+            for (FileOutputFormat outputFormat : outputFormatsList) {
+                if (outputFormat == FileOutputFormat.XML_SLIM || outputFormat == FileOutputFormat.XML ){
+                    continue;
                 }
-                Utilities.printMemoryUsage("printing " + outputFormat);
-                Utilities.verboseLog(10, " Writing out " + outputFormat + " output");
-
-                switch (outputFormat) {
-                    case TSV:
-                        outputToTSV(outputPath, stepInstance, sequenceType);
-                        break;
-                    case TSV_PRO:
-                        outputToTSVPRO(outputPath, stepInstance);
-                        break;
-                    case XML:
-                        //already dealt with this option
-                        break;
-                    case XML_SLIM:
-                        //outputToXML(outputPath, stepInstance, sequenceType, true);
-                        break;
-                    case JSON:
-                        outputToJSON(outputPath, stepInstance, sequenceType, false);
-                        break;
-                    case JSON_SLIM:
-                        outputToJSON(outputPath, stepInstance, sequenceType, true);
-                        break;
-                    case GFF3:
-                        outputToGFF(outputPath, stepInstance, sequenceType);
-                        break;
-                    case GFF3_PARTIAL:
-                        outputToGFFPartial(outputPath, stepInstance);
-                        break;
-                    case HTML:
-                        //Replace the default temp dir with the user specified one
-                        if (temporaryFileDirectory != null) {
+                Path outputPath = getPathName(explicitPath, filePathName, outputFormat);
+                try {
+                    Utilities.verboseLog(110, "Writing out " + outputPath.toString());
+                    if (LOGGER.isInfoEnabled()) {
+                        LOGGER.info("Writing out " + outputFormat + " file");
+                    }
+                    Utilities.printMemoryUsage("printing " + outputFormat);
+                    Utilities.verboseLog(10, " Writing out " + outputFormat + " output");
+
+                    switch (outputFormat) {
+                        case TSV:
+                            addTSVOutput(pipeline, outputPath, stepInstance, sequenceType);
+                            break;
+                        case TSV_PRO:
+                            addTSVPROOutput(pipeline, outputPath, stepInstance);
+                            break;
+                        case XML:
+                            //already dealt with this option
+                            break;
+                        case XML_SLIM:
+                            //outputToXML(outputPath, stepInstance, sequenceType, true);
+                            break;
+                        case JSON:
+                        case JSON_SLIM:
+                            final boolean isSlimOutput = outputFormat == FileOutputFormat.JSON_SLIM;
+                            if (sequenceType.equalsIgnoreCase("p")) {
+                                addJSONOutput(pipeline, outputPath, isSlimOutput);
+                            } else if (sequenceType.equalsIgnoreCase("n")) {
+                                outputNTToJSON(outputPath, stepInstance, isSlimOutput);
+                            }
+                            break;
+                        case GFF3:
+                            addGFFOutput(pipeline, outputPath, stepInstance, sequenceType);
+                            break;
+                        case GFF3_PARTIAL:
+                            addGFFPartialOutput(pipeline, outputPath, stepInstance);
+                            break;
+                        case HTML:
                             if (htmlResultWriter == null) {
                                 throw new IllegalStateException("htmlResultWriter is null ");
                             }
-                            htmlResultWriter.setTempDirectory(temporaryFileDirectory);
-                        }
-                        outputToHTML(outputPath, stepInstance);
-                        break;
-                    case SVG:
-                        //Replace the default temp dir with the user specified one
-                        if (temporaryFileDirectory != null) {
-                            svgResultWriter.setTempDirectory(temporaryFileDirectory);
-                        }
-                        outputToSVG(outputPath, stepInstance);
-                        break;
-                    default:
-                        LOGGER.warn("Unrecognised output format " + outputFormat + " - cannot write the output file.");
+                            addHTMLOutput(pipeline, outputPath);
+                            break;
+                        case SVG:
+                            addSVGOutput(pipeline, outputPath);
+                            break;
+                        default:
+                            LOGGER.warn("Unrecognised output format " + outputFormat + " - cannot write the output file.");
+                    }
+
+                } catch (IOException ioe) {
+                    final String p = outputPath.toAbsolutePath().toString();
+                    throw new IllegalStateException("IOException thrown when attempting to writeComment output from InterProScan to path: " + p, ioe);
                 }
+            }
 
-            } catch (IOException ioe) {
-                final String p = outputPath.toAbsolutePath().toString();
-                throw new IllegalStateException("IOException thrown when attempting to writeComment output from InterProScan to path: " + p, ioe);
+            if (pipeline.size() > 0) {
+                Utilities.verboseLog(10, " Writing out " + pipeline.size() + " protein output file(s) in a single pass");
+                writeProteins(pipeline, stepInstance);
             }
         }
 
@@ -359,9 +383,7 @@ public class WriteOutputStep extends Step {
                 try {
                     Files.delete(outputPath);
                 } catch (IOException e) {
-                    final String p = outputPath.toAbsolutePath().toString();
-                    System.out.println("Unable to overwrite file " + p + ".  Please check file permissions.");
-                    System.exit(101);
+                    throw new IllegalStateException("Unable to overwrite file " + outputPath.toAbsolutePath() + ".  Please check file permissions.", e);
                 }
             }
         } else {
@@ -417,101 +439,38 @@ public class WriteOutputStep extends Step {
     }
 
 
-    private void outputToXML(Path outputPath, StepInstance stepInstance, String sequenceType, boolean isSlimOutput) throws IOException {
+    private void addXMLOutput(ProteinOutputPipeline pipeline, Path outputPath, final String sequenceType, final boolean isSlimOutput) throws IOException {
         Utilities.verboseLog(110, " WriteOutputStep - outputToXML ");
-        if (!sequenceType.equalsIgnoreCase("p")) {
-            outputNTToXML(outputPath, stepInstance, sequenceType, isSlimOutput);
-            return;
-        }
-        IMatchesHolder matchesHolder = getMatchesHolder(stepInstance, sequenceType, isSlimOutput);
-
-        //Utilities.verboseLog(110, " WriteOutputStep - outputToXML xml-slim? " + isSlimOutput);
-        //xmlWriter.writeMatches(outputPath, matchesHolder);
-
-        Long bottomProteinId = stepInstance.getBottomProtein();
-        Long topProteinId = stepInstance.getTopProtein();
-
-        try (ProteinMatchesXMLJAXBFragmentsResultWriter writer = new ProteinMatchesXMLJAXBFragmentsResultWriter(outputPath, Protein.class, isSlimOutput)) {
-            //writer.header(interProScanVersion);
-            if (bottomProteinId != null && topProteinId != null) {
-                if (LOGGER.isInfoEnabled()) {
-                    LOGGER.info("Load " + topProteinId + " proteins from the db.");
+        final ProteinMatchesXMLJAXBFragmentsResultWriter writer;
+        try {
+            final int marshallerThreads = xmlMarshallerThreads > 0 ? xmlMarshallerThreads : Math.max(1, Utilities.cpuCount);
+            writer = new ProteinMatchesXMLJAXBFragmentsResultWriter(outputPath, Protein.class, isSlimOutput, marshallerThreads);
+            writer.header(interProScanVersion, "protein-matches");
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IllegalStateException("Unable to start the XML output " + outputPath.toAbsolutePath(), e);
+        }
+        pipeline.add(outputPath.toString(), new ProteinOutputPipeline.Sink() {
+            @Override
+            public void write(Protein protein) throws Exception {
+                if (isSlimOutput && protein.getMatches().isEmpty()) {
+                    //dont display proteins that dont have matches
+                    return;
                 }
-                Utilities.verboseLog(110, " WriteOutputStep -XML new " + " There are " + topProteinId + " proteins.");
-                int count = 0;
-                writer.header(interProScanVersion, "protein-matches");
-                final Set<NucleotideSequence> nucleotideSequences = new HashSet<>();
-                for (Long proteinIndex = bottomProteinId; proteinIndex <= topProteinId; proteinIndex++) {
-                    String proteinKey = Long.toString(proteinIndex);
-                    Protein protein = proteinDAO.getProtein(proteinKey);
-                    if (protein == null) {
-                        LOGGER.warn("protein with id  " + proteinIndex + " was null");
-                        continue;
-                        //something is wrong as we should get a null protein
-                    }
-                    if (isSlimOutput && protein.getMatches().isEmpty()) {
-                        //dont display proteins that dont have matches
-                        continue;
-                    }
-                    Set<Match> matches = protein.getMatches();
-
-                    for (Match match : matches) {
-                        StringBuilder matchBuilder = new StringBuilder();
-                        matchBuilder.append(protein.getId()).append(" ")
-                                .append(protein.getMd5()).append(" ")
-                                .append(match.getSignature().getSignatureLibraryRelease().getLibrary().getName()).append(" ");
-                        Entry matchEntry = match.getSignature().getEntry();
-                        if (matchEntry != null) {
-                            //check goterms 
-                            //check pathways
-                            matchBuilder.append("-- entry: ").append(matchEntry.getAccession());
-                            matchEntry.getGoXRefs();
-                            if (matchEntry.getGoXRefs() != null) {
-                                matchEntry.getGoXRefs().size();
-                            }
-                            matchEntry.getPathwayXRefs();
-                            if (matchEntry.getPathwayXRefs() != null) {
-                                matchEntry.getPathwayXRefs().size();
-                            }
-                        } else {
-                            matchBuilder.append("-- entry i NULL");
-                        }
-                        //System.out.println("matchBuilder:  "  + matchBuilder );
-
-                    }
-                    writer.write(protein, sequenceType, isSlimOutput);
-                    count++;
-                    if (count < proteinIndex) {
-                        writer.write(","); // More proteins/nucleotide sequences to follow
-                    }
-                    for (OpenReadingFrame orf : protein.getOpenReadingFrames()) {
-                        Utilities.verboseLog(120, "OpenReadingFrame: " + orf.getId() + " --  " + orf.getStart() + "-" + orf.getEnd());
-                        NucleotideSequence seq = orf.getNucleotideSequence();
-                        //Utilities.verboseLog(1100, "NucleotideSequence: \n" +  seq.toString());
-                        if (seq != null) {
-                            nucleotideSequences.add(seq);
-                            writer.write(seq, sequenceType, isSlimOutput);
-                        }
+                writer.write(protein, sequenceType, isSlimOutput);
+                for (OpenReadingFrame orf : protein.getOpenReadingFrames()) {
+                    Utilities.verboseLog(120, "OpenReadingFrame: " + orf.getId() + " --  " + orf.getStart() + "-" + orf.getEnd());
+                    NucleotideSequence seq = orf.getNucleotideSequence();
+                    if (seq != null) {
+                        writer.write(seq, sequenceType, isSlimOutput);
                     }
-
-                    //help garbage collection??
-                    if (proteinIndex % 20000 == 0){
-                        Utilities.printMemoryUsage("outputToXML:- GC scheduled at "  + proteinIndex + " proteins");
-                    }
-                    //print one protein then break
-                    //break;
                 }
-                Utilities.verboseLog(1100, "WriteOutPut nucleotideSequences size: " + nucleotideSequences.size());
             }
-            writer.close();
-        } catch (JAXBException e) {
-            e.printStackTrace();
-        } catch (XMLStreamException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
 
+            @Override
+            public void finish() throws Exception {
+                writer.close();
+            }
+        });
     }
 
     private void outputNTToXML(Path outputPath, StepInstance stepInstance, String sequenceType, boolean isSlimOutput) throws IOException {
@@ -566,94 +525,56 @@ public class WriteOutputStep extends Step {
     }
 
 
-    private void outputToJSON(Path outputPath, StepInstance stepInstance, String sequenceType, boolean isSlimOutput) throws IOException {
-        Utilities.verboseLog(110, " WriteOutputStep - outputToJSON ");
-        IMatchesHolder matchesHolder = getMatchesHolder(stepInstance, sequenceType, isSlimOutput);
-
+    private void addJSONOutput(ProteinOutputPipeline pipeline, Path outputPath, boolean isSlimOutput) throws IOException {
         Utilities.verboseLog(110, " WriteOutputStep - outputToJSON json-slim? " + isSlimOutput);
-        try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
-            //old way??
-            //writer.write(matchesHolder, proteinDAO, sequenceType, isSlimOutput);
+        final ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput);
+        writer.writeHeader(interProScanVersion);
+        pipeline.add(outputPath.toString(), new ProteinOutputPipeline.Sink() {
+            @Override
+            public void write(Protein protein) throws Exception {
+                writer.write(protein);
+            }
 
-        }
-        //Try writing to JSOn from this module
+            @Override
+            public void finish() throws Exception {
+                writer.close();
+            }
+        });
+    }
 
+    private void outputNTToJSON(Path outputPath, StepInstance stepInstance, boolean isSlimOutput) throws IOException {
+        Utilities.verboseLog(110, " WriteOutputStep - outputToJSON json-slim? " + isSlimOutput);
         Long bottomProteinId = stepInstance.getBottomProtein();
         Long topProteinId = stepInstance.getTopProtein();
 
-        final Map<String, String> parameters = stepInstance.getParameters();
-        final boolean mapToPathway = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_PATHWAY));
-        final boolean mapToGO = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_GO));
-        final boolean mapToInterProEntries = mapToPathway || mapToGO || Boolean.TRUE.toString().equals(parameters.get(MAP_TO_INTERPRO_ENTRIES));
-        //writer.setMapToInterProEntries(mapToInterProEntries);
-        //writer.setMapToGO(mapToGO);
-        // writer.setMapToPathway(mapToPathway);
-        if (sequenceType.equalsIgnoreCase("p")) {
-            try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
-                writer.header(interProScanVersion);
-                if (bottomProteinId != null && topProteinId != null) {
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("Load " + topProteinId + " proteins from the db.");
-                    }
-                    Utilities.verboseLog(110, " WriteOutputStep -JSON new " + " There are " + topProteinId + " proteins.");
-                    int count = 0;
-                    for (Long proteinIndex = bottomProteinId; proteinIndex <= topProteinId; proteinIndex++) {
-                        String proteinKey = Long.toString(proteinIndex);
-                        Protein protein = proteinDAO.getProtein(proteinKey);
-                        if (protein == null) {
-                            LOGGER.warn("protein with id  " + proteinIndex + " was null");
-                            continue;
-                        }
-                        writer.write(protein);
-                        count++;
-                        if (count < topProteinId) {
-                            writer.write(","); // More proteins/nucleotide sequences to follow
-                        }
-                        //help garbage collection??
-                        if (proteinIndex % 20000 == 0){
-                            Utilities.printMemoryUsage("outputToJSON:  GC scheduled at " + proteinIndex + " proteins");
-                        }
-                    }
+        try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
+            writer.writeHeader(interProScanVersion);
+            if (bottomProteinId != null && topProteinId != null) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("Load " + topProteinId + " proteins from the db.");
                 }
-                writer.footer();
-            }
-        }
-        if (sequenceType.equalsIgnoreCase("n")) {
-            try (ProteinMatchesJSONResultWriter writer = new ProteinMatchesJSONResultWriter(outputPath, isSlimOutput)) {
-                writer.header(interProScanVersion);
-                if (bottomProteinId != null && topProteinId != null) {
-                    if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("Load " + topProteinId + " proteins from the db.");
+                final Set<NucleotideSequence> nucleotideSequences = nucleotideSequenceDAO.getNucleotideSequences();
+                Utilities.verboseLog(110, " WriteOutputStep - JSON  NucleotideSequence " + " There are " + nucleotideSequences.size() + " nucleotides.");
+                int nucleotideSequenceCount = 0;
+
+                for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
+                    nucleotideSequenceCount ++;
+                    for (OpenReadingFrame orf : nucleotideSequence.getOpenReadingFrames()) {
+                        Protein protein = orf.getProtein();
+                        String proteinKey = Long.toString(protein.getId());
+                        Protein proteinMarshalled = proteinDAO.getProtein(proteinKey);
+                        //protein = proteinMarshalled;
+                        orf.setProtein(proteinMarshalled);
                     }
-                    final Set<NucleotideSequence> nucleotideSequences = nucleotideSequenceDAO.getNucleotideSequences();
-                    Utilities.verboseLog(110, " WriteOutputStep - JSON  NucleotideSequence " + " There are " + nucleotideSequences.size() + " nucleotides.");
-                    int nucleotideSequenceCount = 0;
-
-                    for (NucleotideSequence nucleotideSequence : nucleotideSequences) {
-                        nucleotideSequenceCount ++;
-                        for (OpenReadingFrame orf : nucleotideSequence.getOpenReadingFrames()) {
-                            Protein protein = orf.getProtein();
-                            String proteinKey = Long.toString(protein.getId());
-                            Protein proteinMarshalled = proteinDAO.getProtein(proteinKey);
-                            //protein = proteinMarshalled;
-                            orf.setProtein(proteinMarshalled);
-                        }
-                        writer.write(nucleotideSequence);
-                        if (nucleotideSequenceCount < nucleotideSequences.size()) {
-                            writer.write(","); // More proteins/nucleotide sequences to follow
-                        }
-                        if (nucleotideSequenceCount % 4000 == 0){
-                            Utilities.printMemoryUsage("outputToJSON - NucleotideSequences -  GC scheduled at " + nucleotideSequenceCount + " proteins");
-                        }
+                    writer.write(nucleotideSequence);
+                    if (nucleotideSequenceCount % 4000 == 0){
+                        Utilities.printMemoryUsage("outputToJSON - NucleotideSequences -  GC scheduled at " + nucleotideSequenceCount + " proteins");
                     }
-
-                    Utilities.verboseLog(1100, "WriteOutPut nucleotideSequences size: " + nucleotideSequences.size());
                 }
-                writer.footer();
 
+                Utilities.verboseLog(1100, "WriteOutPut nucleotideSequences size: " + nucleotideSequences.size());
             }
         }
-
     }
 
     private IMatchesHolder getMatchesHolder(StepInstance stepInstance, String sequenceType, boolean isSlimOutput) {
@@ -690,11 +611,10 @@ public class WriteOutputStep extends Step {
         return matchesHolder;
     }
 
-    private void outputToTSV(final Path path,
-                             final StepInstance stepInstance, String sequenceType) throws IOException {
-        try (ProteinMatchesTSVResultWriter writer = new ProteinMatchesTSVResultWriter(path, sequenceType.equalsIgnoreCase("p"))) {
-            writeProteinMatches(writer, stepInstance);
-        }
+    private void addTSVOutput(ProteinOutputPipeline pipeline,
+                              final Path path,
+                              final StepInstance stepInstance, String sequenceType) throws IOException {
+        addProteinMatchesOutput(pipeline, path, new ProteinMatchesTSVResultWriter(path, sequenceType.equalsIgnoreCase("p")), stepInstance);
         //write the site tsv production output
         //only for CDD and SFLD
 
@@ -707,9 +627,7 @@ public class WriteOutputStep extends Step {
             if (includeTsvSites) {
                 Path tsvProSitesPath = Paths.get(path.toString() + ".sites");
                 Utilities.verboseLog(1100, "tsv site path: " + tsvProSitesPath.getFileName().toString());
-                try (ProteinSiteMatchesTSVResultWriter tsvSitesWriter = new ProteinSiteMatchesTSVResultWriter(tsvProSitesPath)) {
-                    writeProteinMatches(tsvSitesWriter, stepInstance);
-                }
+                addProteinMatchesOutput(pipeline, tsvProSitesPath, new ProteinSiteMatchesTSVResultWriter(tsvProSitesPath), stepInstance);
             }
         }
 
@@ -733,12 +651,11 @@ public class WriteOutputStep extends Step {
         }
     }
 
-    private void outputToTSVPRO(final Path path,
-                                final StepInstance stepInstance) throws IOException {
+    private void addTSVPROOutput(ProteinOutputPipeline pipeline,
+                                 final Path path,
+                                 final StepInstance stepInstance) throws IOException {
         //first write the tsv production output
-        try (ProteinMatchesTSVProResultWriter writer = new ProteinMatchesTSVProResultWriter(path)) {
-            writeProteinMatches(writer, stepInstance);
-        }
+        addProteinMatchesOutput(pipeline, path, new ProteinMatchesTSVProResultWriter(path), stepInstance);
         //write the site tsv production output
         //only for CDD and SFLD
         final Map<String, String> parameters = stepInstance.getParameters();
@@ -750,108 +667,56 @@ public class WriteOutputStep extends Step {
             if (!excludeSites) {
                 Path tsvProSitesPath = Paths.get(path.toString() + ".sites");
                 Utilities.verboseLog(1100, "tsv site path: " + tsvProSitesPath.getFileName().toString());
-                try (ProteinSiteMatchesTSVResultWriter tsvSitesWriter = new ProteinSiteMatchesTSVResultWriter(tsvProSitesPath)) {
-
-                    writeProteinMatches(tsvSitesWriter, stepInstance);
-                }
+                addProteinMatchesOutput(pipeline, tsvProSitesPath, new ProteinSiteMatchesTSVResultWriter(tsvProSitesPath), stepInstance);
             }
         }
     }
 
-    private void outputToGFF(Path path, StepInstance stepInstance, String sequenceType) throws IOException {
-        ProteinMatchesGFFResultWriter writer = null;
-        try {
-            if (sequenceType.equalsIgnoreCase("n")) {
-                writer = new GFFResultWriterForNucSeqs(path, interProScanVersion, false);
-            }//Default tsvWriter for proteins
-            else {
-                writer = new GFFResultWriterForProtSeqs(path, interProScanVersion, true, true);
-            }
-
-            //This step writes features (protein matches) into the GFF file
-            writeProteinMatches(writer, stepInstance);
-            //This step writes FASTA sequence at the end of the GFF file
-            writeFASTASequences(writer);
-        } finally {
-            if (writer != null) {
-                writer.close();
+    private void addGFFOutput(ProteinOutputPipeline pipeline, Path path, StepInstance stepInstance, String sequenceType) throws IOException {
+        final ProteinMatchesGFFResultWriter writer;
+        if (sequenceType.equalsIgnoreCase("n")) {
+            writer = new GFFResultWriterForNucSeqs(path, interProScanVersion, false);
+        }//Default tsvWriter for proteins
+        else {
+            writer = new GFFResultWriterForProtSeqs(path, interProScanVersion, true, true);
+        }
+        //The features (protein matches) are written into the GFF file, then the FASTA sequences at the end of it
+        setMappings(writer, stepInstance);
+        pipeline.add(path.toString(), new ProteinMatchesSink(writer) {
+            @Override
+            public void finish() throws Exception {
+                writeFASTASequences(writer);
+                super.finish();
             }
-        }
+        });
     }
 
-    private void outputToGFFPartial(Path path, StepInstance stepInstance) throws IOException {
-        try (ProteinMatchesGFFResultWriter writer = new GFFResultWriterForProtSeqs(path, interProScanVersion, false, false)) {
-            writeProteinMatches(writer, stepInstance);
-        }
+    private void addGFFPartialOutput(ProteinOutputPipeline pipeline, Path path, StepInstance stepInstance) throws IOException {
+        addProteinMatchesOutput(pipeline, path, new GFFResultWriterForProtSeqs(path, interProScanVersion, false, false), stepInstance);
     }
 
 
-    private void outputToHTML(final Path path, StepInstance stepInstance) throws IOException {
+    private void addHTMLOutput(ProteinOutputPipeline pipeline, final Path path) throws IOException {
         // E.g. for "-b OUT" file = "/home/matthew/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/OUT.html.tar.gz"
-        writeGraphicalProteinMatches(htmlResultWriter, stepInstance);
-        List<Path> resultFiles = htmlResultWriter.getResultFiles();
-        // E.g. resultFiles =
-        // - data/freemarker/resources
-        //   - data/freemarker/resources/images
-        //     - data/freemarker/resources/images/ico_type_family_small.png
-        //     ...
-        //   - data/freemarker/resources/javascript
-        //   ...
-        // - ~/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/temp/my-computer-name_20160301_141713605_ivyx/jobWriteOutput/P22298.html
-        // - ~/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/temp/my-computer-name_20160301_141713605_ivyx/jobWriteOutput/P02939.html
-        // ...
-
-        buildTarArchive(path, resultFiles);
+        // The tarball holds the resources directory (images, javascript, css...) and one HTML file per protein, e.g. P22298.html
+        pipeline.add(path.toString(), new GraphicalSink(htmlResultWriter, path, true));
     }
 
     /**
-     * This method renders the SVG output files.
+     * This method adds the SVG output to the pipeline.
      * <p/>
      * Please note:
      * <p/>
      * When the SVG files aren't archived, they are written to the output file directory.
-     * Otherwise they will be written into the default outputDirectory of the {@link ProteinMatchesSVGResultWriter).
+     * Otherwise they are streamed into a single archive.
      *
-     * @param outputDir Output directory (this file object contains the output path).
-     * @param proteins  Set of result proteins.
+     * @param pipeline Output pipeline the proteins are written from.
+     * @param path     Output directory or archive path.
      * @throws IOException
      */
-    private void outputToSVG(final Path path, StepInstance stepInstance) throws IOException {
+    private void addSVGOutput(ProteinOutputPipeline pipeline, final Path path) throws IOException {
         // E.g. for "-b OUT" outputDir = "~/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/OUT.svg.tar.gz"
-        //If the archive mode is switched off single SVG files should be written to the global output directory
-        if (!archiveSVGOutput) {
-            final String outputDirPath = path.toAbsolutePath().toString();
-            svgResultWriter.setTempDirectory(outputDirPath);
-        }
-        writeGraphicalProteinMatches(svgResultWriter, stepInstance);
-        if (archiveSVGOutput) {
-            List<Path> resultFiles = svgResultWriter.getResultFiles();
-            // E.g. resultFiles =
-            // - ~/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/temp/my-computer-name_20160301_141713605_ivyx/jobWriteOutput/P22298.svg
-            // - ~/Projects/github-i5/interproscan/core/jms-implementation/target/interproscan-5-dist/temp/my-computer-name_20160301_141713605_ivyx/jobWriteOutput/P02939.svg
-            // ...
-
-            buildTarArchive(path, resultFiles);
-        }
-    }
-
-    private void buildTarArchive(Path path, List<Path> resultFiles) throws IOException {
-        TarArchiveBuilder tarArchiveBuilder = new TarArchiveBuilder(resultFiles, path, compressHtmlAndSVGOutput);
-        tarArchiveBuilder.buildTarArchive();
-        //Delete result files in the temp directory at the end
-        for (Path resultFile : resultFiles) {
-            //Only delete HTML/SVG files, but not the resource directory which is also part of the result files list
-            if (Files.isRegularFile(resultFile)) {
-                try {
-                    Files.delete(resultFile);
-                } catch (IOException e) {
-                    if (LOGGER.isWarnEnabled()) {
-                        final String r = resultFile.toAbsolutePath().toString();
-                        LOGGER.warn("Couldn't delete file " + r);
-                    }
-                }
-            }
-        }
+        pipeline.add(path.toString(), new GraphicalSink(svgResultWriter, path, archiveSVGOutput));
     }
 
     private void writeFASTASequences(ProteinMatchesGFFResultWriter writer) throws IOException {
@@ -862,11 +727,12 @@ public class WriteOutputStep extends Step {
         }
     }
 
-    private void writeProteinMatches(ProteinMatchesResultWriter writer, StepInstance stepInstance) throws IOException {
-        Utilities.verboseLog(110, " WriteOutputStep - outputToTSV-etc ");
-        Long bottomProteinId = stepInstance.getBottomProtein();
-        Long topProteinId = stepInstance.getTopProtein();
+    private void addProteinMatchesOutput(ProteinOutputPipeline pipeline, Path path, ProteinMatchesResultWriter writer, StepInstance stepInstance) {
+        setMappings(writer, stepInstance);
+        pipeline.add(path.toString(), new ProteinMatchesSink(writer));
+    }
 
+    private void setMappings(ProteinMatchesResultWriter writer, StepInstance stepInstance) {
         final Map<String, String> parameters = stepInstance.getParameters();
         final boolean mapToPathway = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_PATHWAY));
         final boolean mapToGO = Boolean.TRUE.toString().equals(parameters.get(MAP_TO_GO));
@@ -874,53 +740,204 @@ public class WriteOutputStep extends Step {
         writer.setMapToInterProEntries(mapToInterProEntries);
         writer.setMapToGO(mapToGO);
         writer.setMapToPathway(mapToPathway);
+    }
+
+    /**
+     * Reads each protein of the step's range once, and hands it to all of the outputs of the pipeline.
+     */
+    private void writeProteins(ProteinOutputPipeline pipeline, StepInstance stepInstance) {
+        Long bottomProteinId = stepInstance.getBottomProtein();
+        Long topProteinId = stepInstance.getTopProtein();
+
         if (bottomProteinId != null && topProteinId != null) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("Load " + topProteinId + " proteins from the db.");
             }
-            Utilities.verboseLog(110, " WriteOutputStep -tsv-etc " + " There are " + topProteinId + " proteins.");
+            Utilities.verboseLog(110, " WriteOutputStep - There are " + topProteinId + " proteins.");
             int count = 0;
             for (Long proteinIndex = bottomProteinId; proteinIndex <= topProteinId; proteinIndex++) {
                 String proteinKey = Long.toString(proteinIndex);
                 Protein protein = proteinDAO.getProtein(proteinKey);
-                if (protein == null || protein.getMatches().isEmpty()) {
+                if (protein == null) {
+                    LOGGER.warn("protein with id  " + proteinIndex + " was null");
                     continue;
                 }
-                writer.write(protein);
+                pipeline.write(protein);
                 count++;
                 if (count % 40000 == 0) {
                     Utilities.verboseLog(110, " WriteOutout - wrote out matches for " + count + " proteins");
                 }
                 if (proteinIndex % 20000 == 0){
-                    Utilities.printMemoryUsage("writeProteinMatches: - GC scheduled at "  + proteinIndex + " proteins");
+                    Utilities.printMemoryUsage("writeProteins: - GC scheduled at "  + proteinIndex + " proteins");
                 }
             }
         }
     }
 
-    private void writeGraphicalProteinMatches(GraphicalOutputResultWriter writer, StepInstance stepInstance) throws IOException {
-        Utilities.verboseLog(110, " WriteOutputStep - outputToTSV-etc ");
-        Long bottomProteinId = stepInstance.getBottomProtein();
-        Long topProteinId = stepInstance.getTopProtein();
+    /**
+     * Writes the proteins that have matches with a {@link ProteinMatchesResultWriter}, e.g. TSV or GFF3.
+     */
+    private static class ProteinMatchesSink implements ProteinOutputPipeline.Sink {
 
-        if (bottomProteinId != null && topProteinId != null) {
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Load " + topProteinId + " proteins from the db.");
+        private final ProteinMatchesResultWriter writer;
+
+        ProteinMatchesSink(ProteinMatchesResultWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(Protein protein) throws Exception {
+            if (!protein.getMatches().isEmpty()) {
+                writer.write(protein);
             }
-            Utilities.verboseLog(110, " WriteOutputStep -tsv-etc " + " There are " + topProteinId + " proteins.");
-            int count = 0;
-            for (Long proteinIndex = bottomProteinId; proteinIndex <= topProteinId; proteinIndex++) {
-                String proteinKey = Long.toString(proteinIndex);
-                Protein protein = proteinDAO.getProtein(proteinKey);
-                if (protein == null || protein.getMatches().isEmpty()) {
-                    continue;
+        }
+
+        @Override
+        public void finish() throws Exception {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the proteins that have matches with a {@link GraphicalOutputResultWriter}, i.e. one HTML or SVG document
+     * per protein cross reference.
+     * <p/>
+     * The documents are rendered in memory on a pool of threads, and written in protein order straight into the
+     * tarball (or the output directory), so no temporary files are created.  The same threads compress the tarball.
+     */
+    private class GraphicalSink implements ProteinOutputPipeline.Sink {
+
+        private final GraphicalOutputResultWriter writer;
+
+        private final Path path;
+
+        private final boolean archive;
+
+        private final int threads;
+
+        private final ExecutorService renderingPool;
+
+        private final int maxPendingProteins;
+
+        private final Deque<Future<Map<String, byte[]>>> pendingDocuments = new ArrayDeque<>();
+
+        private boolean opened = false;
+
+        private TarArchiveStreamWriter tarArchiveWriter;
+
+        GraphicalSink(GraphicalOutputResultWriter writer, Path path, boolean archive) {
+            this.writer = writer;
+            this.path = path;
+            this.archive = archive;
+            this.threads = graphicalOutputThreads > 0 ? graphicalOutputThreads : Math.max(1, Utilities.cpuCount);
+            this.maxPendingProteins = threads * 16;
+            final String threadName = "render-" + path.getFileName() + "-";
+            this.renderingPool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, threadName + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
                 }
-                writer.write(protein, entryHierarchy);
-                count++;
-                if (count % 40000 == 0) {
-                    Utilities.verboseLog(110, " WriteOutout - wrote out matches for " + count + " proteins");
+            });
+        }
+
+        @Override
+        public void write(final Protein protein) throws Exception {
+            if (protein.getMatches().isEmpty()) {
+                return;
+            }
+            try {
+                open();
+                pendingDocuments.addLast(renderingPool.submit(new Callable<Map<String, byte[]>>() {
+                    @Override
+                    public Map<String, byte[]> call() throws Exception {
+                        return writer.render(protein, entryHierarchy);
+                    }
+                }));
+                while (pendingDocuments.size() > maxPendingProteins) {
+                    writeNextDocuments();
+                }
+            } catch (Exception e) {
+                shutdown();
+                throw e;
+            }
+        }
+
+        @Override
+        public void finish() throws Exception {
+            try {
+                while (!pendingDocuments.isEmpty()) {
+                    writeNextDocuments();
+                }
+                open();
+                if (archive) {
+                    tarArchiveWriter.close();
+                }
+            } finally {
+                shutdown();
+            }
+        }
+
+        /**
+         * Creates the archive, starting with the resource files, or the output directory.
+         */
+        private void open() throws IOException {
+            if (opened) {
+                return;
+            }
+            opened = true;
+            if (archive) {
+                tarArchiveWriter = new TarArchiveStreamWriter(path, compressHtmlAndSVGOutput, renderingPool, threads);
+                for (Path resourceFile : writer.getResourceFiles()) {
+                    tarArchiveWriter.addPath(resourceFile);
+                }
+            } else {
+                Files.createDirectories(path);
+            }
+        }
+
+        /**
+         * Waits for the documents of the oldest pending protein and writes them out.
+         */
+        private void writeNextDocuments() throws IOException {
+            final Map<String, byte[]> documents;
+            try {
+                documents = pendingDocuments.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while rendering " + path, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to render " + path, e.getCause());
+            }
+            for (Map.Entry<String, byte[]> document : documents.entrySet()) {
+                if (archive) {
+                    tarArchiveWriter.addEntry(document.getKey(), document.getValue());
+                } else {
+                    Files.write(path.resolve(document.getKey()), document.getValue());
+                }
+            }
+        }
+
+        /**
+         * Drops the documents still being rendered, closes the archive and stops the threads.  The archive is
+         * closed first, as its last blocks are compressed on the same threads.
+         */
+        private void shutdown() {
+            for (Future<Map<String, byte[]>> pendingDocument : pendingDocuments) {
+                pendingDocument.cancel(true);
+            }
+            pendingDocuments.clear();
+            if (tarArchiveWriter != null) {
+                try {
+                    tarArchiveWriter.close();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Couldn't close " + path, e);
                 }
             }
+            renderingPool.shutdownNow();
         }
     }
 
@@ -247,37 +247,10 @@ public class Gene3DParseAndPersistOutputStep extends Step {
             //now persists the rawmatches
             Set<RawProtein<Gene3dHmmer3RawMatch>> rawProteins = new HashSet<>(matchData.values());
             Utilities.verboseLog(1100, "rawProteins # :" + rawProteins.size());
-            int count = 0;
-            RawMatch represantiveRawMatch = null;
-            for (RawProtein<Gene3dHmmer3RawMatch> rawProtein : rawProteins) {
-                count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
-            }
 
             if (rawProteins.size() > 0) {
                 Utilities.verboseLog(1100, "Persist Gene3D rawProteins # :" + rawProteins.size());
                 filteredMatchDAO.persist(rawProteins);
-                Long now = System.currentTimeMillis();
-                if (count > 0) {
-                    int matchesFound = 0;
-                    int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                    if (represantiveRawMatch != null) {
-                        Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                        String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                        Utilities.sleep(waitTimeFactor * 1000);
-                        //ignore the usual check until refactoring of the parse step
-                    } else {
-                        LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                        Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    }
-                    Long timeTaken = System.currentTimeMillis() - now;
-                    Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                            + " time taken: " + timeTaken);
-                }
 
             }
         }
@@ -107,58 +107,16 @@ public class WriteGene3dSsfFileStep extends Step {
         final String inputFilePath = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, this.getSsfInputFileTemplate());
 
         int count = 0;
-        int waitTimeFactor = 3;
-        Long proteinCount = stepInstance.getTopProtein() - stepInstance.getBottomProtein();
         Long now = System.currentTimeMillis();
         Set<RawProtein<Gene3dHmmer3RawMatch>> rawProteins = this.getRawMatchDAO().getProteinsByIdRange(
                 stepInstance.getBottomProtein(),
                 stepInstance.getTopProtein(),
                 getSignatureLibraryRelease()
         );
-        if(rawProteins.size() > 0) {
-            for (RawProtein<Gene3dHmmer3RawMatch> rawProtein : rawProteins) {
-                count += rawProtein.getMatches().size();
-            }
+        for (RawProtein<Gene3dHmmer3RawMatch> rawProtein : rawProteins) {
+            count += rawProtein.getMatches().size();
         }
         Long timeTaken = System.currentTimeMillis() - now;
-        int retryCount = 0;
-        Long allowedWaitTime = Long.valueOf(waitTimeFactor)  * 10 * 1000;
-        long chunkSize =  stepInstance.getTopProtein() - stepInstance.getBottomProtein();
-        while (count == 0 && chunkSize > 10) {
-            retryCount ++;
-            int countForWaitTime = proteinCount.intValue() * 200;
-            waitTimeFactor = Utilities.getWaitTimeFactor(countForWaitTime).intValue();
-            Utilities.sleep(waitTimeFactor * 1000);
-            // Get raw matches
-            rawProteins = this.getRawMatchDAO().getProteinsByIdRange(
-                    stepInstance.getBottomProtein(),
-                    stepInstance.getTopProtein(),
-                    getSignatureLibraryRelease()
-            );
-            if(rawProteins.size() > 0) {
-                for (RawProtein<Gene3dHmmer3RawMatch> rawProtein : rawProteins) {
-                    count += rawProtein.getMatches().size();
-                }
-            }
-            if (count == 0){
-                String matchPersistWarning = "Possible db problem: failed to  get Gene3d matches for the domain finder:  proteins ("
-                        + rawProteins.size()
-                        + ") protein-range : " + stepInstance.getBottomProtein() + " - "
-                        + stepInstance.getTopProtein()
-                        + " library : " + getSignatureLibraryRelease()
-                        + " matchesCount: " + count;
-                if (retryCount == 1) {
-                    LOGGER.debug(matchPersistWarning);
-                }
-                timeTaken = System.currentTimeMillis() - now;
-                //we try three times then break
-                if (chunkSize < 100 || timeTaken > allowedWaitTime || retryCount > 3) {
-                    LOGGER.warn(matchPersistWarning);
-                    Utilities.verboseLog(matchPersistWarning);
-                    break;
-                }
-            }
-        }
 
         Utilities.verboseLog(1100, "Raw proteins: " + rawProteins.size() + ", matches: " + count + ", timeTaken: " + timeTaken);
 
@@ -109,8 +109,8 @@ public class HamapCreateMiniDatabaseStep extends Step {
             return;
         }
 
-        delayForNfs();
         final String fileNameTblout = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, outputFileNameTbloutTemplate);
+        delayForNfs(fileNameTblout);
         final String fastaFileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, fastaFileNameTemplate);
         final String filteredFastaInputFileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, filteredFastaInputFileNameTemplate);
 
@@ -88,18 +88,6 @@ public class HamapPostProcessingStep extends Step {
         if(rawMatches.size() == 0){
             Long sequenceCout = stepInstance.getTopProtein() - stepInstance.getBottomProtein();
             Utilities.verboseLog(110, "Zero matches found: on " + sequenceCout + " proteins stepinstance:" + stepInstance.toString());
-            int waitTimeFactor = 2;
-            if (! Utilities.isRunningInSingleSeqMode()){
-                waitTimeFactor = Utilities.getWaitTimeFactorLogE(10 * sequenceCout.intValue()).intValue();
-            }
-            Utilities.sleep(waitTimeFactor * 1000);
-
-            rawMatches = rawMatchDAO.getProteinsByIdRange(
-                    stepInstance.getBottomProtein(),
-                    stepInstance.getTopProtein(),
-                    signatureLibraryRelease
-            );
-            Utilities.verboseLog(110, "matches after waitTimeFactor: " + waitTimeFactor + " - " + rawMatches.size());
         }
         int matchCount = 0;
         for (final RawProtein rawProtein : rawMatches) {
@@ -141,6 +141,14 @@ public class RunHmmerBinaryStep extends RunBinaryStep {
         this.forceHmmsearch = forceHmmsearch;
     }
 
+    /**
+     * Without -o, HMMER writes the same report to stdout, which is where it is parsed from while running.
+     */
+    @Override
+    public boolean isUsesFileOutputSwitch() {
+        return super.isUsesFileOutputSwitch() && !isParseOutputWhileRunning();
+    }
+
     @Override
     protected List<String> createCommand(StepInstance stepInstance, String temporaryFileDirectory) {
 
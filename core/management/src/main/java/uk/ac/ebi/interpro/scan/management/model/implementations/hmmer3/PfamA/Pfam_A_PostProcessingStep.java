@@ -11,7 +11,7 @@ import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
 import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.persistence.FilteredMatchDAO;
-import uk.ac.ebi.interpro.scan.persistence.raw.PfamHmmer3RawMatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.IOException;
@@ -37,7 +37,7 @@ public class Pfam_A_PostProcessingStep extends Step {
 
     private String signatureLibraryRelease;
 
-    private PfamHmmer3RawMatchDAO rawMatchDAO;
+    private RawMatchStore<PfamHmmer3RawMatch> rawMatchDAO;
 
     private FilteredMatchDAO filteredMatchDAO;
 
@@ -69,7 +69,7 @@ public class Pfam_A_PostProcessingStep extends Step {
     }
 
     @Required
-    public void setRawMatchDAO(PfamHmmer3RawMatchDAO rawMatchDAO) {
+    public void setRawMatchDAO(RawMatchStore<PfamHmmer3RawMatch> rawMatchDAO) {
         this.rawMatchDAO = rawMatchDAO;
     }
 
@@ -104,18 +104,6 @@ public class Pfam_A_PostProcessingStep extends Step {
         if(rawMatches.size() == 0){
             Long sequenceCout = stepInstance.getTopProtein() - stepInstance.getBottomProtein();
             Utilities.verboseLog(110, "Zero matches found: on " + sequenceCout + " proteins stepinstance:" + stepInstance.toString());
-            int waitTimeFactor = 2;
-            if (! Utilities.isRunningInSingleSeqMode()){
-                waitTimeFactor = Utilities.getWaitTimeFactorLogE(10 * sequenceCout.intValue()).intValue();
-            }
-            Utilities.sleep(waitTimeFactor * 1000);
-            //try again
-            rawMatches = rawMatchDAO.getRawMatchesForProteinIdsInRange(
-                    stepInstance.getBottomProtein(),
-                    stepInstance.getTopProtein(),
-                    getSignatureLibraryRelease()
-            );
-            Utilities.verboseLog(110, "matches after waitTimeFactor: " + waitTimeFactor + " - " + rawMatches.size());
         }
         int matchCount = 0;
         for (final RawProtein rawProtein : rawMatches.values()) {
@@ -152,6 +140,7 @@ public class Pfam_A_PostProcessingStep extends Step {
             }
             filteredMatchDAO.persist(filteredMatches.values());
             Utilities.verboseLog(110,  " PfamA: filteredMatches persisted");
+            rawMatchDAO.removeProcessedRawMatches(stepInstance.getBottomProtein(), stepInstance.getTopProtein(), getSignatureLibraryRelease());
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to post process filtered matches.", e);
         }
@@ -58,10 +58,9 @@ public class ParsePhobiusOutputStep extends ParseAndPersistStep<PhobiusRawMatch,
     /**
     @Override
     public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
-        delayForNfs();
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, phobiusOutputFileNameTemplate);
+        delayForNfs(fileName);
         InputStream is = null;
-        PhobiusFeature represantiveRawMatch = null;
         int count = 0;
         try {
             is = new FileInputStream(fileName);
@@ -69,10 +68,6 @@ public class ParsePhobiusOutputStep extends ParseAndPersistStep<PhobiusRawMatch,
             for (PhobiusProtein phobiusProtein : phobiusProteins) {
                 if (phobiusProtein.getFeatures().size() > 0) {
                     count += phobiusProtein.getFeatures().size();
-                    if (represantiveRawMatch == null) {
-                        PhobiusFeature feature = phobiusProtein.getFeatures().iterator().next();
-                        represantiveRawMatch = feature;
-                    }
 //                Set<PhobiusMatch.PhobiusLocation> locations = Collections.singleton(
 //                        new PhobiusMatch.PhobiusLocation(feature.getStart(), feature.getStop())
 //                );
@@ -80,23 +75,6 @@ public class ParsePhobiusOutputStep extends ParseAndPersistStep<PhobiusRawMatch,
                 }
             }
             phobiusMatchDAO.persist(phobiusProteins);
-            //TODO refactor this
-            Long now = System.currentTimeMillis();
-            if (count > 0) {
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                } else {
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to parse Phobius file " + fileName, e);
         } finally {
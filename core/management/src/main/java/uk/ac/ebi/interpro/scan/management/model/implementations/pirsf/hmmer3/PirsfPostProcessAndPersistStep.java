@@ -11,7 +11,7 @@ import uk.ac.ebi.interpro.scan.model.Hmmer3Match;
 import uk.ac.ebi.interpro.scan.model.raw.PirsfHmmer3RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.persistence.FilteredMatchDAO;
-import uk.ac.ebi.interpro.scan.persistence.raw.PirsfHmmer3RawMatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.IOException;
@@ -29,7 +29,7 @@ public class PirsfPostProcessAndPersistStep extends Step {
 
     private String signatureLibraryRelease;
 
-    private PirsfHmmer3RawMatchDAO rawMatchDAO;
+    private RawMatchStore<PirsfHmmer3RawMatch> rawMatchDAO;
 
     private FilteredMatchDAO<PirsfHmmer3RawMatch, Hmmer3Match> filteredMatchDAO;
 
@@ -45,7 +45,7 @@ public class PirsfPostProcessAndPersistStep extends Step {
     }
 
     @Required
-    public void setRawMatchDAO(PirsfHmmer3RawMatchDAO rawMatchDAO) {
+    public void setRawMatchDAO(RawMatchStore<PirsfHmmer3RawMatch> rawMatchDAO) {
         this.rawMatchDAO = rawMatchDAO;
     }
 
@@ -85,6 +85,7 @@ public class PirsfPostProcessAndPersistStep extends Step {
         try {
             Map<String, RawProtein<PirsfHmmer3RawMatch>> filteredMatches = postProcessor.process(rawMatches);
             filteredMatchDAO.persist(filteredMatches.values());
+            rawMatchDAO.removeProcessedRawMatches(stepInstance.getBottomProtein(), stepInstance.getTopProtein(), signatureLibraryRelease);
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to post process filtered PIRSF matches.", e);
         }
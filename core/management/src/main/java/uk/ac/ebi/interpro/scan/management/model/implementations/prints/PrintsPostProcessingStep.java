@@ -11,7 +11,7 @@ import uk.ac.ebi.interpro.scan.model.FingerPrintsMatch;
 import uk.ac.ebi.interpro.scan.model.raw.PrintsRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.persistence.FilteredMatchDAO;
-import uk.ac.ebi.interpro.scan.persistence.raw.PrintsRawMatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.IOException;
@@ -31,7 +31,7 @@ public class PrintsPostProcessingStep extends Step {
 
     private String signatureLibraryRelease;
 
-    private PrintsRawMatchDAO rawMatchDAO;
+    private RawMatchStore<PrintsRawMatch> rawMatchDAO;
 
     private FilteredMatchDAO<PrintsRawMatch, FingerPrintsMatch> filteredMatchDAO;
 
@@ -46,7 +46,7 @@ public class PrintsPostProcessingStep extends Step {
     }
 
     @Required
-    public void setRawMatchDAO(PrintsRawMatchDAO rawMatchDAO) {
+    public void setRawMatchDAO(RawMatchStore<PrintsRawMatch> rawMatchDAO) {
         this.rawMatchDAO = rawMatchDAO;
     }
 
@@ -85,6 +85,7 @@ public class PrintsPostProcessingStep extends Step {
         try {
             Map<String, RawProtein<PrintsRawMatch>> filteredMatches = postProcessor.process(rawMatches);
             filteredMatchDAO.persist(filteredMatches.values());
+            rawMatchDAO.removeProcessedRawMatches(stepInstance.getBottomProtein(), stepInstance.getTopProtein(), signatureLibraryRelease);
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to post process filtered PRINTS matches.", e);
         }
@@ -8,7 +8,6 @@ import uk.ac.ebi.interpro.scan.io.prodom.match.BlastProDomMatchParser;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.model.raw.ProDomRawMatch;
-import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.persistence.ProDomFilteredMatchDAO;
 import uk.ac.ebi.interpro.scan.util.Utilities;
@@ -74,17 +73,11 @@ public class ParseAndPersistProDomOutputStep extends Step {
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, proDomBinaryOutputFileName);
         Set<RawProtein<ProDomRawMatch>> rawProteins;
         int count = 0;
-        RawMatch represantiveRawMatch = null;
         try {
             is = new FileInputStream(fileName);
             rawProteins = parser.parse(is);
             for (RawProtein<ProDomRawMatch> rawProtein : rawProteins) {
                 count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
             }
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Parsed out " + rawProteins.size() + " proteins with matches from file " + fileName);
@@ -108,23 +101,6 @@ public class ParseAndPersistProDomOutputStep extends Step {
         if (rawProteins != null && rawProteins.size() > 0) {
             // Persist the matches
             rawMatchDAO.persist(rawProteins);
-            Long now = System.currentTimeMillis();
-            if (count > 0){
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                }else{
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         }
         else {
             if (LOGGER.isDebugEnabled()) {
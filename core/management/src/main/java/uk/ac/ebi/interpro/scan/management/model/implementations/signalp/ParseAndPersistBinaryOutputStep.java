@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Required;
 import uk.ac.ebi.interpro.scan.io.signalp.match.SignalPMatchParser;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
-import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.raw.SignalPRawMatch;
 import uk.ac.ebi.interpro.scan.persistence.SignalPFilteredMatchDAO;
@@ -70,7 +69,6 @@ public class ParseAndPersistBinaryOutputStep extends Step {
         InputStream is = null;
         final String fileName = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, signalPBinaryOutputFileName);
         Set<RawProtein<SignalPRawMatch>> rawProteins;
-        RawMatch represantiveRawMatch = null;
         int count = 0;
         try {
             is = new FileInputStream(fileName);
@@ -78,9 +76,6 @@ public class ParseAndPersistBinaryOutputStep extends Step {
 
             for (RawProtein<SignalPRawMatch> rawProtein : rawProteins) {
                 count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                }
             }
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Parsed out " + rawProteins.size() + " proteins with matches from file " + fileName);
@@ -104,24 +99,6 @@ public class ParseAndPersistBinaryOutputStep extends Step {
         if (rawProteins != null && rawProteins.size() > 0) {
             // Persist the matches
             rawMatchDAO.persist(rawProteins);
-            //TODO refactor this
-            Long now = System.currentTimeMillis();
-            if (count > 0) {
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                } else {
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         } else {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("No SignalP matches were persisted as none were found in the SignalP binary output file: " + fileName);
@@ -70,52 +70,16 @@ public class ParseSmartHmmpfamOutputStep extends Step {
     /*
     @Override
     public void execute(StepInstance stepInstance, String temporaryFileDirectory) {
-        delayForNfs();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Running Parser HMMER2 Output Step for proteins " + stepInstance.getBottomProtein() + " to " + stepInstance.getTopProtein());
         }
         InputStream is = null;
         try {
             final String hmmerOutputFilePath = stepInstance.buildFullyQualifiedFilePath(temporaryFileDirectory, hmmerOutputFilePathTemplate);
+            delayForNfs(hmmerOutputFilePath);
             is = new FileInputStream(hmmerOutputFilePath);
             final Set<RawProtein<SmartRawMatch>> parsedResults = parser.parse(is);
-            RawMatch represantiveRawMatch = null;
-            int count = 0;
-            for (RawProtein<SmartRawMatch> rawProtein : parsedResults) {
-                count += rawProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (rawProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = rawProtein.getMatches().iterator().next();
-                    }
-                }
-            }
             smartRawMatchDAO.insertProteinMatches(parsedResults);
-            Long now = System.currentTimeMillis();
-            if (count > 0){
-                int matchesFound = 0;
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    String signatureLibraryRelease = represantiveRawMatch.getSignatureLibraryRelease();
-                    while (matchesFound < count) {
-                        Utilities.sleep(waitTimeFactor * 1000);
-                        matchesFound = smartRawMatchDAO.getActualRawMatchesForProteinIdsInRange(stepInstance.getBottomProtein(),
-                                stepInstance.getTopProtein(), signatureLibraryRelease).size();
-                        if (matchesFound < count) {
-                            LOGGER.warn("Raw matches not yet committed - sleep for 5 seconds , count: " + count);
-                            Utilities.verboseLog(1100, "Raw matches not yet committed - sleep for "
-                                    + waitTimeFactor + " seconds, matches found: " + matchesFound
-                                    + " matchesCount expected: " + count);
-                        }
-                    }
-                }else{
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         }
         catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to read " + hmmerOutputFilePathTemplate, e);
@@ -15,7 +15,7 @@ import uk.ac.ebi.interpro.scan.model.Hmmer2Match;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.raw.SmartRawMatch;
 import uk.ac.ebi.interpro.scan.persistence.FilteredMatchDAO;
-import uk.ac.ebi.interpro.scan.persistence.raw.SmartHmmer2RawMatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.raw.RawMatchStore;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.IOException;
@@ -31,7 +31,7 @@ public class SmartPostProcessingStep extends Step {
 
     private String signatureLibraryRelease;
 
-    private SmartHmmer2RawMatchDAO rawMatchDAO;
+    private RawMatchStore<SmartRawMatch> rawMatchDAO;
 
     private FilteredMatchDAO<SmartRawMatch, Hmmer2Match> filteredMatchDAO;
 
@@ -47,7 +47,7 @@ public class SmartPostProcessingStep extends Step {
     }
 
     @Required
-    public void setRawMatchDAO(SmartHmmer2RawMatchDAO rawMatchDAO) {
+    public void setRawMatchDAO(RawMatchStore<SmartRawMatch> rawMatchDAO) {
         this.rawMatchDAO = rawMatchDAO;
     }
 
@@ -89,19 +89,6 @@ public class SmartPostProcessingStep extends Step {
             Long sequenceCout = stepInstance.getTopProtein() - stepInstance.getBottomProtein();
             Utilities.verboseLog(110, "Zero matches found: on " + sequenceCout + " proteins stepinstance:" + stepInstance.toString());
             //TODO do we expect matches?
-            int waitTimeFactor = 2;
-            if (! Utilities.isRunningInSingleSeqMode()){
-                 waitTimeFactor = Utilities.getWaitTimeFactorLogE(10 * sequenceCout.intValue()).intValue();
-            }
-            Utilities.sleep(waitTimeFactor * 1000);
-
-            //try again
-            rawMatches = rawMatchDAO.getRawMatchesForProteinIdsInRange(
-                    stepInstance.getBottomProtein(),
-                    stepInstance.getTopProtein(),
-                    signatureLibraryRelease
-            );
-            Utilities.verboseLog(110, "matches after waitTimeFactor: " + waitTimeFactor + " - " + rawMatches.size());
         }
 
         // Post process
@@ -114,6 +101,7 @@ public class SmartPostProcessingStep extends Step {
 
             Map<String, RawProtein<SmartRawMatch>> filteredMatches = postProcessor.process(rawMatches);
             filteredMatchDAO.persist(filteredMatches.values());
+            rawMatchDAO.removeProcessedRawMatches(stepInstance.getBottomProtein(), stepInstance.getTopProtein(), signatureLibraryRelease);
 
             matchCount = 0;
             for (final RawProtein rawProtein : filteredMatches.values()) {
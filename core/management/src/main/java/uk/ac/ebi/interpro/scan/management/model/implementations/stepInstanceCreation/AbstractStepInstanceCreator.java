@@ -13,6 +13,7 @@ import uk.ac.ebi.interpro.scan.util.Utilities;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongToIntFunction;
 
 /**
  * Factors out common functionality required by classes that
@@ -110,6 +111,62 @@ public abstract class AbstractStepInstanceCreator {
         return stepInstances;
     }
 
+    /**
+     * Creates a StepInstance for each slice of proteins, as returned by residueWeightedSlices.
+     *
+     * @param step   being the Step for which StepInstances should be created
+     * @param slices being the bottom and top protein primary keys of each slice, inclusive.
+     * @return a List of StepInstance objects for the Step passed in.
+     */
+    protected List<StepInstance> createStepInstances(Step step, List<long[]> slices) {
+        final List<StepInstance> stepInstances = new ArrayList<StepInstance>(slices.size());
+        for (long[] slice : slices) {
+            stepInstances.add(new StepInstance(step, slice[0], slice[1], null, null));
+        }
+        return stepInstances;
+    }
+
+    /**
+     * Splits a range of proteins into slices of similar total sequence length.  A slice is closed when
+     * adding the next protein would take it over maxResidues, or when it has maxProteins proteins.
+     * A protein longer than maxResidues gets a slice of its own.
+     * <p/>
+     * Should be private - but want to junit test as prone to boundary errors!
+     *
+     * @param bottomProteinId being the lowest protein primary key to consider
+     * @param topProteinId    being the highest protein primary key to consider.
+     * @param maxProteins     maximum number of proteins in a slice, if not null.
+     * @param maxResidues     maximum total residues of a slice, if not null.
+     * @param residueCount    the residues each protein adds to a slice, i.e. its sequence length,
+     *                        or 0 if the protein is in the range but not analysed (e.g. found in the lookup service).
+     * @return the bottom and top protein primary keys of each slice, inclusive.
+     */
+    protected static List<long[]> residueWeightedSlices(long bottomProteinId, long topProteinId,
+                                                        Integer maxProteins, Long maxResidues,
+                                                        LongToIntFunction residueCount) {
+        final List<long[]> slices = new ArrayList<long[]>();
+        long sliceBottom = bottomProteinId;
+        long sliceProteins = 0;
+        long sliceResidues = 0;
+        for (long proteinId = bottomProteinId; proteinId <= topProteinId; proteinId++) {
+            final int proteinResidues = residueCount.applyAsInt(proteinId);
+            final boolean sliceFull = (maxProteins != null && sliceProteins >= maxProteins)
+                    || (maxResidues != null && sliceResidues > 0 && sliceResidues + proteinResidues > maxResidues);
+            if (sliceFull) {
+                slices.add(new long[]{sliceBottom, proteinId - 1});
+                sliceBottom = proteinId;
+                sliceProteins = 0;
+                sliceResidues = 0;
+            }
+            sliceProteins++;
+            sliceResidues += proteinResidues;
+        }
+        if (sliceBottom <= topProteinId) {
+            slices.add(new long[]{sliceBottom, topProteinId});
+        }
+        return slices;
+    }
+
     /**
      * Takes a list of newly created StepInstance objects in a Map<Step, List<StepInstance>>
      * and sets up the dependencies between them.  Then stores the StepInstance objects to the database.
@@ -12,10 +12,10 @@ import uk.ac.ebi.interpro.scan.management.model.Jobs;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
 import uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCreation.StepInstanceCreatingStep;
+import uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCreation.nucleotide.RunTranslateToProteinsStep;
 import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -95,6 +95,7 @@ public class FastaFileLoadIntoDBStep extends Step implements StepInstanceCreatin
         LOGGER.debug("temporaryFileDirectory: " + temporaryFileDirectory);
         LOGGER.debug("dbStoreRoot: " + dbStoreRoot);
         fastaFileLoader.setLevelDBStoreRoot(dbStoreRoot);
+        fastaFileLoader.setMinimumOrfNucleotideSize(stepInstance.getParameters().get(RunTranslateToProteinsStep.MIN_NUCLEOTIDE_SIZE));
 
         String analysisJobNames = stepInstance.getParameters().get(ANALYSIS_JOB_NAMES_KEY);
         final String completionJobName = stepInstance.getParameters().get(COMPLETION_JOB_NAME_KEY);
@@ -122,34 +123,19 @@ public class FastaFileLoadIntoDBStep extends Step implements StepInstanceCreatin
                     if (Files.isReadable(path)) {
                         //
                         if (Files.size(path) == 0) {
-                            //GetORF result file
-                            // If getorf predicted nothing, there is nothing more to do.
-                            // TODO Consider if there is a better way of dealing with this than throwing an Exception
-                            // Should skip all subsequent steps, BUT should not "fail" - should elegantly report no proteins with zero exit status
-                            // Need to output empty files of the types expected, so external pipeline is not broken.
                             if (path.getFileName().toString().contains("orfs")) {
                                 System.out.println("\nThe ORF predication tool EMBOSS: getorf produced an empty result file (" + providedPath + ").");
                                 System.out.println("Therefore there are no proteins for InterproScan to analyse");
-                                System.out.println("Finishing...");
-                                System.exit(0);
+                            } else {
+                                System.out.println("\nThe FASTA input file " + providedPath + " is empty.");
+                                System.out.println("Therefore there are no sequences for InterproScan to analyse");
                             }
-                            // TODO - Should this also behave elegantly and output empty files?
-                            System.out.println("\nThe FASTA input file " + providedPath + " is empty.");
-                            System.out.println("Therefore there are no sequences for InterproScan to analyse");
-                            System.out.println("Finishing...");
-                            System.exit(0);
-                        }
-                        try {
-                            fastaFileInputStream = Files.newInputStream(path);
-                        } catch (FileNotFoundException e) {
-                            System.out.println("\nERROR: Could not find FASTA input file " + path.toAbsolutePath().toString());
-                            System.out.println("Exiting...");
-                            System.exit(2);
+                            finishWithoutSequences();
+                            return;
                         }
+                        fastaFileInputStream = Files.newInputStream(path);
                     } else {
-                        System.out.println("\nERROR: The FASTA input file " + providedPath + " is visible but cannot be read.  Please check the file permissions.");
-                        System.out.println("Exiting...");
-                        System.exit(2);
+                        throw new IllegalStateException("The FASTA input file " + providedPath + " is visible but cannot be read.  Please check the file permissions.");
                     }
                 } else {
                     // Absolute file path did not resolve, so try using the class loader.
@@ -166,9 +152,7 @@ public class FastaFileLoadIntoDBStep extends Step implements StepInstanceCreatin
                     stdinOn = true;
                 }
                 if ((!stdinOn) && fastaFileInputStream == null) {
-                    System.out.println("Cannot find the fasta file located at " + providedPath + fastaFileInputStatusMessage);
-                    System.out.println("Exiting...");
-                    System.exit(2);
+                    throw new IllegalStateException("Cannot find the fasta file located at " + providedPath + fastaFileInputStatusMessage);
                 }
 
                 if (LOGGER.isDebugEnabled()) {
@@ -280,12 +264,22 @@ public class FastaFileLoadIntoDBStep extends Step implements StepInstanceCreatin
                 sequenceLoadListener.setStepInstanceDAO(stepInstanceDAO);
 
                 fastaFileLoader.loadSequences(fastaFileInputStream, sequenceLoadListener, analysisJobMap, useMatchLookupService);
+                if (Utilities.getSequenceCount() == 0) {
+                    if ("n".equals(Utilities.getSequenceType())) {
+                        System.out.println("\nNo open reading frames were found in the nucleic acid sequences of " + providedPath + ".");
+                        System.out.println("Therefore there are no proteins for InterproScan to analyse");
+                    } else {
+                        System.out.println("\nNo sequences were found in the FASTA input file " + providedPath + ".");
+                        System.out.println("Therefore there are no sequences for InterproScan to analyse");
+                    }
+                    finishWithoutSequences();
+                }
 
                 LOGGER.debug("Finished loading sequences into the DB. step(FastaFileLoadIntoDBStep)");
                 Utilities.verboseLog(1100, "Finished loading sequences into the DB. step(FastaFileLoadIntoDBStep)");
 
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new IllegalStateException("Unable to read the FASTA input file " + providedPath, e);
             } finally {
                 if (fastaFileInputStream != null) {
                     try {
@@ -299,6 +293,15 @@ public class FastaFileLoadIntoDBStep extends Step implements StepInstanceCreatin
         Utilities.verboseLog(110, " FastaFileLoadIntoDBStep - done");
     }
 
+    /**
+     * No StepInstances are created when there is nothing to analyse, so there is no output to wait for either.
+     */
+    private void finishWithoutSequences() {
+        System.out.println("Finishing...");
+        Utilities.setSequenceCount(0);
+        Utilities.setWriteOutputStepCompleted(true);
+    }
+
     private String getTimeNow() {
         Calendar cal = Calendar.getInstance();
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss:SSS");
@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.eclipse.jetty.util.ConcurrentHashSet;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.util.StringUtils;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLengthIndex;
 import uk.ac.ebi.interpro.scan.business.sequence.fasta.FinaliseInitialSetupTasks;
 import uk.ac.ebi.interpro.scan.management.dao.StepInstanceDAO;
 import uk.ac.ebi.interpro.scan.management.model.Job;
@@ -34,6 +35,7 @@ public class FinaliseInitialSetupStep extends Step implements StepInstanceCreati
 
     protected Jobs jobs;
     protected StepInstanceDAO stepInstanceDAO;
+    protected SequenceLengthIndex sequenceLengthIndex;
 
      @Required
     public void setJobs(Jobs jobs) {
@@ -50,6 +52,13 @@ public class FinaliseInitialSetupStep extends Step implements StepInstanceCreati
         this.finaliseInitialSetupTasks = finaliseInitialSetupTasks;
     }
 
+    /**
+     * Optional, the lengths of the sequences loaded, to slice the analyses by total sequence length.
+     */
+    public void setSequenceLengthIndex(SequenceLengthIndex sequenceLengthIndex) {
+        this.sequenceLengthIndex = sequenceLengthIndex;
+    }
+
     /**
      * This method is called to execute the action that the StepInstance must perform.
      *
@@ -161,30 +170,11 @@ public class FinaliseInitialSetupStep extends Step implements StepInstanceCreati
         StepCreationSequenceLoadListener sequenceLoadListener =
                 new StepCreationSequenceLoadListener(analysisJobs, completionJob, prepareOutputJob, matchLookupJob, finalInitialJob, initialSetupSteps, stepInstance.getParameters());
         sequenceLoadListener.setStepInstanceDAO(stepInstanceDAO);
+        sequenceLoadListener.setSequenceLengthIndex(sequenceLengthIndex);
 
         finaliseInitialSetupTasks.execute(sequenceLoadListener, analysisJobMap,  useMatchLookupService);
 
         Utilities.verboseLog(110, "  FinaliseInitialSetupStep Step - done");
-
-        //should we sleep just to make sure changes that are  made on the filesystem kvstore are available for the next step
-
-        if (topProtein > 16000) {
-            int waitTime = (topProtein.intValue() / 32000 ) * 30 * 1000;
-            if(  getNfsDelayMilliseconds() < waitTime) {
-                if (waitTime > 120 * 1000) {
-                    //leave as it is for now, but we might need to have a cut off
-                    waitTime = 120 * 1000;
-
-                }
-                Utilities.sleep(waitTime);
-            }else {
-                delayForNfs();
-            }
-            Utilities.verboseLog(110, "  FinaliseStep - Slept for at least " + waitTime + " millis");
-        }else{
-            Utilities.verboseLog(110, " FinaliseStep - no waiting for the kvstore matchDB as protein count is < 16000: count = " + topProtein);
-        }
-
     }
 
 }
@@ -56,6 +56,8 @@ public class MatchLookupStep extends Step implements StepInstanceCreatingStep {
 
     private int proteinPrecalcLookupBatchSize = 100;
 
+    private int lookupBatchesInFlight = 1;
+
     final private ConcurrentHashSet<Protein> proteinsAwaitingPrecalcLookup = new ConcurrentHashSet<>();
 
     final private ConcurrentHashSet<Protein> proteinsAwaitingPersistence = new ConcurrentHashSet<>();
@@ -101,6 +103,13 @@ public class MatchLookupStep extends Step implements StepInstanceCreatingStep {
         this.proteinPrecalcLookupBatchSize = proteinPrecalcLookupBatchSize;
     }
 
+    /**
+     * The number of batches of proteins to have in flight to the lookup service at once.
+     */
+    public void setLookupBatchesInFlight(int lookupBatchesInFlight) {
+        this.lookupBatchesInFlight = lookupBatchesInFlight;
+    }
+
     public void setInterproscanVersion(String interproscanVersion) {
         this.interproscanVersion = interproscanVersion;
     }
@@ -208,19 +217,15 @@ public class MatchLookupStep extends Step implements StepInstanceCreatingStep {
                             proteinRanges, proteinDAO, lookupStoreToI5ModelDAO, preCalcMatchClient);
             precalculatedProteinLookup.setAnalysisJobMap(analysisJobMap);
             precalculatedProteinLookup.setInterproscanVersion(interproscanVersion);
+            precalculatedProteinLookup.setProteinPrecalcLookupBatchSize(proteinPrecalcLookupBatchSize);
+            precalculatedProteinLookup.setLookupBatchesInFlight(lookupBatchesInFlight);
             //TODO the following to be treated as comment
             //precalculatedProteinLookup.setProteinsWithoutLookupHit(proteinsWithoutLookupHit);
 
-            Thread lookupThread = new Thread(precalculatedProteinLookup);
-
-            Utilities.verboseLog(110, "Starting Thread... precalculatedProteinLookup - " + precalculatedProteinLookup.hashCode());
-
-            try {
-                lookupThread.start();
-                lookupThread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            // Runs on this thread - the lookup requests themselves are made in parallel by the lookup.
+            Utilities.verboseLog(110, "Starting precalculatedProteinLookup - " + precalculatedProteinLookup.hashCode()
+                    + " with " + lookupBatchesInFlight + " batches in flight");
+            precalculatedProteinLookup.run();
         }
         /*
         if(useMatchLookupService){
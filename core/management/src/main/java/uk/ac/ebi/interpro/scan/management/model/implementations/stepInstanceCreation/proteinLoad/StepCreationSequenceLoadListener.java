@@ -3,6 +3,7 @@ package uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCre
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.interpro.scan.business.sequence.SequenceLengthIndex;
 import uk.ac.ebi.interpro.scan.business.sequence.SequenceLoadListener;
 import uk.ac.ebi.interpro.scan.management.model.Job;
 import uk.ac.ebi.interpro.scan.management.model.Jobs;
@@ -14,6 +15,7 @@ import uk.ac.ebi.interpro.scan.model.Protein;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,7 @@ public class StepCreationSequenceLoadListener
     private Job matchLookupJob;
     private Job finaliseInitialStepsJob;
     private boolean initialSetupSteps;
+    private SequenceLengthIndex sequenceLengthIndex;
 
     public void setCompletionJob(Job completionJob) {
         this.completionJob = completionJob;
@@ -59,6 +62,13 @@ public class StepCreationSequenceLoadListener
         this.initialSetupSteps = initialSetupSteps;
     }
 
+    /**
+     * Optional - if set, the analysis steps with maxResidues are sliced by the total length of the sequences.
+     */
+    public void setSequenceLengthIndex(SequenceLengthIndex sequenceLengthIndex) {
+        this.sequenceLengthIndex = sequenceLengthIndex;
+    }
+
     /**
      * Optional constructor for use by Spring - do not remove.
      */
@@ -321,6 +331,15 @@ public class StepCreationSequenceLoadListener
                     Utilities.verboseLog(120,"analysisMaxCountMultiplier :  " + analysisMaxCountMultiplier + " idsWithoutLookupHitSize: " + idsWithoutLookupHitSize);
                 }
 
+                // Steps of the same job (and of jobs with the same limits) get the same residue weighted slices.
+                final boolean residueWeighted = sequenceLengthIndex != null
+                        && sequenceLengthIndex.covers(bottomNewSequenceId, topNewSequenceId);
+                if (!residueWeighted) {
+                    Utilities.verboseLog(110, "Sequence lengths not recorded, so analyses are sliced by the number of proteins only");
+                }
+                final BitSet analysedProteinIds = toBitSet(idsWithoutLookupHit);
+                final Map<String, List<long[]>> residueWeightedSlices = new HashMap<>();
+
                 for (Job job : jobs.getJobList()) {
                     //Only create new step instances for analysis which aren't integrated in the lookup service
                     //These jobs are flagged with 'doRunLocally'=TRUE
@@ -362,7 +381,26 @@ public class StepCreationSequenceLoadListener
                                 if (!changeMaxProteins) {
                                     Utilities.verboseLog(120, "newMaxProteins NOT changed as not all conditions were met ");
                                 }
-                                final List<StepInstance> jobStepInstances = createStepInstances(step, bottomNewSequenceId, topNewSequenceId);
+                                final List<StepInstance> jobStepInstances;
+                                if (residueWeighted && step.getMaxResidues() != null) {
+                                    // Proteins with a lookup hit are not analysed by these jobs, so do not count.
+                                    final BitSet countedProteinIds = (!job.isDoRunLocally() && useMatchLookupService) ? analysedProteinIds : null;
+                                    final String slicesKey = step.getMaxProteins() + "/" + step.getMaxResidues() + "/" + (countedProteinIds != null);
+                                    List<long[]> slices = residueWeightedSlices.get(slicesKey);
+                                    if (slices == null) {
+                                        slices = residueWeightedSlices(bottomNewSequenceId, topNewSequenceId,
+                                                step.getMaxProteins(), step.getMaxResidues(),
+                                                proteinId -> (countedProteinIds == null || countedProteinIds.get((int) proteinId))
+                                                        ? sequenceLengthIndex.getLength(proteinId)
+                                                        : 0);
+                                        residueWeightedSlices.put(slicesKey, slices);
+                                        Utilities.verboseLog(110, "Residue weighted slices for maxProteins " + step.getMaxProteins()
+                                                + " and maxResidues " + step.getMaxResidues() + ": " + slices.size());
+                                    }
+                                    jobStepInstances = createStepInstances(step, slices);
+                                } else {
+                                    jobStepInstances = createStepInstances(step, bottomNewSequenceId, topNewSequenceId);
+                                }
                                 stepToStepInstances.put(step, jobStepInstances);
                                 for (StepInstance jobStepInstance : jobStepInstances) {
 //                                    for (StepInstance completionStepInstance : completionStepInstances) {
@@ -465,6 +503,17 @@ public class StepCreationSequenceLoadListener
         }
     }
 
+    private static BitSet toBitSet(List<Long> proteinIds) {
+        if (proteinIds == null) {
+            return null;
+        }
+        final BitSet bitSet = new BitSet();
+        for (Long proteinId : proteinIds) {
+            bitSet.set(proteinId.intValue());
+        }
+        return bitSet;
+    }
+
     private long getNewSliceSize(long bottomProteinId, long topProteinId, long maxProteins) {
         long newSlice = 1l;
 
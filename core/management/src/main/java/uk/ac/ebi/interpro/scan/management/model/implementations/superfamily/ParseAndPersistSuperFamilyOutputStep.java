@@ -113,22 +113,6 @@ public class ParseAndPersistSuperFamilyOutputStep extends Step {
             Utilities.verboseLog(1100, "ParseAndPersistSuperFamilyOutputStep: Persist the parsed matches for proteins: " + bottomProtein + "-" + topProtein);
             filteredMatchDAO.persist(rawProteins);
             Utilities.verboseLog(1100, "ParseAndPersistSuperFamilyOutputStep: Completed persisting the parsed matches for proteins: " + bottomProtein + "-" + topProtein);
-            //TODO refactor this
-            Long now = System.currentTimeMillis();
-            if (count > 0) {
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (representativeRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + representativeRawMatch.toString());
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                } else {
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + representativeRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + representativeRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + representativeRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         } else {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("No SuperFamily matches were persisted as none were found in the SuperFamily binary output file: " + fileName);
@@ -8,7 +8,6 @@ import uk.ac.ebi.interpro.scan.io.tmhmm.TMHMMProtein;
 import uk.ac.ebi.interpro.scan.io.tmhmm.TMHMMRawResultParser;
 import uk.ac.ebi.interpro.scan.management.model.Step;
 import uk.ac.ebi.interpro.scan.management.model.StepInstance;
-import uk.ac.ebi.interpro.scan.model.TMHMMMatch;
 import uk.ac.ebi.interpro.scan.persistence.TMHMMFilteredMatchDAO;
 import uk.ac.ebi.interpro.scan.persistence.TMHMMFilteredMatchDAOOld;
 import uk.ac.ebi.interpro.scan.util.Utilities;
@@ -69,15 +68,9 @@ public final class TMHMMParseStepOldV11 extends Step {
 
             Set<TMHMMProtein> proteins = new HashSet<>(); // parser.parse(stream);
 
-            TMHMMMatch represantiveRawMatch = null;
             int locationCount = 0;
             for (final TMHMMProtein tmhmmProtein : proteins) {
                 locationCount += tmhmmProtein.getMatches().size();
-                if (represantiveRawMatch == null) {
-                    if (tmhmmProtein.getMatches().size() > 0) {
-                        represantiveRawMatch = tmhmmProtein.getMatches().iterator().next();
-                    }
-                }
             }
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("TMHMM: Retrieved " + proteins.size() + " proteins.");
@@ -89,22 +82,6 @@ public final class TMHMMParseStepOldV11 extends Step {
             LOGGER.info("Persisting parsed matches...");
             //filteredMatchDAO.persist(proteins);  //TODO maybe not necessary with the new algorithm
 
-            //TODO refactor this
-            Long now = System.currentTimeMillis();
-            if (count > 0){
-                int waitTimeFactor = Utilities.getWaitTimeFactor(count).intValue();
-                if (represantiveRawMatch != null) {
-                    Utilities.verboseLog(1100, "represantiveRawMatch :" + represantiveRawMatch.toString());
-                    Utilities.sleep(waitTimeFactor * 1000);
-                    //ignore the usual check until refactoring of the parse step
-                }else{
-                    LOGGER.warn("Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                    Utilities.verboseLog(1100, "Check if Raw matches committed " + count + " rm: " + represantiveRawMatch);
-                }
-                Long timeTaken = System.currentTimeMillis() - now;
-                Utilities.verboseLog(1100, "ParseStep: count: " + count + " represantiveRawMatch : " + represantiveRawMatch.toString()
-                        + " time taken: " + timeTaken);
-            }
         } catch (IOException e) {
             throw new IllegalStateException("IOException thrown when attempting to parse Panther file " + outputFileNameTemplate, e);
         } finally {
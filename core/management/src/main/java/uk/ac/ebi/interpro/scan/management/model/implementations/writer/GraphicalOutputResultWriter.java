@@ -14,7 +14,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Contains methods common to all graphical output (e.g. HTML and SVG) writing classes.
@@ -86,4 +88,36 @@ public abstract class GraphicalOutputResultWriter {
         return 0; // Default
     }
 
+    /**
+     * Renders the documents of a protein in memory, without touching the file system.  Unlike
+     * {@link #write(Protein, EntryHierarchy)} this is thread safe, so proteins may be rendered in parallel.
+     *
+     * @return the documents keyed on their file name (e.g. P22298.svg), in cross reference order.
+     */
+    public Map<String, byte[]> render(final Protein protein, final EntryHierarchy entryHierarchy) throws IOException {
+        return Collections.emptyMap(); // Default
+    }
+
+    /**
+     * @return files or directories to archive alongside the rendered documents (e.g. images and style sheets).
+     */
+    public List<Path> getResourceFiles() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Writes rendered documents to the temp directory, and adds them to the result files.
+     */
+    protected void writeToTempDirectory(final Map<String, byte[]> documents) throws IOException {
+        if (documents.isEmpty()) {
+            return;
+        }
+        checkTempDirectory(tempDirectory);
+        for (Map.Entry<String, byte[]> document : documents.entrySet()) {
+            final Path newResultFile = Paths.get(tempDirectory, document.getKey());
+            resultFiles.add(newResultFile);
+            Files.write(newResultFile, document.getValue());
+        }
+    }
+
 }
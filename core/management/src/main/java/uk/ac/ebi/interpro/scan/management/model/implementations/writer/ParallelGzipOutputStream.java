@@ -0,0 +1,154 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compresses a stream in fixed size blocks, on the threads of an executor (as pigz does).
+ * <p/>
+ * Each block is written as a complete gzip member, in order.  Concatenated members are a valid gzip file,
+ * which gunzip, tar and {@link java.util.zip.GZIPInputStream} read as one stream
+ * (commons-compress only does if decompressConcatenated is set).
+ * <p/>
+ * Not thread safe, the executor is not shut down on close.
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private final ExecutorService executor;
+
+    private final int maxPendingBlocks;
+
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+
+    private int blockLength = 0;
+
+    private boolean blockSubmitted = false;
+
+    private boolean closed = false;
+
+    /**
+     * @param out       the compressed stream.
+     * @param executor  compresses the blocks.
+     * @param threads   the number of threads of the executor, so that enough blocks are queued to keep them busy.
+     * @param blockSize the number of uncompressed bytes per gzip member.
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int threads, int blockSize) {
+        super(out);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be at least 1, but was " + blockSize);
+        }
+        this.executor = executor;
+        this.maxPendingBlocks = Math.max(1, threads) * 2;
+        this.block = new byte[blockSize];
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int threads) {
+        this(out, executor, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int copied = Math.min(length, block.length - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, copied);
+            blockLength += copied;
+            offset += copied;
+            length -= copied;
+            if (blockLength == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes out the blocks submitted so far.  The current block is left to fill up, so that frequent flushes
+     * (e.g. by the tar stream after each entry) do not cost compression.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pendingBlocks.isEmpty()) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // An empty stream still gets one (empty) member, to be a valid gzip file.
+            if (blockLength > 0 || !blockSubmitted) {
+                submitBlock();
+            }
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] uncompressed = block;
+        final int length = blockLength;
+        pendingBlocks.addLast(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                return compress(uncompressed, length);
+            }
+        }));
+        blockSubmitted = true;
+        block = new byte[uncompressed.length];
+        blockLength = 0;
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeNextBlock();
+        }
+    }
+
+    /**
+     * Waits for the oldest block to be compressed and writes it out.
+     */
+    private void writeNextBlock() throws IOException {
+        try {
+            out.write(pendingBlocks.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compressing the output", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to compress the output", e.getCause());
+        }
+    }
+
+    private static byte[] compress(byte[] uncompressed, int length) throws IOException {
+        final ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+            gzip.write(uncompressed, 0, length);
+        }
+        return member.toByteArray();
+    }
+}
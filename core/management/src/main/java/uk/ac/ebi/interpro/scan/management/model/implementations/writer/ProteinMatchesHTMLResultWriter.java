@@ -17,18 +17,16 @@ import uk.ac.ebi.interpro.scan.web.model.SimpleEntry;
 import uk.ac.ebi.interpro.scan.web.model.SimpleProtein;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 
 /**
  * Write matches as output for InterProScan user.
  * <p/>
- * Please note: This class might be not thread-safe because of the resultFiles list array, but as I5 runs this instance
- * only once for all proteins at the end this OK.
+ * Please note: The methods writing files are not thread-safe because of the resultFiles list array, but as I5 runs
+ * this instance only once for all proteins at the end this OK.  The render methods are thread-safe.
  *
  * @author Maxim Scheremetjew, EMBL-EBI, InterPro
  * @version $Id$
@@ -38,10 +36,13 @@ public class ProteinMatchesHTMLResultWriter extends GraphicalOutputResultWriter
 
     private static final Logger LOGGER = LogManager.getLogger(ProteinMatchesHTMLResultWriter.class.getName());
 
+    private Path htmlResourcesDir;
+
     @Required
     public void setHtmlResourcesDir(String path) {
         if (path != null && path.length() > 0) {
-            resultFiles.add(Paths.get(path));
+            htmlResourcesDir = Paths.get(path);
+            resultFiles.add(htmlResourcesDir);
         }
     }
 
@@ -108,39 +109,43 @@ public class ProteinMatchesHTMLResultWriter extends GraphicalOutputResultWriter
      * @throws java.io.IOException in the event of I/O problem writing out the file.
      */
     public int write(final Protein protein, final EntryHierarchy entryHierarchy, final boolean standalone) throws IOException {
+        writeToTempDirectory(render(protein, entryHierarchy, standalone));
+        return 0;
+    }
+
+    @Override
+    public Map<String, byte[]> render(final Protein protein, final EntryHierarchy entryHierarchy) throws IOException {
+        return render(protein, entryHierarchy, true);
+    }
+
+    /**
+     * Renders the protein views of a protein in memory, one per cross reference.
+     *
+     * @param standalone InterProScan standalone mode output?
+     * @return the views keyed on their file name (e.g. P22298.html).
+     */
+    public Map<String, byte[]> render(final Protein protein, final EntryHierarchy entryHierarchy, final boolean standalone) throws IOException {
+        final Map<String, byte[]> documents = new LinkedHashMap<>();
         if (entryHierarchy != null) {
             for (ProteinXref xref : protein.getCrossReferences()) {
                 final SimpleProtein simpleProtein = SimpleProtein.valueOf(protein, xref, entryHierarchy);
                 if (simpleProtein != null) {
-                    //Build model for FreeMarker
-                    final SimpleHash model = buildModelMap(simpleProtein, entryHierarchy, standalone);
-                    //Render template and write result to a file
-                    Writer writer = null;
                     try {
-                        final Template temp = freeMarkerConfig.getTemplate(freeMarkerTemplate);
-                        checkTempDirectory(tempDirectory);
-                        if (!tempDirectory.endsWith(File.separator)) {
-                            tempDirectory = tempDirectory + File.separator;
-                        }
-
-                        UrlFriendlyIdGenerator gen = UrlFriendlyIdGenerator.getInstance();
-                        String urlFriendlyId = gen.generate(xref.getIdentifier());
-                        final Path newResultFile = Paths.get(tempDirectory + urlFriendlyId + ".html");
-                        resultFiles.add(newResultFile);
-                        writer = Files.newBufferedWriter(newResultFile, characterSet);
-                        temp.process(model, writer);
-                        writer.flush();
+                        final String view = write(simpleProtein, entryHierarchy, standalone);
+                        String urlFriendlyId = UrlFriendlyIdGenerator.getInstance().generate(xref.getIdentifier());
+                        documents.put(urlFriendlyId + ".html", view.getBytes(characterSet));
                     } catch (TemplateException e) {
-                        e.printStackTrace();
-                    } finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
+                        LOGGER.error("Cannot render the HTML output for " + xref.getIdentifier(), e);
                     }
                 }
             }
         }
-        return 0;
+        return documents;
+    }
+
+    @Override
+    public List<Path> getResourceFiles() {
+        return (htmlResourcesDir == null) ? Collections.<Path>emptyList() : Collections.singletonList(htmlResourcesDir);
     }
 
     private SimpleHash buildModelMap(final SimpleProtein p, final EntryHierarchy entryHierarchy, final boolean standalone) {
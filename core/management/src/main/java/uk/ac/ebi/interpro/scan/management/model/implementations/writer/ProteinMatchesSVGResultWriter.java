@@ -15,12 +15,12 @@ import uk.ac.ebi.interpro.scan.web.model.EntryType;
 import uk.ac.ebi.interpro.scan.web.model.SimpleEntry;
 import uk.ac.ebi.interpro.scan.web.model.SimpleProtein;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -43,40 +43,33 @@ public class ProteinMatchesSVGResultWriter extends GraphicalOutputResultWriter {
      */
     @Override
     public int write(final Protein protein, final EntryHierarchy entryHierarchy) throws IOException {
+        writeToTempDirectory(render(protein, entryHierarchy));
+        return 0;
+    }
 
+    @Override
+    public Map<String, byte[]> render(final Protein protein, final EntryHierarchy entryHierarchy) throws IOException {
+        final Map<String, byte[]> documents = new LinkedHashMap<>();
         if (entryHierarchy != null) {
             for (ProteinXref xref : protein.getCrossReferences()) {
                 final SimpleProtein simpleProtein = SimpleProtein.valueOf(protein, xref, entryHierarchy);
                 if (simpleProtein != null) {
                     //Build model for FreeMarker
                     final SimpleHash model = buildModelMap(simpleProtein, entryHierarchy);
-                    //Render template and write result to a file
-                    Writer writer = null;
+                    //Render template into memory
                     try {
                         final Template temp = freeMarkerConfig.getTemplate(freeMarkerTemplate);
-                        checkTempDirectory(tempDirectory);
-                        if (!tempDirectory.endsWith(File.separator)) {
-                            tempDirectory = tempDirectory + File.separator;
-                        }
-
-                        UrlFriendlyIdGenerator gen = UrlFriendlyIdGenerator.getInstance();
-                        String urlFriendlyId = gen.generate(xref.getIdentifier());
-                        final Path newResultFile = Paths.get(tempDirectory + urlFriendlyId + ".svg");
-                        resultFiles.add(newResultFile);
-                        writer = Files.newBufferedWriter(newResultFile, characterSet);
+                        final StringWriter writer = new StringWriter();
                         temp.process(model, writer);
-                        writer.flush();
+                        String urlFriendlyId = UrlFriendlyIdGenerator.getInstance().generate(xref.getIdentifier());
+                        documents.put(urlFriendlyId + ".svg", writer.toString().getBytes(characterSet));
                     } catch (TemplateException e) {
-                        e.printStackTrace();
-                    } finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
+                        LOGGER.error("Cannot render the SVG output for " + xref.getIdentifier(), e);
                     }
                 }
             }
         }
-        return 0;
+        return documents;
     }
 
     private SimpleHash buildModelMap(SimpleProtein p, EntryHierarchy entryHierarchy) {
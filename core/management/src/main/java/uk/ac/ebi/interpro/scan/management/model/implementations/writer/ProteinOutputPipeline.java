@@ -0,0 +1,181 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.writer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands each protein to every requested output format, so that the proteins are read from the
+ * store (and deserialised) once, however many output files are written.
+ * <p/>
+ * Each format is written by its own thread from a bounded queue, so total output time is close to
+ * that of the slowest format, while at most queueCapacity proteins per format are held in memory.
+ * The proteins are shared between the threads and must not be modified by the sinks.
+ * <p/>
+ * Not thread safe: {@link #add}, {@link #write} and {@link #close} must be called from a single thread.
+ */
+public class ProteinOutputPipeline implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProteinOutputPipeline.class.getName());
+
+    /**
+     * Writes one output format.  Both methods are called on the format's own thread.
+     */
+    public interface Sink {
+
+        void write(Protein protein) throws Exception;
+
+        /**
+         * Called once all proteins have been written (and only if none of them failed).
+         */
+        void finish() throws Exception;
+    }
+
+    private static final Protein END_OF_OUTPUT = new Protein("X");
+
+    private final int queueCapacity;
+
+    private final List<Worker> workers = new ArrayList<>();
+
+    private boolean closed = false;
+
+    public ProteinOutputPipeline(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("The output queue capacity must be at least 1, but was " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Starts writing the output format on a new thread.
+     *
+     * @param name describes the output in thread names and error messages, e.g. the output path.
+     */
+    public void add(String name, Sink sink) {
+        if (closed) {
+            throw new IllegalStateException("Output pipeline already closed, cannot add " + name);
+        }
+        final Worker worker = new Worker(name, sink, new ArrayBlockingQueue<Protein>(queueCapacity));
+        final Thread thread = new Thread(worker, "write-output-" + workers.size());
+        worker.thread = thread;
+        workers.add(worker);
+        thread.start();
+    }
+
+    public int size() {
+        return workers.size();
+    }
+
+    /**
+     * Queues the protein for every output, blocking while the queue of the slowest one is full.
+     *
+     * @throws IllegalStateException if any of the outputs has failed.
+     */
+    public void write(Protein protein) {
+        checkFailures();
+        for (Worker worker : workers) {
+            put(worker, protein);
+        }
+    }
+
+    /**
+     * Waits for every output to be written and finished.
+     *
+     * @throws IllegalStateException if any of the outputs has failed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Worker worker : workers) {
+            put(worker, END_OF_OUTPUT);
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted whilst waiting for " + worker.name + " to be written", e);
+            }
+        }
+        checkFailures();
+    }
+
+    private void put(Worker worker, Protein protein) {
+        try {
+            worker.queue.put(protein);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst queueing proteins for " + worker.name, e);
+        }
+    }
+
+    private void checkFailures() {
+        for (Worker worker : workers) {
+            final Throwable failure = worker.failure;
+            if (failure != null) {
+                throw new IllegalStateException("Exception thrown when attempting to write output from InterProScan to " + worker.name, failure);
+            }
+        }
+    }
+
+    private static class Worker implements Runnable {
+
+        private final String name;
+
+        private final Sink sink;
+
+        private final BlockingQueue<Protein> queue;
+
+        private Thread thread;
+
+        private volatile Throwable failure;
+
+        Worker(String name, Sink sink, BlockingQueue<Protein> queue) {
+            this.name = name;
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            boolean ended = false;
+            try {
+                int count = 0;
+                Protein protein;
+                while ((protein = queue.take()) != END_OF_OUTPUT) {
+                    sink.write(protein);
+                    count++;
+                }
+                ended = true;
+                sink.finish();
+                Utilities.verboseLog(110, " ProteinOutputPipeline - wrote " + count + " proteins to " + name);
+            } catch (Throwable e) {
+                LOGGER.error("Failed to write " + name, e);
+                failure = e;
+                if (!ended) {
+                    // Keep taking the proteins, so that the reading thread is never blocked.
+                    drain();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (queue.take() != END_OF_OUTPUT) {
+                    // discard
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
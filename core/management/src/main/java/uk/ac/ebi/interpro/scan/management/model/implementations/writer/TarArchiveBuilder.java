@@ -85,9 +85,9 @@ public class TarArchiveBuilder {
         }
     }
 
-    private void addNewEntryToArchive(final Path tarArchiveEntry,
-                                      final TarArchiveOutputStream os,
-                                      String entryFileName) throws IOException {
+    static void addNewEntryToArchive(final Path tarArchiveEntry,
+                                     final TarArchiveOutputStream os,
+                                     String entryFileName) throws IOException {
         if (!Files.isHidden(tarArchiveEntry)) {
             entryFileName = entryFileName + tarArchiveEntry.getFileName();
             // E.g. entryFileName = "resources/images/" +  "ico_type_family_small.png"
@@ -0,0 +1,83 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.writer;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes a tarball one entry at a time, from documents held in memory, so that (unlike
+ * {@link TarArchiveBuilder}) the entries never have to be written to temporary files first.
+ * <p/>
+ * If compressed with more than one thread, the tarball is gzipped in blocks by a {@link ParallelGzipOutputStream}.
+ * <p/>
+ * Not thread safe.
+ */
+public class TarArchiveStreamWriter implements Closeable {
+
+    private final TarArchiveOutputStream tarArchiveOutputStream;
+
+    private boolean closed = false;
+
+    /**
+     * @param tarArchive the tarball to write.
+     * @param compress   if TRUE, gzip the tarball.
+     * @param executor   compresses the tarball, unused if threads is 1 or less.
+     * @param threads    the number of threads of the executor.
+     */
+    public TarArchiveStreamWriter(Path tarArchive, boolean compress, ExecutorService executor, int threads) throws IOException {
+        OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tarArchive));
+        if (compress) {
+            outputStream = (threads > 1)
+                    ? new ParallelGzipOutputStream(outputStream, executor, threads)
+                    : new GzipCompressorOutputStream(outputStream);
+        }
+        this.tarArchiveOutputStream = new TarArchiveOutputStream(outputStream);
+        this.tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+    }
+
+    public TarArchiveStreamWriter(Path tarArchive, boolean compress) throws IOException {
+        this(tarArchive, compress, null, 1);
+    }
+
+    /**
+     * Adds a file to the tarball, with the content given.
+     *
+     * @param entryFileName name of the file in the tarball, e.g. P22298.svg
+     * @param content       of the file.
+     */
+    public void addEntry(String entryFileName, byte[] content) throws IOException {
+        final TarArchiveEntry tarEntry = new TarArchiveEntry(entryFileName);
+        tarEntry.setSize(content.length);
+        tarArchiveOutputStream.putArchiveEntry(tarEntry);
+        tarArchiveOutputStream.write(content);
+        tarArchiveOutputStream.closeArchiveEntry();
+    }
+
+    /**
+     * Adds a file, or a directory and all of its content, from disk to the root of the tarball.
+     */
+    public void addPath(Path path) throws IOException {
+        TarArchiveBuilder.addNewEntryToArchive(path, tarArchiveOutputStream, "");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            tarArchiveOutputStream.finish();
+        } finally {
+            tarArchiveOutputStream.close();
+        }
+    }
+}
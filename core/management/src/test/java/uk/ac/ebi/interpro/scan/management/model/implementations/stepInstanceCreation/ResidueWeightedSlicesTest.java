@@ -0,0 +1,47 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.stepInstanceCreation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the boundaries of the residue weighted slices of AbstractStepInstanceCreator.
+ */
+public class ResidueWeightedSlicesTest extends AbstractStepInstanceCreator {
+
+    private static List<String> slices(long bottom, long top, Integer maxProteins, Long maxResidues, int[] lengths) {
+        final List<String> slices = new ArrayList<>();
+        for (long[] slice : residueWeightedSlices(bottom, top, maxProteins, maxResidues, proteinId -> lengths[(int) proteinId])) {
+            slices.add(slice[0] + "-" + slice[1]);
+        }
+        return slices;
+    }
+
+    @Test
+    public void testProteinCountOnly() {
+        final int[] lengths = new int[12];
+        assertEquals("[1-4, 5-8, 9-11]", slices(1, 11, 4, null, lengths).toString());
+        assertEquals("[1-11]", slices(1, 11, null, null, lengths).toString());
+        assertEquals("[3-3]", slices(3, 3, 4, 100L, lengths).toString());
+    }
+
+    @Test
+    public void testLongSequencesGetSmallerSlices() {
+        //                     0    1    2    3      4    5    6    7    8    9
+        final int[] lengths = {0, 300, 300, 300, 35000, 300, 300, 300, 300, 300};
+        // The titin-length sequence is sliced on its own, the others 3 at a time.
+        assertEquals("[1-3, 4-4, 5-7, 8-9]", slices(1, 9, 100, 1000L, lengths).toString());
+        // The protein count still applies.
+        assertEquals("[1-2, 3-3, 4-4, 5-6, 7-8, 9-9]", slices(1, 9, 2, 1000L, lengths).toString());
+    }
+
+    @Test
+    public void testProteinsNotAnalysedDoNotCount() {
+        // Proteins with a length of 0 here are in the range but found in the lookup service.
+        final int[] lengths = {0, 0, 0, 500, 0, 0, 500, 0, 500, 0, 0};
+        assertEquals("[1-7, 8-10]", slices(1, 10, null, 1000L, lengths).toString());
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.writer;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.model.Protein;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link ProteinOutputPipeline}.
+ */
+public class ProteinOutputPipelineTest {
+
+    private static class RecordingSink implements ProteinOutputPipeline.Sink {
+
+        private final List<String> written = new ArrayList<>();
+
+        private boolean finished = false;
+
+        @Override
+        public void write(Protein protein) throws Exception {
+            written.add(protein.getSequence());
+        }
+
+        @Override
+        public void finish() throws Exception {
+            finished = true;
+        }
+    }
+
+    private static String sequence(int i) {
+        final StringBuilder sequence = new StringBuilder("MKV");
+        for (int r = 0; r <= i; r++) {
+            sequence.append('A');
+        }
+        return sequence.toString();
+    }
+
+    @Test
+    public void testEveryOutputGetsEveryProteinInOrder() {
+        final RecordingSink first = new RecordingSink();
+        final RecordingSink second = new RecordingSink();
+        final List<String> sequences = new ArrayList<>();
+        try (ProteinOutputPipeline pipeline = new ProteinOutputPipeline(2)) {
+            pipeline.add("first", first);
+            pipeline.add("second", second);
+            assertEquals(2, pipeline.size());
+            for (int i = 0; i < 50; i++) {
+                final String sequence = sequence(i);
+                sequences.add(sequence);
+                pipeline.write(new Protein(sequence));
+            }
+        }
+        assertEquals(sequences, first.written);
+        assertEquals(sequences, second.written);
+        assertTrue(first.finished);
+        assertTrue(second.finished);
+    }
+
+    @Test
+    public void testFailedOutputIsReported() {
+        final RecordingSink good = new RecordingSink();
+        final ProteinOutputPipeline pipeline = new ProteinOutputPipeline(1);
+        pipeline.add("good", good);
+        pipeline.add("bad", new ProteinOutputPipeline.Sink() {
+            @Override
+            public void write(Protein protein) throws Exception {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void finish() throws Exception {
+                fail("A failed output should not be finished");
+            }
+        });
+        // Once the failure is seen the writes are refused, but the reading thread must never be blocked.
+        IllegalStateException e = null;
+        for (int i = 0; i < 20 && e == null; i++) {
+            try {
+                pipeline.write(new Protein(sequence(i)));
+            } catch (IllegalStateException ise) {
+                e = ise;
+            }
+        }
+        if (e == null) {
+            e = assertThrows(IllegalStateException.class, pipeline::close);
+        } else {
+            assertThrows(IllegalStateException.class, pipeline::close);
+        }
+        assertTrue(e.getMessage().contains("bad"));
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(good.finished);
+    }
+}
@@ -0,0 +1,112 @@
+package uk.ac.ebi.interpro.scan.management.model.implementations.writer;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for TarArchiveStreamWriter and ParallelGzipOutputStream, reading the tarballs back.
+ */
+public class TarArchiveStreamWriterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Map<String, byte[]> documents(int count) {
+        final Random random = new Random(42);
+        final Map<String, byte[]> documents = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            final StringBuilder svg = new StringBuilder("<svg id=\"P" + i + "\">");
+            for (int line = random.nextInt(200); line >= 0; line--) {
+                svg.append("<rect x=\"").append(random.nextInt(1000)).append("\" width=\"").append(random.nextInt(50)).append("\"/>\n");
+            }
+            documents.put("P" + i + ".svg", svg.append("</svg>").toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return documents;
+    }
+
+    private static Map<String, byte[]> readTarArchive(InputStream inputStream) throws IOException {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(inputStream)) {
+            TarArchiveEntry entry;
+            while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), entry.isDirectory() ? null : IOUtils.toByteArray(tarArchiveInputStream));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void testParallelCompressedArchive(@TempDir Path tempDir) throws IOException {
+        final Path resources = Files.createDirectories(tempDir.resolve("resources").resolve("css"));
+        Files.write(resources.resolve("protein.css"), "svg { fill: none; }".getBytes(StandardCharsets.UTF_8));
+        final Map<String, byte[]> documents = documents(2000);
+
+        final Path tarArchive = tempDir.resolve("OUT.svg.tar.gz");
+        try (TarArchiveStreamWriter writer = new TarArchiveStreamWriter(tarArchive, true, executor, 4)) {
+            writer.addPath(tempDir.resolve("resources"));
+            for (Map.Entry<String, byte[]> document : documents.entrySet()) {
+                writer.addEntry(document.getKey(), document.getValue());
+            }
+        }
+
+        final Map<String, byte[]> entries = readTarArchive(new GZIPInputStream(Files.newInputStream(tarArchive)));
+        assertTrue(entries.containsKey("resources/css/"), "The resources directory should be archived first");
+        assertArrayEquals("svg { fill: none; }".getBytes(StandardCharsets.UTF_8), entries.remove("resources/css/protein.css"));
+        entries.remove("resources/");
+        entries.remove("resources/css/");
+        assertEquals(documents.keySet().toString(), entries.keySet().toString(), "Documents should be in the order added");
+        for (Map.Entry<String, byte[]> document : documents.entrySet()) {
+            assertArrayEquals(document.getValue(), entries.get(document.getKey()));
+        }
+    }
+
+    @Test
+    public void testParallelGzipBlocks() throws IOException {
+        final byte[] data = new byte[100_003];
+        new Random(7).nextBytes(data);
+        for (int i = 0; i < data.length; i += 3) {
+            data[i] = 'A';
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, executor, 4, 4096)) {
+            gzip.write(data, 0, 10);
+            gzip.flush();
+            gzip.write(data[10]);
+            gzip.write(data, 11, data.length - 11);
+        }
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(data, IOUtils.toByteArray(gunzip));
+        }
+
+        // An empty stream is still valid gzip.
+        final ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(empty, executor, 4).close();
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(empty.toByteArray()))) {
+            assertEquals(-1, gunzip.read());
+        }
+    }
+}
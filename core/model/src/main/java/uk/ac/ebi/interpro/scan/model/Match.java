@@ -22,7 +22,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.hibernate.annotations.BatchSize;
 
@@ -78,6 +77,12 @@ public abstract class Match<T extends Location> implements Serializable, Cloneab
     @JsonManagedReference
     protected Set<T> locations = new LinkedHashSet<T>();
 
+    /**
+     * Hash code cached with the signature, location set and location count it was computed from, so that
+     * it is recomputed if any of them changes (including when Hibernate or JAXB set the fields).
+     */
+    private transient CachedHash cachedHash;
+
     protected Match() {
     }
 
@@ -178,12 +183,42 @@ public abstract class Match<T extends Location> implements Serializable, Cloneab
                 .isEquals();
     }
 
+    /**
+     * Same value as HashCodeBuilder(19, 51) over the locations and signature, without walking the locations
+     * again while neither has changed.  Locations are immutable once created, as their setters are private.
+     */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(19, 51)
-                .append(locations)
-                .append(signature)
-                .toHashCode();
+        final int locationCount = (locations == null) ? 0 : locations.size();
+        CachedHash cached = cachedHash;
+        if (cached == null || cached.signature != signature || cached.locations != locations || cached.locationCount != locationCount) {
+            int result = 19 * 51 + (locations == null ? 0 : locations.hashCode());
+            result = result * 51 + (signature == null ? 0 : signature.hashCode());
+            cached = new CachedHash(result, signature, locations, locationCount);
+            cachedHash = cached;
+        }
+        return cached.hash;
+    }
+
+    /**
+     * Immutable, so that a match hashed on several threads never sees a partly written cache.
+     */
+    private static final class CachedHash {
+
+        private final int hash;
+
+        private final Signature signature;
+
+        private final Set<?> locations;
+
+        private final int locationCount;
+
+        private CachedHash(int hash, Signature signature, Set<?> locations, int locationCount) {
+            this.hash = hash;
+            this.signature = signature;
+            this.locations = locations;
+            this.locationCount = locationCount;
+        }
     }
 
     @Override
@@ -288,28 +288,25 @@ public class NucleotideSequence implements OutputListElement, Serializable {
     @XmlTransient
     private static class Md5Helper {
 
-        private static final MessageDigest m;
-
         private static final int HEXADECIMAL_RADIX = 16;
 
-        static {
-            try {
-                m = MessageDigest.getInstance("MD5");
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException("Cannot find MD5 algorithm", e);
+        // Per thread, as for Protein.
+        private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance("MD5");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Cannot find MD5 algorithm", e);
+                }
             }
-        }
+        };
 
         static String calculateMd5(String sequence) {
-            String md5;
-            // As using single instance of MessageDigest, make thread safe.
-            // This should be much faster than creating a new MessageDigest object
-            // each time this method is called.
-            synchronized (m) {
-                m.reset();
-                m.update(sequence.getBytes(), 0, sequence.length());
-                md5 = new BigInteger(1, m.digest()).toString(HEXADECIMAL_RADIX);
-            }
+            final MessageDigest m = DIGEST.get();
+            m.reset();
+            m.update(sequence.getBytes(), 0, sequence.length());
+            final String md5 = new BigInteger(1, m.digest()).toString(HEXADECIMAL_RADIX);
             return (md5.toLowerCase(Locale.ENGLISH));
         }
 
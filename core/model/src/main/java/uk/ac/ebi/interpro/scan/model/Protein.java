@@ -519,29 +519,26 @@ public class Protein implements OutputListElement, Serializable {
     @XmlTransient
     private static class Md5Helper {
 
-        private static final MessageDigest m;
-
         private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
-        static {
-            try {
-                m = MessageDigest.getInstance("MD5");
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalStateException("Cannot find MD5 algorithm", e);
+        // One MessageDigest per thread, so that sequences can be loaded on several threads
+        // without waiting on a shared instance.
+        private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance("MD5");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Cannot find MD5 algorithm", e);
+                }
             }
-        }
+        };
 
        private static String calculateMd5(String sequence) {
-            String md5;
-            // As using single instance of MessageDigest, make thread safe.
-            // This should be much faster than creating a new MessageDigest object
-            // each time this method is called.
-            synchronized (m) {
-                m.reset();
-                m.update(sequence.getBytes(), 0, sequence.length());
-                byte[] data = m.digest();
-                md5 = toHex(data);
-            }
+            final MessageDigest m = DIGEST.get();
+            m.reset();
+            m.update(sequence.getBytes(), 0, sequence.length());
+            final String md5 = toHex(m.digest());
             return (md5.toLowerCase(Locale.ENGLISH));
         }
 
@@ -20,7 +20,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.hibernate.annotations.BatchSize;
 
@@ -638,6 +637,11 @@ public class Signature implements Serializable {
         return (md5 == null ? "" : md5.toLowerCase());
     }
 
+    // As comparing getSafeMd5() of both, without lower casing copies of the strings.
+    private static boolean md5Equals(String md5, String otherMd5) {
+        return (md5 == null ? "" : md5).equalsIgnoreCase(otherMd5 == null ? "" : otherMd5);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -645,41 +649,32 @@ public class Signature implements Serializable {
         if (!(o instanceof Signature))
             return false;
         final Signature s = (Signature) o;
+        // The identity (accession, library and version) first, as it tells most signatures apart.
         return new EqualsBuilder()
                 .append(accession, s.accession)
+                .append(getSignatureLibraryRelease(),s.getSignatureLibraryRelease())
                 .append(name, s.name)
                 .append(type, s.type)
                 .append(created, s.created)
                 .append(updated, s.updated)
-                .append(getSafeMd5(md5), getSafeMd5(s.md5))
                 .append(comment, s.comment)
-                .append(getSignatureLibraryRelease(),s.getSignatureLibraryRelease())
+                .isEquals()
+                && md5Equals(md5, s.md5);
 //                .append(getCrossReferences(), s.getCrossReferences())
 //                .append(getDescription(), s.getDescription())
 //                .append(getAbstract(), s.getAbstract())
 //                .append(models, s.models)
 //                .append(deprecatedAccessions, s.deprecatedAccessions)
-                .isEquals();
     }
 
+    /**
+     * Hashes the identity of the signature only, i.e. the accession and the library release, which is
+     * consistent with {@link #equals(Object)} and needs neither an allocation nor a walk over the dates.
+     */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(accession)
-                .append(name)
-                .append(type)
-                .append(created)
-                .append(updated)
-                .append(getSafeMd5(md5))
-                .append(comment)
-                .append(getSignatureLibraryRelease())
-//                .append(getCrossReferences())
-//                .append(getDescription())
-//                .append(getAbstract())
-// TODO: Figure out why adding models to hashCode() causes Signature.equals() to fail
-//                .append(models)
-//                .append(deprecatedAccessions)
-                .toHashCode();
+        int result = 17 * 37 + (accession == null ? 0 : accession.hashCode());
+        return result * 37 + (signatureLibraryRelease == null ? 0 : signatureLibraryRelease.hashCode());
     }
 
     /**
@@ -19,7 +19,6 @@ package uk.ac.ebi.interpro.scan.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.hibernate.annotations.BatchSize;
 
@@ -160,10 +159,9 @@ public class SignatureLibraryRelease implements Serializable {
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(19, 39)
-                .append(library)
-                .append(version)
-                .toHashCode();
+        // The library name rather than the enum identity hash, so that the value is the same in every JVM.
+        int result = 19 * 39 + (library == null ? 0 : library.name().hashCode());
+        return result * 39 + (version == null ? 0 : version.hashCode());
     }
 
     @Override
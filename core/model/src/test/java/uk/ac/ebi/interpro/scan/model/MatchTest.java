@@ -4,6 +4,8 @@ package uk.ac.ebi.interpro.scan.model;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -31,4 +33,28 @@ public class MatchTest {
         assertEquals(2, m.getLocations().size());
     }
 
+    @Test
+    public void testHashCodeFollowsLocations() {
+        final SignatureLibraryRelease release = new SignatureLibraryRelease(SignatureLibrary.PROSITE_PROFILES, "20.119");
+        final Signature signature = new Signature.Builder("PS50011").name("PROTEIN_KINASE_DOM").md5("ABC123").signatureLibraryRelease(release).build();
+        final ProfileScanMatch match = new ProfileScanMatch(signature, "PS50011",
+                new HashSet<>(Arrays.asList(new ProfileScanMatch.ProfileScanLocation(1, 2, 1.1d, "CIGARALIGN"))));
+        final int oneLocation = match.hashCode();
+        assertEquals(oneLocation, match.hashCode());
+
+        match.addLocation(new ProfileScanMatch.ProfileScanLocation(4, 5, 2.2d, "CIGARALIGN"));
+        assertNotEquals(oneLocation, match.hashCode());
+
+        // An equal match, whose signature differs only by the case of its MD5, hashes the same.
+        final Signature sameSignature = new Signature.Builder("PS50011").name("PROTEIN_KINASE_DOM").md5("abc123")
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.PROSITE_PROFILES, "20.119")).build();
+        final ProfileScanMatch same = new ProfileScanMatch(sameSignature, "PS50011", new HashSet<>(Arrays.asList(
+                new ProfileScanMatch.ProfileScanLocation(4, 5, 2.2d, "CIGARALIGN"),
+                new ProfileScanMatch.ProfileScanLocation(1, 2, 1.1d, "CIGARALIGN"))));
+        assertEquals(signature, sameSignature);
+        assertEquals(match, same);
+        assertEquals(match.hashCode(), same.hashCode());
+        assertTrue(new HashSet<Match>(Arrays.asList(match)).contains(same));
+    }
+
 }
@@ -6,6 +6,7 @@ import uk.ac.ebi.interpro.scan.io.match.coils.ParseCoilsMatch;
 import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.model.raw.CoilsRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import javax.persistence.Query;
 import java.util.*;
@@ -63,7 +64,7 @@ public class CoilsFilteredMatchDAO extends  FilteredMatchDAOImpl<CoilsRawMatch,
                 proteinMatches.add(match);
             }
             if(! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
@@ -6,7 +6,6 @@ import uk.ac.ebi.interpro.scan.genericjpadao.GenericDAOImpl;
 import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDB;
 import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
 
-import org.apache.commons.lang3.SerializationUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
@@ -37,8 +36,7 @@ public class GenericKVDAOImpl<T extends Serializable> extends GenericDAOImpl<T,
     }
 
     public byte[] serialize(T type) {
-        byte[] data = SerializationUtils.serialize(type);
-        return data;
+        return dbStore.serialize(type);
     }
 
     @Transactional
@@ -54,11 +52,12 @@ public class GenericKVDAOImpl<T extends Serializable> extends GenericDAOImpl<T,
     }
 
 
+    @SuppressWarnings("unchecked")
     public T get(String key){
         T value = null;
         byte[] data = dbStore.get(key);
         if (data != null) {
-           value = SerializationUtils.deserialize(data);
+           value = (T) dbStore.asObject(data);
         }
         return value;
     }
@@ -14,6 +14,7 @@ import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
 import uk.ac.ebi.interpro.scan.model.raw.Hmmer2RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -56,7 +57,7 @@ abstract class Hmmer2FilteredMatchDAO<T extends Hmmer2RawMatch>
                 //entityManager.persist(match);
             }
             if(! filteredMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibrary.getName();
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibrary.getName());
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
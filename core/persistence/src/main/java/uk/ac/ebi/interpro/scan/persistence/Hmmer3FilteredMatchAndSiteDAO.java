@@ -8,6 +8,7 @@ import uk.ac.ebi.interpro.scan.model.raw.Hmmer3RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.Hmmer3RawSite;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.*;
 
@@ -65,7 +66,7 @@ abstract class Hmmer3FilteredMatchAndSiteDAO<T extends Hmmer3RawMatch, E extends
             if(! (filteredMatches == null && filteredMatches.isEmpty())) {
                 Set<Match> proteinMatches = new HashSet(filteredMatches);
                 String signatureLibraryKey = proteinMatches.iterator().next().getSignature().getSignatureLibraryRelease().getLibrary().getName();
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
@@ -12,6 +12,7 @@ import uk.ac.ebi.interpro.scan.model.raw.Hmmer3RawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -81,7 +82,7 @@ abstract class Hmmer3FilteredMatchDAO<T extends Hmmer3RawMatch>
                     //try update with cross refs etc
                     updateMatch(i5Match);
                 }
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 matchDAO.persist(dbKey, proteinMatches);
             }
             /*
@@ -3,6 +3,8 @@ package uk.ac.ebi.interpro.scan.persistence;
 import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ebi.interpro.scan.genericjpadao.GenericDAO;
 import uk.ac.ebi.interpro.scan.model.Match;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDBRange;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.Map;
 import java.util.Set;
@@ -13,6 +15,13 @@ public interface MatchDAO<T extends Match>  extends GenericKVDAO<T>  {
 
     Set<Match> getMatchSet(String key);
 
+    /**
+     * Streams the match sets of every signature library for the proteins from bottomProteinId to
+     * topProteinId (inclusive), in protein id order, keyed as described by {@link MatchKey}.
+     * The range must be closed.
+     */
+    KVDBRange<Set<Match>> getMatchSets(Long bottomProteinId, Long topProteinId);
+
     Map<String, Set<Match>> getMatchesForEachProtein() throws Exception;;
 
     Set<Match> getMatches() throws Exception;
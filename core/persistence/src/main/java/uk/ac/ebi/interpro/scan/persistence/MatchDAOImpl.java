@@ -4,6 +4,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ebi.interpro.scan.model.Match;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDBRange;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.IOException;
@@ -58,6 +60,17 @@ public class MatchDAOImpl extends GenericKVDAOImpl<Match> implements MatchDAO<Ma
         return null;
     }
 
+    @Transactional(readOnly = true)
+    public KVDBRange<Set<Match>> getMatchSets(Long bottomProteinId, Long topProteinId) {
+        return dbStore.range(MatchKey.proteinKey(bottomProteinId), MatchKey.proteinKey(topProteinId + 1),
+                new KVDBRange.Decoder<Set<Match>>() {
+                    @Override
+                    public Set<Match> decode(byte[] data) {
+                        return dbStore.asMatchSet(data);
+                    }
+                });
+    }
+
     @Transactional(readOnly = true)
     public Map<String, Set<Match>> getMatchesForEachProtein() throws Exception{
         Map<String, Set<Match>> keyToMatchMap = new HashMap<>();
@@ -5,6 +5,7 @@ import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.model.raw.MobiDBRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import javax.persistence.Query;
 import java.util.*;
@@ -70,7 +71,7 @@ class MobiDBFilteredMatchDAO extends FilteredMatchDAOImpl<MobiDBRawMatch, MobiDB
                 }
             }
             if(! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
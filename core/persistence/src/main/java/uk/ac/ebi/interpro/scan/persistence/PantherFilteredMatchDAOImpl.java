@@ -8,6 +8,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -134,7 +135,7 @@ public class PantherFilteredMatchDAOImpl extends FilteredMatchDAOImpl<PantherRaw
                 proteinMatches.add(match);
                 //entityManager.persist(match);       // Persist the last one
             }
-            final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+            final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
             //Utilities.verboseLog(1100, "persisted matches in kvstore for key: " + dbKey);
 
             if (proteinMatches != null && ! proteinMatches.isEmpty()) {
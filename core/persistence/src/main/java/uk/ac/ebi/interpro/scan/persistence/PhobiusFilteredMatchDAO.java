@@ -9,6 +9,7 @@ import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.model.raw.PhobiusRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import javax.persistence.Query;
 import java.util.*;
@@ -88,7 +89,7 @@ public class PhobiusFilteredMatchDAO extends FilteredMatchDAOImpl<PhobiusRawMatc
                 proteinMatches.add(match);
             }
             if(! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
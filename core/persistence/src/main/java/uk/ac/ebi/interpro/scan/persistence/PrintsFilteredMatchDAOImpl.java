@@ -11,6 +11,7 @@ import uk.ac.ebi.interpro.scan.model.raw.PrintsRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.*;
 
@@ -113,7 +114,7 @@ public class PrintsFilteredMatchDAOImpl extends FilteredMatchDAOImpl<PrintsRawMa
                 proteinMatches.add(match);
                 //entityManager.persist(match);
             }
-            final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+            final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
             //Utilities.verboseLog(1100, "persisted matches in kvstore for key: " + dbKey);
 
             if (proteinMatches != null && ! proteinMatches.isEmpty()) {
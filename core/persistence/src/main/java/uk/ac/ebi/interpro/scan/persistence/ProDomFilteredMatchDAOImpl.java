@@ -9,6 +9,7 @@ import uk.ac.ebi.interpro.scan.model.raw.ProDomRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -110,7 +111,7 @@ public class ProDomFilteredMatchDAOImpl extends FilteredMatchDAOImpl<ProDomRawMa
             if(signatureLibraryKey == null) {
                 signatureLibraryKey = match.getSignature().getSignatureLibraryRelease().getLibrary().getName();
             }
-            final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+            final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
             Utilities.verboseLog(1100, "Now persist prodom matches in kvstore for key: " + dbKey);
 
             if (! proteinMatches.isEmpty()) {
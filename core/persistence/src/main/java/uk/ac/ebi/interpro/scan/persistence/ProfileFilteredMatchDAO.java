@@ -5,6 +5,7 @@ import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.model.raw.ProfileScanRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.*;
 
@@ -52,7 +53,7 @@ abstract class ProfileFilteredMatchDAO<T extends ProfileScanRawMatch>
                 //entityManager.persist(match);
            }
             if (! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibrary.getName();
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibrary.getName());
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
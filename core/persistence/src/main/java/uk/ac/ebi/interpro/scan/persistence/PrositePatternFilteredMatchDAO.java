@@ -5,6 +5,7 @@ import uk.ac.ebi.interpro.scan.model.raw.ProSitePatternRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.*;
 
@@ -54,7 +55,7 @@ public class PrositePatternFilteredMatchDAO
 
             }
             if (! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibrary.getName();
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibrary.getName());
                 matchDAO.persist(dbKey, proteinMatches);
             }
         }
@@ -54,6 +54,14 @@ public interface ProteinDAO extends GenericKVDAO<Protein> {
     @Transactional(readOnly = true)
     Protein getProtein(String key);
 
+    /**
+     * Batched {@link #getProtein}.
+     *
+     * @return the proteins in the order of the keys, null where there is no protein for a key.
+     */
+    @Transactional(readOnly = true)
+    List<Protein> getProteins(List<String> keys);
+
     @Transactional(readOnly = true)
     Protein getProteinNotInLookup(String key);
 
@@ -154,6 +154,15 @@ public class ProteinDAOImpl extends GenericKVDAOImpl<Protein> implements Protein
         return null;
     }
 
+    @Transactional(readOnly = true)
+    public List<Protein> getProteins(List<String> keys) {
+        final List<Protein> proteins = new ArrayList<>(keys.size());
+        for (byte[] byteProtein : dbStore.multiGet(keys)) {
+            proteins.add(byteProtein == null ? null : dbStore.asProtein(byteProtein));
+        }
+        return proteins;
+    }
+
     @Transactional
     public Protein getProteinNotInLookup(String key) {
         byte[] byteProtein = proteinsNotInLookupDB.get(key);
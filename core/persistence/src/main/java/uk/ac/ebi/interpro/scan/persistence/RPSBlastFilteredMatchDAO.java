@@ -10,6 +10,7 @@ import uk.ac.ebi.interpro.scan.model.raw.RPSBlastRawSite;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.helper.SignatureModelHolder;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import java.util.*;
 
@@ -143,7 +144,7 @@ abstract class RPSBlastFilteredMatchDAO<T extends RPSBlastRawMatch, R extends RP
                 }
             }
 
-            final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+            final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
             //Utilities.verboseLog(1100, "persisted matches in kvstore for key: " + dbKey);
 
             if (! proteinMatches.isEmpty()) {
@@ -6,6 +6,7 @@ import uk.ac.ebi.interpro.scan.model.raw.MobiDBRawMatch;
 import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
 import uk.ac.ebi.interpro.scan.model.raw.TMHMMRawMatch;
 import uk.ac.ebi.interpro.scan.util.Utilities;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 
 import javax.persistence.Query;
 import java.util.*;
@@ -73,7 +74,7 @@ public class TMHMMFilteredMatchDAO extends FilteredMatchDAOImpl<TMHMMRawMatch, T
                 //}
             }
             if(! proteinMatches.isEmpty()) {
-                final String dbKey = Long.toString(protein.getId()) + signatureLibraryKey;
+                final String dbKey = MatchKey.of(protein.getId(), signatureLibraryKey);
                 for(Match i5Match: proteinMatches){
                     //try update with cross refs etc
                     updateMatch(i5Match);
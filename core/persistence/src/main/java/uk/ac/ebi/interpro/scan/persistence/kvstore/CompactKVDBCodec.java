@@ -0,0 +1,691 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.ChunkerSingleton;
+import uk.ac.ebi.interpro.scan.model.Match;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.model.Signature;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary format for the protein and match stores.
+ * <p/>
+ * Keys are written as raw UTF-8.  Proteins, Match sets and single Matches are written field by field
+ * using a schema derived from the model classes (see {@link KVModelSchema}): integers as zig-zag varints,
+ * strings through a per-record string table and signatures as references into the store's
+ * {@link SignatureRegistry}.  Anything the schema cannot describe (e.g. proteins carrying
+ * ORFs or super matches, or values that are not part of the match model) is written using Java
+ * serialization inside the same envelope, so every value can be stored.
+ * <p/>
+ * Record layout:
+ * <pre>
+ *     MAGIC (1 byte) | FORMAT_VERSION (1 byte) | record kind (1 byte) | payload
+ * </pre>
+ * Values written by {@link SerializationKVDBCodec} are recognised by the Java serialization stream
+ * header and decoded with Java serialization, so stores from earlier releases can still be read.
+ */
+public class CompactKVDBCodec implements KVDBCodec {
+
+    private static final Logger LOGGER = LogManager.getLogger(CompactKVDBCodec.class.getName());
+
+    public static final String FORMAT = "compact-v1";
+
+    static final byte MAGIC = (byte) 0xC5;
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte KIND_SERIALIZED = 0;
+    static final byte KIND_PROTEIN = 1;
+    static final byte KIND_MATCH_SET = 2;
+    static final byte KIND_MATCH = 3;
+
+    private static final Constructor<Protein> PROTEIN_CONSTRUCTOR;
+    private static final Field PROTEIN_ID;
+    private static final Field PROTEIN_MD5;
+    private static final Field PROTEIN_SEQUENCE;
+    private static final Field PROTEIN_SEQUENCE_FIRST_CHUNK;
+    private static final Field PROTEIN_SEQUENCE_CHUNKS;
+    private static final Field PROTEIN_CROSS_REFERENCES;
+
+    static {
+        try {
+            PROTEIN_CONSTRUCTOR = Protein.class.getDeclaredConstructor();
+            PROTEIN_CONSTRUCTOR.setAccessible(true);
+            PROTEIN_ID = proteinField("id");
+            PROTEIN_MD5 = proteinField("md5");
+            PROTEIN_SEQUENCE = proteinField("sequence");
+            PROTEIN_SEQUENCE_FIRST_CHUNK = proteinField("sequenceFirstChunk");
+            PROTEIN_SEQUENCE_CHUNKS = proteinField("sequenceChunks");
+            PROTEIN_CROSS_REFERENCES = proteinField("crossReferences");
+        } catch (NoSuchMethodException | NoSuchFieldException e) {
+            throw new IllegalStateException("The Protein class no longer matches the compact KV store codec", e);
+        }
+    }
+
+    private static Field proteinField(String name) throws NoSuchFieldException {
+        Field field = Protein.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    private final KVModelSchema schema = new KVModelSchema();
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encodeKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decodeKey(byte[] key) {
+        if (key == null) {
+            return null;
+        }
+        if (SerializationKVDBCodec.isSerialized(key)) {
+            return (String) SerializationUtils.deserialize(key);
+        }
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encode(Object value, SignatureRegistry registry) {
+        try {
+            if (value instanceof Protein) {
+                return encodeProtein((Protein) value, registry);
+            } else if (value instanceof Match) {
+                RecordWriter writer = new RecordWriter(KIND_MATCH, registry);
+                writer.writeObject(value);
+                return writer.toByteArray();
+            } else if (value instanceof Set && isMatchSet((Set<?>) value)) {
+                Set<?> matches = (Set<?>) value;
+                RecordWriter writer = new RecordWriter(KIND_MATCH_SET, registry);
+                writer.writeVarInt(matches.size());
+                for (Object match : matches) {
+                    writer.writeObject(match);
+                }
+                return writer.toByteArray();
+            }
+        } catch (KVModelSchema.NotEncodableException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Falling back to Java serialization for " + value.getClass().getName() + ": " + e.getMessage());
+            }
+        }
+        return encodeSerialized(value);
+    }
+
+    @Override
+    public Object decode(byte[] data, SignatureRegistry registry) {
+        if (data == null) {
+            return null;
+        }
+        if (SerializationKVDBCodec.isSerialized(data)) {
+            // Written by an earlier release.
+            return SerializationUtils.deserialize(data);
+        }
+        if (data.length < 3 || data[0] != MAGIC) {
+            throw new IllegalStateException("Unrecognised KV store record (" + data.length + " bytes)");
+        }
+        if (data[1] != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported KV store record version " + data[1] + ", expected " + FORMAT_VERSION);
+        }
+        RecordReader reader = new RecordReader(data, 3, registry);
+        switch (data[2]) {
+            case KIND_SERIALIZED:
+                return SerializationUtils.deserialize(Arrays.copyOfRange(data, 3, data.length));
+            case KIND_PROTEIN:
+                return decodeProtein(reader);
+            case KIND_MATCH:
+                return reader.readObject(null);
+            case KIND_MATCH_SET:
+                int size = reader.readVarInt();
+                Set<Match> matches = new HashSet<>();
+                for (int i = 0; i < size; i++) {
+                    matches.add((Match) reader.readObject(null));
+                }
+                return matches;
+            default:
+                throw new IllegalStateException("Unknown KV store record kind " + data[2]);
+        }
+    }
+
+    private static boolean isMatchSet(Set<?> values) {
+        for (Object value : values) {
+            if (!(value instanceof Match)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] encodeSerialized(Object value) {
+        byte[] serialized = SerializationUtils.serialize((Serializable) value);
+        byte[] data = new byte[serialized.length + 3];
+        data[0] = MAGIC;
+        data[1] = FORMAT_VERSION;
+        data[2] = KIND_SERIALIZED;
+        System.arraycopy(serialized, 0, data, 3, serialized.length);
+        return data;
+    }
+
+    private byte[] encodeProtein(Protein protein, SignatureRegistry registry) {
+        if (!protein.getOpenReadingFrames().isEmpty() || !protein.getSuperMatches().isEmpty()) {
+            throw new KVModelSchema.NotEncodableException("protein has ORFs or super matches");
+        }
+        try {
+            RecordWriter writer = new RecordWriter(KIND_PROTEIN, registry);
+            writer.writeBoxedLong(protein.getId());
+            writer.writeString(protein.getMd5());
+            writer.writeUtf8(protein.getSequence());
+            writer.writeChildren((Collection<?>) PROTEIN_CROSS_REFERENCES.get(protein));
+            writer.writeChildren(protein.getMatches());
+            return writer.toByteArray();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to read protein fields", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Protein decodeProtein(RecordReader reader) {
+        try {
+            Protein protein = PROTEIN_CONSTRUCTOR.newInstance();
+            PROTEIN_ID.set(protein, reader.readBoxedLong());
+            PROTEIN_MD5.set(protein, reader.readString());
+            String sequence = reader.readUtf8();
+            List<String> chunks = ChunkerSingleton.getInstance().chunkIntoList(sequence);
+            PROTEIN_SEQUENCE.set(protein, sequence);
+            PROTEIN_SEQUENCE_FIRST_CHUNK.set(protein, ChunkerSingleton.getInstance().firstChunk(chunks));
+            PROTEIN_SEQUENCE_CHUNKS.set(protein, ChunkerSingleton.getInstance().latterChunks(chunks));
+            reader.readChildren((Collection<Object>) PROTEIN_CROSS_REFERENCES.get(protein), protein);
+            reader.readChildren((Collection<Object>) (Collection<?>) protein.getMatches(), protein);
+            return protein;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to decode protein", e);
+        }
+    }
+
+    /**
+     * Writes a single record.  Not thread safe - one instance per call to encode.
+     */
+    private final class RecordWriter {
+
+        private byte[] buffer = new byte[256];
+        private int position;
+        private final SignatureRegistry registry;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+        RecordWriter(byte kind, SignatureRegistry registry) {
+            this.registry = registry;
+            writeByte(MAGIC);
+            writeByte(FORMAT_VERSION);
+            writeByte(kind);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedInt(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeSignedLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeFixedInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBoxedLong(Long value) {
+            if (value == null) {
+                writeByte(0);
+            } else {
+                writeByte(1);
+                writeSignedLong(value);
+            }
+        }
+
+        void writeUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        /**
+         * Strings go through the record's string table: 0 for null, 1 followed by the literal
+         * for a new string and (index + 2) for a repeat.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                strings.put(value, strings.size());
+                writeVarInt(1);
+                writeUtf8(value);
+            } else {
+                writeVarInt(index + 2);
+            }
+        }
+
+        void writeClass(KVModelSchema.ClassSchema classSchema) {
+            Integer index = classes.get(classSchema.getType());
+            if (index == null) {
+                classes.put(classSchema.getType(), classes.size());
+                writeVarInt(1);
+                writeUtf8(classSchema.getType().getName());
+                writeFixedInt(classSchema.getFingerprint());
+            } else {
+                writeVarInt(index + 2);
+            }
+        }
+
+        void writeObject(Object value) {
+            KVModelSchema.ClassSchema classSchema = schema.forClass(value.getClass());
+            writeClass(classSchema);
+            try {
+                for (KVModelSchema.FieldSchema fieldSchema : classSchema.getFields()) {
+                    writeField(fieldSchema, value);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to read fields of " + value.getClass().getName(), e);
+            }
+        }
+
+        void writeChildren(Collection<?> children) {
+            if (children == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(children.size() + 1);
+            for (Object child : children) {
+                if (child == null) {
+                    throw new KVModelSchema.NotEncodableException("null element in collection");
+                }
+                writeObject(child);
+            }
+        }
+
+        private void writeField(KVModelSchema.FieldSchema fieldSchema, Object owner) throws IllegalAccessException {
+            final Field field = fieldSchema.getField();
+            switch (fieldSchema.getKind()) {
+                case INT:
+                    writeSignedInt(field.getInt(owner));
+                    break;
+                case LONG:
+                    writeSignedLong(field.getLong(owner));
+                    break;
+                case SHORT:
+                    writeSignedInt(field.getShort(owner));
+                    break;
+                case BYTE:
+                    writeByte(field.getByte(owner));
+                    break;
+                case CHAR:
+                    writeVarInt(field.getChar(owner));
+                    break;
+                case BOOLEAN:
+                    writeByte(field.getBoolean(owner) ? 1 : 0);
+                    break;
+                case DOUBLE:
+                    writeFixedLong(Double.doubleToRawLongBits(field.getDouble(owner)));
+                    break;
+                case FLOAT:
+                    writeFixedInt(Float.floatToRawIntBits(field.getFloat(owner)));
+                    break;
+                case BOXED: {
+                    Object value = field.get(owner);
+                    if (value == null) {
+                        writeByte(0);
+                    } else {
+                        writeByte(1);
+                        writeBoxed(value);
+                    }
+                    break;
+                }
+                case STRING:
+                    writeString((String) field.get(owner));
+                    break;
+                case ENUM: {
+                    Enum<?> value = (Enum<?>) field.get(owner);
+                    writeString(value == null ? null : value.name());
+                    break;
+                }
+                case SIGNATURE: {
+                    Signature signature = (Signature) field.get(owner);
+                    writeString(signature == null ? null : registry.register(signature));
+                    break;
+                }
+                case PARENT:
+                    // Restored from the enclosing object on decode.
+                    break;
+                case CHILDREN:
+                    writeChildren((Collection<?>) field.get(owner));
+                    break;
+                case SERIALIZED: {
+                    Object value = field.get(owner);
+                    if (value == null) {
+                        writeVarInt(0);
+                    } else {
+                        byte[] serialized = SerializationUtils.serialize((Serializable) value);
+                        writeVarInt(serialized.length + 1);
+                        writeBytes(serialized);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unhandled field kind " + fieldSchema.getKind());
+            }
+        }
+
+        private void writeBoxed(Object value) {
+            if (value instanceof Integer) {
+                writeSignedInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeSignedLong((Long) value);
+            } else if (value instanceof Double) {
+                writeFixedLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeFixedInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof Short) {
+                writeSignedInt((Short) value);
+            } else if (value instanceof Byte) {
+                writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                writeVarInt((Character) value);
+            } else {
+                throw new KVModelSchema.NotEncodableException("unexpected boxed value " + value.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * Reads a single record.  Not thread safe - one instance per call to decode.
+     */
+    private final class RecordReader {
+
+        private final byte[] data;
+        private int position;
+        private final SignatureRegistry registry;
+        private final List<String> strings = new ArrayList<>();
+        private final List<KVModelSchema.ClassSchema> classes = new ArrayList<>();
+
+        RecordReader(byte[] data, int offset, SignatureRegistry registry) {
+            this.data = data;
+            this.position = offset;
+            this.registry = registry;
+        }
+
+        int readByte() {
+            return data[position++];
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        int readSignedInt() {
+            int raw = readVarInt();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long readSignedLong() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long readFixedLong() {
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result = (result << 8) | (data[position++] & 0xFF);
+            }
+            return result;
+        }
+
+        int readFixedInt() {
+            int result = 0;
+            for (int i = 0; i < 4; i++) {
+                result = (result << 8) | (data[position++] & 0xFF);
+            }
+            return result;
+        }
+
+        Long readBoxedLong() {
+            return readByte() == 0 ? null : readSignedLong();
+        }
+
+        String readUtf8() {
+            int length = readVarInt();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readString() {
+            int marker = readVarInt();
+            if (marker == 0) {
+                return null;
+            }
+            if (marker == 1) {
+                String value = readUtf8();
+                strings.add(value);
+                return value;
+            }
+            return strings.get(marker - 2);
+        }
+
+        KVModelSchema.ClassSchema readClass() {
+            int marker = readVarInt();
+            if (marker == 1) {
+                String className = readUtf8();
+                int fingerprint = readFixedInt();
+                KVModelSchema.ClassSchema classSchema;
+                try {
+                    classSchema = schema.forClass(Class.forName(className));
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("KV store record refers to unknown class " + className, e);
+                }
+                if (classSchema.getFingerprint() != fingerprint) {
+                    throw new IllegalStateException("KV store record for " + className + " was written with a different version of the class");
+                }
+                classes.add(classSchema);
+                return classSchema;
+            }
+            return classes.get(marker - 2);
+        }
+
+        Object readObject(Object parent) {
+            KVModelSchema.ClassSchema classSchema = readClass();
+            Object instance = classSchema.newInstance();
+            try {
+                for (KVModelSchema.FieldSchema fieldSchema : classSchema.getFields()) {
+                    readField(fieldSchema, instance, parent);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to set fields of " + classSchema.getType().getName(), e);
+            }
+            return instance;
+        }
+
+        void readChildren(Collection<Object> target, Object parent) {
+            int marker = readVarInt();
+            for (int i = 1; i < marker; i++) {
+                target.add(readObject(parent));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readField(KVModelSchema.FieldSchema fieldSchema, Object owner, Object parent) throws IllegalAccessException {
+            final Field field = fieldSchema.getField();
+            switch (fieldSchema.getKind()) {
+                case INT:
+                    field.setInt(owner, readSignedInt());
+                    break;
+                case LONG:
+                    field.setLong(owner, readSignedLong());
+                    break;
+                case SHORT:
+                    field.setShort(owner, (short) readSignedInt());
+                    break;
+                case BYTE:
+                    field.setByte(owner, (byte) readByte());
+                    break;
+                case CHAR:
+                    field.setChar(owner, (char) readVarInt());
+                    break;
+                case BOOLEAN:
+                    field.setBoolean(owner, readByte() != 0);
+                    break;
+                case DOUBLE:
+                    field.setDouble(owner, Double.longBitsToDouble(readFixedLong()));
+                    break;
+                case FLOAT:
+                    field.setFloat(owner, Float.intBitsToFloat(readFixedInt()));
+                    break;
+                case BOXED:
+                    field.set(owner, readByte() == 0 ? null : readBoxed(field.getType()));
+                    break;
+                case STRING:
+                    field.set(owner, readString());
+                    break;
+                case ENUM: {
+                    String name = readString();
+                    field.set(owner, name == null ? null : Enum.valueOf((Class<Enum>) field.getType(), name));
+                    break;
+                }
+                case SIGNATURE: {
+                    String reference = readString();
+                    field.set(owner, reference == null ? null : registry.resolve(reference));
+                    break;
+                }
+                case PARENT:
+                    if (parent != null && field.getType().isInstance(parent)) {
+                        field.set(owner, parent);
+                    }
+                    break;
+                case CHILDREN: {
+                    int marker = readVarInt();
+                    if (marker == 0) {
+                        field.set(owner, null);
+                        break;
+                    }
+                    Collection<Object> children = (Collection<Object>) field.get(owner);
+                    if (children == null) {
+                        children = KVModelSchema.newCollection(field.getType());
+                        field.set(owner, children);
+                    }
+                    for (int i = 1; i < marker; i++) {
+                        children.add(readObject(owner));
+                    }
+                    break;
+                }
+                case SERIALIZED: {
+                    int marker = readVarInt();
+                    if (marker == 0) {
+                        field.set(owner, null);
+                    } else {
+                        int length = marker - 1;
+                        field.set(owner, SerializationUtils.deserialize(Arrays.copyOfRange(data, position, position + length)));
+                        position += length;
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unhandled field kind " + fieldSchema.getKind());
+            }
+        }
+
+        private Object readBoxed(Class<?> type) {
+            if (type == Integer.class) {
+                return readSignedInt();
+            } else if (type == Long.class) {
+                return readSignedLong();
+            } else if (type == Double.class) {
+                return Double.longBitsToDouble(readFixedLong());
+            } else if (type == Float.class) {
+                return Float.intBitsToFloat(readFixedInt());
+            } else if (type == Boolean.class) {
+                return readByte() != 0;
+            } else if (type == Short.class) {
+                return (short) readSignedInt();
+            } else if (type == Byte.class) {
+                return (byte) readByte();
+            } else if (type == Character.class) {
+                return (char) readVarInt();
+            }
+            throw new IllegalStateException("Unexpected boxed field type " + type.getName());
+        }
+    }
+}
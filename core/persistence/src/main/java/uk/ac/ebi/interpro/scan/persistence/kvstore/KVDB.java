@@ -8,6 +8,7 @@ import org.iq80.leveldb.DB;
 
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,12 +29,29 @@ public interface KVDB {
 
     String getKVDBType();
 
+    KVDBCodec getCodec();
+
+    void setCodec(KVDBCodec codec);
+
     void put(String key, byte[] data);
 
     void put(byte[] key, byte[] data);
 
     byte[] get(String key);
 
+    /**
+     * Gets the values of a batch of keys from one consistent view of the store.
+     *
+     * @return the values in the order of the keys, null where a key is not in the store.
+     */
+    List<byte[]> multiGet(List<String> keys);
+
+    /**
+     * Streams the entries with keys from fromKey (inclusive) to toKey (exclusive) in key order,
+     * e.g. all the matches of a protein range (see {@link MatchKey}).  The range must be closed.
+     */
+    <V> KVDBRange<V> range(String fromKey, String toKey, KVDBRange.Decoder<V> decoder);
+
     byte[] serialize(Serializable value);
 
     byte[] serialize(Protein protein);
@@ -58,6 +76,8 @@ public interface KVDB {
 
     Set<Match> asMatchSet(byte[] byteMatchSet);
 
+    Object asObject(byte[] data);
+
     byte[] serialize(String value);
 
     Map<byte[], byte[]> getAllElements() throws Exception;
@@ -0,0 +1,31 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+/**
+ * Converts keys and values to and from the byte arrays held in a {@link KVDB}.
+ * <p/>
+ * Implementations must be thread safe - a single codec is shared by every step
+ * that reads or writes the store.  Any state that has to live with the data
+ * (e.g. interned signatures) is held by the store and reached through the
+ * {@link SignatureRegistry} passed in to each call.
+ */
+public interface KVDBCodec {
+
+    /**
+     * @return the name of the format written by this codec.  This is recorded in the store
+     * so that a store written with one codec is always read back with the matching codec.
+     */
+    String getFormat();
+
+    byte[] encodeKey(String key);
+
+    String decodeKey(byte[] key);
+
+    /**
+     * @param value    being a Protein, a Set of Match objects, a Match or any other Serializable value.
+     * @param registry used to intern signature references.
+     * @return the encoded value.
+     */
+    byte[] encode(Object value, SignatureRegistry registry);
+
+    Object decode(byte[] data, SignatureRegistry registry);
+}
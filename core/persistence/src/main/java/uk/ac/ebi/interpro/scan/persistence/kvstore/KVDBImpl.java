@@ -16,16 +16,25 @@ import org.apache.commons.lang3.SerializationUtils;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * level DB store
  */
-abstract class KVDBImpl implements KVDB, AutoCloseable {
+abstract class KVDBImpl implements KVDB, SignatureRegistry, AutoCloseable {
+
+    static final byte RESERVED_KEY_PREFIX = 0;
+
+    static final String FORMAT_KEY = "format";
+
+    static final String SIGNATURE_KEY_PREFIX = "signature:";
 
     String dbPath;
     String dbName;
@@ -33,6 +42,10 @@ abstract class KVDBImpl implements KVDB, AutoCloseable {
 
     Set<String> signatureLibraryNames = new HashSet<>();
 
+    KVDBCodec codec = new CompactKVDBCodec();
+
+    private final ConcurrentMap<String, Signature> signatures = new ConcurrentHashMap<>();
+
     public void setKVDBStore(String dbStore, String dbName, String dbType) {
         //dbStore == dbPath
         this.dbPath = dbStore;
@@ -64,81 +77,146 @@ abstract class KVDBImpl implements KVDB, AutoCloseable {
         return dbType;
     }
 
-    public byte[] serialize(Serializable value) {
-        byte[] data = SerializationUtils.serialize(value);
-        return data;
+    public KVDBCodec getCodec() {
+        return codec;
     }
 
-    public byte[] serialize(Protein protein) {
-        byte[] data = SerializationUtils.serialize(protein);
-        return data;
+    public void setCodec(KVDBCodec codec) {
+        this.codec = codec;
+    }
+
+    public byte[] serialize(Serializable value) {
+        return codec.encode(value, this);
     }
 
-/*
-    public byte[] serialize(Match match) {
-        byte[] data = SerializationUtils.serialize(match);
-        return data;
+    public byte[] serialize(Protein protein) {
+        return codec.encode(protein, this);
     }
 
-*/
     public byte[]  serialize(HashSet<Match> matches) {
-        byte[] data = SerializationUtils.serialize(matches);
-        return data;
+        return codec.encode(matches, this);
     }
 
     public String asString(byte[] byteKey) {
-        String key = (String) SerializationUtils.deserialize(byteKey);
-        return key;
+        return codec.decodeKey(byteKey);
     }
 
     public String asDeserializedString(byte[] byteKey) {
-        String key = (String) SerializationUtils.deserialize(byteKey);
-        return key;
+        return codec.decodeKey(byteKey);
     }
 
-
+    @SuppressWarnings("unchecked")
     public Set<Match> asMatchSet(byte[] byteMatchSet) {
-        Set<Match> data = (Set<Match>) SerializationUtils.deserialize(byteMatchSet);
-        return data;
+        return (Set<Match>) codec.decode(byteMatchSet, this);
     }
 
     public Match asMatch(byte[] byteMatch) {
-        Match data = (Match) SerializationUtils.deserialize(byteMatch);
-        return data;
+        return (Match) codec.decode(byteMatch, this);
     }
 
     public Protein asProtein(byte[] byteProtein) {
-        if(byteProtein != null) {
-            Protein protein = (Protein) SerializationUtils.deserialize(byteProtein);
-            return protein;
-        }
-        return null;
+        return (Protein) codec.decode(byteProtein, this);
     }
 
     public NucleotideSequence asNucleotideSequence(byte[] byteNucleotideSequence) {
-        if(byteNucleotideSequence != null) {
-            NucleotideSequence nucleotideSequence = (NucleotideSequence) SerializationUtils.deserialize(byteNucleotideSequence);
-            return nucleotideSequence;
-        }
-        return null;
+        return (NucleotideSequence) codec.decode(byteNucleotideSequence, this);
     }
 
+    public Object asObject(byte[] data) {
+        return codec.decode(data, this);
+    }
+
+    /**
+     * Encodes a key - keys are always Strings.
+     */
     public byte[] serialize(String value) {
-        byte[] data = SerializationUtils.serialize(value);
-        return data;
+        return codec.encodeKey(value);
     }
 
 
     public Protein getProtein(String key) {
-        byte[] outdata = get(key);
-        Protein protein = (Protein) SerializationUtils.deserialize(outdata);
-        return protein;
+        return asProtein(get(key));
     }
 
     public NucleotideSequence getNucleotideSequence(String key) {
-        byte[] outdata = get(key);
-        NucleotideSequence nucleotideSequence = (NucleotideSequence) SerializationUtils.deserialize(outdata);
-        return nucleotideSequence;
+        return asNucleotideSequence(get(key));
+    }
+
+    /**
+     * Interns the signature in this store, writing it (once) under a reserved key.
+     */
+    public String register(Signature signature) {
+        final String reference = signatureReference(signature);
+        if (!signatures.containsKey(reference)) {
+            put(reservedKey(SIGNATURE_KEY_PREFIX + reference), SerializationUtils.serialize(signature));
+            signatures.putIfAbsent(reference, signature);
+        }
+        return reference;
+    }
+
+    public Signature resolve(String reference) {
+        Signature signature = signatures.get(reference);
+        if (signature == null) {
+            byte[] data = getRaw(reservedKey(SIGNATURE_KEY_PREFIX + reference));
+            if (data == null) {
+                throw new IllegalStateException("Signature " + reference + " is not registered in the KV store " + dbName);
+            }
+            signature = (Signature) SerializationUtils.deserialize(data);
+            Signature existing = signatures.putIfAbsent(reference, signature);
+            if (existing != null) {
+                signature = existing;
+            }
+        }
+        return signature;
+    }
+
+    static String signatureReference(Signature signature) {
+        final SignatureLibraryRelease release = signature.getSignatureLibraryRelease();
+        final StringBuilder reference = new StringBuilder();
+        if (release != null) {
+            reference.append(release.getLibrary() == null ? "" : release.getLibrary().name())
+                    .append('/')
+                    .append(release.getVersion() == null ? "" : release.getVersion());
+        } else {
+            reference.append('/');
+        }
+        return reference.append('/').append(signature.getAccession()).toString();
+    }
+
+    /**
+     * Reserved keys hold store metadata (format marker, interned signatures) and are
+     * never returned by getAllElements().  They start with a zero byte, which no key
+     * encoding produces.
+     */
+    static byte[] reservedKey(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[nameBytes.length + 1];
+        key[0] = RESERVED_KEY_PREFIX;
+        System.arraycopy(nameBytes, 0, key, 1, nameBytes.length);
+        return key;
+    }
+
+    static boolean isReservedKey(byte[] key) {
+        return key != null && key.length > 0 && key[0] == RESERVED_KEY_PREFIX;
+    }
+
+    /**
+     * @return the value stored under the raw (already encoded) key
+     */
+    abstract byte[] getRaw(byte[] key);
+
+    /**
+     * @param format as recorded in a store
+     * @return the codec that reads and writes that format.
+     */
+    static KVDBCodec codecFor(String format) {
+        if (CompactKVDBCodec.FORMAT.equals(format)) {
+            return new CompactKVDBCodec();
+        }
+        if (SerializationKVDBCodec.FORMAT.equals(format)) {
+            return new SerializationKVDBCodec();
+        }
+        throw new IllegalStateException("Unknown KV store format: " + format);
     }
 
     public byte[] bytes(String value) {
@@ -168,6 +246,7 @@ abstract class KVDBImpl implements KVDB, AutoCloseable {
         return "KVDBImpl{" +
                 "dbName='" + dbName + '\'' +
                 ", dbType='" + dbType + '\'' +
+                ", format='" + codec.getFormat() + '\'' +
                 ", signatureLibraryNames=" + signatureLibraryNames +
                 '}';
     }
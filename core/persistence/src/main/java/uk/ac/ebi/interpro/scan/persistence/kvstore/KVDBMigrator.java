@@ -0,0 +1,63 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.iq80.leveldb.DBIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Rewrites a KV store into the format of another codec, e.g. a store written with Java
+ * serialization by an earlier release into the {@link CompactKVDBCodec} format.
+ * <p/>
+ * Usage: KVDBMigrator &lt;source store path&gt; &lt;target store path&gt;
+ */
+public class KVDBMigrator {
+
+    private static final Logger LOGGER = LogManager.getLogger(KVDBMigrator.class.getName());
+
+    /**
+     * @param sourcePath existing store (any format)
+     * @param targetPath new store to create, written with the target codec
+     * @param targetCodec codec for the new store
+     * @return the number of records copied.
+     */
+    public static long migrate(String sourcePath, String targetPath, KVDBCodec targetCodec) throws IOException {
+        if (new File(targetPath).exists()) {
+            throw new IllegalArgumentException("Target KV store " + targetPath + " already exists");
+        }
+        final LevelDBStore source = new LevelDBStore(sourcePath);
+        final LevelDBStore target = new LevelDBStore();
+        target.setCodec(targetCodec);
+        target.setLevelDBStore(targetPath);
+        long count = 0;
+        try (DBIterator iterator = source.getLevelDBStore().iterator()) {
+            for (iterator.seekToFirst(); iterator.hasNext(); ) {
+                final Map.Entry<byte[], byte[]> entry = iterator.next();
+                if (KVDBImpl.isReservedKey(entry.getKey())) {
+                    continue;
+                }
+                final String key = source.asString(entry.getKey());
+                final Object value = source.asObject(entry.getValue());
+                target.put(key, target.getCodec().encode(value, target));
+                count++;
+            }
+        } finally {
+            source.close();
+            target.close();
+        }
+        LOGGER.info("Migrated " + count + " records from " + sourcePath + " (" + source.getCodec().getFormat()
+                + ") to " + targetPath + " (" + targetCodec.getFormat() + ")");
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: KVDBMigrator <source store path> <target store path>");
+            System.exit(1);
+        }
+        migrate(args[0], args[1], new CompactKVDBCodec());
+    }
+}
@@ -0,0 +1,88 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.iq80.leveldb.DBIterator;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the entries of a KV store with keys from fromKey (inclusive) to toKey (exclusive),
+ * in key order, without reading them all into memory.  Must be closed.
+ *
+ * @param <V> the decoded value type
+ */
+public class KVDBRange<V> implements Iterator<Map.Entry<String, V>>, AutoCloseable {
+
+    /**
+     * Decodes the stored value bytes.
+     */
+    public interface Decoder<V> {
+        V decode(byte[] data);
+    }
+
+    private final DBIterator iterator;
+
+    private final byte[] toKey;
+
+    private final KVDBCodec codec;
+
+    private final Decoder<V> decoder;
+
+    KVDBRange(DBIterator iterator, byte[] fromKey, byte[] toKey, KVDBCodec codec, Decoder<V> decoder) {
+        this.iterator = iterator;
+        this.toKey = toKey;
+        this.codec = codec;
+        this.decoder = decoder;
+        iterator.seek(fromKey);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext() && compare(iterator.peekNext().getKey(), toKey) < 0;
+    }
+
+    /**
+     * @return the key of the next entry, without moving past it.
+     */
+    public String peekKey() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return codec.decodeKey(iterator.peekNext().getKey());
+    }
+
+    @Override
+    public Map.Entry<String, V> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Map.Entry<byte[], byte[]> entry = iterator.next();
+        return new AbstractMap.SimpleImmutableEntry<>(codec.decodeKey(entry.getKey()), decoder.decode(entry.getValue()));
+    }
+
+    @Override
+    public void close() {
+        try {
+            iterator.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to close the KV store iterator", e);
+        }
+    }
+
+    /**
+     * The byte order LevelDB sorts keys in (unsigned, lexicographic).
+     */
+    static int compare(byte[] a, byte[] b) {
+        final int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            final int difference = (a[i] & 0xff) - (b[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+}
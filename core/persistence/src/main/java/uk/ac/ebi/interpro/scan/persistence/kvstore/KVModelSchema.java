@@ -0,0 +1,203 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import uk.ac.ebi.interpro.scan.model.Location;
+import uk.ac.ebi.interpro.scan.model.Match;
+import uk.ac.ebi.interpro.scan.model.Protein;
+import uk.ac.ebi.interpro.scan.model.Signature;
+import uk.ac.ebi.interpro.scan.model.Site;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives, once per class, the field layout used by {@link CompactKVDBCodec} to write
+ * Match, Location, LocationFragment, Site, SiteLocation and ProteinXref objects.
+ * <p/>
+ * Scalar fields are written first (superclass fields before subclass fields, then by name)
+ * and collections of child objects last, so that the hash code of an object is stable by the time
+ * it is added to its parent's Set.  Back-references to the enclosing object (e.g. Location.match)
+ * are not written but restored from the parent on decode.
+ * <p/>
+ * Each class layout has a fingerprint that is written with the record, so a record can
+ * never be decoded with a different version of the model class.
+ */
+class KVModelSchema {
+
+    private static final String MODEL_PACKAGE = "uk.ac.ebi.interpro.scan.model";
+
+    /**
+     * Declared types that are back-references to the enclosing object.
+     */
+    private static final Class<?>[] PARENT_TYPES = {Protein.class, Match.class, Location.class, Site.class};
+
+    enum Kind {
+        INT, LONG, SHORT, BYTE, CHAR, BOOLEAN, DOUBLE, FLOAT,
+        BOXED, STRING, ENUM, SIGNATURE, PARENT, CHILDREN, SERIALIZED
+    }
+
+    /**
+     * Thrown when a value cannot be described by the schema - the codec then falls back to Java serialization.
+     */
+    static class NotEncodableException extends RuntimeException {
+        NotEncodableException(String message) {
+            super(message);
+        }
+    }
+
+    static final class FieldSchema {
+        private final Field field;
+        private final Kind kind;
+
+        FieldSchema(Field field, Kind kind) {
+            this.field = field;
+            this.kind = kind;
+        }
+
+        Field getField() {
+            return field;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+    }
+
+    static final class ClassSchema {
+        private final Class<?> type;
+        private final Constructor<?> constructor;
+        private final FieldSchema[] fields;
+        private final int fingerprint;
+
+        ClassSchema(Class<?> type, Constructor<?> constructor, FieldSchema[] fields) {
+            this.type = type;
+            this.constructor = constructor;
+            this.fields = fields;
+            int hash = type.getName().hashCode();
+            for (FieldSchema fieldSchema : fields) {
+                hash = 31 * hash + fieldSchema.getField().getName().hashCode();
+                hash = 31 * hash + fieldSchema.getKind().ordinal();
+            }
+            this.fingerprint = hash;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        FieldSchema[] getFields() {
+            return fields;
+        }
+
+        int getFingerprint() {
+            return fingerprint;
+        }
+
+        Object newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to instantiate " + type.getName(), e);
+            }
+        }
+    }
+
+    private final Map<Class<?>, ClassSchema> schemas = new ConcurrentHashMap<>();
+
+    ClassSchema forClass(Class<?> type) {
+        ClassSchema classSchema = schemas.get(type);
+        if (classSchema == null) {
+            classSchema = build(type);
+            schemas.put(type, classSchema);
+        }
+        return classSchema;
+    }
+
+    static Collection<Object> newCollection(Class<?> declaredType) {
+        if (List.class.isAssignableFrom(declaredType)) {
+            return new ArrayList<>();
+        }
+        return new LinkedHashSet<>();
+    }
+
+    private static ClassSchema build(Class<?> type) {
+        if (type.getPackage() == null || !type.getPackage().getName().startsWith(MODEL_PACKAGE)) {
+            throw new NotEncodableException(type.getName() + " is not part of the model");
+        }
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw new NotEncodableException(type.getName() + " is abstract");
+        }
+        final Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new NotEncodableException(type.getName() + " has no no-arg constructor");
+        }
+
+        // Superclass fields first.
+        final Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.push(current);
+        }
+        final List<FieldSchema> scalars = new ArrayList<>();
+        final List<FieldSchema> children = new ArrayList<>();
+        for (Class<?> declaringClass : hierarchy) {
+            Field[] declared = declaringClass.getDeclaredFields();
+            Arrays.sort(declared, Comparator.comparing(Field::getName));
+            for (Field field : declared) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Kind kind = kindOf(field);
+                if (kind == Kind.CHILDREN) {
+                    children.add(new FieldSchema(field, kind));
+                } else {
+                    scalars.add(new FieldSchema(field, kind));
+                }
+            }
+        }
+        scalars.addAll(children);
+        return new ClassSchema(type, constructor, scalars.toArray(new FieldSchema[0]));
+    }
+
+    private static Kind kindOf(Field field) {
+        final Class<?> fieldType = field.getType();
+        if (fieldType.isPrimitive()) {
+            if (fieldType == int.class) return Kind.INT;
+            if (fieldType == long.class) return Kind.LONG;
+            if (fieldType == double.class) return Kind.DOUBLE;
+            if (fieldType == float.class) return Kind.FLOAT;
+            if (fieldType == boolean.class) return Kind.BOOLEAN;
+            if (fieldType == short.class) return Kind.SHORT;
+            if (fieldType == byte.class) return Kind.BYTE;
+            return Kind.CHAR;
+        }
+        if (fieldType == Integer.class || fieldType == Long.class || fieldType == Double.class || fieldType == Float.class
+                || fieldType == Boolean.class || fieldType == Short.class || fieldType == Byte.class || fieldType == Character.class) {
+            return Kind.BOXED;
+        }
+        if (fieldType == String.class) {
+            return Kind.STRING;
+        }
+        if (fieldType.isEnum()) {
+            return Kind.ENUM;
+        }
+        if (fieldType == Signature.class) {
+            return Kind.SIGNATURE;
+        }
+        for (Class<?> parentType : PARENT_TYPES) {
+            if (parentType.isAssignableFrom(fieldType)) {
+                return Kind.PARENT;
+            }
+        }
+        if (Collection.class.isAssignableFrom(fieldType)) {
+            return Kind.CHILDREN;
+        }
+        return Kind.SERIALIZED;
+    }
+}
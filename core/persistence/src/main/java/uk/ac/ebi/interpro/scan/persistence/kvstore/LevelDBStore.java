@@ -1,14 +1,21 @@
 package uk.ac.ebi.interpro.scan.persistence.kvstore;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
@@ -18,6 +25,8 @@ import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
  */
 public class LevelDBStore extends KVDBImpl implements AutoCloseable {
 
+    private static final Logger LOGGER = LogManager.getLogger(LevelDBStore.class.getName());
+
     DB levelDBStore;
 
     public LevelDBStore() {
@@ -37,6 +46,7 @@ public class LevelDBStore extends KVDBImpl implements AutoCloseable {
         try {
             setKVDBStore(levelDBStorePath, dbName, dbType);
             this.levelDBStore = factory.open(new File(levelDBStorePath), options);
+            checkFormat();
             Utilities.verboseLog(110,"Configured this LevelDb Store: " + levelDBStorePath);
             //System.out.println("Configured this LevelDb Store: " + levelDBStorePath);
             Utilities.verboseLog(110, toString());
@@ -45,6 +55,36 @@ public class LevelDBStore extends KVDBImpl implements AutoCloseable {
         }
     }
 
+    /**
+     * Makes sure the store is read with the codec it was written with.
+     * A new store is stamped with the format of the configured codec; a store written
+     * by an earlier release (no format marker) is read and written with Java serialization.
+     */
+    void checkFormat() throws IOException {
+        final byte[] formatKey = reservedKey(FORMAT_KEY);
+        final byte[] storedFormat = levelDBStore.get(formatKey);
+        if (storedFormat != null) {
+            final String format = new String(storedFormat, StandardCharsets.UTF_8);
+            if (!format.equals(codec.getFormat())) {
+                Utilities.verboseLog(110, "KV store " + dbPath + " was written as " + format + " - using that format");
+                codec = codecFor(format);
+            }
+        } else if (isEmpty()) {
+            levelDBStore.put(formatKey, codec.getFormat().getBytes(StandardCharsets.UTF_8));
+        } else {
+            LOGGER.warn("KV store " + dbPath + " has no format marker, reading it with Java serialization. "
+                    + "Use KVDBMigrator to convert it to the " + CompactKVDBCodec.FORMAT + " format.");
+            codec = new SerializationKVDBCodec();
+        }
+    }
+
+    private boolean isEmpty() throws IOException {
+        try (DBIterator iterator = levelDBStore.iterator()) {
+            iterator.seekToFirst();
+            return !iterator.hasNext();
+        }
+    }
+
     public DB getLevelDBStore() {
         return levelDBStore;
     }
@@ -109,6 +149,39 @@ public class LevelDBStore extends KVDBImpl implements AutoCloseable {
         return levelDBStore.get(byteKey);
     }
 
+    public List<byte[]> multiGet(List<String> keys) {
+        final List<byte[]> values = new ArrayList<>(keys.size());
+        final Snapshot snapshot = levelDBStore.getSnapshot();
+        try {
+            final ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
+            for (String key : keys) {
+                values.add(levelDBStore.get(serialize(key), readOptions));
+            }
+        } finally {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to release the KV store snapshot " + dbPath, e);
+            }
+        }
+        return values;
+    }
+
+    public <V> KVDBRange<V> range(String fromKey, String toKey, KVDBRange.Decoder<V> decoder) {
+        if (!(codec instanceof CompactKVDBCodec)) {
+            // Java serialized keys do not sort in the order of the key strings.
+            throw new IllegalStateException("Range scans need a KV store in the " + CompactKVDBCodec.FORMAT
+                    + " format, but " + dbPath + " is " + codec.getFormat() + ". Use KVDBMigrator to convert it.");
+        }
+        // A scan reads each block once, so there is no point in filling the block cache with it.
+        final DBIterator iterator = levelDBStore.iterator(new ReadOptions().fillCache(false));
+        return new KVDBRange<>(iterator, serialize(fromKey), serialize(toKey), codec, decoder);
+    }
+
+    byte[] getRaw(byte[] key) {
+        return levelDBStore.get(key);
+    }
+
     public Map<byte[], byte[]> getAllElements() throws Exception{
         Map<byte[], byte[]> allElements = new HashMap<>();
         if(levelDBStore == null){
@@ -117,6 +190,9 @@ public class LevelDBStore extends KVDBImpl implements AutoCloseable {
         DBIterator iterator = levelDBStore.iterator();
         while (iterator.hasNext()) {
             Map.Entry<byte[], byte[]> entry = iterator.next();
+            if (isReservedKey(entry.getKey())) {
+                continue;
+            }
             allElements.put(entry.getKey(), entry.getValue());
         }
         //Utilities.verboseLog(1100, " Number of elements " + count);
@@ -147,6 +223,7 @@ public class LevelDBStore extends KVDBImpl implements AutoCloseable {
                 ", dbPath='" + getDbPath() + '\'' +
                 ", dbName='" + dbName + '\'' +
                 ", dbType='" + dbType + '\'' +
+                ", format='" + codec.getFormat() + '\'' +
                 ", signatureLibraryNames=" + signatureLibraryNames +
                 '}';
     }
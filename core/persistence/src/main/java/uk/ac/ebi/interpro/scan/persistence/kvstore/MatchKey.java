@@ -0,0 +1,48 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+/**
+ * Key layout of the match store: the protein id, zero padded to a fixed width, followed by the
+ * signature library name.  The keys therefore sort by protein id and then by library, so all the
+ * matches of a range of proteins can be read with one ordered {@link KVDB#range} scan.
+ */
+public final class MatchKey {
+
+    /**
+     * Enough digits for any (positive) long.
+     */
+    static final int PROTEIN_ID_WIDTH = 19;
+
+    private static final String PADDING = "0000000000000000000";
+
+    private MatchKey() {
+    }
+
+    public static String of(Long proteinId, String signatureLibraryName) {
+        return proteinKey(proteinId) + signatureLibraryName;
+    }
+
+    /**
+     * @return the lowest key of the protein, i.e. the start of a range scan over its matches.
+     */
+    public static String proteinKey(long proteinId) {
+        if (proteinId < 0) {
+            throw new IllegalArgumentException("Protein id must not be negative: " + proteinId);
+        }
+        final String id = Long.toString(proteinId);
+        return PADDING.substring(id.length()) + id;
+    }
+
+    public static long proteinId(String key) {
+        if (key == null || key.length() < PROTEIN_ID_WIDTH) {
+            throw new IllegalArgumentException("Not a match key: " + key);
+        }
+        return Long.parseLong(key.substring(0, PROTEIN_ID_WIDTH));
+    }
+
+    public static String signatureLibraryName(String key) {
+        if (key == null || key.length() < PROTEIN_ID_WIDTH) {
+            throw new IllegalArgumentException("Not a match key: " + key);
+        }
+        return key.substring(PROTEIN_ID_WIDTH);
+    }
+}
@@ -0,0 +1,53 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.apache.commons.lang3.SerializationUtils;
+
+import java.io.Serializable;
+
+/**
+ * The original store format: Java object serialization for both keys and values.
+ * <p/>
+ * Kept to read stores written by earlier releases and for debugging.
+ */
+public class SerializationKVDBCodec implements KVDBCodec {
+
+    public static final String FORMAT = "java-serialization";
+
+    /**
+     * The first two bytes of any Java serialization stream (ObjectStreamConstants.STREAM_MAGIC)
+     */
+    static final byte STREAM_MAGIC_0 = (byte) 0xAC;
+    static final byte STREAM_MAGIC_1 = (byte) 0xED;
+
+    static boolean isSerialized(byte[] data) {
+        return data != null && data.length > 1 && data[0] == STREAM_MAGIC_0 && data[1] == STREAM_MAGIC_1;
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encodeKey(String key) {
+        return SerializationUtils.serialize(key);
+    }
+
+    @Override
+    public String decodeKey(byte[] key) {
+        return (String) SerializationUtils.deserialize(key);
+    }
+
+    @Override
+    public byte[] encode(Object value, SignatureRegistry registry) {
+        return SerializationUtils.serialize((Serializable) value);
+    }
+
+    @Override
+    public Object decode(byte[] data, SignatureRegistry registry) {
+        if (data == null) {
+            return null;
+        }
+        return SerializationUtils.deserialize(data);
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import uk.ac.ebi.interpro.scan.model.Signature;
+
+/**
+ * Store-wide dictionary of signatures, so that each match record only has to carry
+ * a compact (library, version, accession) reference rather than the whole Signature graph.
+ */
+public interface SignatureRegistry {
+
+    /**
+     * Records the signature (if not already known) and returns the reference to it.
+     *
+     * @param signature to intern
+     * @return the reference to write in place of the signature.
+     */
+    String register(Signature signature);
+
+    /**
+     * @param reference as returned by {@link #register(Signature)}
+     * @return the Signature for the reference
+     * @throws IllegalStateException if the reference is not known to the store.
+     */
+    Signature resolve(String reference);
+}
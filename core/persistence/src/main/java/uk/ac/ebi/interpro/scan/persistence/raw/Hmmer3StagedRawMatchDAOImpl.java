@@ -0,0 +1,78 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.Hmmer3RawMatch;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Stages HMMER3 raw matches, see {@link StagedRawMatchDAOImpl}.  Subclasses only create the library specific
+ * raw match from the HMMER3 fields.
+ *
+ * @param <T> the type of raw match.
+ * @param <D> the type of the H2 DAO.
+ */
+public abstract class Hmmer3StagedRawMatchDAOImpl<T extends Hmmer3RawMatch, D extends RawMatchDAO<T>>
+        extends StagedRawMatchDAOImpl<T, D> {
+
+    protected Hmmer3StagedRawMatchDAOImpl(Class<T> modelClass) {
+        super(modelClass);
+    }
+
+    protected abstract T createMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                     String signatureLibraryRelease, int locationStart, int locationEnd,
+                                     double evalue, double score, int hmmStart, int hmmEnd, String hmmBounds,
+                                     double locationScore, int envelopeStart, int envelopeEnd, double expectedAccuracy,
+                                     double fullSequenceBias, double domainCeValue, double domainIeValue, double domainBias);
+
+    @Override
+    protected void writeMatch(T match, DataOutput out) throws IOException {
+        out.writeDouble(match.getEvalue());
+        out.writeDouble(match.getScore());
+        out.writeInt(match.getHmmStart());
+        out.writeInt(match.getHmmEnd());
+        writeString(out, match.getHmmBounds());
+        out.writeDouble(match.getLocationScore());
+        out.writeInt(match.getEnvelopeStart());
+        out.writeInt(match.getEnvelopeEnd());
+        out.writeDouble(match.getExpectedAccuracy());
+        out.writeDouble(match.getFullSequenceBias());
+        out.writeDouble(match.getDomainCeValue());
+        out.writeDouble(match.getDomainIeValue());
+        out.writeDouble(match.getDomainBias());
+        final UUID splitGroup = match.getSplitGroup();
+        out.writeBoolean(splitGroup != null);
+        if (splitGroup != null) {
+            out.writeLong(splitGroup.getMostSignificantBits());
+            out.writeLong(splitGroup.getLeastSignificantBits());
+        }
+    }
+
+    @Override
+    protected T readMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                          String signatureLibraryRelease, int locationStart, int locationEnd, ByteBuffer in) {
+        final double evalue = in.getDouble();
+        final double score = in.getDouble();
+        final int hmmStart = in.getInt();
+        final int hmmEnd = in.getInt();
+        final String hmmBounds = readString(in);
+        final double locationScore = in.getDouble();
+        final int envelopeStart = in.getInt();
+        final int envelopeEnd = in.getInt();
+        final double expectedAccuracy = in.getDouble();
+        final double fullSequenceBias = in.getDouble();
+        final double domainCeValue = in.getDouble();
+        final double domainIeValue = in.getDouble();
+        final double domainBias = in.getDouble();
+        final T match = createMatch(sequenceIdentifier, modelId, signatureLibrary, signatureLibraryRelease,
+                locationStart, locationEnd, evalue, score, hmmStart, hmmEnd, hmmBounds, locationScore,
+                envelopeStart, envelopeEnd, expectedAccuracy, fullSequenceBias, domainCeValue, domainIeValue, domainBias);
+        if (in.get() != 0) {
+            match.setSplitGroup(new UUID(in.getLong(), in.getLong()));
+        }
+        return match;
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
+
+/**
+ * Stages Pfam raw matches between parsing and post-processing, see {@link StagedRawMatchDAOImpl}.
+ */
+public class PfamHmmer3StagedRawMatchDAOImpl
+        extends Hmmer3StagedRawMatchDAOImpl<PfamHmmer3RawMatch, PfamHmmer3RawMatchDAO> {
+
+    public PfamHmmer3StagedRawMatchDAOImpl() {
+        super(PfamHmmer3RawMatch.class);
+    }
+
+    @Override
+    protected PfamHmmer3RawMatch createMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                             String signatureLibraryRelease, int locationStart, int locationEnd,
+                                             double evalue, double score, int hmmStart, int hmmEnd, String hmmBounds,
+                                             double locationScore, int envelopeStart, int envelopeEnd, double expectedAccuracy,
+                                             double fullSequenceBias, double domainCeValue, double domainIeValue, double domainBias) {
+        return new PfamHmmer3RawMatch(sequenceIdentifier, modelId, signatureLibrary, signatureLibraryRelease,
+                locationStart, locationEnd, evalue, score, hmmStart, hmmEnd, hmmBounds, locationScore,
+                envelopeStart, envelopeEnd, expectedAccuracy, fullSequenceBias, domainCeValue, domainIeValue, domainBias);
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PirsfHmmer3RawMatch;
+
+/**
+ * Stages PIRSF raw matches between parsing and post-processing, see {@link StagedRawMatchDAOImpl}.
+ */
+public class PirsfHmmer3StagedRawMatchDAOImpl
+        extends Hmmer3StagedRawMatchDAOImpl<PirsfHmmer3RawMatch, PirsfHmmer3RawMatchDAO> {
+
+    public PirsfHmmer3StagedRawMatchDAOImpl() {
+        super(PirsfHmmer3RawMatch.class);
+    }
+
+    @Override
+    protected PirsfHmmer3RawMatch createMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                              String signatureLibraryRelease, int locationStart, int locationEnd,
+                                              double evalue, double score, int hmmStart, int hmmEnd, String hmmBounds,
+                                              double locationScore, int envelopeStart, int envelopeEnd, double expectedAccuracy,
+                                              double fullSequenceBias, double domainCeValue, double domainIeValue, double domainBias) {
+        return new PirsfHmmer3RawMatch(locationEnd, locationStart, modelId, sequenceIdentifier, evalue,
+                hmmBounds, hmmEnd, hmmStart, locationScore, score, domainBias, domainCeValue, domainIeValue,
+                envelopeEnd, envelopeStart, expectedAccuracy, fullSequenceBias, signatureLibrary, signatureLibraryRelease);
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PrintsRawMatch;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stages PRINTS raw matches between parsing and post-processing, see {@link StagedRawMatchDAOImpl}.
+ */
+public class PrintsStagedRawMatchDAOImpl
+        extends StagedRawMatchDAOImpl<PrintsRawMatch, PrintsRawMatchDAO> {
+
+    public PrintsStagedRawMatchDAOImpl() {
+        super(PrintsRawMatch.class);
+    }
+
+    @Override
+    protected void writeMatch(PrintsRawMatch match, DataOutput out) throws IOException {
+        out.writeDouble(match.getEvalue());
+        writeString(out, match.getGraphscan());
+        out.writeInt(match.getMotifCount());
+        out.writeInt(match.getMotifNumber());
+        out.writeDouble(match.getPvalue());
+        out.writeDouble(match.getScore());
+    }
+
+    @Override
+    protected PrintsRawMatch readMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                       String signatureLibraryRelease, int locationStart, int locationEnd, ByteBuffer in) {
+        final double evalue = in.getDouble();
+        final String graphscan = readString(in);
+        final int motifCount = in.getInt();
+        final int motifNumber = in.getInt();
+        final double pvalue = in.getDouble();
+        final double score = in.getDouble();
+        return new PrintsRawMatch(sequenceIdentifier, modelId, signatureLibraryRelease, locationStart, locationEnd,
+                evalue, graphscan, motifCount, motifNumber, pvalue, score);
+    }
+}
@@ -156,4 +156,39 @@ public class RawMatchDAOImpl<T extends RawMatch>
         return resultList;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, RawProtein<T>> getRawMatchesForProteinIdsInRange(long bottomId, long topId, String signatureDatabaseRelease) {
+        Map<String, RawProtein<T>> proteinIdToMatchMap = new HashMap<String, RawProtein<T>>();
+        for (T match : getActualRawMatchesForProteinIdsInRange(bottomId, topId, signatureDatabaseRelease)) {
+            final String proteinId = match.getSequenceIdentifier();
+            RawProtein<T> rawProtein = proteinIdToMatchMap.get(proteinId);
+            if (rawProtein == null) {
+                rawProtein = new RawProtein<T>(proteinId);
+                proteinIdToMatchMap.put(proteinId, rawProtein);
+            }
+            rawProtein.addMatch(match);
+        }
+        return proteinIdToMatchMap;
+    }
+
+    /**
+     * Nothing to do: the raw matches inserted by a step that failed were rolled back with its transaction.
+     */
+    @Transactional
+    @Override
+    public void removeRawMatchesInRange(long bottomId, long topId) {
+    }
+
+    /**
+     * Raw matches in the database are kept until the end of the run.
+     */
+    @Transactional
+    @Override
+    public void removeProcessedRawMatches(long bottomId, long topId, String signatureDatabaseRelease) {
+    }
+
 }
@@ -0,0 +1,45 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import java.io.File;
+
+/**
+ * Directory in which the staged raw match DAOs (see {@link StagedRawMatchDAOImpl}) keep the raw matches
+ * between the parse and post-processing steps of a chunk.
+ * <p/>
+ * Staging can be switched off (raw.match.staging.enabled=false), in which case the raw matches are stored
+ * in the H2 database as before, e.g. to inspect them after a run.
+ * <p/>
+ * The directory is set by Run, under the working temporary directory, once that is known.
+ */
+public class RawMatchStagingArea {
+
+    private boolean enabled = true;
+
+    private File directory;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized void setDirectory(String directory) {
+        this.directory = new File(directory);
+    }
+
+    /**
+     * @return the staging directory, created if necessary.
+     * @throws IllegalStateException if the directory has not been configured or cannot be created.
+     */
+    public synchronized File getDirectory() {
+        if (directory == null) {
+            throw new IllegalStateException("The raw match staging directory has not been configured");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalStateException("Unable to create the raw match staging directory " + directory.getAbsolutePath());
+        }
+        return directory;
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the {@link RawMatch}es of a chunk of proteins between the parse and post-processing steps.
+ * <p/>
+ * These are the only methods that the parse and post-processing steps use, so a store need not keep
+ * the raw matches in the database (see {@link StagedRawMatchDAOImpl}).
+ *
+ * @param <T> the type of raw match.
+ */
+public interface RawMatchStore<T extends RawMatch> {
+
+    /**
+     * Inserts {@link RawMatch}es contained within a {@link RawProtein} object.
+     * Note: {@link RawProtein} is NOT persisted.
+     *
+     * @param rawProteins Contains collection of {@link RawMatch} to be persisted.
+     */
+    @Transactional
+    public void insertProteinMatches(Set<RawProtein<T>> rawProteins);
+
+    /**
+     * Returns a List of
+     * RawMatch objects for the protein IDs in the range
+     * specified (Database default String ordering)
+     * <p/>
+     * Essential for PFAM, PRINTS, etc post processing.
+     *
+     * @param bottomId                 return matches with protein IDs >= this String
+     * @param topId                    the return matches with protein IDs <= this String
+     * @param signatureDatabaseRelease
+     * @return a List of
+     *         RawMatch objects for the protein IDs in the range
+     *         specified (Database default String ordering)
+     */
+    @Transactional(readOnly = true)
+    public List<T> getActualRawMatchesForProteinIdsInRange(long bottomId, long topId, String signatureDatabaseRelease);
+
+    /**
+     * Returns a Map of sequence identifiers to the RawProtein holding the
+     * RawMatch objects for the protein IDs in the range specified.
+     *
+     * @param bottomId                 return protein IDs >= this
+     * @param topId                    the return protein IDs <= this
+     * @param signatureDatabaseRelease Signature database release number.
+     * @return a Map of sequence identifiers to RawProteins for the protein IDs in the range specified.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, RawProtein<T>> getRawMatchesForProteinIdsInRange(long bottomId, long topId, String signatureDatabaseRelease);
+
+    /**
+     * Returns proteins within the given ID range.
+     *
+     * @param bottomId                 Lower bound (protein.id >= bottomId)
+     * @param topId                    Upper bound (protein.id <= topId)
+     * @param signatureDatabaseRelease Signature database release number.
+     * @return Proteins within the given ID range
+     */
+    @Transactional(readOnly = true)
+    public Set<RawProtein<T>> getProteinsByIdRange(long bottomId, long topId, String signatureDatabaseRelease);
+
+    /**
+     * Returns proteins with specified IDs.
+     * If the protein Id set is null or empty then an empty set of raw proteins shall be returned.
+     *
+     * @param proteinIds               Set of protein Ids to query
+     * @param signatureDatabaseRelease Signature database release number.
+     * @return Set of proteins with supplied IDs
+     */
+    @Transactional(readOnly = true)
+    public Set<RawProtein<T>> getProteinsByIds(Set<Long> proteinIds, String signatureDatabaseRelease);
+
+    /**
+     * Called by a parse step before it inserts the raw matches of the proteins in the range, so that a step
+     * that is run again after failing does not store the raw matches of the earlier attempt a second time.
+     *
+     * @param bottomId Lower bound (protein.id >= bottomId)
+     * @param topId    Upper bound (protein.id <= topId)
+     */
+    @Transactional
+    public void removeRawMatchesInRange(long bottomId, long topId);
+
+    /**
+     * Called by post-processing once the filtered matches of the proteins in the range have been persisted,
+     * so that raw matches that are only kept for the chunk can be dropped.
+     *
+     * @param bottomId                 Lower bound (protein.id >= bottomId)
+     * @param topId                    Upper bound (protein.id <= topId)
+     * @param signatureDatabaseRelease Signature database release number.
+     */
+    @Transactional
+    public void removeProcessedRawMatches(long bottomId, long topId, String signatureDatabaseRelease);
+}
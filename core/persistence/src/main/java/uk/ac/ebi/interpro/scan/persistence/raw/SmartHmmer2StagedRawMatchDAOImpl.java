@@ -0,0 +1,44 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.SmartRawMatch;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stages SMART raw matches between parsing and post-processing, see {@link StagedRawMatchDAOImpl}.
+ */
+public class SmartHmmer2StagedRawMatchDAOImpl
+        extends StagedRawMatchDAOImpl<SmartRawMatch, SmartHmmer2RawMatchDAO> {
+
+    public SmartHmmer2StagedRawMatchDAOImpl() {
+        super(SmartRawMatch.class);
+    }
+
+    @Override
+    protected void writeMatch(SmartRawMatch match, DataOutput out) throws IOException {
+        out.writeDouble(match.getEvalue());
+        out.writeDouble(match.getScore());
+        out.writeInt(match.getHmmStart());
+        out.writeInt(match.getHmmEnd());
+        writeString(out, match.getHmmBounds());
+        out.writeDouble(match.getLocationEvalue());
+        out.writeDouble(match.getLocationScore());
+    }
+
+    @Override
+    protected SmartRawMatch readMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                      String signatureLibraryRelease, int locationStart, int locationEnd, ByteBuffer in) {
+        final double evalue = in.getDouble();
+        final double score = in.getDouble();
+        final int hmmStart = in.getInt();
+        final int hmmEnd = in.getInt();
+        final String hmmBounds = readString(in);
+        final double locationEvalue = in.getDouble();
+        final double locationScore = in.getDouble();
+        return new SmartRawMatch(sequenceIdentifier, modelId, signatureLibrary, signatureLibraryRelease, locationStart, locationEnd,
+                evalue, score, hmmStart, hmmEnd, hmmBounds, locationEvalue, locationScore);
+    }
+}
@@ -0,0 +1,346 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Raw match DAO that keeps the raw matches of a chunk in files in the {@link RawMatchStagingArea} rather than in
+ * the H2 database, for the analyses whose raw matches are only written by the parse step and read back by the
+ * post-processing step of the same chunk.
+ * <p/>
+ * Each call to insertProteinMatches appends a segment file per signature library release, named by the range of
+ * protein ids that it holds:
+ * <pre>
+ *     staging area / raw match class / release / bottomId-topId-sequence.seg
+ * </pre>
+ * A segment holds one fixed-order binary record per raw match: the protein id, then the fields of the match as
+ * ints, doubles and length-prefixed UTF-8 strings (see {@link #writeMatch} and {@link #readMatch}).
+ * Segments are written to a temporary file and renamed, so readers only ever see complete segments, and are read
+ * back through a memory mapped buffer.  Once the post-processing step has persisted the filtered matches it calls
+ * {@link #removeProcessedRawMatches}, which deletes the segments of the chunk.  A parse step that is run again
+ * calls {@link #removeRawMatchesInRange} first, so that the segments of the failed attempt are not read twice.
+ * <p/>
+ * Only the {@link RawMatchStore} methods are offered, as staged raw matches have no database ids.
+ * <p/>
+ * If staging is disabled in the staging area, every call is passed to the H2 DAO instead.
+ *
+ * @param <T> the type of raw match.
+ * @param <D> the type of the H2 DAO.
+ */
+public abstract class StagedRawMatchDAOImpl<T extends RawMatch, D extends RawMatchDAO<T>>
+        implements RawMatchStore<T> {
+
+    private static final Logger LOGGER = LogManager.getLogger(StagedRawMatchDAOImpl.class.getName());
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final AtomicLong SEGMENT_SEQUENCE = new AtomicLong();
+
+    private final Class<T> modelClass;
+
+    private transient RawMatchStagingArea stagingArea;
+
+    private transient D databaseRawMatchDAO;
+
+    protected StagedRawMatchDAOImpl(Class<T> modelClass) {
+        this.modelClass = modelClass;
+    }
+
+    @Required
+    public void setStagingArea(RawMatchStagingArea stagingArea) {
+        this.stagingArea = stagingArea;
+    }
+
+    /**
+     * @param databaseRawMatchDAO used instead of the staging area if staging is disabled.
+     */
+    @Required
+    public void setDatabaseRawMatchDAO(D databaseRawMatchDAO) {
+        this.databaseRawMatchDAO = databaseRawMatchDAO;
+    }
+
+    protected boolean isStaged() {
+        return stagingArea.isEnabled();
+    }
+
+    /**
+     * Writes the fields of the match that are specific to the type of raw match.
+     * The sequence identifier, model, signature library, location and DC status are written by this class.
+     */
+    protected abstract void writeMatch(T match, DataOutput out) throws IOException;
+
+    /**
+     * Reads back the fields written by {@link #writeMatch} and creates the raw match.
+     */
+    protected abstract T readMatch(String sequenceIdentifier, String modelId, SignatureLibrary signatureLibrary,
+                                   String signatureLibraryRelease, int locationStart, int locationEnd, ByteBuffer in);
+
+    @Override
+    public void insertProteinMatches(Set<RawProtein<T>> rawProteins) {
+        if (!isStaged()) {
+            databaseRawMatchDAO.insertProteinMatches(rawProteins);
+            return;
+        }
+        final Map<String, List<T>> matchesByRelease = new HashMap<>();
+        for (RawProtein<T> rawProtein : rawProteins) {
+            for (T match : rawProtein.getMatches()) {
+                if (match.getNumericSequenceId() == null) {
+                    // Could never be retrieved by protein id range, as in the database.
+                    LOGGER.warn("Not staging a raw match for non-numeric sequence identifier " + match.getSequenceIdentifier());
+                    continue;
+                }
+                List<T> matches = matchesByRelease.get(match.getSignatureLibraryRelease());
+                if (matches == null) {
+                    matches = new ArrayList<>();
+                    matchesByRelease.put(match.getSignatureLibraryRelease(), matches);
+                }
+                matches.add(match);
+            }
+        }
+        for (Map.Entry<String, List<T>> releaseMatches : matchesByRelease.entrySet()) {
+            writeSegment(releaseMatches.getKey(), releaseMatches.getValue());
+        }
+    }
+
+    @Override
+    public List<T> getActualRawMatchesForProteinIdsInRange(long bottomId, long topId, String signatureDatabaseRelease) {
+        if (!isStaged()) {
+            return databaseRawMatchDAO.getActualRawMatchesForProteinIdsInRange(bottomId, topId, signatureDatabaseRelease);
+        }
+        return readMatches(signatureDatabaseRelease, bottomId, topId, null);
+    }
+
+    @Override
+    public Set<RawProtein<T>> getProteinsByIdRange(long bottomId, long topId, String signatureDatabaseRelease) {
+        if (!isStaged()) {
+            return databaseRawMatchDAO.getProteinsByIdRange(bottomId, topId, signatureDatabaseRelease);
+        }
+        return new HashSet<>(rawProteinsByIdentifier(readMatches(signatureDatabaseRelease, bottomId, topId, null)).values());
+    }
+
+    @Override
+    public Set<RawProtein<T>> getProteinsByIds(final Set<Long> proteinIds, String signatureDatabaseRelease) {
+        if (!isStaged()) {
+            return databaseRawMatchDAO.getProteinsByIds(proteinIds, signatureDatabaseRelease);
+        }
+        if (proteinIds == null || proteinIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        final List<T> matches = readMatches(signatureDatabaseRelease, Collections.min(proteinIds), Collections.max(proteinIds),
+                new LongPredicate() {
+                    @Override
+                    public boolean test(long proteinId) {
+                        return proteinIds.contains(proteinId);
+                    }
+                });
+        return new HashSet<>(rawProteinsByIdentifier(matches).values());
+    }
+
+    @Override
+    public Map<String, RawProtein<T>> getRawMatchesForProteinIdsInRange(long bottomId, long topId, String signatureDatabaseRelease) {
+        if (!isStaged()) {
+            return databaseRawMatchDAO.getRawMatchesForProteinIdsInRange(bottomId, topId, signatureDatabaseRelease);
+        }
+        return rawProteinsByIdentifier(readMatches(signatureDatabaseRelease, bottomId, topId, null));
+    }
+
+    /**
+     * Deletes the segments of the range in every release, as they are staged again by the step that is rerun.
+     */
+    @Override
+    public void removeRawMatchesInRange(long bottomId, long topId) {
+        if (!isStaged()) {
+            databaseRawMatchDAO.removeRawMatchesInRange(bottomId, topId);
+            return;
+        }
+        for (File releaseDirectory : releaseDirectories()) {
+            for (File segment : segments(releaseDirectory, bottomId, topId, true)) {
+                if (!segment.delete() && segment.exists()) {
+                    throw new IllegalStateException("Unable to delete the staged raw match segment " + segment.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void removeProcessedRawMatches(long bottomId, long topId, String signatureDatabaseRelease) {
+        if (!isStaged()) {
+            databaseRawMatchDAO.removeProcessedRawMatches(bottomId, topId, signatureDatabaseRelease);
+            return;
+        }
+        for (File segment : segments(releaseDirectory(signatureDatabaseRelease), bottomId, topId, true)) {
+            if (!segment.delete() && segment.exists()) {
+                LOGGER.warn("Unable to delete the staged raw match segment " + segment.getAbsolutePath());
+            }
+        }
+    }
+
+    private Map<String, RawProtein<T>> rawProteinsByIdentifier(Collection<T> matches) {
+        final Map<String, RawProtein<T>> rawProteins = new HashMap<>();
+        for (T match : matches) {
+            RawProtein<T> rawProtein = rawProteins.get(match.getSequenceIdentifier());
+            if (rawProtein == null) {
+                rawProtein = new RawProtein<>(match.getSequenceIdentifier());
+                rawProteins.put(match.getSequenceIdentifier(), rawProtein);
+            }
+            rawProtein.addMatch(match);
+        }
+        return rawProteins;
+    }
+
+    private void writeSegment(String release, List<T> matches) {
+        long bottomId = Long.MAX_VALUE;
+        long topId = Long.MIN_VALUE;
+        for (T match : matches) {
+            bottomId = Math.min(bottomId, match.getNumericSequenceId());
+            topId = Math.max(topId, match.getNumericSequenceId());
+        }
+        final File releaseDirectory = releaseDirectory(release);
+        if (!releaseDirectory.isDirectory() && !releaseDirectory.mkdirs() && !releaseDirectory.isDirectory()) {
+            throw new IllegalStateException("Unable to create the raw match staging directory " + releaseDirectory.getAbsolutePath());
+        }
+        final String name = bottomId + "-" + topId + "-" + SEGMENT_SEQUENCE.incrementAndGet();
+        final File temporary = new File(releaseDirectory, name + ".tmp");
+        final File segment = new File(releaseDirectory, name + SEGMENT_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024))) {
+                for (T match : matches) {
+                    out.writeLong(match.getNumericSequenceId());
+                    writeString(out, match.getSequenceIdentifier());
+                    writeString(out, match.getModelId());
+                    writeString(out, match.getSignatureLibrary().name());
+                    out.writeInt(match.getLocationStart());
+                    out.writeInt(match.getLocationEnd());
+                    writeString(out, match.getLocFragmentDCStatus());
+                    writeMatch(match, out);
+                }
+            }
+            Files.move(temporary.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            temporary.delete();
+            throw new IllegalStateException("Unable to stage " + matches.size() + " " + modelClass.getSimpleName() + "s in " + segment.getAbsolutePath(), e);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Staged " + matches.size() + " raw matches in " + segment.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @param wanted if not null, only the matches of the protein ids that it accepts are returned.
+     */
+    private List<T> readMatches(String release, long bottomId, long topId, LongPredicate wanted) {
+        final List<T> matches = new ArrayList<>();
+        for (File segment : segments(releaseDirectory(release), bottomId, topId, false)) {
+            try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+                final ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (in.hasRemaining()) {
+                    final long proteinId = in.getLong();
+                    final String sequenceIdentifier = readString(in);
+                    final String modelId = readString(in);
+                    final SignatureLibrary signatureLibrary = SignatureLibrary.valueOf(readString(in));
+                    final int locationStart = in.getInt();
+                    final int locationEnd = in.getInt();
+                    final String locFragmentDCStatus = readString(in);
+                    final T match = readMatch(sequenceIdentifier, modelId, signatureLibrary, release, locationStart, locationEnd, in);
+                    match.setLocFragmentDCStatus(locFragmentDCStatus);
+                    if (proteinId >= bottomId && proteinId <= topId && (wanted == null || wanted.test(proteinId))) {
+                        matches.add(match);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Unable to read the staged raw matches in " + segment.getAbsolutePath(), e);
+            }
+        }
+        return matches;
+    }
+
+    private File modelDirectory() {
+        return new File(stagingArea.getDirectory(), modelClass.getSimpleName());
+    }
+
+    private File releaseDirectory(String release) {
+        return new File(modelDirectory(), encode(release));
+    }
+
+    private List<File> releaseDirectories() {
+        final File[] releaseDirectories = modelDirectory().listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory();
+            }
+        });
+        return (releaseDirectories == null) ? Collections.<File>emptyList() : Arrays.asList(releaseDirectories);
+    }
+
+    /**
+     * @param contained if true, only the segments that lie entirely within the range, otherwise all of those that
+     *                  overlap it.
+     */
+    private List<File> segments(File releaseDirectory, long bottomId, long topId, boolean contained) {
+        final List<File> segments = new ArrayList<>();
+        final String[] names = releaseDirectory.list();
+        if (names == null) {
+            return segments;
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            if (!name.endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            final String[] range = name.split("-");
+            final long segmentBottomId = Long.parseLong(range[0]);
+            final long segmentTopId = Long.parseLong(range[1]);
+            final boolean selected = contained
+                    ? segmentBottomId >= bottomId && segmentTopId <= topId
+                    : segmentBottomId <= topId && segmentTopId >= bottomId;
+            if (selected) {
+                segments.add(new File(releaseDirectory, name));
+            }
+        }
+        return segments;
+    }
+
+    private static String encode(String release) {
+        try {
+            return URLEncoder.encode(String.valueOf(release), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    protected static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
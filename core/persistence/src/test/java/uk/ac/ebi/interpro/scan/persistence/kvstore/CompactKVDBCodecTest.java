@@ -0,0 +1,171 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.*;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips for {@link CompactKVDBCodec}, including reading values written
+ * with Java serialization by earlier releases.
+ */
+public class CompactKVDBCodecTest {
+
+    private CompactKVDBCodec codec;
+
+    private SignatureRegistry registry;
+
+    private Signature pfamSignature;
+
+    private Signature sfldSignature;
+
+    @BeforeEach
+    public void init() {
+        codec = new CompactKVDBCodec();
+        final Map<String, Signature> signatures = new HashMap<>();
+        registry = new SignatureRegistry() {
+            @Override
+            public String register(Signature signature) {
+                String reference = KVDBImpl.signatureReference(signature);
+                signatures.put(reference, signature);
+                return reference;
+            }
+
+            @Override
+            public Signature resolve(String reference) {
+                return signatures.get(reference);
+            }
+        };
+        pfamSignature = new Signature.Builder("PF02310")
+                .name("B12-binding")
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1"))
+                .build();
+        sfldSignature = new Signature.Builder("SFLDS00029")
+                .name("Radical SAM")
+                .signatureLibraryRelease(new SignatureLibraryRelease(SignatureLibrary.SFLD, "4"))
+                .build();
+    }
+
+    private Set<Match> buildMatches() {
+        final Set<Match> matches = new HashSet<>();
+        matches.add(new Hmmer3Match(pfamSignature, "PF02310", 0.035, 3.7e-9,
+                new HashSet<>(Arrays.asList(
+                        new Hmmer3Match.Hmmer3Location(3, 107, 3.0, 3.7e-9, 1, 104, 104, HmmBounds.N_TERMINAL_COMPLETE, 1, 2, false, DCStatus.CONTINUOUS),
+                        new Hmmer3Match.Hmmer3Location(150, 210, 5.5, 1.2e-4, 4, 60, 104, HmmBounds.COMPLETE, 148, 212, true, DCStatus.C_TERMINAL_DISC)
+                ))));
+        final Set<SiteLocation> siteLocations = new HashSet<>(Arrays.asList(
+                new SiteLocation("C", 12, 12),
+                new SiteLocation("C", 16, 16)));
+        final Set<HmmerLocationWithSites.HmmerSite> sites = new HashSet<>();
+        sites.add(new Hmmer3MatchWithSites.Hmmer3LocationWithSites.Hmmer3Site("Fe-S cluster binding", siteLocations));
+        matches.add(new Hmmer3MatchWithSites(sfldSignature, "SFLDS00029", 120.4, 2.2e-30,
+                new HashSet<>(Collections.singletonList(
+                        new Hmmer3MatchWithSites.Hmmer3LocationWithSites(5, 200, 119.9, 3.1e-30, 2, 190, 195,
+                                HmmBounds.COMPLETE, 3, 201, sites)
+                ))));
+        return matches;
+    }
+
+    @Test
+    public void testKeys() {
+        assertEquals("42PFAM", codec.decodeKey(codec.encodeKey("42PFAM")));
+        assertArrayEquals("42PFAM".getBytes(), codec.encodeKey("42PFAM"));
+        // Keys written by earlier releases
+        assertEquals("42PFAM", codec.decodeKey(SerializationUtils.serialize("42PFAM")));
+    }
+
+    @Test
+    public void testMatchSetRoundTrip() {
+        final Set<Match> matches = buildMatches();
+        final byte[] data = codec.encode(matches, registry);
+        assertEquals(CompactKVDBCodec.KIND_MATCH_SET, data[2]);
+
+        @SuppressWarnings("unchecked")
+        final Set<Match> decoded = (Set<Match>) codec.decode(data, registry);
+        assertEquals(matches, decoded);
+        for (Match match : decoded) {
+            for (Object location : match.getLocations()) {
+                assertSame(match, ((Location) location).getMatch(), "Location should refer back to its match");
+            }
+        }
+        assertTrue(data.length < SerializationUtils.serialize((HashSet<Match>) matches).length,
+                "Compact encoding should be smaller than Java serialization");
+    }
+
+    @Test
+    public void testProteinRoundTrip() {
+        final Protein protein = new Protein("MGAAASIQTTVNTLSERISSKLEQEANASAQTKCDIEIGNFYIRQNHGCNLTVKNMCSADADAQLDAVLSAATETYSGLTPEQKAYVPAMFTAALNIQTSVNTVVRDFENYVKQTCNSSAVVDNKLKIQNVIIDECYGAPGSPTNLEFINTGSSKGNCAIKALMQLTTKATTQIAPRQVAGTGVQFYMIVIGVIILAALFMYYAKRMLFTSTNDKIKLILANKENVHWTTYMDTFFRTSPMVIATTDMQN");
+        protein.addCrossReference(new ProteinXref("UniProt", "P22298", "UPI0000000001", "test protein"));
+        for (Match match : buildMatches()) {
+            protein.addMatch(match);
+        }
+        final byte[] data = codec.encode(protein, registry);
+        assertEquals(CompactKVDBCodec.KIND_PROTEIN, data[2]);
+
+        final Protein decoded = (Protein) codec.decode(data, registry);
+        assertEquals(protein, decoded);
+        assertEquals(protein.getSequence(), decoded.getSequence());
+        assertEquals(protein.getMd5(), decoded.getMd5());
+        assertEquals(protein.getCrossReferences(), decoded.getCrossReferences());
+        assertEquals(protein.getMatches(), decoded.getMatches());
+        for (Match match : decoded.getMatches()) {
+            assertSame(decoded, match.getProtein());
+        }
+    }
+
+    @Test
+    public void testLegacyValues() {
+        final HashSet<Match> matches = (HashSet<Match>) buildMatches();
+        final Object decoded = codec.decode(SerializationUtils.serialize(matches), registry);
+        assertEquals(matches, decoded);
+    }
+
+    @Test
+    public void testOtherValuesFallBackToSerialization() {
+        final NucleotideSequence sequence = new NucleotideSequence("ACGTACGTACGT");
+        final byte[] data = codec.encode(sequence, registry);
+        assertEquals(CompactKVDBCodec.KIND_SERIALIZED, data[2]);
+        assertEquals(sequence, codec.decode(data, registry));
+    }
+
+    @Test
+    public void testLevelDBStore(@TempDir File tempDir) throws Exception {
+        final String path = new File(tempDir, "matchDB").getAbsolutePath();
+        final Set<Match> matches = buildMatches();
+        LevelDBStore store = new LevelDBStore(path);
+        store.put("1PFAM", store.serialize((HashSet<Match>) matches));
+        assertEquals(CompactKVDBCodec.FORMAT, store.getCodec().getFormat());
+        assertEquals(1, store.getAllElements().size(), "Reserved keys must not be returned");
+        store.close();
+
+        // Signatures are resolved from the store by a new instance.
+        store = new LevelDBStore(path);
+        assertEquals(matches, store.asMatchSet(store.get("1PFAM")));
+        store.close();
+    }
+
+    @Test
+    public void testMigration(@TempDir File tempDir) throws Exception {
+        final String legacyPath = new File(tempDir, "legacyDB").getAbsolutePath();
+        final String migratedPath = new File(tempDir, "migratedDB").getAbsolutePath();
+        final Set<Match> matches = buildMatches();
+
+        LevelDBStore legacy = new LevelDBStore();
+        legacy.setCodec(new SerializationKVDBCodec());
+        legacy.setLevelDBStore(legacyPath);
+        legacy.put("1PFAM", legacy.serialize((HashSet<Match>) matches));
+        legacy.close();
+
+        assertEquals(1, KVDBMigrator.migrate(legacyPath, migratedPath, new CompactKVDBCodec()));
+        LevelDBStore migrated = new LevelDBStore(migratedPath);
+        assertEquals(CompactKVDBCodec.FORMAT, migrated.getCodec().getFormat());
+        assertEquals(matches, migrated.asMatchSet(migrated.get("1PFAM")));
+        migrated.close();
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ebi.interpro.scan.persistence.kvstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link MatchKey} layout, and the {@link LevelDBStore} range scan and multiGet.
+ */
+public class LevelDBStoreRangeTest {
+
+    private static final KVDBRange.Decoder<String> AS_STRING = new KVDBRange.Decoder<String>() {
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    };
+
+    @Test
+    public void testMatchKey() {
+        final String key = MatchKey.of(123L, "PFAM");
+        assertEquals(123L, MatchKey.proteinId(key));
+        assertEquals("PFAM", MatchKey.signatureLibraryName(key));
+        assertTrue(MatchKey.of(9L, "SMART").compareTo(MatchKey.of(10L, "CDD")) < 0, "Keys should sort by protein id first");
+        assertTrue(MatchKey.proteinKey(10L).compareTo(MatchKey.of(10L, "CDD")) < 0);
+        assertEquals(Long.MAX_VALUE, MatchKey.proteinId(MatchKey.proteinKey(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testRangeAndMultiGet(@TempDir File tempDir) {
+        final LevelDBStore store = new LevelDBStore(new File(tempDir, "matches").getPath());
+        try {
+            for (long proteinId = 1; proteinId <= 25; proteinId++) {
+                for (String library : Arrays.asList("PFAM", "CDD", "GENE3D")) {
+                    // Not every protein has matches in every library.
+                    if (proteinId % 3 != 0 || !library.equals("CDD")) {
+                        store.put(MatchKey.of(proteinId, library), (proteinId + library).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            }
+
+            final List<String> values = new ArrayList<>();
+            long previous = 0;
+            try (KVDBRange<String> range = store.range(MatchKey.proteinKey(9), MatchKey.proteinKey(13), AS_STRING)) {
+                while (range.hasNext()) {
+                    final String peeked = range.peekKey();
+                    final Map.Entry<String, String> entry = range.next();
+                    assertEquals(peeked, entry.getKey());
+                    final long proteinId = MatchKey.proteinId(entry.getKey());
+                    assertTrue(proteinId >= previous, "Entries should be in protein id order");
+                    previous = proteinId;
+                    values.add(entry.getValue());
+                }
+            }
+            assertEquals(Arrays.asList("9GENE3D", "9PFAM", "10CDD", "10GENE3D", "10PFAM", "11CDD", "11GENE3D", "11PFAM",
+                    "12GENE3D", "12PFAM"), values);
+
+            final List<byte[]> found = store.multiGet(Arrays.asList(MatchKey.of(2L, "PFAM"), MatchKey.of(3L, "CDD"), MatchKey.of(25L, "CDD")));
+            assertEquals(3, found.size());
+            assertEquals("2PFAM", AS_STRING.decode(found.get(0)));
+            assertNull(found.get(1));
+            assertEquals("25CDD", AS_STRING.decode(found.get(2)));
+        } finally {
+            store.close();
+        }
+    }
+}
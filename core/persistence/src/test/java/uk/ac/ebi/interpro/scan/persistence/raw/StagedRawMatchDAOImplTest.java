@@ -0,0 +1,144 @@
+package uk.ac.ebi.interpro.scan.persistence.raw;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.raw.PfamHmmer3RawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.PrintsRawMatch;
+import uk.ac.ebi.interpro.scan.model.raw.RawProtein;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips through the staged raw match DAOs, and removal of the raw matches of a processed chunk or of a
+ * chunk whose parse step is run again.
+ */
+public class StagedRawMatchDAOImplTest {
+
+    private static final String RELEASE = "33.1";
+
+    private File stagingDirectory;
+
+    private PfamHmmer3StagedRawMatchDAOImpl pfamDAO;
+
+    @BeforeEach
+    public void init(@TempDir File tempDir) {
+        stagingDirectory = new File(tempDir, "rawmatches");
+        final RawMatchStagingArea stagingArea = new RawMatchStagingArea();
+        stagingArea.setDirectory(stagingDirectory.getAbsolutePath());
+        pfamDAO = new PfamHmmer3StagedRawMatchDAOImpl();
+        pfamDAO.setStagingArea(stagingArea);
+    }
+
+    private static PfamHmmer3RawMatch pfamMatch(long proteinId, String model, int start) {
+        return new PfamHmmer3RawMatch(Long.toString(proteinId), model, SignatureLibrary.PFAM, RELEASE,
+                start, start + 40, 1.5e-12, 45.2, 3, 38, "[]", 44.9,
+                start - 2, start + 42, 0.93, 0.1, 2.1e-15, 3.4e-12, 0.2);
+    }
+
+    private static Set<RawProtein<PfamHmmer3RawMatch>> rawProteins(PfamHmmer3RawMatch... matches) {
+        final Map<String, RawProtein<PfamHmmer3RawMatch>> rawProteins = new HashMap<>();
+        for (PfamHmmer3RawMatch match : matches) {
+            RawProtein<PfamHmmer3RawMatch> rawProtein = rawProteins.get(match.getSequenceIdentifier());
+            if (rawProtein == null) {
+                rawProtein = new RawProtein<>(match.getSequenceIdentifier());
+                rawProteins.put(match.getSequenceIdentifier(), rawProtein);
+            }
+            rawProtein.addMatch(match);
+        }
+        return new HashSet<>(rawProteins.values());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final PfamHmmer3RawMatch split = pfamMatch(2, "PF00001", 10);
+        split.setSplitGroup(UUID.randomUUID());
+        split.setLocFragmentDCStatus("N");
+        final PfamHmmer3RawMatch other = pfamMatch(2, "PF00002", 100);
+        pfamDAO.insertProteinMatches(rawProteins(split, other, pfamMatch(7, "PF00001", 20)));
+
+        final Map<String, RawProtein<PfamHmmer3RawMatch>> read = pfamDAO.getRawMatchesForProteinIdsInRange(1, 5, RELEASE);
+        assertEquals(Collections.singleton("2"), read.keySet());
+        final Map<String, PfamHmmer3RawMatch> byModel = new HashMap<>();
+        for (PfamHmmer3RawMatch match : read.get("2").getMatches()) {
+            byModel.put(match.getModelId(), match);
+        }
+        assertEquals(2, byModel.size());
+        final PfamHmmer3RawMatch readSplit = byModel.get("PF00001");
+        assertEquals(split, readSplit);
+        assertEquals(split.getSplitGroup(), readSplit.getSplitGroup());
+        assertEquals("N", readSplit.getLocFragmentDCStatus());
+        assertEquals(split.getDomainIeValue(), readSplit.getDomainIeValue());
+        assertEquals(split.getEnvelopeEnd(), readSplit.getEnvelopeEnd());
+        assertEquals(2L, readSplit.getNumericSequenceId().longValue());
+        assertNull(byModel.get("PF00002").getSplitGroup());
+
+        assertEquals(3, pfamDAO.getActualRawMatchesForProteinIdsInRange(1, 10, RELEASE).size());
+        assertTrue(pfamDAO.getRawMatchesForProteinIdsInRange(1, 5, "32.0").isEmpty());
+        assertEquals(1, pfamDAO.getProteinsByIds(Collections.singleton(7L), RELEASE).size());
+        assertTrue(pfamDAO.getProteinsByIds(Collections.<Long>emptySet(), RELEASE).isEmpty());
+    }
+
+    @Test
+    public void testRemoveProcessedChunk() {
+        pfamDAO.insertProteinMatches(rawProteins(pfamMatch(1, "PF00001", 10), pfamMatch(3, "PF00001", 10)));
+        pfamDAO.insertProteinMatches(rawProteins(pfamMatch(4, "PF00001", 10), pfamMatch(6, "PF00001", 10)));
+        // Another release of the same chunk, e.g. a second Pfam job.
+        final PfamHmmer3RawMatch otherRelease = new PfamHmmer3RawMatch("2", "PF00001", SignatureLibrary.PFAM, "32.0",
+                1, 10, 1, 1, 1, 10, "[]", 1, 1, 10, 1, 0, 1, 1, 0);
+        pfamDAO.insertProteinMatches(rawProteins(otherRelease));
+
+        assertEquals(2, pfamDAO.getProteinsByIdRange(1, 3, RELEASE).size());
+        pfamDAO.removeProcessedRawMatches(1, 3, RELEASE);
+        assertTrue(pfamDAO.getProteinsByIdRange(1, 3, RELEASE).isEmpty());
+        assertEquals(2, pfamDAO.getActualRawMatchesForProteinIdsInRange(4, 6, RELEASE).size());
+        assertEquals(1, pfamDAO.getProteinsByIdRange(1, 3, "32.0").size());
+
+        pfamDAO.removeProcessedRawMatches(4, 6, RELEASE);
+        pfamDAO.removeProcessedRawMatches(1, 3, "32.0");
+        assertTrue(pfamDAO.getActualRawMatchesForProteinIdsInRange(1, 10, RELEASE).isEmpty());
+        for (File releaseDirectory : new File(stagingDirectory, "PfamHmmer3RawMatch").listFiles()) {
+            assertEquals(0, releaseDirectory.list().length);
+        }
+    }
+
+    @Test
+    public void testRerunAfterFailure() {
+        final PfamHmmer3RawMatch otherRelease = new PfamHmmer3RawMatch("2", "PF00001", SignatureLibrary.PFAM, "32.0",
+                1, 10, 1, 1, 1, 10, "[]", 1, 1, 10, 1, 0, 1, 1, 0);
+        pfamDAO.insertProteinMatches(rawProteins(pfamMatch(1, "PF00001", 10), pfamMatch(3, "PF00001", 10)));
+        pfamDAO.insertProteinMatches(rawProteins(otherRelease));
+        pfamDAO.insertProteinMatches(rawProteins(pfamMatch(7, "PF00001", 10)));
+
+        // The step for proteins 1 to 5 failed after staging its matches and is run again.
+        pfamDAO.removeRawMatchesInRange(1, 5);
+        pfamDAO.insertProteinMatches(rawProteins(pfamMatch(1, "PF00001", 10), pfamMatch(3, "PF00001", 10)));
+
+        assertEquals(2, pfamDAO.getActualRawMatchesForProteinIdsInRange(1, 5, RELEASE).size());
+        assertTrue(pfamDAO.getActualRawMatchesForProteinIdsInRange(1, 5, "32.0").isEmpty());
+        assertEquals(1, pfamDAO.getActualRawMatchesForProteinIdsInRange(6, 10, RELEASE).size());
+    }
+
+    @Test
+    public void testPrintsRoundTrip() {
+        final PrintsStagedRawMatchDAOImpl printsDAO = new PrintsStagedRawMatchDAOImpl();
+        final RawMatchStagingArea stagingArea = new RawMatchStagingArea();
+        stagingArea.setDirectory(stagingDirectory.getAbsolutePath());
+        printsDAO.setStagingArea(stagingArea);
+        final PrintsRawMatch match = new PrintsRawMatch("12", "PR00001", "42.0", 5, 25,
+                1e-20, "IIiI", 4, 2, 3.5e-7, 61.2);
+        final RawProtein<PrintsRawMatch> rawProtein = new RawProtein<>("12");
+        rawProtein.addMatch(match);
+        printsDAO.insertProteinMatches(Collections.singleton(rawProtein));
+
+        final List<PrintsRawMatch> read = printsDAO.getActualRawMatchesForProteinIdsInRange(10, 20, "42.0");
+        assertEquals(Collections.singletonList(match), read);
+        assertEquals("IIiI", read.get(0).getGraphscan());
+        assertEquals(SignatureLibrary.PRINTS, read.get(0).getSignatureLibrary());
+        assertEquals(2, read.get(0).getMotifNumber());
+    }
+}
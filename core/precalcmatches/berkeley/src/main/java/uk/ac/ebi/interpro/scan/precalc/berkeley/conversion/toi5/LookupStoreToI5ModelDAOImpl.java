@@ -8,6 +8,7 @@ import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ebi.interpro.scan.model.*;
 import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
 import uk.ac.ebi.interpro.scan.persistence.MatchDAO;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.SimpleLookupMatch;
 import uk.ac.ebi.interpro.scan.util.Utilities;
@@ -32,6 +33,15 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
 
     protected MatchDAO matchDAO;
 
+    private SignatureLookupCache signatureLookupCache = new SignatureLookupCache();
+
+    private final SignatureLookupCache.ReleaseLoader releaseLoader = new SignatureLookupCache.ReleaseLoader() {
+        @Override
+        public Collection<Signature> loadSignatures(SignatureLibrary library, String version) {
+            return loadReleaseSignatures(library, version);
+        }
+    };
+
     @PersistenceContext
     protected void setEntityManager(EntityManager entityManager) {
         this.entityManager = entityManager;
@@ -47,6 +57,17 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
         this.matchDAO = matchDAO;
     }
 
+    /**
+     * Optional - by default each instance has its own cache, which is enough as this is a singleton bean.
+     */
+    public void setSignatureLookupCache(SignatureLookupCache signatureLookupCache) {
+        this.signatureLookupCache = signatureLookupCache;
+    }
+
+    public SignatureLookupCache getSignatureLookupCache() {
+        return signatureLookupCache;
+    }
+
     /**
      * Method to store matches based upon lookup from the Berkeley match database of precalculated matches.
      *
@@ -118,6 +139,10 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
 //        LOGGER.debug("From librariesToAnalyse: " + jobsToAnalyse);
         }
 
+        if (librariesToAnalyse != null) {
+            signatureLookupCache.preload(librariesToAnalyse, releaseLoader);
+        }
+
         Map<String,   List<KVSequenceEntry>> mapKVSequenceEntryForSites = getMapKVSequenceEntry(kvSiteSequenceEntries);
 
         // Collection of BerkeleyMatches of different kinds.
@@ -127,7 +152,6 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
             //now we ahave a list
 
             String proteinMD5 = lookupMatch.getProteinMD5();
-            Set<String> sequenceHits = lookupMatch.getSequenceHits();
 
             //deal with cdd and sfld sites
             List<KVSequenceEntry> siteSequenceEntryList = mapKVSequenceEntryForSites.get(proteinMD5);
@@ -143,8 +167,7 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
             //Utilities.verboseLog(110, "consider proteinMD5:  " + proteinMD5 );
             // Convert list of matches for current protein into a Map of modelAc -> List of matches for that model on this protein
             Map<String, List<SimpleLookupMatch>> modelToMatchesMap = new HashMap<>();
-            for (String sequenceHit :sequenceHits) {
-                SimpleLookupMatch simpleMatch = new SimpleLookupMatch(proteinMD5, sequenceHit);
+            for (SimpleLookupMatch simpleMatch : lookupMatch.getLookupMatches()) {
                 String modelAc = simpleMatch.getModelAccession();
                 if (modelToMatchesMap.containsKey(modelAc)) {
                     modelToMatchesMap.get(modelAc).add(simpleMatch);
@@ -203,45 +226,10 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug(debugString);
                     }
-                    Query sigQuery = entityManager.createQuery("select distinct s from Signature s where s.accession = :sig_ac and s.signatureLibraryRelease.library = :library and s.signatureLibraryRelease.version = :version");
-                    sigQuery.setParameter("sig_ac", simpleMatch.getSignatureAccession());
-                    sigQuery.setParameter("library", sigLib);
-
-                    sigQuery.setParameter("version", signatureLibraryReleaseVersion);
-
-                    //Utilities.verboseLog(110, " parameters : - " + sigQuery.getParameters().toString());
-
-                    debugString = "Execute sigQuery : " + sigQuery.toString();
-                    //Utilities.verboseLog(110, debugString);
-//                    List<Signature> signatures = null;
-                    @SuppressWarnings("unchecked")  List<Signature> signatures  = sigQuery.getResultList();
-//                        signatures = sigQuery.getResultList();
-
-                    Signature signature = null;
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("signatures size: " + signatures.size());
-                    }
-
-                    //Utilities.verboseLog(110, "Signatures size: " + signatures.size());
-                    //what should be the behaviour here:
-                    //
-                    if (signatures.size() == 0) {   // This Signature is not in I5, so cannot store this one.
+                    final Signature signature = signatureLookupCache.getSignature(sigLib, signatureLibraryReleaseVersion,
+                            simpleMatch.getSignatureAccession(), releaseLoader);
+                    if (signature == null) {   // This Signature is not in I5, so cannot store this one.
                         continue;
-                    } else if (signatures.size() > 1) {
-                        //try continue instead of exiting
-                        String warning = "Data inconsistency issue. This distribution appears to contain the same signature multiple times: "
-                                + " signature: " + simpleMatch.getSignatureAccession()
-                                + " library name: " + simpleMatch.getSignatureLibraryName()
-                                //+ " match id: " + simpleMatch.getMatchId()
-                                + " sequence md5: " + proteinMD5;
-                        LOGGER.warn(warning);
-                        continue;
-                        //throw new IllegalStateException("Data inconsistency issue. This distribution appears to contain the same signature multiple times: " + berkeleyMatch.getSignatureAccession());
-                    } else {
-                        signature = signatures.get(0);
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("signatures size: " + signatures.get(0));
-                        }
                     }
 
                     // determine the type or the match currently being observed
@@ -258,10 +246,10 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
                         // Lookup up the right protein using the MD5
                         //Utilities.verboseLog(110, "matchConverter: is not null " );
                         final Protein prot = md5ToProteinMap.get(proteinMD5);
-                        final String dbKey = Long.toString(prot.getId()) + signatureLibraryKey.getName();
-                        exampleKey = dbKey;
-//                        Utilities.verboseLog(1100, "dbKey: " + dbKey);
                         if (prot != null) {
+                            // Same key layout as the other match DAOs, so that the range scan of PrepareForOutputStep finds these matches.
+                            final String dbKey = MatchKey.of(prot.getId(), signatureLibraryKey.getName());
+                            exampleKey = dbKey;
                             // One or multiple locations for this match on a given protein for this modelAc
                             //Utilities.verboseLog(110, "consider dbKey:  " + dbKey + " matchesForModel: " + matchesForModel.size() );
                             simpleMatchCount ++;
@@ -336,10 +324,10 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
                                     persistMatch(matchSet, dbKey);
                                 }
                             }
+                            Utilities.verboseLog(130, "protein:  " + prot.getId() + " dbkey: " + dbKey );
                         } else {
                             LOGGER.warn("Attempted to store a match in a Protein, but cannot find the protein??? This makes no sense. Possible coding error.");
                         }
-                        Utilities.verboseLog(130, "protein:  " + prot.getId() + " dbkey: " + dbKey );
                     } else {
                         Utilities.verboseLog(110, "matchConverter: is NULL " );
                         LOGGER.warn("Unable to persist match " + simpleMatch + " as there is no available conversion for signature libarary " + sigLib);
@@ -349,6 +337,37 @@ public class LookupStoreToI5ModelDAOImpl implements LookupStoreToI5ModelDAO {
             }
         }
         Utilities.verboseLog(130, "exampleKey: " + exampleKey);
+        Utilities.verboseLog(110, "End populateProteinMatches: " + signatureLookupCache);
+    }
+
+    /**
+     * Loads all Signatures of a release with their Models, Entry and the Entry GO / pathway cross references,
+     * so that they can be used after this transaction.  The collections are fetched by separate queries
+     * (sharing the persistence context) to avoid a cartesian product of models and cross references.
+     */
+    private Collection<Signature> loadReleaseSignatures(SignatureLibrary library, String version) {
+        final Query sigQuery = entityManager.createQuery("select distinct s from Signature s left join fetch s.models left join fetch s.entry " +
+                "where s.signatureLibraryRelease.library = :library and s.signatureLibraryRelease.version = :version");
+        sigQuery.setParameter("library", library);
+        sigQuery.setParameter("version", version);
+        @SuppressWarnings("unchecked") final List<Signature> signatures = sigQuery.getResultList();
+
+        final String entriesOfRelease = "(select s.entry from Signature s where s.signatureLibraryRelease.library = :library and s.signatureLibraryRelease.version = :version)";
+        for (String xrefs : new String[]{"goXRefs", "pathwayXRefs"}) {
+            final Query entryQuery = entityManager.createQuery("select distinct e from Entry e left join fetch e." + xrefs + " where e in " + entriesOfRelease);
+            entryQuery.setParameter("library", library);
+            entryQuery.setParameter("version", version);
+            entryQuery.getResultList();
+        }
+        for (Signature signature : signatures) {
+            Hibernate.initialize(signature.getModels());
+            final Entry entry = signature.getEntry();
+            if (entry != null) {
+                Hibernate.initialize(entry.getGoXRefs());
+                Hibernate.initialize(entry.getPathwayXRefs());
+            }
+        }
+        return signatures;
     }
 
 
@@ -0,0 +1,128 @@
+package uk.ac.ebi.interpro.scan.precalc.berkeley.conversion.toi5;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.ebi.interpro.scan.model.Signature;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.util.Utilities;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only map of (library, version, accession) to Signature, used when converting
+ * precalculated matches so that the Signatures are not queried for every protein.
+ * <p/>
+ * All Signatures of a member database release are loaded together the first time that
+ * release is asked for, and are then shared by all threads and StepInstances for the life of the JVM.
+ * The loader is expected to return Signatures with their Models and Entry (including the GO and
+ * pathway cross references) already initialised, as they are used outside the loading transaction.
+ */
+public class SignatureLookupCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(SignatureLookupCache.class.getName());
+
+    /**
+     * Loads all of the Signatures of a member database release.
+     */
+    public interface ReleaseLoader {
+        Collection<Signature> loadSignatures(SignatureLibrary library, String version);
+    }
+
+    private static final class ReleaseSignatures {
+        private final Map<String, Signature> accessionToSignature = new HashMap<>();
+        private final Set<String> duplicatedAccessions = new HashSet<>();
+    }
+
+    private final ConcurrentMap<String, ReleaseSignatures> releases = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    /**
+     * Loads each of the given releases that is not already cached.
+     *
+     * @param librariesToAnalyse member database to release version.
+     * @param loader             used for releases not yet loaded.
+     */
+    public void preload(Map<SignatureLibrary, String> librariesToAnalyse, ReleaseLoader loader) {
+        for (Map.Entry<SignatureLibrary, String> libraryVersion : librariesToAnalyse.entrySet()) {
+            getRelease(libraryVersion.getKey(), libraryVersion.getValue(), loader);
+        }
+    }
+
+    /**
+     * @return the Signature, or null if the release does not contain the accession exactly once
+     * (in which case the match cannot be stored, as before).
+     */
+    public Signature getSignature(SignatureLibrary library, String version, String accession, ReleaseLoader loader) {
+        final ReleaseSignatures release = getRelease(library, version, loader);
+        final Signature signature = release.accessionToSignature.get(accession);
+        if (signature != null) {
+            hits.incrementAndGet();
+        } else if (release.duplicatedAccessions.contains(accession)) {
+            duplicates.incrementAndGet();
+            LOGGER.warn("Data inconsistency issue. This distribution appears to contain the same signature multiple times: "
+                    + " signature: " + accession + " library name: " + library.getName() + " version: " + version);
+        } else {
+            misses.incrementAndGet();
+        }
+        return signature;
+    }
+
+    private ReleaseSignatures getRelease(final SignatureLibrary library, final String version, final ReleaseLoader loader) {
+        final String key = library.getName() + '-' + version;
+        ReleaseSignatures release = releases.get(key);
+        if (release == null) {
+            // Loading holds the map entry, so other threads wanting the same release wait rather than load it again.
+            release = releases.computeIfAbsent(key, k -> load(library, version, loader));
+        }
+        return release;
+    }
+
+    private ReleaseSignatures load(SignatureLibrary library, String version, ReleaseLoader loader) {
+        final long start = System.currentTimeMillis();
+        final ReleaseSignatures release = new ReleaseSignatures();
+        for (Signature signature : loader.loadSignatures(library, version)) {
+            final String accession = signature.getAccession();
+            final Signature previous = release.accessionToSignature.put(accession, signature);
+            if ((previous != null && previous != signature) || release.duplicatedAccessions.contains(accession)) {
+                release.accessionToSignature.remove(accession);
+                release.duplicatedAccessions.add(accession);
+            }
+        }
+        Utilities.verboseLog(110, "SignatureLookupCache: loaded " + release.accessionToSignature.size() + " signatures for "
+                + library.getName() + "-" + version + " in " + (System.currentTimeMillis() - start) + " ms");
+        return release;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public int getReleaseCount() {
+        return releases.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SignatureLookupCache{releases=" + releases.keySet()
+                + ", hits=" + hits.get()
+                + ", misses=" + misses.get()
+                + ", duplicates=" + duplicates.get()
+                + '}';
+    }
+}
@@ -0,0 +1,241 @@
+package uk.ac.ebi.interpro.scan.precalc.berkeley.model;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary alternative to the kvSequenceEntryXML document for the bulk match lookup, sent by the
+ * lookup service from /matches/binary and read by the MatchHttpClient in binary mode.
+ * <p/>
+ * The hits are sent with typed fields (as {@link SimpleLookupMatch}) rather than as comma separated
+ * strings, so the client does not need to split and parse them again. Layout, version 1:
+ * <pre>
+ * int     MAGIC
+ * byte    VERSION
+ * for each protein:
+ *   byte    PROTEIN
+ *   string  protein MD5
+ *   uvarint number of hits
+ *   for each hit:
+ *     string  library name, release, signature accession, model accession
+ *     varint  sequence start, sequence end
+ *     string  fragments
+ *     double  sequence score, sequence evalue
+ *     string  hmm bounds
+ *     varint  hmm start, hmm end, hmm length, envelope start, envelope end
+ *     double  location score, location evalue
+ *     string  sequence feature
+ * byte    END
+ * </pre>
+ * A string is written as a uvarint: 0 followed by its modified UTF-8 (DataOutput.writeUTF) the first time
+ * it appears in a response, or its 1-based position among the strings already written.  The library names,
+ * releases, model accessions and HMM bounds therefore cost a byte or two after their first use.
+ * Varints are the zigzag encoded int as an unsigned LEB128 (uvarint).
+ */
+public final class BinaryLookupMatchFormat {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    static final int MAGIC = 0x49354C4D;
+
+    static final byte VERSION = 1;
+
+    private static final byte PROTEIN = 1;
+
+    private static final byte END = 0;
+
+    private BinaryLookupMatchFormat() {
+    }
+
+    /**
+     * Writes one response. {@link #finish()} must be called after the last protein.
+     */
+    public static final class Writer {
+
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+        }
+
+        /**
+         * Writes a protein with the hits as stored by the lookup service (comma separated).
+         */
+        public void writeEntry(KVSequenceEntry entry) throws IOException {
+            writeEntry(entry.getProteinMD5(), entry.getLookupMatches());
+        }
+
+        public void writeEntry(String proteinMD5, Collection<SimpleLookupMatch> matches) throws IOException {
+            out.writeByte(PROTEIN);
+            writeString(proteinMD5);
+            writeUnsigned(matches.size());
+            for (SimpleLookupMatch match : matches) {
+                writeString(match.signatureLibraryName);
+                writeString(match.sigLibRelease);
+                writeString(match.signatureAccession);
+                writeString(match.modelAccession);
+                writeVarInt(match.sequenceStart);
+                writeVarInt(match.sequenceEnd);
+                writeString(match.fragments);
+                out.writeDouble(match.sequenceScore);
+                out.writeDouble(match.sequenceEValue);
+                writeString(match.hmmBounds);
+                writeVarInt(match.hmmStart);
+                writeVarInt(match.hmmEnd);
+                writeVarInt(match.hmmLength);
+                writeVarInt(match.envelopeStart);
+                writeVarInt(match.envelopeEnd);
+                out.writeDouble(match.locationScore);
+                out.writeDouble(match.locationEValue);
+                writeString(match.seqFeature);
+            }
+        }
+
+        /**
+         * Writes the end marker and flushes, leaving the underlying stream open.
+         */
+        public void finish() throws IOException {
+            out.writeByte(END);
+            out.flush();
+        }
+
+        private void writeString(String value) throws IOException {
+            final String string = SimpleLookupMatch.kvValueOf(value);
+            final Integer index = strings.get(string);
+            if (index != null) {
+                writeUnsigned(index);
+            } else {
+                writeUnsigned(0);
+                out.writeUTF(string);
+                strings.put(string, strings.size() + 1);
+            }
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+
+        private void writeUnsigned(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    /**
+     * Reads one response, a protein at a time.
+     */
+    public static final class Reader {
+
+        private final DataInputStream in;
+
+        private final List<String> strings = new ArrayList<>();
+
+        private boolean finished = false;
+
+        /**
+         * @throws IllegalStateException if the stream is not in this format (e.g. an HTML error page).
+         */
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            final int magic = this.in.readInt();
+            if (magic != MAGIC) {
+                throw new IllegalStateException("The lookup service response is not in the binary match format (0x"
+                        + Integer.toHexString(magic) + ")");
+            }
+            final byte version = this.in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported binary match format version " + version
+                        + ", expected " + VERSION);
+            }
+        }
+
+        /**
+         * @return the next protein, with its hits available from {@link KVSequenceEntry#getLookupMatches()},
+         * or null after the last one.
+         * @throws EOFException if the response ends before the end marker.
+         */
+        public KVSequenceEntry readEntry() throws IOException {
+            if (finished) {
+                return null;
+            }
+            final byte marker = in.readByte();
+            if (marker == END) {
+                finished = true;
+                return null;
+            }
+            if (marker != PROTEIN) {
+                throw new IllegalStateException("Corrupt binary match response, unexpected record type " + marker);
+            }
+            final String proteinMD5 = readString();
+            final int hitCount = readUnsigned();
+            final List<SimpleLookupMatch> matches = new ArrayList<>(hitCount);
+            for (int i = 0; i < hitCount; i++) {
+                final SimpleLookupMatch match = new SimpleLookupMatch(proteinMD5);
+                match.signatureLibraryName = readString();
+                match.sigLibRelease = readString();
+                match.signatureAccession = readString();
+                match.modelAccession = readString();
+                match.sequenceStart = readVarInt();
+                match.sequenceEnd = readVarInt();
+                match.fragments = readString();
+                match.sequenceScore = in.readDouble();
+                match.sequenceEValue = in.readDouble();
+                match.hmmBounds = readString();
+                match.hmmStart = readVarInt();
+                match.hmmEnd = readVarInt();
+                match.hmmLength = readVarInt();
+                match.envelopeStart = readVarInt();
+                match.envelopeEnd = readVarInt();
+                match.locationScore = in.readDouble();
+                match.locationEValue = in.readDouble();
+                match.seqFeature = readString();
+                matches.add(match);
+            }
+            final KVSequenceEntry entry = new KVSequenceEntry();
+            entry.setProteinMD5(proteinMD5);
+            entry.setLookupMatches(matches);
+            return entry;
+        }
+
+        private String readString() throws IOException {
+            final int index = readUnsigned();
+            if (index == 0) {
+                final String string = in.readUTF();
+                strings.add(string);
+                return string;
+            }
+            if (index > strings.size()) {
+                throw new IllegalStateException("Corrupt binary match response, unknown string " + index);
+            }
+            return strings.get(index - 1);
+        }
+
+        private int readVarInt() throws IOException {
+            final int zigzag = readUnsigned();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private int readUnsigned() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Corrupt binary match response, varint too long");
+        }
+    }
+}
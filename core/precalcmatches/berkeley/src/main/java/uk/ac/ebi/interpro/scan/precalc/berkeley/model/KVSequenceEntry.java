@@ -5,8 +5,11 @@ import com.sleepycat.persist.model.PrimaryKey;
 import com.sleepycat.persist.model.SecondaryKey;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.sleepycat.persist.model.Relationship.MANY_TO_ONE;
@@ -37,6 +40,12 @@ public class KVSequenceEntry implements Serializable{
 
     Set<String> sequenceHits = new HashSet<>();
 
+    /**
+     * Hits already decoded into typed fields, when read from the binary lookup response.
+     * Not stored in BerkeleyDB.
+     */
+    private transient List<SimpleLookupMatch> lookupMatches;
+
     /**
      * Required by BerkeleyDB
      */
@@ -73,6 +82,26 @@ public class KVSequenceEntry implements Serializable{
         this.sequenceHits.add(sequenceHit);
     }
 
+    /**
+     * @return the hits of this protein as SimpleLookupMatches, parsing the sequenceHits
+     * unless they were received already typed.
+     */
+    @XmlTransient
+    public List<SimpleLookupMatch> getLookupMatches() {
+        if (lookupMatches != null) {
+            return lookupMatches;
+        }
+        final List<SimpleLookupMatch> matches = new ArrayList<>(sequenceHits.size());
+        for (String sequenceHit : sequenceHits) {
+            matches.add(new SimpleLookupMatch(proteinMD5, sequenceHit));
+        }
+        return matches;
+    }
+
+    public void setLookupMatches(List<SimpleLookupMatch> lookupMatches) {
+        this.lookupMatches = lookupMatches;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
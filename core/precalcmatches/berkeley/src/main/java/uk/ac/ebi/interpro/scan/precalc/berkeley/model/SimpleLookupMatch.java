@@ -93,6 +93,13 @@ public class SimpleLookupMatch {
 //        System.out.println(toString());
     }
 
+    /**
+     * For {@link BinaryLookupMatchFormat}, which sets the typed fields directly.
+     */
+    SimpleLookupMatch(String proteinMD5) {
+        this.proteinMD5 = proteinMD5;
+    }
+
     public static String kvValueOf(Object obj) {
         return (obj == null) ? "" : obj.toString();
     }
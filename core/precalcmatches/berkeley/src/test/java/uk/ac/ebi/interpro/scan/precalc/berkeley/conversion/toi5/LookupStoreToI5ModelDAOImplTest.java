@@ -0,0 +1,79 @@
+package uk.ac.ebi.interpro.scan.precalc.berkeley.conversion.toi5;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.interpro.scan.model.*;
+import uk.ac.ebi.interpro.scan.persistence.MatchDAOImpl;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.KVDBRange;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.LevelDBStore;
+import uk.ac.ebi.interpro.scan.persistence.kvstore.MatchKey;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.conversion.toi5.fromkvs.Hmmer2LookupMatchConverter;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.SimpleLookupMatch;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Converts a lookup match and reads it back from the match store as {@code PrepareForOutputStep} does.
+ */
+public class LookupStoreToI5ModelDAOImplTest {
+
+    private static void setProteinId(Protein protein, long id) throws ReflectiveOperationException {
+        final Field field = Protein.class.getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(protein, id);
+    }
+
+    @Test
+    public void testLookupMatchFoundByRangeScan(@TempDir File tempDir) throws ReflectiveOperationException {
+        final SignatureLibraryRelease release = new SignatureLibraryRelease(SignatureLibrary.SMART, "7.1");
+        final Signature signature = new Signature.Builder("SM00929").signatureLibraryRelease(release).build();
+        final SignatureLookupCache cache = new SignatureLookupCache();
+        cache.preload(Collections.singletonMap(SignatureLibrary.SMART, "7.1"), new SignatureLookupCache.ReleaseLoader() {
+            @Override
+            public Collection<Signature> loadSignatures(SignatureLibrary library, String version) {
+                return Collections.singletonList(signature);
+            }
+        });
+
+        final LevelDBStore store = new LevelDBStore(new File(tempDir, "matches").getPath());
+        try {
+            final MatchDAOImpl matchDAO = new MatchDAOImpl();
+            matchDAO.setDbStore(store);
+            final LookupStoreToI5ModelDAOImpl dao = new LookupStoreToI5ModelDAOImpl();
+            dao.setMatchDAO(matchDAO);
+            dao.setSignatureLookupCache(cache);
+            dao.setSignatureLibraryToMatchConverter(Collections.<SignatureLibrary, LookupMatchConverter>singletonMap(
+                    SignatureLibrary.SMART, new Hmmer2LookupMatchConverter()));
+
+            final Protein protein = new Protein("MKVLAAGIVALLLAAGCSS");
+            setProteinId(protein, 12L);
+            // The lookup service returns upper case MD5s.
+            final String md5 = protein.getMd5().toUpperCase();
+            final KVSequenceEntry entry = new KVSequenceEntry();
+            entry.setProteinMD5(md5);
+            entry.setLookupMatches(Collections.singletonList(new SimpleLookupMatch(md5,
+                    "SMART,7.1,SM00929,SM00929,92,132,92-132-S,85.9,4.9E-21,[],1,43,43,0,0,4.9E-21,85.9,")));
+
+            dao.populateProteinMatches(Collections.singleton(protein), Collections.singletonList(entry),
+                    Collections.<KVSequenceEntry>emptyList(), Collections.singletonMap("SMART", release), false);
+
+            final List<String> keys = new ArrayList<>();
+            try (KVDBRange<Set<Match>> range = matchDAO.getMatchSets(12L, 12L)) {
+                while (range.hasNext()) {
+                    final Map.Entry<String, Set<Match>> matches = range.next();
+                    keys.add(matches.getKey());
+                    assertEquals(1, matches.getValue().size());
+                    assertEquals("SM00929", matches.getValue().iterator().next().getSignature().getAccession());
+                }
+            }
+            assertEquals(Collections.singletonList(MatchKey.of(12L, SignatureLibrary.SMART.getName())), keys);
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.ebi.interpro.scan.precalc.berkeley.conversion.toi5;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.interpro.scan.model.Signature;
+import uk.ac.ebi.interpro.scan.model.SignatureLibrary;
+import uk.ac.ebi.interpro.scan.model.SignatureLibraryRelease;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link SignatureLookupCache} with an in-memory loader in place of the database.
+ */
+public class SignatureLookupCacheTest {
+
+    private static Signature signature(String accession, SignatureLibraryRelease release) {
+        return new Signature.Builder(accession).signatureLibraryRelease(release).build();
+    }
+
+    private static final class CountingLoader implements SignatureLookupCache.ReleaseLoader {
+        private final Map<String, List<Signature>> signatures = new HashMap<>();
+        private int loads = 0;
+
+        void add(Signature signature) {
+            final SignatureLibraryRelease release = signature.getSignatureLibraryRelease();
+            final String key = release.getLibrary().getName() + release.getVersion();
+            if (!signatures.containsKey(key)) {
+                signatures.put(key, new ArrayList<Signature>());
+            }
+            signatures.get(key).add(signature);
+        }
+
+        @Override
+        public Collection<Signature> loadSignatures(SignatureLibrary library, String version) {
+            loads++;
+            final List<Signature> release = signatures.get(library.getName() + version);
+            return release == null ? Collections.<Signature>emptyList() : release;
+        }
+    }
+
+    @Test
+    public void testReleaseLoadedOnce() {
+        final SignatureLibraryRelease pfam = new SignatureLibraryRelease(SignatureLibrary.PFAM, "33.1");
+        final SignatureLibraryRelease oldPfam = new SignatureLibraryRelease(SignatureLibrary.PFAM, "32.0");
+        final Signature pf00001 = signature("PF00001", pfam);
+        final CountingLoader loader = new CountingLoader();
+        loader.add(pf00001);
+        loader.add(signature("PF00002", pfam));
+        loader.add(signature("PF00001", oldPfam));
+
+        final SignatureLookupCache cache = new SignatureLookupCache();
+        cache.preload(Collections.singletonMap(SignatureLibrary.PFAM, "33.1"), loader);
+        assertEquals(1, loader.loads);
+
+        assertSame(pf00001, cache.getSignature(SignatureLibrary.PFAM, "33.1", "PF00001", loader));
+        assertNotNull(cache.getSignature(SignatureLibrary.PFAM, "33.1", "PF00002", loader));
+        assertNull(cache.getSignature(SignatureLibrary.PFAM, "33.1", "PF99999", loader));
+        assertEquals(1, loader.loads, "A loaded release should not be queried again");
+
+        final Signature old = cache.getSignature(SignatureLibrary.PFAM, "32.0", "PF00001", loader);
+        assertNotSame(pf00001, old);
+        assertEquals("32.0", old.getSignatureLibraryRelease().getVersion());
+        assertEquals(2, loader.loads);
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getReleaseCount());
+    }
+
+    @Test
+    public void testDuplicatedAccessionNotResolved() {
+        final SignatureLibraryRelease release = new SignatureLibraryRelease(SignatureLibrary.PANTHER, "15.0");
+        final CountingLoader loader = new CountingLoader();
+        loader.add(signature("PTHR10000", release));
+        loader.add(signature("PTHR10000", release));
+        loader.add(signature("PTHR10000", release));
+
+        final SignatureLookupCache cache = new SignatureLookupCache();
+        assertNull(cache.getSignature(SignatureLibrary.PANTHER, "15.0", "PTHR10000", loader));
+        assertEquals(1, cache.getDuplicateCount());
+        assertEquals(0, cache.getMissCount());
+    }
+}
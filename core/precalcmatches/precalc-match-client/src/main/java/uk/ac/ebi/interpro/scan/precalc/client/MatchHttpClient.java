@@ -18,28 +18,41 @@ import org.apache.http.client.methods.HttpPost;
 
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import org.springframework.oxm.UnmarshallingFailureException;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.BinaryLookupMatchFormat;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntryXML;
 import uk.ac.ebi.interpro.scan.util.Utilities;
 
 import javax.xml.bind.JAXBException;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.BufferedInputStream;
-import java.io.FileInputStream;
 import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client to query the REST web service for matches
@@ -49,7 +62,7 @@ import java.util.Random;
  * @version $Id$
  * @since 1.0-SNAPSHOT
  */
-public class MatchHttpClient {
+public class MatchHttpClient implements Closeable {
 
     private static final Logger LOG = LogManager.getLogger(MatchHttpClient.class.getName());
 
@@ -65,10 +78,29 @@ public class MatchHttpClient {
 
     private final Jaxb2Marshaller unmarshaller;
 
+    private static final String MATCH_ELEMENT = "match";
+
+    private static final int IDLE_CONNECTION_SECONDS = 30;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private int maxConnections = 8;
+
+    private volatile CloseableHttpClient pooledClient;
+
+    private boolean binaryLookup = false;
+
     public static final String SITE_SERVICE_PATH = "/sites";
 
     public static final String MATCH_SERVICE_PATH = "/matches";
 
+    public static final String BINARY_MATCH_SERVICE_PATH = "/matches/binary";
+
     public static final String PROTEINS_TO_ANALYSE_SERVICE_PATH = "/isPrecalculated";
 
     public static final String VERSION_PATH = "/version";
@@ -110,103 +142,48 @@ public class MatchHttpClient {
         return proxyPort;
     }
 
-    public KVSequenceEntryXML getMatches(String... md5s) throws IOException {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Call to MatchHttpClient.getMatches:");
-            for (String md5 : md5s) {
-                LOG.debug("Protein match requested for MD5: " + md5);
-            }
-        }
-
-        if (url == null || url.isEmpty()) {
-            throw new IllegalStateException("The url must be set for the MatchHttpClient.getMatches method to function");
-        }
-
-
-//        HttpClient httpclient = new DefaultHttpClient();
-        CloseableHttpClient httpclient = HttpClients.createDefault();
-
-        //set the proxy if needed
-        if (isProxyEnabled()) {
-            LOG.debug("Using a Proxy server in getMatches: " + proxyHost + ":" + proxyPort);
-
-            HttpHost proxy = new HttpHost(proxyHost, Integer.parseInt(proxyPort));
-            httpclient = getClient(proxy);
-
-            //httpclient.getParams().setParameter(ConnRoutePNames.DEFAULT_PROXY, proxy);
-            //httpclient = HttpClients.createDefault();
-            HttpGet httpget = new HttpGet("http://localhost/");
-            CloseableHttpResponse response = httpclient.execute(httpget);
-            try {
-                //do something
-                LOG.warn("HTTP Proxy Warning: this run is configured to use an http proxy, InterProscan is however unable to handle this properly.  ");
-            } finally {
-                response.close();
-            }
-
-            //try use newer API as ConnRoutePNames is deprecated
-//            CloseableHttpClient client = HttpClients.custom()
-//                .setRoutePlanner(
-//                     new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
-//                .build();
-
-        }
-
-
-        final List<NameValuePair> qparams = new ArrayList<NameValuePair>();
-        for (String md5 : md5s) {
-            qparams.add(new BasicNameValuePair(MD5_PARAMETER, md5));
-        }
-        UrlEncodedFormEntity encodedParameterEntity;
-        encodedParameterEntity = new UrlEncodedFormEntity(qparams, "UTF-8");
+    /**
+     * Maximum number of connections kept open to the lookup service, i.e. the number of
+     * batches that may be in flight at the same time.
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
 
-        // Using HttpPost to ensure no problems with long URLs.
-        HttpPost post = new HttpPost(url + MATCH_SERVICE_PATH);
+    public int getMaxConnections() {
+        return maxConnections;
+    }
 
-        long startGetMatches = System.currentTimeMillis();
-        post.setEntity(encodedParameterEntity);
+    /**
+     * If true, matches are requested from the binary bulk endpoint (see {@link BinaryLookupMatchFormat}),
+     * which only lookup services from this release onwards provide.  Sites are always requested as XML.
+     */
+    public void setBinaryLookup(boolean binaryLookup) {
+        this.binaryLookup = binaryLookup;
+    }
 
+    public boolean isBinaryLookup() {
+        return binaryLookup;
+    }
 
-        ResponseHandler<KVSequenceEntryXML> handler = new ResponseHandler<KVSequenceEntryXML>() {
-            public KVSequenceEntryXML handleResponse(
-                    HttpResponse response) throws IOException {
-                HttpEntity responseEntity = response.getEntity();
-//                Utilities.verboseLog(1100, "response:" + response.toString());
-//                Utilities.verboseLog(1100, "responseEntity:" + responseEntity.toString());
-                if (responseEntity != null) {
-                    // Stream in the response to the unmarshaller
-                    BufferedInputStream bis = null;
+    /**
+     * Callback for records decoded from a lookup service response, as they arrive.
+     */
+    public interface KVSequenceEntryHandler {
+        void handle(KVSequenceEntry kvSequenceEntry);
+    }
 
-                    try {
-                        bis = new BufferedInputStream(responseEntity.getContent());
-//                      Utilities.verboseLog(1100, "xmlBufferedInputStream:" + bis.toString());
-//                        if (testXMResponse()){
-//                            FileInputStream htmlFileInputStream = new FileInputStream("input/htmlTest.html");
-//                            return (KVSequenceEntryXML) unmarshaller.unmarshal(new StreamSource(htmlFileInputStream));
-//                        }
-                        return (KVSequenceEntryXML) unmarshaller.unmarshal(new StreamSource(bis));
-                    } finally {
-                        if (bis != null) {
-                            bis.close();
-                        }
-                    }
-                }
-                return null;
+    public KVSequenceEntryXML getMatches(String... md5s) throws IOException {
+        final KVSequenceEntryXML matchXML = new KVSequenceEntryXML();
+        streamMatches(new KVSequenceEntryHandler() {
+            @Override
+            public void handle(KVSequenceEntry kvSequenceEntry) {
+                matchXML.getMatches().add(kvSequenceEntry);
             }
-        };
-
-
-        KVSequenceEntryXML matchXML = httpclient.execute(post, handler);
-//        httpclient.getConnectionManager().shutdown();
-        httpclient.close();
-//        Utilities.verboseLog(1100, "matchXML:" + matchXML.toString());
-        long timeToGetMatches = System.currentTimeMillis() - startGetMatches;
-//        System.out.println(Utilities.getTimeNow() + " Took  " + timeToGetMatches + " millis to get  matches  for  " + md5s.length  + " md5s");
-
+        }, md5s);
         return matchXML;
     }
 
-
     /**
      * get the site matches for CDD and SFLD fro thelookup service
      *
@@ -215,96 +192,161 @@ public class MatchHttpClient {
      * @throws IOException
      */
     public KVSequenceEntryXML getSites(String... md5s) throws IOException {
+        final KVSequenceEntryXML siteXML = new KVSequenceEntryXML();
+        streamSites(new KVSequenceEntryHandler() {
+            @Override
+            public void handle(KVSequenceEntry kvSequenceEntry) {
+                siteXML.getMatches().add(kvSequenceEntry);
+            }
+        }, md5s);
+        return siteXML;
+    }
+
+    /**
+     * As {@link #getMatches(String...)}, but passes each match record to the handler as it is read
+     * from the response rather than building the whole document first.
+     *
+     * @return the number of records handled.
+     */
+    public int streamMatches(KVSequenceEntryHandler handler, String... md5s) throws IOException {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Call to MatchHttpClient.getMatches:");
             for (String md5 : md5s) {
                 LOG.debug("Protein match requested for MD5: " + md5);
             }
         }
-
         if (url == null || url.isEmpty()) {
             throw new IllegalStateException("The url must be set for the MatchHttpClient.getMatches method to function");
         }
+        if (binaryLookup) {
+            // The service reads the batch in index order.
+            final String[] sortedMd5s = md5s.clone();
+            Arrays.sort(sortedMd5s);
+            return postMd5s(BINARY_MATCH_SERVICE_PATH, sortedMd5s, new BinaryMatchResponseHandler(handler));
+        }
+        return postMd5s(MATCH_SERVICE_PATH, md5s, new KVSequenceEntryResponseHandler(handler));
+    }
 
+    /**
+     * As {@link #getSites(String...)}, but passes each site record to the handler as it is read.
+     *
+     * @return the number of records handled.
+     */
+    public int streamSites(KVSequenceEntryHandler handler, String... md5s) throws IOException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Call to MatchHttpClient.getSites:");
+            for (String md5 : md5s) {
+                LOG.debug("Protein site requested for MD5: " + md5);
+            }
+        }
+        if (url == null || url.isEmpty()) {
+            throw new IllegalStateException("The url must be set for the MatchHttpClient.getSites method to function");
+        }
+        return postMd5s(SITE_SERVICE_PATH, md5s, new KVSequenceEntryResponseHandler(handler));
+    }
 
-//        HttpClient httpclient = new DefaultHttpClient();
-        CloseableHttpClient httpclient = HttpClients.createDefault();
-        final List<NameValuePair> qparams = new ArrayList<NameValuePair>();
+    /**
+     * Using HttpPost to ensure no problems with long URLs.
+     */
+    private <T> T postMd5s(String servicePath, String[] md5s, ResponseHandler<T> handler) throws IOException {
+        final List<NameValuePair> qparams = new ArrayList<NameValuePair>(md5s.length);
         for (String md5 : md5s) {
             qparams.add(new BasicNameValuePair(MD5_PARAMETER, md5));
         }
-        UrlEncodedFormEntity encodedParameterEntity;
-        encodedParameterEntity = new UrlEncodedFormEntity(qparams, "UTF-8");
-
-        // Using HttpPost to ensure no problems with long URLs.
-        HttpPost post = new HttpPost(url + SITE_SERVICE_PATH);
+        final HttpPost post = new HttpPost(url + servicePath);
+        post.setEntity(new UrlEncodedFormEntity(qparams, "UTF-8"));
+        return getPooledClient().execute(post, handler);
+    }
 
-        long startGetMatches = System.currentTimeMillis();
-        post.setEntity(encodedParameterEntity);
+    /**
+     * Reads the kvSequenceEntryXML document one match element at a time.
+     */
+    private class KVSequenceEntryResponseHandler implements ResponseHandler<Integer> {
 
+        private final KVSequenceEntryHandler handler;
 
-        ResponseHandler<KVSequenceEntryXML> handler = new ResponseHandler<KVSequenceEntryXML>() {
-            public KVSequenceEntryXML handleResponse(
-                    HttpResponse response) throws IOException {
-                HttpEntity responseEntity = response.getEntity();
-//                Utilities.verboseLog(1100, "response:" + response.toString());
-//                Utilities.verboseLog(1100, "responseEntity:" + responseEntity.toString());
-                if (responseEntity != null) {
-                    // Stream in the response to the unmarshaller
-                    BufferedInputStream bis = null;
+        KVSequenceEntryResponseHandler(KVSequenceEntryHandler handler) {
+            this.handler = handler;
+        }
 
-                    try {
-                        bis = new BufferedInputStream(responseEntity.getContent());
-//                      Utilities.verboseLog(1100, "xmlBufferedInputStream:" + bis.toString());
-//                        if (testXMResponse()){
-//                            FileInputStream htmlFileInputStream = new FileInputStream("input/htmlTest.html");
-//                            return (KVSequenceEntryXML) unmarshaller.unmarshal(new StreamSource(htmlFileInputStream));
-//                        }
-                        return (KVSequenceEntryXML) unmarshaller.unmarshal(new StreamSource(bis));
-                    } finally {
-                        if (bis != null) {
-                            bis.close();
-                        }
-                    }
-                }
-                return null;
+        public Integer handleResponse(HttpResponse response) throws IOException {
+            final HttpEntity responseEntity = response.getEntity();
+            if (responseEntity == null) {
+                return 0;
             }
-        };
-        //set the proxy if needed
-        if (isProxyEnabled()) {
-            LOG.debug("Using a Proxy server in getMatches: " + proxyHost + ":" + proxyPort);
-
-            HttpHost proxy = new HttpHost(proxyHost, Integer.parseInt(proxyPort));
-            httpclient = getClient(proxy);
-
-            //httpclient.getParams().setParameter(ConnRoutePNames.DEFAULT_PROXY, proxy);
-            //httpclient = HttpClients.createDefault();
-            HttpGet httpget = new HttpGet("http://localhost/");
-            CloseableHttpResponse response = httpclient.execute(httpget);
-            try {
-                //do something
-            } finally {
-                response.close();
+            try (InputStream is = new BufferedInputStream(responseEntity.getContent())) {
+                return readKVSequenceEntries(is, handler);
             }
+        }
+    }
 
-            //try use newer API as ConnRoutePNames is deprecated
-//            CloseableHttpClient client = HttpClients.custom()
-//                .setRoutePlanner(
-//                     new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
-//                .build();
+    /**
+     * Reads the binary match response; the hits arrive already typed as SimpleLookupMatches.
+     */
+    private static class BinaryMatchResponseHandler implements ResponseHandler<Integer> {
 
+        private final KVSequenceEntryHandler handler;
+
+        BinaryMatchResponseHandler(KVSequenceEntryHandler handler) {
+            this.handler = handler;
         }
 
-        KVSequenceEntryXML siteXML = httpclient.execute(post, handler);
-//        httpclient.getConnectionManager().shutdown();
-        httpclient.close();
-//        Utilities.verboseLog(1100, "matchXML:" + matchXML.toString());
-        long timeToGetMatches = System.currentTimeMillis() - startGetMatches;
-//        System.out.println(Utilities.getTimeNow() + " Took  " + timeToGetMatches + " millis to get  matches  for  " + md5s.length  + " md5s");
+        public Integer handleResponse(HttpResponse response) throws IOException {
+            final HttpEntity responseEntity = response.getEntity();
+            if (responseEntity == null) {
+                return 0;
+            }
+            try (InputStream is = responseEntity.getContent()) {
+                return readBinaryEntries(is, handler);
+            }
+        }
+    }
 
-        return siteXML;
+    static int readBinaryEntries(InputStream is, KVSequenceEntryHandler handler) throws IOException {
+        int count = 0;
+        try {
+            final BinaryLookupMatchFormat.Reader reader = new BinaryLookupMatchFormat.Reader(is);
+            KVSequenceEntry kvSequenceEntry;
+            while ((kvSequenceEntry = reader.readEntry()) != null) {
+                handler.handle(kvSequenceEntry);
+                count++;
+            }
+            return count;
+        } catch (EOFException | IllegalStateException e) {
+            // Truncated or not a binary match response, reported as for the XML response.
+            throw new UnmarshallingFailureException("Unable to read the binary lookup service response after " + count + " records", e);
+        }
     }
 
+    int readKVSequenceEntries(InputStream is, KVSequenceEntryHandler handler) {
+        int count = 0;
+        XMLStreamReader reader = null;
+        try {
+            final Unmarshaller entryUnmarshaller = unmarshaller.getJaxbContext().createUnmarshaller();
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+            while (reader.hasNext()) {
+                if (reader.getEventType() == XMLStreamConstants.START_ELEMENT && MATCH_ELEMENT.equals(reader.getLocalName())) {
+                    // Leaves the reader on the event after the end of this match element.
+                    handler.handle(entryUnmarshaller.unmarshal(reader, KVSequenceEntry.class).getValue());
+                    count++;
+                } else {
+                    reader.next();
+                }
+            }
+            return count;
+        } catch (JAXBException | XMLStreamException e) {
+            // Same exception as Jaxb2Marshaller.unmarshal, which callers retry on.
+            throw new UnmarshallingFailureException("Unable to read the lookup service response after " + count + " records", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    LOG.warn("Error closing XMLStreamReader", e);
+                }
+            }
+        }
+    }
 
     public boolean testXMResponse() {
         boolean testXMResponse = false;
@@ -337,19 +379,6 @@ public class MatchHttpClient {
         if (url == null || url.isEmpty()) {
             throw new IllegalStateException("The url must be set for the MatchHttpClient.getMD5sOfProteinsAlreadyAnalysed method to function");
         }
-        CloseableHttpClient httpclient = getClient(); //new DefaultHttpClient();
-        final List<NameValuePair> qparams = new ArrayList<NameValuePair>();
-        for (String md5 : md5s) {
-            qparams.add(new BasicNameValuePair(MD5_PARAMETER, md5));
-        }
-        UrlEncodedFormEntity encodedParameterEntity;
-        encodedParameterEntity = new UrlEncodedFormEntity(qparams, "UTF-8");
-
-        // Using HttpPost to ensure no problems with long URLs.
-        HttpPost post = new HttpPost(url + PROTEINS_TO_ANALYSE_SERVICE_PATH);
-        post.setEntity(encodedParameterEntity);
-
-
         ResponseHandler<List<String>> handler = new ResponseHandler<List<String>>() {
             public List<String> handleResponse(
                     HttpResponse response) throws IOException {
@@ -377,18 +406,7 @@ public class MatchHttpClient {
             }
         };
 
-        //set the proxy if needed
-        if (isProxyEnabled()) {
-            LOG.debug("Using a Proxy server in getMD5sOfProteinsAlreadyAnalysed : " + proxyHost + ":" + proxyPort);
-            HttpHost proxy = new HttpHost(proxyHost, Integer.parseInt(proxyPort));
-            httpclient = getClient(proxy);
-            //httpclient.getParams().setParameter(ConnRoutePNames.DEFAULT_PROXY, proxy);
-
-        }
-
-        List<String> response = httpclient.execute(post, handler);
-        httpclient.close();
-//        httpclient.getConnectionManager().shutdown();
+        List<String> response = postMd5s(PROTEINS_TO_ANALYSE_SERVICE_PATH, md5s, handler);
         return response;
     }
 
@@ -411,8 +429,6 @@ public class MatchHttpClient {
         }
         */
 
-        CloseableHttpClient httpclient = getClient();
-
         // Use HttpGet as the URL will be very short
         HttpGet get = new HttpGet(url + VERSION_PATH);
 
@@ -450,20 +466,52 @@ public class MatchHttpClient {
             }
         };
 
-        //set the proxy if needed
-        if (isProxyEnabled()) {
-            LOG.debug("Using a Proxy server in getServerVersion: " + proxyHost + ":" + proxyPort);
-            HttpHost proxy = new HttpHost(proxyHost, Integer.parseInt(proxyPort));
-            httpclient = getClient(proxy);
-        }
-
-        serverVersion = httpclient.execute(get, handler);
-        httpclient.close();
-        //httpclient.getConnectionManager().shutdown();
+        serverVersion = getPooledClient().execute(get, handler);
         return serverVersion;
 
     }
 
+    /**
+     * The client is shared by all calls (and threads), so that connections to the lookup service
+     * are kept alive between batches.  Content compression is enabled by default by HttpClientBuilder,
+     * so gzip responses are requested and decoded transparently.
+     */
+    private CloseableHttpClient getPooledClient() {
+        CloseableHttpClient client = pooledClient;
+        if (client == null) {
+            synchronized (this) {
+                client = pooledClient;
+                if (client == null) {
+                    final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+                    connectionManager.setMaxTotal(maxConnections);
+                    connectionManager.setDefaultMaxPerRoute(maxConnections);
+                    final HttpClientBuilder builder = HttpClients.custom()
+                            .setConnectionManager(connectionManager)
+                            .evictIdleConnections(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS);
+                    if (isProxyEnabled()) {
+                        LOG.debug("Using a Proxy server for the lookup service: " + proxyHost + ":" + proxyPort);
+                        LOG.warn("HTTP Proxy Warning: this run is configured to use an http proxy, InterProscan is however unable to handle this properly.  ");
+                        builder.setProxy(new HttpHost(proxyHost, Integer.parseInt(proxyPort)));
+                    }
+                    client = builder.build();
+                    pooledClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Closes the pooled connections.  Called by Spring when the context is closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (pooledClient != null) {
+            pooledClient.close();
+            pooledClient = null;
+        }
+    }
+
     /**
      * Method to quickly indicate if the service is not configured.
      *
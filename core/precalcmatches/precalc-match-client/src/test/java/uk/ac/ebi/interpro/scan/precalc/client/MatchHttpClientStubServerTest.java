@@ -0,0 +1,207 @@
+package uk.ac.ebi.interpro.scan.precalc.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.BinaryLookupMatchFormat;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntryXML;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.SimpleLookupMatch;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the pooled client and streaming decoder of {@link MatchHttpClient} against
+ * a stub of the lookup service running in this JVM.
+ */
+public class MatchHttpClientStubServerTest {
+
+    private HttpServer server;
+
+    private MatchHttpClient client;
+
+    private Jaxb2Marshaller marshaller;
+
+    private byte[] matchesXml;
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+    private final List<String> acceptEncodings = Collections.synchronizedList(new ArrayList<String>());
+
+    private static final String PFAM_HIT = "PFAM,33.1,PF00001,PF00001,10,120,10-120-S,85.9,4.9E-21,[],1,110,110,8,122,4.9E-21,85.9,";
+
+    private static final String SFLD_HIT = "SFLD,4,SFLDS00029,SFLDS00029,1,300,1-300-S,250.0,1.0E-75,[.],2,280,290,1,300,2.0E-75,249.5,SFLDF00001";
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        marshaller = new Jaxb2Marshaller();
+        marshaller.setClassesToBeBound(KVSequenceEntryXML.class, KVSequenceEntry.class);
+        marshaller.afterPropertiesSet();
+
+        final List<KVSequenceEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final KVSequenceEntry entry = new KVSequenceEntry();
+            entry.setMatchId(i);
+            entry.setProteinMD5(String.format("%032X", i));
+            entry.addMatch("PFAM,33.1,PF" + i + ",1,100,...");
+            entry.addMatch("GENE3D,4.2.0,G3DSA:" + i + ",5,80,...");
+            entries.add(entry);
+        }
+        final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        marshaller.marshal(new KVSequenceEntryXML(entries), new StreamResult(xml));
+        matchesXml = xml.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(MatchHttpClient.MATCH_SERVICE_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                acceptEncodings.add(acceptEncoding);
+                byte[] body = matchesXml;
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                        gzip.write(body);
+                    }
+                    body = compressed.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/xml");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+        });
+        server.createContext(MatchHttpClient.SITE_SERVICE_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] body = "<html><body>Service unavailable</body>".getBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+        });
+        server.createContext(MatchHttpClient.BINARY_MATCH_SERVICE_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final List<String> requested = new ArrayList<>();
+                try (InputStream is = exchange.getRequestBody()) {
+                    final ByteArrayOutputStream form = new ByteArrayOutputStream();
+                    int b;
+                    while ((b = is.read()) != -1) {
+                        form.write(b);
+                    }
+                    for (String parameter : form.toString("UTF-8").split("&")) {
+                        requested.add(URLDecoder.decode(parameter.substring(parameter.indexOf('=') + 1), "UTF-8"));
+                    }
+                }
+                final ByteArrayOutputStream body = new ByteArrayOutputStream();
+                final BinaryLookupMatchFormat.Writer writer = new BinaryLookupMatchFormat.Writer(body);
+                for (String md5 : requested) {
+                    final KVSequenceEntry entry = new KVSequenceEntry();
+                    entry.setProteinMD5(md5);
+                    entry.addMatch(PFAM_HIT);
+                    entry.addMatch(SFLD_HIT);
+                    writer.writeEntry(entry);
+                }
+                writer.finish();
+                exchange.getResponseHeaders().add("Content-Type", BinaryLookupMatchFormat.CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.size());
+                try (OutputStream os = exchange.getResponseBody()) {
+                    body.writeTo(os);
+                }
+            }
+        });
+        server.start();
+
+        client = new MatchHttpClient(marshaller);
+        client.setUrl("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testMatchesStreamedOverPooledConnection() throws Exception {
+        final KVSequenceEntryXML expected = (KVSequenceEntryXML) marshaller.unmarshal(
+                new StreamSource(new ByteArrayInputStream(matchesXml)));
+
+        for (int batch = 0; batch < 5; batch++) {
+            final KVSequenceEntryXML matches = client.getMatches("00000000000000000000000000000001");
+            assertEquals(expected.getMatches(), matches.getMatches());
+        }
+        assertEquals(1, clientPorts.size(), "Sequential batches should reuse one kept-alive connection");
+        assertTrue(acceptEncodings.get(0).contains("gzip"));
+
+        final List<String> md5s = new ArrayList<>();
+        final int count = client.streamMatches(new MatchHttpClient.KVSequenceEntryHandler() {
+            @Override
+            public void handle(KVSequenceEntry kvSequenceEntry) {
+                md5s.add(kvSequenceEntry.getProteinMD5());
+            }
+        }, "00000000000000000000000000000001");
+        assertEquals(50, count);
+        assertEquals(String.format("%032X", 49), md5s.get(49));
+    }
+
+    @Test
+    public void testBinaryMatches() throws Exception {
+        client.setBinaryLookup(true);
+        final KVSequenceEntryXML matches = client.getMatches("00000000000000000000000000000002", "00000000000000000000000000000001");
+        assertEquals(2, matches.getMatches().size());
+        assertEquals("00000000000000000000000000000001", matches.getMatches().get(0).getProteinMD5(), "MD5s are requested sorted");
+
+        for (KVSequenceEntry entry : matches.getMatches()) {
+            final Map<String, SimpleLookupMatch> byLibrary = new HashMap<>();
+            for (SimpleLookupMatch match : entry.getLookupMatches()) {
+                byLibrary.put(match.getSignatureLibraryName(), match);
+            }
+            assertEquals(new SimpleLookupMatch(entry.getProteinMD5(), PFAM_HIT).toString(), byLibrary.get("PFAM").toString());
+            assertEquals(new SimpleLookupMatch(entry.getProteinMD5(), SFLD_HIT).toString(), byLibrary.get("SFLD").toString());
+            assertEquals("SFLDF00001", byLibrary.get("SFLD").getSeqFeature());
+            assertEquals(4.9E-21, byLibrary.get("PFAM").getSequenceEValue(), 0d);
+        }
+    }
+
+    @Test
+    public void testUnexpectedBinaryResponse() {
+        // Header and the start of a protein record, then the connection drops.
+        final byte[] truncated = {0x49, 0x35, 0x4C, 0x4D, 1, 1};
+        assertThrows(UnmarshallingFailureException.class, () -> MatchHttpClient.readBinaryEntries(
+                new ByteArrayInputStream(truncated), new MatchHttpClient.KVSequenceEntryHandler() {
+                    @Override
+                    public void handle(KVSequenceEntry kvSequenceEntry) {
+                    }
+                }));
+        assertThrows(UnmarshallingFailureException.class, () -> MatchHttpClient.readBinaryEntries(
+                new ByteArrayInputStream("<html/>".getBytes()), null));
+    }
+
+    @Test
+    public void testUnexpectedResponse() {
+        assertThrows(UnmarshallingFailureException.class, () -> client.getSites("00000000000000000000000000000001"));
+    }
+}
@@ -2,6 +2,7 @@ package uk.ac.ebi.interpro.scan.precalc.server.service;
 
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,6 +39,15 @@ public interface MatchesService {
      */
     List<KVSequenceEntry> getMatches(List<String> proteinMD5s);
 
+    /**
+     * As {@link #getMatches(List)}, but the MD5s are looked up in index order with a single
+     * cursor, and the matches are returned in that order.  Duplicated MD5s are looked up once.
+     *
+     * @param proteinMD5s md5 checksum of sequences, in any order.
+     * @return a List of matches for these proteins, ordered by MD5.
+     */
+    List<KVSequenceEntry> getMatchesInKeyOrder(Collection<String> proteinMD5s);
+
     /**
      * Web service request for a set of sites, based upon
      * protein MD5 sequence checksums.
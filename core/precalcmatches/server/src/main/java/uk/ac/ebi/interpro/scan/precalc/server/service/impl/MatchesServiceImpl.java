@@ -1,6 +1,13 @@
 package uk.ac.ebi.interpro.scan.precalc.server.service.impl;
 
+import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.SecondaryCursor;
 import com.sleepycat.persist.EntityCursor;
+import com.sleepycat.persist.SecondaryIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +20,9 @@ import uk.ac.ebi.interpro.scan.util.Utilities;
 import java.lang.InterruptedException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -155,6 +164,36 @@ public class MatchesServiceImpl implements MatchesService {
         return matches;
     }
 
+    @Override
+    public List<KVSequenceEntry> getMatchesInKeyOrder(Collection<String> proteinMD5s) {
+        final SecondaryIndex<String, Long, KVSequenceEntry> md5Index = berkeleyMatchDBService.getMD5Index();
+        Assert.notNull(md5Index, "The MD5 index must not be null.");
+        final EntryBinding<String> keyBinding = md5Index.getKeyBinding();
+        final EntityBinding<KVSequenceEntry> entityBinding = md5Index.getPrimaryIndex().getEntityBinding();
+        final DatabaseEntry key = new DatabaseEntry();
+        final DatabaseEntry primaryKey = new DatabaseEntry();
+        final DatabaseEntry data = new DatabaseEntry();
+        List<KVSequenceEntry> matches = new ArrayList<>();
+
+        // Seeking in key order keeps each search close to the previous one in the btree,
+        // rather than opening and closing an EntityCursor per MD5.
+        SecondaryCursor cursor = md5Index.getDatabase().openCursor(null, null);
+        try {
+            for (String md5 : new TreeSet<>(proteinMD5s)) {
+                keyBinding.objectToEntry(md5, key);
+                OperationStatus status = cursor.getSearchKey(key, primaryKey, data, LockMode.DEFAULT);
+                while (status == OperationStatus.SUCCESS) {
+                    matches.add(entityBinding.entryToObject(primaryKey, data));
+                    status = cursor.getNextDup(key, primaryKey, data, LockMode.DEFAULT);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return matches;
+    }
+
     public void countMatchesRequests(int md5Count, long timeToGetMatches){
         if (lock.isLocked()){
           //wait for few millis 
@@ -7,6 +7,7 @@ import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import uk.ac.ebi.interpro.scan.precalc.berkeley.model.BinaryLookupMatchFormat;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntry;
 import uk.ac.ebi.interpro.scan.precalc.berkeley.model.KVSequenceEntryXML;
 import uk.ac.ebi.interpro.scan.precalc.server.service.MatchesService;
@@ -16,6 +17,7 @@ import uk.ac.ebi.interpro.scan.util.Utilities;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Arrays;
 import java.util.List;
@@ -78,4 +80,38 @@ public class MatchesController {
             }
         }
     }
+
+    /**
+     * Bulk lookup for in-house mirrors: the same matches as {@link #getMatches}, read in MD5 order with one
+     * cursor and written in the BinaryLookupMatchFormat.
+     */
+    @RequestMapping("/binary")
+    public void getBinaryMatches(HttpServletResponse response,
+                                 @RequestParam(value = "md5", required = true) String[] md5Array) {
+        long startGetMatches = System.currentTimeMillis();
+        List<KVSequenceEntry> matches = matchService.getMatchesInKeyOrder(Arrays.asList(md5Array));
+        long timeToGetMatches = System.currentTimeMillis() - startGetMatches;
+        matchService.countMatchesRequests(md5Array.length, timeToGetMatches);
+
+        response.setContentType(BinaryLookupMatchFormat.CONTENT_TYPE);
+        OutputStream out = null;
+        try {
+            out = response.getOutputStream();
+            BinaryLookupMatchFormat.Writer writer = new BinaryLookupMatchFormat.Writer(out);
+            for (KVSequenceEntry match : matches) {
+                writer.writeEntry(match);
+            }
+            writer.finish();
+        } catch (IOException e) {
+            LOGGER.error("IOException thrown when attempting to output binary matches in response to query: ");
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    LOGGER.error("Unable to close the response OutputStream.");
+                }
+            }
+        }
+    }
 }